@@ -0,0 +1,113 @@
+package io.ortis.jsak.collection;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free FIFO queue (D. Vyukov's array based queue). Safe for multiple producers and multiple consumers, {@link #offer(Object)} and
+ * {@link #poll()} never block nor allocate.
+ * <p>
+ * Each slot holds a sequence number telling whether it is ready to be written (sequence = position) or read (sequence = position + 1)
+ *
+ * @param <E>
+ */
+public class ConcurrentRingBuffer<E>
+{
+	private final int mask;
+	private final AtomicReferenceArray<E> elements;
+	private final AtomicLongArray sequences;
+	private final AtomicLong head = new AtomicLong(0);
+	private final AtomicLong tail = new AtomicLong(0);
+
+	/**
+	 * @param capacity: min capacity of the buffer (rounded up to the next power of two)
+	 */
+	public ConcurrentRingBuffer(final int capacity)
+	{
+		if (capacity <= 0 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Capacity must be between 1 and " + (1 << 30));
+
+		final int length = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = length - 1;
+		this.elements = new AtomicReferenceArray<>(length);
+		this.sequences = new AtomicLongArray(length);
+		for (int i = 0; i < length; i++)
+			this.sequences.set(i, i);
+	}
+
+	/**
+	 * @return <code>false</code> if the buffer is full
+	 */
+	public boolean offer(final E element)
+	{
+		if (element == null)
+			throw new NullPointerException("Element is null");
+
+		long position = this.tail.get();
+		while (true)
+		{
+			final int index = (int) position & this.mask;
+			final long delta = this.sequences.get(index) - position;
+			if (delta == 0)
+			{
+				if (this.tail.compareAndSet(position, position + 1))
+				{
+					this.elements.lazySet(index, element);
+					this.sequences.set(index, position + 1);
+					return true;
+				}
+				position = this.tail.get();
+			} else if (delta < 0)
+				return false;// full
+			else
+				position = this.tail.get();// another producer took the slot
+		}
+	}
+
+	/**
+	 * @return the oldest element or <code>null</code> if the buffer is empty
+	 */
+	public E poll()
+	{
+		long position = this.head.get();
+		while (true)
+		{
+			final int index = (int) position & this.mask;
+			final long delta = this.sequences.get(index) - (position + 1);
+			if (delta == 0)
+			{
+				if (this.head.compareAndSet(position, position + 1))
+				{
+					final E element = this.elements.get(index);
+					this.elements.lazySet(index, null);
+					this.sequences.set(index, position + this.mask + 1);
+					return element;
+				}
+				position = this.head.get();
+			} else if (delta < 0)
+				return null;// empty
+			else
+				position = this.head.get();// another consumer took the slot
+		}
+	}
+
+	/**
+	 * @return approximate number of elements in the buffer
+	 */
+	public int size()
+	{
+		final long size = this.tail.get() - this.head.get();
+		return (int) Math.max(0, Math.min(size, capacity()));
+	}
+
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+
+	public int capacity()
+	{
+		return this.mask + 1;
+	}
+}
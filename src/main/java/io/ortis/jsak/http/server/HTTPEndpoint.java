@@ -2,6 +2,9 @@ package io.ortis.jsak.http.server;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import io.ortis.jsak.http.server.cache.HTTPResponseCache;
+import io.ortis.jsak.http.server.router.HTTPRoute;
+import io.ortis.jsak.http.server.router.HTTPRouter;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
@@ -9,6 +12,7 @@ import java.io.UnsupportedEncodingException;
 import java.net.InetSocketAddress;
 import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -26,10 +30,45 @@ public interface HTTPEndpoint
 
 	boolean isMatch(final String requestMethod, final Map<String, List<String>> requestHeaders, final String path);
 
+	/**
+	 * Routes served by this endpoint. Routed endpoints are dispatched through {@link HTTPRouter}.
+	 * Return <code>null</code> to be matched through {@link #isMatch(String, Map, String)} instead
+	 *
+	 * @return routes of this endpoint or <code>null</code>
+	 */
+	default List<HTTPRoute> getRoutes()
+	{
+		return null;
+	}
+
+	/**
+	 * Time to live of the response in {@link HTTPResponseCache}. Only successful <code>GET</code> responses are cached.
+	 * Return <code>null</code> if the response must not be cached
+	 *
+	 * @return time to live of the response or <code>null</code>
+	 */
+	default Duration getCacheTimeToLive(final String requestMethod, final Map<String, List<String>> requestHeaders, final String path,
+			final String query)
+	{
+		return null;
+	}
+
 	Response respond(final InetSocketAddress remoteHost, final String requestMethod, final Map<String, List<String>> requestHeaders,
 			final String path,
 			final String query, final InputStream requestBody);
 
+	/**
+	 * Respond to a request dispatched through one of the {@link #getRoutes()}. Override to use the values captured by the parameter and
+	 * wildcard segments of the route
+	 *
+	 * @param pathParameters: decoded values of the parameter segments by name (see {@link HTTPRouter.Match#getParameters()})
+	 */
+	default Response respond(final InetSocketAddress remoteHost, final String requestMethod, final Map<String, List<String>> requestHeaders,
+			final String path, final Map<String, String> pathParameters, final String query, final InputStream requestBody)
+	{
+		return respond(remoteHost, requestMethod, requestHeaders, path, query, requestBody);
+	}
+
 	public static class ErrorPayload
 	{
 		public String error;
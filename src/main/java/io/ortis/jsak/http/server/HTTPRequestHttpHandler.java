@@ -2,15 +2,19 @@ package io.ortis.jsak.http.server;
 
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import io.ortis.jsak.http.server.cache.HTTPResponseCache;
 import io.ortis.jsak.http.server.config.HTTPServerConfig;
 import io.ortis.jsak.io.Compression;
 import io.ortis.jsak.io.IOUtils;
+import io.ortis.jsak.io.compression.IdentityCodec;
 import io.ortis.jsak.http.server.limiter.HTTPLimiter;
+import io.ortis.jsak.http.server.router.HTTPRouter;
 import io.ortis.jsak.FormatUtils;
 
 import java.io.*;
 import java.math.BigInteger;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.*;
 import java.util.logging.Logger;
 
@@ -18,11 +22,14 @@ import java.util.logging.Logger;
 public class HTTPRequestHttpHandler implements HttpHandler
 {
 	private final String contextPath;
-	private final String contextPathUpperCase;
+	private final int contextPathLength;
 	private final HTTPServerConfig config;
 	private final List<HTTPEndpoint> endpoints;
-	private final Compression.Algorithm compressionAlgorithm;
+	private final HTTPRouter router;
+	private final List<HTTPEndpoint> unroutedEndpoints;
+	private final List<Compression.Codec> codecs;
 	private final HTTPLimiter limiter;
+	private final HTTPResponseCache cache;
 	private final int bufferLength;
 	private final Logger log;
 
@@ -36,15 +43,49 @@ public class HTTPRequestHttpHandler implements HttpHandler
 	public <E extends Collection<HTTPEndpoint>> HTTPRequestHttpHandler(final String contextPath, final HTTPServerConfig config, final E endpoints,
 			final Compression.Algorithm compressionAlgorithm, final HTTPLimiter limiter, final int bufferLength,
 			final Logger log)
+	{
+		this(contextPath, config, endpoints,
+				compressionAlgorithm == Compression.Algorithm.Raw ? List.of() : List.of(compressionAlgorithm.getCodec()), limiter,
+				bufferLength, log);
+	}
+
+	public <E extends Collection<HTTPEndpoint>> HTTPRequestHttpHandler(final HTTPServerConfig config, final E endpoints,
+			final List<Compression.Codec> codecs, final HTTPLimiter limiter, final int bufferLength, final Logger log)
+	{
+		this(null, config, endpoints, codecs, limiter, bufferLength, log);
+	}
+
+	public <E extends Collection<HTTPEndpoint>> HTTPRequestHttpHandler(final String contextPath, final HTTPServerConfig config, final E endpoints,
+			final List<Compression.Codec> codecs, final HTTPLimiter limiter, final int bufferLength, final Logger log)
+	{
+		this(contextPath, config, endpoints, codecs, limiter, null, bufferLength, log);
+	}
+
+	/**
+	 * @param codecs: compression codecs by order of preference. The codec is negotiated with the client through the <code>Accept-Encoding</code>
+	 *                header (see {@link Compression#negotiate(List, List)})
+	 * @param cache:  cache of the responses of the endpoints defining a time to live (<code>null</code> to disable caching)
+	 */
+	public <E extends Collection<HTTPEndpoint>> HTTPRequestHttpHandler(final String contextPath, final HTTPServerConfig config, final E endpoints,
+			final List<Compression.Codec> codecs, final HTTPLimiter limiter, final HTTPResponseCache cache, final int bufferLength,
+			final Logger log)
 	{
 		this.contextPath = contextPath;
-		this.contextPathUpperCase =
-				contextPath == null || contextPath.equals("/") ? "" : this.contextPath.toUpperCase(Locale.ENGLISH);
+		this.contextPathLength = contextPath == null || contextPath.equals("/") ? 0 : this.contextPath.length();
 
 		this.config = config;
 		this.endpoints = List.copyOf(endpoints);
-		this.compressionAlgorithm = compressionAlgorithm;
+		this.router = new HTTPRouter(this.endpoints);
+
+		final List<HTTPEndpoint> unroutedEndpoints = new ArrayList<>();
+		for (final HTTPEndpoint endpoint : this.endpoints)
+			if (endpoint.getRoutes() == null)
+				unroutedEndpoints.add(endpoint);
+		this.unroutedEndpoints = List.copyOf(unroutedEndpoints);
+
+		this.codecs = List.copyOf(codecs);
 		this.limiter = limiter;
+		this.cache = cache;
 		this.bufferLength = bufferLength;
 		this.log = log;
 	}
@@ -54,14 +95,13 @@ public class HTTPRequestHttpHandler implements HttpHandler
 	{
 		final byte[] buffer = new byte[this.bufferLength];
 
-		final String rawPath = httpExchange.getRequestURI().getPath();
-		final String rawUpperPath = rawPath.toUpperCase(Locale.ENGLISH);
-
-		final String upperPath = rawUpperPath.substring(this.contextPathUpperCase.length()).toUpperCase(Locale.ENGLISH);
-		final String path = rawPath.substring(rawPath.length() - upperPath.length());
+		// routes are matched on the raw path: an encoded '/' must not split a parameter segment
+		final String rawPath = httpExchange.getRequestURI().getRawPath();
+		final String requestPath = httpExchange.getRequestURI().getPath();
 		final String query = httpExchange.getRequestURI().getQuery();
 
 		HTTPEndpoint.Response response;
+		HTTPResponseCache.Entry cached = null;
 
 		final Map<String, List<String>> requestHeaders = new LinkedHashMap<>();
 		try
@@ -71,19 +111,25 @@ public class HTTPRequestHttpHandler implements HttpHandler
 			final String remoteHost = httpExchange.getRemoteAddress().getAddress().getHostAddress();
 
 			final String rejectReason;
+			Map<String, String> rejectHeaders = null;
 			{
 				final List<String> passList = this.config.getPassList();
 				final List<String> banList = this.config.getBanList();
 
 
-				this.log.finer("Request from " + remoteHost + " - " + rawPath);
+				this.log.finer("Request from " + remoteHost + " - " + requestPath);
 
 				if (passList != null && (passList.contains(remoteHost) || passList.contains("*")))
 					rejectReason = null;
 				else if (banList != null && (banList.contains(remoteHost) || banList.contains("*")))
 					rejectReason = "Banned";
 				else
-					rejectReason = this.limiter.onRequest(remoteHost, System.currentTimeMillis());
+				{
+					final long now = System.currentTimeMillis();
+					rejectReason = this.limiter.onRequest(remoteHost, now);
+					if (rejectReason != null)
+						rejectHeaders = this.limiter.getRejectionHeaders(remoteHost, now);
+				}
 			}
 
 
@@ -99,97 +145,102 @@ public class HTTPRequestHttpHandler implements HttpHandler
 					response = new HTTPEndpoint.Response(header, 200, new byte[0], false);
 				} else
 				{
+					final HTTPRouter.Match match = this.router.match(httpExchange.getRequestMethod(), rawPath, this.contextPathLength);
 					final HTTPEndpoint endpoint;
-					{
-						HTTPEndpoint match = null;
-						for (final HTTPEndpoint e : this.endpoints)
+					if (match != null)
+						endpoint = match.getEndpoint();
+					else if (!this.unroutedEndpoints.isEmpty())
+					{// fallback on endpoints without routes
+						HTTPEndpoint unrouted = null;
+						final String upperPath = requestPath.substring(this.contextPathLength).toUpperCase(Locale.ENGLISH);
+						for (final HTTPEndpoint e : this.unroutedEndpoints)
 							if (e.isMatch(httpExchange.getRequestMethod(), requestHeaders, upperPath))
 							{
-								match = e;
+								unrouted = e;
 								break;
 							}
 
-						endpoint = match;
-					}
+						endpoint = unrouted;
+					} else
+						endpoint = null;
 
 					if (endpoint == null)
 						response = HTTPEndpoint.Response.http404NotFound();
 					else
-						response = endpoint.respond(httpExchange.getRemoteAddress(), httpExchange.getRequestMethod(), requestHeaders, path, query,
-								httpExchange.getRequestBody());
+					{
+						final String path = requestPath.substring(this.contextPathLength);
+						final Duration timeToLive =
+								this.cache == null || !httpExchange.getRequestMethod().equals(HTTPEndpoint.HTTP_METHOD_GET) ? null :
+								endpoint.getCacheTimeToLive(httpExchange.getRequestMethod(), requestHeaders, path, query);
+						final Compression.Codec codec =
+								timeToLive == null ? null : Compression.negotiate(getHeader("Accept-Encoding", requestHeaders), this.codecs);
+						final HTTPResponseCache.Key cacheKey = codec == null ? null : new HTTPResponseCache.Key(endpoint, path, query, codec.getName());
+
+						final HTTPResponseCache.Entry entry = cacheKey == null ? null : this.cache.get(cacheKey, System.currentTimeMillis());
+						if (entry == null)
+						{
+							response = match == null ?
+									endpoint.respond(httpExchange.getRemoteAddress(), httpExchange.getRequestMethod(), requestHeaders, path, query,
+											httpExchange.getRequestBody()) :
+									endpoint.respond(httpExchange.getRemoteAddress(), httpExchange.getRequestMethod(), requestHeaders, path,
+											match.getParameters(), query, httpExchange.getRequestBody());
+
+							if (cacheKey != null)
+								cached = cache(cacheKey, response, codec, timeToLive, buffer);
+						} else
+						{
+							this.log.finest("Cache hit - " + requestPath);
+							response = null;
+							cached = entry;
+						}
+					}
 				}
 			} else
-				response = new HTTPEndpoint.Response(HTTPEndpoint.Response.EMPTY_HEADERS, 429,
-						rejectReason.getBytes(StandardCharsets.UTF_8), false);
+				response = HTTPEndpoint.Response.http429TooManyRequests(
+						rejectHeaders == null ? HTTPEndpoint.Response.EMPTY_HEADERS : rejectHeaders, rejectReason);
 
 		} catch (final Exception e)
 		{
 			this.log.severe("Error while processing request - " + FormatUtils.formatException(e));
 			response = HTTPEndpoint.Response.http500InternalError(FormatUtils.formatExceptionMessage(e));
+			cached = null;
 		}
 
 		try
 		{
-			response.getHeaders().forEach((k, v) -> httpExchange.getResponseHeaders().add(k, v));
-			for (final Map.Entry<String, String> header : this.config.getIncludeHttpResponseHeaders().entrySet())
-				httpExchange.getResponseHeaders().set(header.getKey(), header.getValue());
-
-			respond:
-			if (response.isCompressible())
+			(cached == null ? response.getHeaders() : cached.getHeaders()).forEach((k, v) -> httpExchange.getResponseHeaders().add(k, v));
+			final Map<String, String> includeHeaders = this.config.getIncludeHttpResponseHeaders();
+			if (includeHeaders != null)
+				for (final Map.Entry<String, String> header : includeHeaders.entrySet())
+					httpExchange.getResponseHeaders().set(header.getKey(), header.getValue());
+
+			if (cached != null)
+				sendCachedResponse(cached, requestHeaders, httpExchange);
+			else if (response.isCompressible())
 			{
-				switch (this.compressionAlgorithm)
-				{
-					case Gzip:
-
-						gzip:
-						{// check gzip support
-							for (final Map.Entry<String, List<String>> header : requestHeaders.entrySet())
-								if (header.getKey().toUpperCase(Locale.ENGLISH).trim().equals("ACCEPT-ENCODING"))
-								{
-									for (final String encoding : header.getValue())
-										if (encoding.trim().toUpperCase(Locale.ENGLISH).contains("GZIP"))
-											break gzip;
-								}
-
-							final HTTPEndpoint.Response gzipMissing =
-									new HTTPEndpoint.Response(HTTPEndpoint.Response.EMPTY_HEADERS,
-											406 /* Not acceptable */, HTTPEndpoint.Response.GSON
-											.toJson(new HTTPEndpoint.ErrorPayload("Client must accept gzip encoding"))
-											.getBytes(StandardCharsets.UTF_8), false);
-							sendResponse(gzipMissing.getCode(), gzipMissing.getPayload(),
-									gzipMissing.getPayloadLength(), buffer, httpExchange);
-							break respond;
-						}
-
-						httpExchange.getResponseHeaders().add("Content-Encoding", "gzip");
-						break;
-
-					case Raw:
-						break;
-
-					default:
-						throw new RuntimeException("Unhandled compression algo " + this.compressionAlgorithm);
-				}
-
-				final byte[] compressedPayload;
-				try (final ByteArrayOutputStream baos = new ByteArrayOutputStream())
-				{
-					Compression.deflate(this.compressionAlgorithm, response.getPayload(), baos, buffer);
-					compressedPayload = baos.toByteArray();
-				}
-
-				try (final ByteArrayInputStream bais = new ByteArrayInputStream(compressedPayload))
+				final Compression.Codec codec = Compression.negotiate(getHeader("Accept-Encoding", requestHeaders), this.codecs);
+
+				if (codec == null)
+				{// identity explicitly refused
+					final HTTPEndpoint.Response notAcceptable =
+							new HTTPEndpoint.Response(HTTPEndpoint.Response.EMPTY_HEADERS,
+									406 /* Not acceptable */, HTTPEndpoint.Response.GSON
+									.toJson(new HTTPEndpoint.ErrorPayload("Client does not accept any supported encoding"))
+									.getBytes(StandardCharsets.UTF_8), false);
+					sendResponse(notAcceptable.getCode(), notAcceptable.getPayload(),
+							notAcceptable.getPayloadLength(), buffer, httpExchange);
+				} else if (codec.isIdentity())
+					sendResponse(response.getCode(), response.getPayload(), response.getPayloadLength(), buffer, httpExchange);
+				else
 				{
-					sendResponse(response.getCode(), bais, compressedPayload.length, buffer, httpExchange);
+					httpExchange.getResponseHeaders().add("Content-Encoding", codec.getName());
+					httpExchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+					sendCompressedResponse(response.getCode(), codec, response.getPayload(), buffer, httpExchange);
 				}
 			} else
 				sendResponse(response.getCode(), response.getPayload(), response.getPayloadLength(), buffer,
 						httpExchange);
 
-
-			if (response.getPayloadLength() > 4 * 1024 * 1024)
-				System.gc();
-
 		} catch (Exception e)
 		{
 			if (!FormatUtils.formatExceptionMessage(e).contains("An established connection was aborted"))
@@ -208,6 +259,76 @@ public class HTTPRequestHttpHandler implements HttpHandler
 		}
 	}
 
+	/**
+	 * Compress the payload directly into the response body using chunked transfer encoding.
+	 * Memory usage is bounded by the buffer length whatever the size of the payload
+	 */
+	private void sendCompressedResponse(final int httpCode, final Compression.Codec codec, final InputStream inputStream, final byte[] buffer,
+			final HttpExchange httpExchange) throws IOException
+	{
+		httpExchange.sendResponseHeaders(httpCode, 0);
+		try (final OutputStream os = httpExchange.getResponseBody())
+		{
+			// closing the compression stream terminates the chunked response body
+			Compression.deflate(codec, inputStream, os, buffer);
+		}
+	}
+
+	/**
+	 * Encode the payload of a successful response and put it in cache
+	 *
+	 * @return the encoded response or <code>null</code> if the response cannot be cached
+	 */
+	private HTTPResponseCache.Entry cache(final HTTPResponseCache.Key key, final HTTPEndpoint.Response response, final Compression.Codec codec,
+			final Duration timeToLive, final byte[] buffer) throws IOException
+	{
+		if (response.getCode() != 200 || response.getPayloadLength() < 0 || response.getPayloadLength() > this.cache.getMaxEntryLength())
+			return null;
+
+		final Compression.Codec encoding = response.isCompressible() ? codec : IdentityCodec.INSTANCE;
+		final byte[] payload;
+		try (final ByteArrayOutputStream baos = new ByteArrayOutputStream((int) response.getPayloadLength()))
+		{
+			Compression.deflate(encoding, response.getPayload(), baos, buffer);
+			payload = baos.toByteArray();
+		}
+
+		return this.cache.put(key, response.getCode(), response.getHeaders(), payload, encoding.getName(), timeToLive, System.currentTimeMillis());
+	}
+
+	private void sendCachedResponse(final HTTPResponseCache.Entry entry, final Map<String, List<String>> requestHeaders,
+			final HttpExchange httpExchange) throws IOException
+	{
+		httpExchange.getResponseHeaders().set("ETag", entry.getETag());
+		httpExchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+
+		if (HTTPResponseCache.isNoneMatch(getHeader("If-None-Match", requestHeaders), entry.getETag()))
+		{
+			httpExchange.sendResponseHeaders(304 /* Not modified */, -1);
+			httpExchange.close();
+			return;
+		}
+
+		if (!entry.getEncoding().equals(Compression.IDENTITY))
+			httpExchange.getResponseHeaders().add("Content-Encoding", entry.getEncoding());
+
+		final byte[] payload = entry.getPayload();
+		httpExchange.sendResponseHeaders(entry.getCode(), payload.length == 0 ? -1 : payload.length);
+		try (final OutputStream os = httpExchange.getResponseBody())
+		{
+			os.write(payload);
+		}
+	}
+
+	private static List<String> getHeader(final String name, final Map<String, List<String>> headers)
+	{
+		for (final Map.Entry<String, List<String>> header : headers.entrySet())
+			if (header.getKey() != null && header.getKey().trim().equalsIgnoreCase(name))
+				return header.getValue();
+
+		return null;
+	}
+
 	private static String getBlockName(final BigInteger height)
 	{
 		final StringBuilder sb = new StringBuilder(height.toString(16));
@@ -0,0 +1,272 @@
+package io.ortis.jsak.http.server.cache;
+
+import io.ortis.jsak.http.server.HTTPEndpoint;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Cache of encoded (i.e. already compressed) response payloads. Entries are evicted when expired or, least recently used first, when the total
+ * size of the cached payloads exceeds the max size.
+ */
+public class HTTPResponseCache
+{
+	private final long maxSize;
+	private final int maxEntryLength;
+
+	private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+	private long size = 0;
+
+	/**
+	 * @param maxSize:        max total length of the cached payloads
+	 * @param maxEntryLength: max length of a payload to be cached
+	 */
+	public HTTPResponseCache(final long maxSize, final int maxEntryLength)
+	{
+		this.maxSize = maxSize;
+		if (this.maxSize <= 0)
+			throw new IllegalArgumentException("Max size must be greater than 0");
+
+		this.maxEntryLength = maxEntryLength;
+		if (this.maxEntryLength <= 0 || this.maxEntryLength > this.maxSize)
+			throw new IllegalArgumentException("Max entry length must be greater than 0 and lower than max size");
+	}
+
+	/**
+	 * @return the cached entry or <code>null</code> if absent or expired
+	 */
+	public Entry get(final Key key, final long now)
+	{
+		synchronized (this.entries)
+		{
+			final Entry entry = this.entries.get(key);
+			if (entry == null)
+				return null;
+
+			if (entry.isExpired(now))
+			{
+				remove(key);
+				return null;
+			}
+
+			return entry;
+		}
+	}
+
+	/**
+	 * Cache an encoded payload
+	 *
+	 * @param payload:  encoded payload (must not be modified afterwards)
+	 * @param encoding: content coding of the payload
+	 * @return the new entry (not cached if the payload is too large)
+	 */
+	public Entry put(final Key key, final int code, final Map<String, String> headers, final byte[] payload, final String encoding,
+			final Duration timeToLive, final long now)
+	{
+		final Entry entry = new Entry(code, headers, payload, encoding, computeETag(payload), now + timeToLive.toMillis());
+		if (payload.length > this.maxEntryLength)
+			return entry;
+
+		synchronized (this.entries)
+		{
+			remove(key);
+			this.entries.put(key, entry);
+			this.size += payload.length;
+
+			final Iterator<Map.Entry<Key, Entry>> iterator = this.entries.entrySet().iterator();
+			while (this.size > this.maxSize && iterator.hasNext())
+			{
+				final Entry eldest = iterator.next().getValue();
+				iterator.remove();
+				this.size -= eldest.getPayload().length;
+			}
+		}
+
+		return entry;
+	}
+
+	/**
+	 * Remove expired entries
+	 */
+	public void clean(final long now)
+	{
+		synchronized (this.entries)
+		{
+			final Iterator<Map.Entry<Key, Entry>> iterator = this.entries.entrySet().iterator();
+			while (iterator.hasNext())
+			{
+				final Entry entry = iterator.next().getValue();
+				if (entry.isExpired(now))
+				{
+					iterator.remove();
+					this.size -= entry.getPayload().length;
+				}
+			}
+		}
+	}
+
+	public void clear()
+	{
+		synchronized (this.entries)
+		{
+			this.entries.clear();
+			this.size = 0;
+		}
+	}
+
+	public int count()
+	{
+		synchronized (this.entries)
+		{
+			return this.entries.size();
+		}
+	}
+
+	public long size()
+	{
+		synchronized (this.entries)
+		{
+			return this.size;
+		}
+	}
+
+	public long getMaxSize()
+	{
+		return this.maxSize;
+	}
+
+	public int getMaxEntryLength()
+	{
+		return this.maxEntryLength;
+	}
+
+	private void remove(final Key key)
+	{
+		final Entry previous = this.entries.remove(key);
+		if (previous != null)
+			this.size -= previous.getPayload().length;
+	}
+
+	/**
+	 * @return <code>true</code> if one of the <code>If-None-Match</code> header values match <code>etag</code>
+	 */
+	public static boolean isNoneMatch(final List<String> ifNoneMatch, final String etag)
+	{
+		if (ifNoneMatch == null)
+			return false;
+
+		for (final String header : ifNoneMatch)
+			for (String tag : header.split(","))
+			{
+				tag = tag.trim();
+				if (tag.startsWith("W/"))
+					tag = tag.substring(2);
+
+				if (tag.equals("*") || tag.equals(etag))
+					return true;
+			}
+
+		return false;
+	}
+
+	public static String computeETag(final byte[] payload)
+	{
+		final CRC32C crc = new CRC32C();
+		crc.update(payload, 0, payload.length);
+		return "\"" + Integer.toHexString(payload.length) + "-" + Long.toHexString(crc.getValue()) + "\"";
+	}
+
+	public static final class Key
+	{
+		private final HTTPEndpoint endpoint;
+		private final String path;
+		private final String query;
+		private final String encoding;
+		private final int hashCode;
+
+		public Key(final HTTPEndpoint endpoint, final String path, final String query, final String encoding)
+		{
+			this.endpoint = endpoint;
+			this.path = path;
+			this.query = query;
+			this.encoding = encoding;
+			this.hashCode = Objects.hash(System.identityHashCode(this.endpoint), this.path, this.query, this.encoding);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return this.hashCode;
+		}
+
+		@Override
+		public boolean equals(final Object o)
+		{
+			if (this == o)
+				return true;
+			if (o == null || getClass() != o.getClass())
+				return false;
+
+			final Key other = (Key) o;
+			return this.endpoint == other.endpoint && Objects.equals(this.path, other.path) && Objects.equals(this.query, other.query) &&
+				   Objects.equals(this.encoding, other.encoding);
+		}
+	}
+
+	public static final class Entry
+	{
+		private final int code;
+		private final Map<String, String> headers;
+		private final byte[] payload;
+		private final String encoding;
+		private final String etag;
+		private final long expiration;
+
+		private Entry(final int code, final Map<String, String> headers, final byte[] payload, final String encoding, final String etag,
+				final long expiration)
+		{
+			this.code = code;
+			this.headers = headers == null ? HTTPEndpoint.Response.EMPTY_HEADERS : Map.copyOf(headers);
+			this.payload = payload;
+			this.encoding = encoding;
+			this.etag = etag;
+			this.expiration = expiration;
+		}
+
+		public boolean isExpired(final long now)
+		{
+			return now >= this.expiration;
+		}
+
+		public int getCode()
+		{
+			return this.code;
+		}
+
+		public Map<String, String> getHeaders()
+		{
+			return this.headers;
+		}
+
+		public byte[] getPayload()
+		{
+			return this.payload;
+		}
+
+		public String getEncoding()
+		{
+			return this.encoding;
+		}
+
+		public String getETag()
+		{
+			return this.etag;
+		}
+
+		public long getExpiration()
+		{
+			return this.expiration;
+		}
+	}
+}
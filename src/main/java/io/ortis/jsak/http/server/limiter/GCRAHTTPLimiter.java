@@ -0,0 +1,94 @@
+package io.ortis.jsak.http.server.limiter;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generic cell rate algorithm limiter: a host is allowed one request every <code>refillPeriod</code> with bursts of up to <code>capacity</code>
+ * requests. Equivalent to a token bucket refilled continuously, but the only state kept per host is its theoretical arrival time (TAT)
+ */
+public class GCRAHTTPLimiter implements HTTPLimiter
+{
+	private static final long REMOVED = Long.MIN_VALUE;
+
+	private final int capacity;
+	private final long refillPeriod;
+	/**
+	 * Max advance of the TAT over the current time
+	 */
+	private final long tolerance;
+
+	private final Map<String, AtomicLong> tats = new ConcurrentHashMap<>();
+
+	public GCRAHTTPLimiter(final int capacity, final Duration refillPeriod)
+	{
+		this.capacity = capacity;
+		if (this.capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be greater than 0");
+
+		this.refillPeriod = refillPeriod.toMillis();
+		if (this.refillPeriod <= 0)
+			throw new IllegalArgumentException("Refill period must be greater than 0");
+
+		this.tolerance = Math.multiplyExact(this.refillPeriod, this.capacity);
+	}
+
+	@Override
+	public String onRequest(final String host, final long now)
+	{
+		while (true)
+		{
+			AtomicLong tat = this.tats.get(host);
+			if (tat == null)
+				tat = this.tats.computeIfAbsent(host, h -> new AtomicLong(now));
+
+			final long state = tat.get();
+			if (state == REMOVED)
+				continue;// concurrently cleaned
+
+			final long next = Math.max(state, now) + this.refillPeriod;
+			if (next - now > this.tolerance)
+				return HTTPLimiter.formatRejection(next - now - this.tolerance);
+
+			if (tat.compareAndSet(state, next))
+				return null;
+		}
+	}
+
+	@Override
+	public Map<String, String> getRejectionHeaders(final String host, final long now)
+	{
+		final AtomicLong tat = this.tats.get(host);
+		final long state = tat == null ? REMOVED : tat.get();
+		final long advance = state == REMOVED ? 0 : Math.max(0, state - now);
+
+		final long remaining = (this.tolerance - advance) / this.refillPeriod;
+		return HTTPLimiter.rateLimitHeaders(this.capacity, remaining, Math.max(0, advance + this.refillPeriod - this.tolerance), advance);
+	}
+
+	@Override
+	public void clean(final long now)
+	{
+		final Iterator<AtomicLong> iterator = this.tats.values().iterator();
+		while (iterator.hasNext())
+		{
+			final AtomicLong tat = iterator.next();
+			final long state = tat.get();
+			if (state != REMOVED && state <= now && tat.compareAndSet(state, REMOVED))
+				iterator.remove();// TAT in the past is equivalent to no TAT
+		}
+	}
+
+	public int getCapacity()
+	{
+		return this.capacity;
+	}
+
+	public Duration getRefillPeriod()
+	{
+		return Duration.ofMillis(this.refillPeriod);
+	}
+}
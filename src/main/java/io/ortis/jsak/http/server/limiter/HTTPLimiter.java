@@ -6,7 +6,9 @@ import com.google.gson.JsonParser;
 import io.ortis.jsak.JsonUtils;
 
 import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Locale;
+import java.util.Map;
 
 public interface HTTPLimiter
 {
@@ -14,6 +16,45 @@ public interface HTTPLimiter
 
 	void clean(final long now);
 
+	/**
+	 * Headers to include in the response of a request rejected by {@link #onRequest(String, long)} (<code>Retry-After</code>,
+	 * <code>RateLimit-*</code>...)
+	 *
+	 * @return headers or <code>null</code>
+	 */
+	default Map<String, String> getRejectionHeaders(final String host, final long now)
+	{
+		return null;
+	}
+
+	/**
+	 * @param limit:            max number of requests of the quota
+	 * @param remaining:        number of requests left in the quota
+	 * @param retryAfterMillis: time until the next request is allowed
+	 * @param resetMillis:      time until the quota is fully restored
+	 * @return <code>Retry-After</code> and <code>RateLimit-*</code> headers
+	 */
+	public static Map<String, String> rateLimitHeaders(final long limit, final long remaining, final long retryAfterMillis, final long resetMillis)
+	{
+		final Map<String, String> headers = new LinkedHashMap<>();
+		headers.put("Retry-After", Long.toString(toSeconds(retryAfterMillis)));
+		headers.put("RateLimit-Limit", Long.toString(limit));
+		headers.put("RateLimit-Remaining", Long.toString(remaining));
+		headers.put("RateLimit-Reset", Long.toString(toSeconds(resetMillis)));
+
+		return headers;
+	}
+
+	public static String formatRejection(final long waitMillis)
+	{
+		return "Too many requests (wait " + toSeconds(waitMillis) + " seconds)";
+	}
+
+	private static long toSeconds(final long millis)
+	{
+		return millis <= 0 ? 0 : (millis + 999) / 1000;
+	}
+
 	public static int parseCleanScheduleMinutes(final String serial)
 	{
 		final JsonObject bean = JsonParser.parseString(serial).getAsJsonObject();
@@ -49,6 +90,25 @@ public interface HTTPLimiter
 			final Duration timeFrame = Duration.parse(JsonUtils.parseJsonElement(config, "timeFrame").getAsString());
 
 			return new TimeHTTPLimiter(strikes, timeFrame);
+		} else if (uppercaseType.equals(SlidingWindowHTTPLimiter.class.getSimpleName().toUpperCase(Locale.ENGLISH)))
+		{
+			final int strikes = JsonUtils.parseJsonElement(config, "strikes").getAsInt();
+			final Duration timeFrame = Duration.parse(JsonUtils.parseJsonElement(config, "timeFrame").getAsString());
+
+			return new SlidingWindowHTTPLimiter(strikes, timeFrame);
+		} else if (uppercaseType.equals(TokenBucketHTTPLimiter.class.getSimpleName().toUpperCase(Locale.ENGLISH)))
+		{
+			final int capacity = JsonUtils.parseJsonElement(config, "capacity").getAsInt();
+			final int refillTokens = JsonUtils.parseJsonElement(config, "refillTokens").getAsInt();
+			final Duration refillPeriod = Duration.parse(JsonUtils.parseJsonElement(config, "refillPeriod").getAsString());
+
+			return new TokenBucketHTTPLimiter(capacity, refillTokens, refillPeriod);
+		} else if (uppercaseType.equals(GCRAHTTPLimiter.class.getSimpleName().toUpperCase(Locale.ENGLISH)))
+		{
+			final int capacity = JsonUtils.parseJsonElement(config, "capacity").getAsInt();
+			final Duration refillPeriod = Duration.parse(JsonUtils.parseJsonElement(config, "refillPeriod").getAsString());
+
+			return new GCRAHTTPLimiter(capacity, refillPeriod);
 		} else if (uppercaseType.equals(NoLimitHTTPLimiter.class.getSimpleName().toUpperCase(Locale.ENGLISH)))
 			return new NoLimitHTTPLimiter();
 
@@ -6,6 +6,7 @@ import io.ortis.jsak.http.server.limiter.config.HTTPLimiterConfig;
 import io.ortis.jsak.FormatUtils;
 
 import java.time.Duration;
+import java.util.Map;
 import java.util.logging.Logger;
 
 public class HTTPLimiterWrapper implements HTTPLimiter, Runnable
@@ -115,6 +116,12 @@ public class HTTPLimiterWrapper implements HTTPLimiter, Runnable
 		return this.limiter.onRequest(host, now);
 	}
 
+	@Override
+	public Map<String, String> getRejectionHeaders(final String host, final long now)
+	{
+		return this.limiter.getRejectionHeaders(host, now);
+	}
+
 	@Override
 	public void clean(final long now)
 	{
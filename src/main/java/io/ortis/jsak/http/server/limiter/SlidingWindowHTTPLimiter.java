@@ -0,0 +1,171 @@
+package io.ortis.jsak.http.server.limiter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sliding window limiter: a host cannot perform more than <code>strikes</code> requests within <code>timeFrame</code>.
+ * Same behavior as {@link TimeHTTPLimiter} but without global lock: each host keeps the timestamps of its last <code>strikes</code> requests in a
+ * primitive ring buffer, making a check O(1) and allocation free.
+ * <p>
+ * Not lock-free: a check synchronizes on the record of the host (uncontended unless the same host sends concurrent requests). Requests of
+ * different hosts never contend
+ */
+public class SlidingWindowHTTPLimiter implements HTTPLimiter
+{
+	private final int strikes;
+	private final long timeFrame;
+
+	private final Map<String, Record> records = new ConcurrentHashMap<>();
+
+	public SlidingWindowHTTPLimiter(final int strikes, final Duration timeFrame)
+	{
+		this.strikes = strikes;
+		if (this.strikes <= 0)
+			throw new IllegalArgumentException("Strikes must be greater than 0");
+
+		this.timeFrame = timeFrame.toMillis();
+		if (this.timeFrame <= 0)
+			throw new IllegalArgumentException("Time frame must be greater than 0");
+	}
+
+	@Override
+	public String onRequest(final String host, final long now)
+	{
+		final long after = now - this.timeFrame;
+		while (true)
+		{
+			Record record = this.records.get(host);
+			if (record == null)
+				record = this.records.computeIfAbsent(host, h -> new Record(this.strikes));
+
+			synchronized (record)
+			{
+				if (record.isRemoved())
+					continue;// concurrently cleaned
+
+				final long oldest = record.checkAndAdd(after, now);
+				if (oldest == Long.MIN_VALUE)
+					return null;
+
+				return HTTPLimiter.formatRejection(oldest - after);
+			}
+		}
+	}
+
+	@Override
+	public Map<String, String> getRejectionHeaders(final String host, final long now)
+	{
+		final long after = now - this.timeFrame;
+		final Record record = this.records.get(host);
+		if (record == null)
+			return HTTPLimiter.rateLimitHeaders(this.strikes, this.strikes, 0, 0);
+
+		synchronized (record)
+		{
+			final long oldest = record.getOldest();
+			final long latest = record.getLatest();
+			return HTTPLimiter.rateLimitHeaders(this.strikes, record.countBefore(after), oldest > after ? oldest - after : 0,
+					latest > after ? latest - after : 0);
+		}
+	}
+
+	@Override
+	public void clean(final long now)
+	{
+		final long after = now - this.timeFrame;
+		final Iterator<Record> iterator = this.records.values().iterator();
+		while (iterator.hasNext())
+		{
+			final Record record = iterator.next();
+			synchronized (record)
+			{
+				if (record.getLatest() <= after)
+				{
+					record.remove();
+					iterator.remove();
+				}
+			}
+		}
+	}
+
+	public int getStrikes()
+	{
+		return this.strikes;
+	}
+
+	public Duration getTimeFrame()
+	{
+		return Duration.ofMillis(this.timeFrame);
+	}
+
+	private static class Record
+	{
+		private final long[] timestamps;
+		/**
+		 * Index of the oldest timestamp (i.e. the next to be overwritten)
+		 */
+		private int head = 0;
+		private boolean removed = false;
+
+		public Record(final int strikes)
+		{
+			this.timestamps = new long[strikes];
+			Arrays.fill(this.timestamps, Long.MIN_VALUE);
+		}
+
+		/**
+		 * Record the request if the window is not full
+		 *
+		 * @return {@link Long#MIN_VALUE} if the request is accepted, the oldest timestamp of the window otherwise
+		 */
+		public long checkAndAdd(final long after, final long now)
+		{
+			final long oldest = this.timestamps[this.head];
+			if (oldest > after)
+				return oldest;
+
+			this.timestamps[this.head] = now;
+			if (++this.head == this.timestamps.length)
+				this.head = 0;
+
+			return Long.MIN_VALUE;
+		}
+
+		/**
+		 * @return number of timestamps lower or equal to <code>after</code> (i.e. free slots of the window)
+		 */
+		public int countBefore(final long after)
+		{
+			int count = 0;
+			for (final long timestamp : this.timestamps)
+				if (timestamp <= after)
+					count++;
+
+			return count;
+		}
+
+		public long getOldest()
+		{
+			return this.timestamps[this.head];
+		}
+
+		public long getLatest()
+		{
+			return this.timestamps[(this.head == 0 ? this.timestamps.length : this.head) - 1];
+		}
+
+		public boolean isRemoved()
+		{
+			return this.removed;
+		}
+
+		public void remove()
+		{
+			this.removed = true;
+		}
+	}
+}
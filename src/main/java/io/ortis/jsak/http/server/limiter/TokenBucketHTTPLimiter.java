@@ -0,0 +1,147 @@
+package io.ortis.jsak.http.server.limiter;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket limiter: each host owns a bucket of <code>capacity</code> tokens, refilled with <code>refillTokens</code> tokens every
+ * <code>refillPeriod</code>. A request consumes one token and is rejected when the bucket is empty. Unlike {@link TimeHTTPLimiter}, a burst only
+ * blocks a host until the next refill.
+ * <p>
+ * The state of a bucket is packed in a single long (refill period index and tokens) updated with CAS
+ */
+public class TokenBucketHTTPLimiter implements HTTPLimiter
+{
+	public static final int MAX_CAPACITY = (1 << 20) - 1;
+
+	private static final int TOKENS_BITS = 20;
+	private static final long TOKENS_MASK = (1L << TOKENS_BITS) - 1;
+	private static final long REMOVED = -1;
+
+	private final int capacity;
+	private final int refillTokens;
+	private final long refillPeriod;
+
+	private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+	public TokenBucketHTTPLimiter(final int capacity, final int refillTokens, final Duration refillPeriod)
+	{
+		this.capacity = capacity;
+		if (this.capacity <= 0 || this.capacity > MAX_CAPACITY)
+			throw new IllegalArgumentException("Capacity must be between 1 and " + MAX_CAPACITY);
+
+		this.refillTokens = refillTokens;
+		if (this.refillTokens <= 0)
+			throw new IllegalArgumentException("Refill tokens must be greater than 0");
+
+		this.refillPeriod = refillPeriod.toMillis();
+		if (this.refillPeriod <= 0)
+			throw new IllegalArgumentException("Refill period must be greater than 0");
+	}
+
+	@Override
+	public String onRequest(final String host, final long now)
+	{
+		final long period = now / this.refillPeriod;
+		while (true)
+		{
+			AtomicLong bucket = this.buckets.get(host);
+			if (bucket == null)
+				bucket = this.buckets.computeIfAbsent(host, h -> new AtomicLong(pack(period, this.capacity)));
+
+			final long state = bucket.get();
+			if (state == REMOVED)
+				continue;// concurrently cleaned
+
+			final long lastPeriod = Math.max(period, periodOf(state));
+			final int tokens = tokensAt(state, period);
+			if (tokens == 0)
+				return HTTPLimiter.formatRejection((lastPeriod + 1) * this.refillPeriod - now);
+
+			if (bucket.compareAndSet(state, pack(lastPeriod, tokens - 1)))
+				return null;
+		}
+	}
+
+	@Override
+	public Map<String, String> getRejectionHeaders(final String host, final long now)
+	{
+		final long period = now / this.refillPeriod;
+		final AtomicLong bucket = this.buckets.get(host);
+		final long state = bucket == null ? REMOVED : bucket.get();
+		if (state == REMOVED)
+			return HTTPLimiter.rateLimitHeaders(this.capacity, this.capacity, 0, 0);
+
+		final long lastPeriod = Math.max(period, periodOf(state));
+		final int tokens = tokensAt(state, period);
+		final long nextRefill = (lastPeriod + 1) * this.refillPeriod - now;
+		final long missingRefills = (this.capacity - tokens + this.refillTokens - 1) / this.refillTokens;
+
+		return HTTPLimiter.rateLimitHeaders(this.capacity, tokens, tokens > 0 ? 0 : nextRefill,
+				missingRefills == 0 ? 0 : nextRefill + (missingRefills - 1) * this.refillPeriod);
+	}
+
+	@Override
+	public void clean(final long now)
+	{
+		final long period = now / this.refillPeriod;
+		final Iterator<AtomicLong> iterator = this.buckets.values().iterator();
+		while (iterator.hasNext())
+		{
+			final AtomicLong bucket = iterator.next();
+			final long state = bucket.get();
+			if (state != REMOVED && tokensAt(state, period) == this.capacity && bucket.compareAndSet(state, REMOVED))
+				iterator.remove();// full bucket is equivalent to no bucket
+		}
+	}
+
+	public int getCapacity()
+	{
+		return this.capacity;
+	}
+
+	public int getRefillTokens()
+	{
+		return this.refillTokens;
+	}
+
+	public Duration getRefillPeriod()
+	{
+		return Duration.ofMillis(this.refillPeriod);
+	}
+
+	/**
+	 * @return number of tokens in the bucket at <code>period</code>
+	 */
+	private int tokensAt(final long state, final long period)
+	{
+		final long elapsed = period - periodOf(state);
+		final int tokens = tokensOf(state);
+		if (elapsed <= 0)
+			return tokens;
+
+		// avoid overflow on long inactivity
+		if (elapsed >= this.capacity)
+			return this.capacity;
+
+		return (int) Math.min(this.capacity, tokens + elapsed * this.refillTokens);
+	}
+
+	private static long pack(final long period, final int tokens)
+	{
+		return (period << TOKENS_BITS) | tokens;
+	}
+
+	private static long periodOf(final long state)
+	{
+		return state >>> TOKENS_BITS;
+	}
+
+	private static int tokensOf(final long state)
+	{
+		return (int) (state & TOKENS_MASK);
+	}
+}
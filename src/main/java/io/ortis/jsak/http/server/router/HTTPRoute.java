@@ -0,0 +1,134 @@
+package io.ortis.jsak.http.server.router;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Route declared by an endpoint. The pattern is a list of segments separated by <code>/</code>:
+ * <ul>
+ * <li>static segment, matched case insensitively: <code>users</code></li>
+ * <li>parameter segment, matching any single segment: <code>{id}</code> or <code>:id</code></li>
+ * <li>wildcard segment, matching all the remaining segments (must be last): <code>*</code></li>
+ * </ul>
+ */
+public class HTTPRoute
+{
+	public static final String WILDCARD = "*";
+
+	private final String method;
+	private final String pattern;
+	private final List<String> segments;
+	private final List<String> parameterNames;
+
+	/**
+	 * @param method:  HTTP method (<code>null</code> to match any method)
+	 * @param pattern: path pattern relative to the context path
+	 */
+	public HTTPRoute(final String method, final String pattern)
+	{
+		this.method = method == null ? null : method.trim().toUpperCase(Locale.ENGLISH);
+		if (this.method != null && this.method.isEmpty())
+			throw new IllegalArgumentException("Method is empty");
+
+		this.pattern = pattern;
+		if (this.pattern == null)
+			throw new IllegalArgumentException("Pattern is null");
+
+		final List<String> segments = new ArrayList<>();
+		for (final String segment : this.pattern.split("/"))
+		{
+			if (segment.isEmpty())
+				continue;
+
+			if (!segments.isEmpty() && segments.get(segments.size() - 1).equals(WILDCARD))
+				throw new IllegalArgumentException("Wildcard must be the last segment of " + this.pattern);
+
+			segments.add(segment);
+		}
+
+		this.segments = Collections.unmodifiableList(segments);
+
+		final List<String> parameterNames = new ArrayList<>();
+		for (final String segment : this.segments)
+			if (isParameter(segment))
+			{
+				final String name = segment.startsWith(":") ? segment.substring(1) : segment.substring(1, segment.length() - 1);
+				if (parameterNames.contains(name))
+					throw new IllegalArgumentException("Duplicate parameter " + name + " in " + this.pattern);
+
+				parameterNames.add(name);
+			}
+
+		this.parameterNames = Collections.unmodifiableList(parameterNames);
+	}
+
+	public String getMethod()
+	{
+		return this.method;
+	}
+
+	public String getPattern()
+	{
+		return this.pattern;
+	}
+
+	public List<String> getSegments()
+	{
+		return this.segments;
+	}
+
+	/**
+	 * @return names of the parameter segments, in order
+	 */
+	public List<String> getParameterNames()
+	{
+		return this.parameterNames;
+	}
+
+	public boolean isWildcard()
+	{
+		return !this.segments.isEmpty() && this.segments.get(this.segments.size() - 1).equals(WILDCARD);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Objects.hash(this.method, this.segments);
+	}
+
+	@Override
+	public boolean equals(final Object o)
+	{
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		final HTTPRoute other = (HTTPRoute) o;
+		return Objects.equals(this.method, other.method) && this.segments.equals(other.segments);
+	}
+
+	@Override
+	public String toString()
+	{
+		return (this.method == null ? WILDCARD : this.method) + " " + this.pattern;
+	}
+
+	public static boolean isParameter(final String segment)
+	{
+		return segment.startsWith(":") || (segment.length() > 1 && segment.startsWith("{") && segment.endsWith("}"));
+	}
+
+	public static HTTPRoute of(final String pattern)
+	{
+		return new HTTPRoute(null, pattern);
+	}
+
+	public static HTTPRoute of(final String method, final String pattern)
+	{
+		return new HTTPRoute(method, pattern);
+	}
+}
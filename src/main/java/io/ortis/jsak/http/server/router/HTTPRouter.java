@@ -0,0 +1,413 @@
+package io.ortis.jsak.http.server.router;
+
+import io.ortis.jsak.http.server.HTTPEndpoint;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Dispatch requests to the {@link HTTPEndpoint} declaring a matching {@link HTTPRoute}.
+ * Routes are compiled into one segment tree per method. Static segments take precedence over parameter segments which take precedence over
+ * wildcard. {@link #route(String, String, int)} is done in O(path length) without allocation, {@link #match(String, String, int)} also
+ * captures the values of the parameter and wildcard segments (without allocation for routes capturing nothing).
+ * <p>
+ * Paths must be raw (percent-encoded, e.g. {@link java.net.URI#getRawPath()}): an encoded <code>/</code> does not split a segment. Static
+ * segments are compared with the raw path, captured values are decoded.
+ */
+public class HTTPRouter
+{
+	private final Map<String, Node> roots;
+	private final Node anyMethodRoot;
+	/**
+	 * Max number of captured segments of a route (parameters and wildcard)
+	 */
+	private final int maxCaptures;
+	/**
+	 * Start and end of the captured segments, reused by each thread
+	 */
+	private final ThreadLocal<int[]> captures;
+
+	/**
+	 * Endpoint matched by a request with the values captured by the parameter and wildcard segments of its route
+	 */
+	public static final class Match
+	{
+		private final HTTPEndpoint endpoint;
+		private final HTTPRoute route;
+		private final Map<String, String> parameters;
+
+		private Match(final HTTPEndpoint endpoint, final HTTPRoute route, final Map<String, String> parameters)
+		{
+			this.endpoint = endpoint;
+			this.route = route;
+			this.parameters = parameters;
+		}
+
+		public HTTPEndpoint getEndpoint()
+		{
+			return this.endpoint;
+		}
+
+		public HTTPRoute getRoute()
+		{
+			return this.route;
+		}
+
+		/**
+		 * Percent-decoded values of the parameter segments by name (<code>%2F</code> is decoded into a <code>/</code> inside its segment). The
+		 * remaining path matched by a wildcard is mapped to {@link HTTPRoute#WILDCARD}
+		 *
+		 * @return captured values by name
+		 */
+		public Map<String, String> getParameters()
+		{
+			return this.parameters;
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.route + " " + this.parameters;
+		}
+	}
+
+	public <E extends Collection<? extends HTTPEndpoint>> HTTPRouter(final E endpoints)
+	{
+		final Map<String, Builder> builders = new HashMap<>();
+		final Builder anyMethodBuilder = new Builder();
+		int maxCaptures = 0;
+
+		for (final HTTPEndpoint endpoint : endpoints)
+		{
+			final List<HTTPRoute> routes = endpoint.getRoutes();
+			if (routes == null)
+				continue;
+
+			for (final HTTPRoute route : routes)
+			{
+				final Builder root = route.getMethod() == null ? anyMethodBuilder : builders.computeIfAbsent(route.getMethod(), k -> new Builder());
+				root.add(route, endpoint);
+				maxCaptures = Math.max(maxCaptures, route.getParameterNames().size() + 1);
+			}
+		}
+
+		final Map<String, Node> roots = new HashMap<>();
+		for (final Map.Entry<String, Builder> entry : builders.entrySet())
+			roots.put(entry.getKey(), entry.getValue().compile());
+
+		this.roots = Collections.unmodifiableMap(roots);
+		this.anyMethodRoot = anyMethodBuilder.compile();
+		this.maxCaptures = maxCaptures;
+		final int captureLength = maxCaptures << 1;
+		this.captures = ThreadLocal.withInitial(() -> new int[captureLength]);
+	}
+
+	public HTTPEndpoint route(final String method, final String path)
+	{
+		return route(method, path, 0);
+	}
+
+	/**
+	 * Find the endpoint matching the request
+	 *
+	 * @param method: HTTP method
+	 * @param path:   request path
+	 * @param from:   index of the first character of the path to consider (i.e. length of the context path)
+	 * @return the matching {@link HTTPEndpoint} or <code>null</code> if no route match
+	 */
+	public HTTPEndpoint route(final String method, final String path, final int from)
+	{
+		final Target target = find(method, path, from, null);
+		return target == null ? null : target.endpoint;
+	}
+
+	public Match match(final String method, final String path)
+	{
+		return match(method, path, 0);
+	}
+
+	/**
+	 * Find the endpoint matching the request and capture the values of the parameter and wildcard segments of its route
+	 *
+	 * @param method: HTTP method
+	 * @param path:   raw request path
+	 * @param from:   index of the first character of the path to consider (i.e. length of the context path)
+	 * @return the matching {@link Match} or <code>null</code> if no route match
+	 */
+	public Match match(final String method, final String path, final int from)
+	{
+		final int[] captures = this.captures.get();
+		final Target target = find(method, path, from, captures);
+		if (target == null)
+			return null;
+
+		if (target.match != null)
+			return target.match;
+
+		final Map<String, String> parameters = new LinkedHashMap<>(target.captures << 1);
+		for (int i = 0; i < target.parameterNames.length; i++)
+			parameters.put(target.parameterNames[i], decode(path, captures[i << 1], captures[(i << 1) + 1]));
+
+		if (target.wildcard)
+		{
+			final int i = target.parameterNames.length << 1;
+			parameters.put(HTTPRoute.WILDCARD, decode(path, captures[i], captures[i + 1]));
+		}
+
+		return new Match(target.endpoint, target.route, Collections.unmodifiableMap(parameters));
+	}
+
+	/**
+	 * Percent-decode <code>path</code> from <code>start</code> to <code>end</code> as UTF-8 (<code>+</code> is not a space in a path).
+	 * Malformed escapes are kept as is
+	 */
+	static String decode(final String path, final int start, final int end)
+	{
+		final int percent = path.indexOf('%', start);
+		if (percent < 0 || percent >= end)
+			return path.substring(start, end);
+
+		final StringBuilder sb = new StringBuilder(end - start);
+		sb.append(path, start, percent);
+		final byte[] bytes = new byte[(end - percent) / 3];
+		int i = percent;
+		while (i < end)
+		{
+			int count = 0;
+			while (i + 2 < end && path.charAt(i) == '%')
+			{
+				final int high = Character.digit(path.charAt(i + 1), 16);
+				final int low = Character.digit(path.charAt(i + 2), 16);
+				if (high < 0 || low < 0)
+					break;
+
+				bytes[count++] = (byte) ((high << 4) | low);
+				i += 3;
+			}
+
+			if (count > 0)
+				sb.append(new String(bytes, 0, count, StandardCharsets.UTF_8));
+			else
+				sb.append(path.charAt(i++));
+		}
+
+		return sb.toString();
+	}
+
+	private Target find(final String method, final String path, final int from, final int[] captures)
+	{
+		final Node root = this.roots.get(method);
+		if (root != null)
+		{
+			final Target target = match(root, path, from, captures, 0);
+			if (target != null)
+				return target;
+		}
+
+		return match(this.anyMethodRoot, path, from, captures, 0);
+	}
+
+	public boolean isEmpty()
+	{
+		return this.roots.isEmpty() && this.anyMethodRoot.isEmpty();
+	}
+
+	/**
+	 * @param captures: start and end of the captured segments (<code>null</code> to skip capture)
+	 * @param capture:  index of the next capture
+	 */
+	private static Target match(final Node node, final String path, final int from, final int[] captures, final int capture)
+	{
+		final int length = path.length();
+		int start = from;
+		while (start < length && path.charAt(start) == '/')
+			start++;
+
+		if (start >= length)
+		{
+			if (node.endpoint != null)
+				return node.endpoint;
+
+			return capture(node.wildcard, captures, capture, length, length);
+		}
+
+		int end = path.indexOf('/', start);
+		if (end < 0)
+			end = length;
+
+		Target target;
+
+		final Node child = node.findStatic(path, start, end);
+		if (child != null && (target = match(child, path, end, captures, capture)) != null)
+			return target;
+
+		if (node.parameter != null)
+		{
+			capture(node.parameter, captures, capture, start, end);
+			if ((target = match(node.parameter, path, end, captures, capture + 1)) != null)
+				return target;
+		}
+
+		// strip trailing slashes from the remaining path
+		int wildcardEnd = length;
+		while (wildcardEnd > start && path.charAt(wildcardEnd - 1) == '/')
+			wildcardEnd--;
+
+		return capture(node.wildcard, captures, capture, start, wildcardEnd);
+	}
+
+	private static <T> T capture(final T matched, final int[] captures, final int capture, final int start, final int end)
+	{
+		if (matched != null && captures != null)
+		{
+			captures[capture << 1] = start;
+			captures[(capture << 1) + 1] = end;
+		}
+
+		return matched;
+	}
+
+	private static int hash(final String str, final int start, final int end)
+	{
+		int h = 0;
+		for (int i = start; i < end; i++)
+			h = 31 * h + Character.toUpperCase(str.charAt(i));
+
+		return h;
+	}
+
+	private static final class Node
+	{
+		private final int[] hashes;
+		private final String[] segments;
+		private final Node[] children;
+		private final Node parameter;
+		private final Target wildcard;
+		private final Target endpoint;
+
+		private Node(final int[] hashes, final String[] segments, final Node[] children, final Node parameter, final Target wildcard,
+				final Target endpoint)
+		{
+			this.hashes = hashes;
+			this.segments = segments;
+			this.children = children;
+			this.parameter = parameter;
+			this.wildcard = wildcard;
+			this.endpoint = endpoint;
+		}
+
+		private Node findStatic(final String path, final int start, final int end)
+		{
+			if (this.hashes.length == 0)
+				return null;
+
+			final int h = hash(path, start, end);
+			int index = Arrays.binarySearch(this.hashes, h);
+			if (index < 0)
+				return null;
+
+			// several segments can share the same hash
+			while (index > 0 && this.hashes[index - 1] == h)
+				index--;
+
+			final int length = end - start;
+			for (; index < this.hashes.length && this.hashes[index] == h; index++)
+			{
+				final String segment = this.segments[index];
+				if (segment.length() == length && segment.regionMatches(true, 0, path, start, length))
+					return this.children[index];
+			}
+
+			return null;
+		}
+
+		private boolean isEmpty()
+		{
+			return this.hashes.length == 0 && this.parameter == null && this.wildcard == null && this.endpoint == null;
+		}
+	}
+
+	/**
+	 * Endpoint of a route with the names of its captured segments
+	 */
+	private static final class Target
+	{
+		private final HTTPEndpoint endpoint;
+		private final HTTPRoute route;
+		private final String[] parameterNames;
+		private final boolean wildcard;
+		private final int captures;
+		/**
+		 * Shared match of the routes capturing nothing
+		 */
+		private final Match match;
+
+		private Target(final HTTPEndpoint endpoint, final HTTPRoute route)
+		{
+			this.endpoint = endpoint;
+			this.route = route;
+			this.parameterNames = route.getParameterNames().toArray(new String[0]);
+			this.wildcard = route.isWildcard();
+			this.captures = this.parameterNames.length + (this.wildcard ? 1 : 0);
+			this.match = this.captures == 0 ? new Match(endpoint, route, Map.of()) : null;
+		}
+	}
+
+	private static final class Builder
+	{
+		private final Map<String, Builder> statics = new LinkedHashMap<>();
+		private Builder parameter;
+		private Target wildcard;
+		private Target endpoint;
+
+		private void add(final HTTPRoute route, final HTTPEndpoint endpoint)
+		{
+			Builder builder = this;
+			for (final String segment : route.getSegments())
+			{
+				if (segment.equals(HTTPRoute.WILDCARD))
+				{
+					if (builder.wildcard != null && builder.wildcard.endpoint != endpoint)
+						throw new IllegalArgumentException("Route conflict on " + route);
+
+					if (builder.wildcard == null)
+						builder.wildcard = new Target(endpoint, route);
+					return;
+				}
+
+				if (HTTPRoute.isParameter(segment))
+				{
+					if (builder.parameter == null)
+						builder.parameter = new Builder();
+					builder = builder.parameter;
+				} else
+					builder = builder.statics.computeIfAbsent(segment.toUpperCase(Locale.ENGLISH), k -> new Builder());
+			}
+
+			if (builder.endpoint != null && builder.endpoint.endpoint != endpoint)
+				throw new IllegalArgumentException("Route conflict on " + route);
+
+			if (builder.endpoint == null)
+				builder.endpoint = new Target(endpoint, route);
+		}
+
+		private Node compile()
+		{
+			final List<Map.Entry<String, Builder>> entries = new ArrayList<>(this.statics.entrySet());
+			entries.sort(Comparator.comparingInt(e -> hash(e.getKey(), 0, e.getKey().length())));
+
+			final int[] hashes = new int[entries.size()];
+			final String[] segments = new String[entries.size()];
+			final Node[] children = new Node[entries.size()];
+			for (int i = 0; i < entries.size(); i++)
+			{
+				final Map.Entry<String, Builder> entry = entries.get(i);
+				hashes[i] = hash(entry.getKey(), 0, entry.getKey().length());
+				segments[i] = entry.getKey();
+				children[i] = entry.getValue().compile();
+			}
+
+			return new Node(hashes, segments, children, this.parameter == null ? null : this.parameter.compile(), this.wildcard, this.endpoint);
+		}
+	}
+}
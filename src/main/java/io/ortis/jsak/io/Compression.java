@@ -1,17 +1,51 @@
 package io.ortis.jsak.io;
 
+import io.ortis.jsak.io.compression.DeflateCodec;
+import io.ortis.jsak.io.compression.GzipCodec;
+import io.ortis.jsak.io.compression.IdentityCodec;
+import io.ortis.jsak.io.compression.LZ4Codec;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.util.Locale;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Registry of compression {@link Codec}. Codecs are identified by their HTTP content coding name (<code>gzip</code>, <code>deflate</code>...)
+ */
 public class Compression
 {
+	public static final String IDENTITY = "identity";
+
+	private static final Map<String, Codec> CODECS = new ConcurrentHashMap<>();
+
+	static
+	{
+		register(IdentityCodec.INSTANCE);
+		register(new GzipCodec());
+		register(new DeflateCodec());
+		register(new LZ4Codec());
+	}
+
 	public enum Algorithm
 	{
-		Gzip, Raw;
+		Gzip(GzipCodec.NAME), Raw(IDENTITY), Deflate(DeflateCodec.NAME), LZ4(LZ4Codec.NAME);
+
+		private final String codecName;
+
+		Algorithm(final String codecName)
+		{
+			this.codecName = codecName;
+		}
+
+		/**
+		 * @return the {@link Codec} currently registered for this algorithm
+		 */
+		public Codec getCodec()
+		{
+			return Compression.getCodec(this.codecName);
+		}
 
 		public static Algorithm from(String algo)
 		{
@@ -28,60 +62,168 @@ public class Compression
 	}
 
 	/**
-	 * Compress data
-	 * @throws IOException
+	 * Compression codec
 	 */
-	public static void deflate(final Algorithm algorithm, final InputStream source, final OutputStream destination,
-			final byte[] buffer) throws IOException
+	public interface Codec
 	{
+		/**
+		 * @return content coding name (used in <code>Accept-Encoding</code> and <code>Content-Encoding</code> headers)
+		 */
+		String getName();
+
+		/**
+		 * Wrap <code>destination</code> into a compressing stream. Closing the returned stream finishes the compression and closes
+		 * <code>destination</code>
+		 */
+		OutputStream deflater(final OutputStream destination) throws IOException;
 
-		final byte[] compressed;
+		/**
+		 * Wrap <code>source</code> into a decompressing stream. Closing the returned stream closes <code>source</code>
+		 */
+		InputStream inflater(final InputStream source) throws IOException;
 
-		switch (algorithm)
+		default boolean isIdentity()
 		{
-			case Gzip:
+			return IDENTITY.equals(getName());
+		}
+	}
+
+	/**
+	 * Register a codec. Replace the codec previously registered under the same name
+	 */
+	public static void register(final Codec codec)
+	{
+		CODECS.put(codec.getName().toLowerCase(Locale.ENGLISH), codec);
+	}
+
+	/**
+	 * @return the codec registered under <code>name</code> or <code>null</code>
+	 */
+	public static Codec getCodec(final String name)
+	{
+		return name == null ? null : CODECS.get(name.trim().toLowerCase(Locale.ENGLISH));
+	}
+
+	/**
+	 * Select the codec to use according to an <code>Accept-Encoding</code> header. The codec with the highest q-value is selected, ties are resolved
+	 * using the order of <code>codecs</code>. Identity competes with the q-value given to <code>identity</code> (or <code>*</code>), otherwise it is
+	 * only used when no supported codec is accepted.
+	 *
+	 * @param acceptEncoding: values of the <code>Accept-Encoding</code> header (<code>null</code> if the header is missing)
+	 * @param codecs:         codecs supported by the server, by order of preference
+	 * @return selected codec, identity if no supported codec is accepted or <code>null</code> if identity is explicitly refused by the client
+	 */
+	public static Codec negotiate(final List<String> acceptEncoding, final List<Codec> codecs)
+	{
+		if (acceptEncoding == null || acceptEncoding.isEmpty())
+			return IdentityCodec.INSTANCE;
+
+		final Map<String, Double> qValues = new HashMap<>();
+		for (final String header : acceptEncoding)
+			for (final String element : header.split(","))
 			{
-				try (final GZIPOutputStream gos = new GZIPOutputStream(destination))
+				final String[] parts = element.split(";");
+				final String coding = parts[0].trim().toLowerCase(Locale.ENGLISH);
+				if (coding.isEmpty())
+					continue;
+
+				double q = 1;
+				for (int i = 1; i < parts.length; i++)
 				{
-					IOUtils.stream(source, gos, buffer);
-					gos.flush();
+					final String param = parts[i].trim();
+					if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=')
+						try
+						{
+							q = Double.parseDouble(param.substring(2).trim());
+						} catch (final NumberFormatException e)
+						{
+							q = 0;
+						}
 				}
+
+				qValues.merge(coding, q, Math::max);
 			}
-			break;
 
-			case Raw:
-				IOUtils.stream(source, destination, buffer);
-				break;
+		final Double wildcard = qValues.get("*");
+		final Double identity = qValues.getOrDefault(IDENTITY, wildcard);
 
-			default:
-				throw new IllegalArgumentException("Unhandled compression " + algorithm);
+		Codec selected = null;
+		double selectedQ = 0;
+		for (final Codec codec : codecs)
+		{
+			final Double q = codec.isIdentity() ? identity : qValues.getOrDefault(codec.getName().toLowerCase(Locale.ENGLISH), wildcard);
+			if (q != null && q > selectedQ)
+			{
+				selected = codec;
+				selectedQ = q;
+			}
 		}
+
+		if (identity != null && identity > selectedQ)
+			return IdentityCodec.INSTANCE;
+
+		if (selected != null)
+			return selected;
+
+		// identity is always acceptable unless explicitly refused
+		return identity == null || identity > 0 ? IdentityCodec.INSTANCE : null;
 	}
 
 	/**
-	 * Uncompress data
+	 * Compress data. <code>destination</code> is closed once compression is finished, except for identity which leaves it open
+	 *
+	 * @throws IOException
+	 */
+	public static void deflate(final Algorithm algorithm, final InputStream source, final OutputStream destination,
+			final byte[] buffer) throws IOException
+	{
+		deflate(algorithm.getCodec(), source, destination, buffer);
+	}
+
+	/**
+	 * Compress data. <code>destination</code> is closed once compression is finished, except for identity which leaves it open
+	 *
+	 * @throws IOException
+	 */
+	public static void deflate(final Codec codec, final InputStream source, final OutputStream destination,
+			final byte[] buffer) throws IOException
+	{
+		if (codec.isIdentity())
+		{
+			IOUtils.stream(source, destination, buffer);
+			return;
+		}
+
+		try (final OutputStream os = codec.deflater(destination))
+		{
+			IOUtils.stream(source, os, buffer);
+		}
+	}
+
+	/**
+	 * Uncompress data. <code>source</code> is closed once decompression is finished, except for identity which leaves it open
 	 */
 	public static void inflate(final Algorithm algorithm, final InputStream source, final byte[] buffer,
 			final OutputStream destination) throws IOException
 	{
-		final byte[] raw;
-		switch (algorithm)
-		{
-			case Gzip:
-			{
-				try (final GZIPInputStream gis = new GZIPInputStream(source))
-				{
-					IOUtils.stream(gis, destination, buffer);
-				}
-			}
-			break;
+		inflate(algorithm.getCodec(), source, buffer, destination);
+	}
 
-			case Raw:
-				IOUtils.stream(source, destination, buffer);
-				break;
+	/**
+	 * Uncompress data. <code>source</code> is closed once decompression is finished, except for identity which leaves it open
+	 */
+	public static void inflate(final Codec codec, final InputStream source, final byte[] buffer,
+			final OutputStream destination) throws IOException
+	{
+		if (codec.isIdentity())
+		{
+			IOUtils.stream(source, destination, buffer);
+			return;
+		}
 
-			default:
-				throw new IllegalArgumentException("Unhandled compression " + algorithm);
+		try (final InputStream is = codec.inflater(source))
+		{
+			IOUtils.stream(is, destination, buffer);
 		}
 	}
 }
@@ -0,0 +1,275 @@
+package io.ortis.jsak.io.bytes;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.Checksum;
+
+/**
+ * Pure Java streaming implementation of the 64-bit xxHash (XXH64). Non-cryptographic: should only be used to detect changes.
+ * <p>
+ * Not thread safe
+ */
+public class XXHash64 implements Checksum
+{
+	private static final long PRIME1 = 0x9E3779B185EBCA87L;
+	private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+	private static final long PRIME3 = 0x165667B19E3779F9L;
+	private static final long PRIME4 = 0x85EBCA77C2B2AE63L;
+	private static final long PRIME5 = 0x27D4EB2F165667C5L;
+	private static final int STRIPE_LENGTH = 32;
+	private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+	private static final VarHandle INT = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+	private final long seed;
+	private final byte[] stripe = new byte[STRIPE_LENGTH];
+	private int stripeLength;
+	private long totalLength;
+	private long v1;
+	private long v2;
+	private long v3;
+	private long v4;
+
+	public XXHash64()
+	{
+		this(0);
+	}
+
+	public XXHash64(final long seed)
+	{
+		this.seed = seed;
+		reset();
+	}
+
+	@Override
+	public void update(final int b)
+	{
+		this.stripe[this.stripeLength++] = (byte) b;
+		this.totalLength++;
+		if (this.stripeLength == STRIPE_LENGTH)
+		{
+			consume(this.stripe, 0);
+			this.stripeLength = 0;
+		}
+	}
+
+	@Override
+	public void update(final byte[] b, int off, int len)
+	{
+		if (off < 0 || len < 0 || off > b.length - len)
+			throw new ArrayIndexOutOfBoundsException();
+
+		this.totalLength += len;
+		if (this.stripeLength > 0)
+		{// complete the pending stripe
+			final int length = Math.min(len, STRIPE_LENGTH - this.stripeLength);
+			System.arraycopy(b, off, this.stripe, this.stripeLength, length);
+			this.stripeLength += length;
+			off += length;
+			len -= length;
+			if (this.stripeLength < STRIPE_LENGTH)
+				return;
+
+			consume(this.stripe, 0);
+			this.stripeLength = 0;
+		}
+
+		final int limit = off + len - STRIPE_LENGTH;
+		for (; off <= limit; off += STRIPE_LENGTH)
+			consume(b, off);
+
+		this.stripeLength = len % STRIPE_LENGTH;
+		System.arraycopy(b, off, this.stripe, 0, this.stripeLength);
+	}
+
+	@Override
+	public void update(final ByteBuffer buffer)
+	{
+		if (buffer.hasArray())
+		{
+			update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			buffer.position(buffer.limit());
+			return;
+		}
+
+		final ByteBuffer littleEndian = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+		while (this.stripeLength > 0 && littleEndian.hasRemaining())
+			update(littleEndian.get());
+
+		while (littleEndian.remaining() >= STRIPE_LENGTH)
+		{
+			final int p = littleEndian.position();
+			this.v1 = round(this.v1, littleEndian.getLong(p));
+			this.v2 = round(this.v2, littleEndian.getLong(p + 8));
+			this.v3 = round(this.v3, littleEndian.getLong(p + 16));
+			this.v4 = round(this.v4, littleEndian.getLong(p + 24));
+			littleEndian.position(p + STRIPE_LENGTH);
+			this.totalLength += STRIPE_LENGTH;
+		}
+
+		while (littleEndian.hasRemaining())
+			update(littleEndian.get());
+
+		buffer.position(buffer.limit());
+	}
+
+	/**
+	 * @return the hash of the bytes added so far (the state is not modified)
+	 */
+	@Override
+	public long getValue()
+	{
+		long h;
+		if (this.totalLength >= STRIPE_LENGTH)
+		{
+			h = Long.rotateLeft(this.v1, 1) + Long.rotateLeft(this.v2, 7) + Long.rotateLeft(this.v3, 12) + Long.rotateLeft(this.v4, 18);
+			h = mergeRound(h, this.v1);
+			h = mergeRound(h, this.v2);
+			h = mergeRound(h, this.v3);
+			h = mergeRound(h, this.v4);
+		} else
+			h = this.seed + PRIME5;
+
+		h += this.totalLength;
+		return finish(h, this.stripe, 0, this.stripeLength);
+	}
+
+	@Override
+	public void reset()
+	{
+		this.v1 = this.seed + PRIME1 + PRIME2;
+		this.v2 = this.seed + PRIME2;
+		this.v3 = this.seed;
+		this.v4 = this.seed - PRIME1;
+		this.stripeLength = 0;
+		this.totalLength = 0;
+	}
+
+	private void consume(final byte[] b, final int off)
+	{
+		this.v1 = round(this.v1, (long) LONG.get(b, off));
+		this.v2 = round(this.v2, (long) LONG.get(b, off + 8));
+		this.v3 = round(this.v3, (long) LONG.get(b, off + 16));
+		this.v4 = round(this.v4, (long) LONG.get(b, off + 24));
+	}
+
+	public long getSeed()
+	{
+		return this.seed;
+	}
+
+	public static long hash(final byte[] b)
+	{
+		return hash(b, 0, b.length, 0);
+	}
+
+	/**
+	 * One-shot hash of <code>b</code>, without allocation
+	 */
+	public static long hash(final byte[] b, int off, final int len, final long seed)
+	{
+		if (off < 0 || len < 0 || off > b.length - len)
+			throw new ArrayIndexOutOfBoundsException();
+
+		final int end = off + len;
+		long h;
+		if (len >= STRIPE_LENGTH)
+		{
+			long v1 = seed + PRIME1 + PRIME2;
+			long v2 = seed + PRIME2;
+			long v3 = seed;
+			long v4 = seed - PRIME1;
+			final int limit = end - STRIPE_LENGTH;
+			for (; off <= limit; off += STRIPE_LENGTH)
+			{
+				v1 = round(v1, (long) LONG.get(b, off));
+				v2 = round(v2, (long) LONG.get(b, off + 8));
+				v3 = round(v3, (long) LONG.get(b, off + 16));
+				v4 = round(v4, (long) LONG.get(b, off + 24));
+			}
+
+			h = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+			h = mergeRound(h, v1);
+			h = mergeRound(h, v2);
+			h = mergeRound(h, v3);
+			h = mergeRound(h, v4);
+		} else
+			h = seed + PRIME5;
+
+		h += len;
+		return finish(h, b, off, end - off);
+	}
+
+	/**
+	 * Stream the content of <code>path</code> through <code>buffer</code>
+	 *
+	 * @return the hash (seed 0) of the content of <code>path</code>
+	 */
+	public static long hash(final Path path, final ByteBuffer buffer) throws IOException
+	{
+		final XXHash64 hash = new XXHash64();
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			buffer.clear();
+			while (channel.read(buffer) >= 0)
+			{
+				buffer.flip();
+				hash.update(buffer);
+				buffer.clear();
+			}
+		}
+
+		return hash.getValue();
+	}
+
+	/**
+	 * Process the last (less than {@value STRIPE_LENGTH}) bytes and avalanche
+	 */
+	private static long finish(long h, final byte[] b, int off, final int len)
+	{
+		final int end = off + len;
+		for (; off + 8 <= end; off += 8)
+		{
+			h ^= round(0, (long) LONG.get(b, off));
+			h = Long.rotateLeft(h, 27) * PRIME1 + PRIME4;
+		}
+
+		if (off + 4 <= end)
+		{
+			h ^= ((int) INT.get(b, off) & 0xFFFFFFFFL) * PRIME1;
+			h = Long.rotateLeft(h, 23) * PRIME2 + PRIME3;
+			off += 4;
+		}
+
+		for (; off < end; off++)
+		{
+			h ^= (b[off] & 0xFF) * PRIME5;
+			h = Long.rotateLeft(h, 11) * PRIME1;
+		}
+
+		h ^= h >>> 33;
+		h *= PRIME2;
+		h ^= h >>> 29;
+		h *= PRIME3;
+		h ^= h >>> 32;
+		return h;
+	}
+
+	private static long round(long acc, final long input)
+	{
+		acc += input * PRIME2;
+		acc = Long.rotateLeft(acc, 31);
+		return acc * PRIME1;
+	}
+
+	private static long mergeRound(long acc, final long value)
+	{
+		acc ^= round(0, value);
+		return acc * PRIME1 + PRIME4;
+	}
+}
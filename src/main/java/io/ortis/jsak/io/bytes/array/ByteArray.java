@@ -10,6 +10,19 @@ public interface ByteArray
 
 	int read(final byte[] buffer, final int from, int length) throws IOException;
 
+	/**
+	 * @return the next byte (as an unsigned value between 0 and 255, like {@link java.io.InputStream#read()}) or -1 if the end of the array has
+	 * been reached
+	 */
+	default int read() throws IOException
+	{
+		final byte[] buffer = new byte[1];
+		if (read(buffer, 0, 1) <= 0)
+			return -1;
+
+		return buffer[0] & 0xFF;
+	}
+
 	void seek(final long offset) throws IOException;
 
 	default void rewind() throws IOException
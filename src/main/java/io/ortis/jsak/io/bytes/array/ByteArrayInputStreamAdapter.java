@@ -1,45 +1,49 @@
 package io.ortis.jsak.io.bytes.array;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.math.BigInteger;
 
 public class ByteArrayInputStreamAdapter extends InputStream
 {
-	private final LargeByteArray largeByteArray;
+	private final ByteArray byteArray;
 
-	public ByteArrayInputStreamAdapter(final LargeByteArray largeByteArray)
+	public ByteArrayInputStreamAdapter(final ByteArray byteArray)
 	{
-		this.largeByteArray = largeByteArray;
+		this.byteArray = byteArray;
 	}
 
 	@Override
 	public int read() throws IOException
 	{
-		return this.largeByteArray.read();
+		return this.byteArray.read();
 	}
 
 	@Override
 	public int read(final byte[] b) throws IOException
 	{
-		return this.largeByteArray.read(b, 0, b.length);
+		return this.byteArray.read(b, 0, b.length);
 	}
 
 	@Override
 	public int read(final byte[] b, final int off, final int len) throws IOException
 	{
-		return this.largeByteArray.read(b, off, len);
+		return this.byteArray.read(b, off, len);
 	}
 
+	/**
+	 * @return remaining bytes, clamped to {@link Integer#MAX_VALUE}
+	 */
 	@Override
-	public int available()
+	public int available() throws IOException
 	{
-		return BigInteger.valueOf(this.largeByteArray.length() - this.largeByteArray.offset()).intValueExact();
+		return (int) Math.min(Integer.MAX_VALUE, Math.max(0, this.byteArray.length() - this.byteArray.offset()));
 	}
 
 	@Override
-	public void close()
+	public void close() throws IOException
 	{
-		this.largeByteArray.close();
+		if (this.byteArray instanceof Closeable)
+			((Closeable) this.byteArray).close();
 	}
 }
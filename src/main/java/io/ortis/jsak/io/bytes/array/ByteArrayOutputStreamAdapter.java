@@ -1,38 +1,40 @@
 package io.ortis.jsak.io.bytes.array;
 
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStream;
 
 public class ByteArrayOutputStreamAdapter extends OutputStream
 {
-	private final LargeByteArray largeByteArray;
+	private final WritableByteArray byteArray;
 
-	public ByteArrayOutputStreamAdapter(final LargeByteArray largeByteArray)
+	public ByteArrayOutputStreamAdapter(final WritableByteArray byteArray)
 	{
-		this.largeByteArray = largeByteArray;
+		this.byteArray = byteArray;
 	}
 
 	@Override
 	public void write(final int b) throws IOException
 	{
-		this.largeByteArray.write((byte)b);
+		this.byteArray.write((byte)b);
 	}
 
 	@Override
 	public void write(final byte[] b) throws IOException
 	{
-		this.largeByteArray.write(b, 0, b.length);
+		this.byteArray.write(b, 0, b.length);
 	}
 
 	@Override
 	public void write(final byte[] b, final int off, final int len) throws IOException
 	{
-		this.largeByteArray.write(b, off, len);
+		this.byteArray.write(b, off, len);
 	}
 
 	@Override
 	public void close() throws IOException
 	{
-		this.largeByteArray.close();
+		if (this.byteArray instanceof Closeable)
+			((Closeable) this.byteArray).close();
 	}
 }
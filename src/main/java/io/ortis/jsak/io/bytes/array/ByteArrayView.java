@@ -0,0 +1,108 @@
+package io.ortis.jsak.io.bytes.array;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Read-only window over a {@link PositionalByteArray} with its own offset. Several views can read the same array concurrently (a view itself is
+ * not thread safe: each thread should use its own view).
+ * <p>
+ * A view has either a fixed length or follows the length of the array
+ */
+public class ByteArrayView implements ByteArray
+{
+	private final PositionalByteArray source;
+	private final long start;
+	/**
+	 * -1 to follow the length of the source
+	 */
+	private final long fixedLength;
+
+	private long offset;
+
+	ByteArrayView(final PositionalByteArray source, final long start, final long fixedLength)
+	{
+		this.source = source;
+		this.start = start;
+		this.fixedLength = fixedLength;
+		this.offset = 0;
+	}
+
+	@Override
+	public long length() throws IOException
+	{
+		return this.fixedLength >= 0 ? this.fixedLength : this.source.length() - this.start;
+	}
+
+	@Override
+	public long offset()
+	{
+		return this.offset;
+	}
+
+	@Override
+	public int read(final byte[] buffer, final int from, final int length) throws IOException
+	{
+		final long remaining = length() - this.offset;
+		if (remaining <= 0)
+			return -1;
+
+		final int read = this.source.read(this.start + this.offset, buffer, from, (int) Math.min(length, remaining));
+		if (read > 0)
+			this.offset += read;
+
+		return read;
+	}
+
+	/**
+	 * Read from <code>position</code> (relative to the view) without moving the offset of the view
+	 *
+	 * @return number of bytes read or -1 if <code>position</code> is at the end of the view
+	 */
+	public int read(final long position, final byte[] buffer, final int from, final int length) throws IOException
+	{
+		final long l = length();
+		if (position < 0 || position > l)
+			throw new IndexOutOfBoundsException("Position out of bounds");
+
+		if (position == l)
+			return -1;
+
+		return this.source.read(this.start + position, buffer, from, (int) Math.min(length, l - position));
+	}
+
+	@Override
+	public void seek(final long offset) throws IOException
+	{
+		if (offset < 0 || offset > length())
+			throw new IndexOutOfBoundsException("Offset out of bounds");
+
+		this.offset = offset;
+	}
+
+	/**
+	 * @return a new view of <code>length</code> bytes from <code>from</code> (relative to this view)
+	 */
+	public ByteArrayView slice(final long from, final long length) throws IOException
+	{
+		if (from < 0 || length < 0 || from + length > length())
+			throw new IndexOutOfBoundsException("Slice out of bounds");
+
+		return new ByteArrayView(this.source, this.start + from, length);
+	}
+
+	public InputStream asInputStream()
+	{
+		return new ByteArrayInputStreamAdapter(this);
+	}
+
+	public PositionalByteArray getSource()
+	{
+		return this.source;
+	}
+
+	public long getStart()
+	{
+		return this.start;
+	}
+}
@@ -0,0 +1,216 @@
+package io.ortis.jsak.io.bytes.array;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Append-only RAM implementation of {@link WritableByteArray} readable concurrently. Max size 2^62 bytes.
+ * <p>
+ * A single writer thread appends bytes (writes are only allowed at the end of the array) and publishes the new length once the bytes are
+ * copied. Readers use {@link #read(long, byte[], int, int)} or independent {@link ByteArrayView} from any thread, without lock: they see every
+ * byte up to the published length. Readers racing with {@link #close()} either read the bytes or get an {@link IllegalStateException}.
+ * <p>
+ * Sectors have a fixed power of 2 length. The offset ({@link #seek(long)}, {@link #read(byte[], int, int)}) belongs to the writer thread
+ */
+public class ConcurrentByteArray implements WritableByteArray, PositionalByteArray, Closeable
+{
+	private final int sectorLength;
+	private final int sectorShift;
+	private final int sectorMask;
+
+	/**
+	 * Replaced by a larger copy when full. Sectors are allocated before the length covering them is published
+	 */
+	private volatile byte[][] sectors;
+	private volatile long length;
+	private volatile boolean closed = false;
+
+	private long offset;
+
+	public ConcurrentByteArray(final int minSectorLength)
+	{
+		if (minSectorLength <= 0 || minSectorLength > 1 << 30)
+			throw new IllegalArgumentException("Sector length must be between 1 and 2^30");
+
+		this.sectorLength = minSectorLength == 1 ? 1 : Integer.highestOneBit(minSectorLength - 1) << 1;
+		this.sectorShift = Integer.numberOfTrailingZeros(this.sectorLength);
+		this.sectorMask = this.sectorLength - 1;
+		this.sectors = new byte[0][];
+		this.length = 0;
+		this.offset = 0;
+	}
+
+	/**
+	 * Allocate the sectors required to store <code>length</code> bytes
+	 */
+	private byte[][] ensureCapacity(final long length)
+	{
+		byte[][] sectors = this.sectors;
+		final long sectorCount = (length + this.sectorMask) >>> this.sectorShift;
+		if (sectorCount > sectors.length)
+		{// readers only access the sectors below the published length: the new directory can be published before its sectors are allocated
+			if (sectorCount > Integer.MAX_VALUE - 8)
+				throw new IndexOutOfBoundsException("Max size exceeded");
+
+			sectors = Arrays.copyOf(sectors, (int) Math.max(sectorCount, Math.min(Integer.MAX_VALUE - 8, sectors.length + (sectors.length >> 1))));
+			this.sectors = sectors;
+		}
+
+		for (int i = (int) (this.offset >>> this.sectorShift); i < sectorCount; i++)
+			if (sectors[i] == null)
+				sectors[i] = new byte[this.sectorLength];
+
+		return sectors;
+	}
+
+	@Override
+	public void write(final byte b)
+	{
+		ensureAppend();
+		final byte[][] sectors = ensureCapacity(this.offset + 1);
+		sectors[(int) (this.offset >>> this.sectorShift)][(int) (this.offset & this.sectorMask)] = b;
+
+		this.offset++;
+		this.length = this.offset;
+	}
+
+	public void write(final byte[] data)
+	{
+		write(data, 0, data.length);
+	}
+
+	@Override
+	public void write(final byte[] data, int from, final int length)
+	{
+		ensureAppend();
+		final byte[][] sectors = ensureCapacity(this.offset + length);
+
+		long position = this.offset;
+		int remaining = length;
+		while (remaining > 0)
+		{
+			final int sectorOffset = (int) (position & this.sectorMask);
+			final int w = Math.min(remaining, this.sectorLength - sectorOffset);
+			System.arraycopy(data, from, sectors[(int) (position >>> this.sectorShift)], sectorOffset, w);
+			remaining -= w;
+			from += w;
+			position += w;
+		}
+
+		this.offset = position;
+		// publish
+		this.length = position;
+	}
+
+	private void ensureAppend()
+	{
+		ensureOpen();
+		if (this.offset != this.length)
+			throw new IllegalStateException("Only appends are supported (offset=" + this.offset + ", length=" + this.length + ")");
+	}
+
+	@Override
+	public int read(final byte[] buffer, final int from, final int length)
+	{
+		final int read = read(this.offset, buffer, from, length);
+		if (read > 0)
+			this.offset += read;
+
+		return read;
+	}
+
+	@Override
+	public int read(final long position, final byte[] buffer, int from, int length)
+	{
+		ensureOpen();
+
+		// length is published after the sectors
+		final long l = this.length;
+		final byte[][] sectors = this.sectors;
+
+		if (position < 0 || position >= l)
+		{// the length may have been reset by close()
+			ensureOpen();
+			if (position != l)
+				throw new IndexOutOfBoundsException("Position out of bounds");
+
+			return -1;
+		}
+
+		length = (int) Math.min(length, l - position);
+		if (length > 0 && (position + length - 1) >>> this.sectorShift >= sectors.length)
+			throw new IllegalStateException("Array is closed");// sectors released by close() after the length was read
+
+		long p = position;
+		int remaining = length;
+		while (remaining > 0)
+		{
+			final int sectorOffset = (int) (p & this.sectorMask);
+			final int r = Math.min(remaining, this.sectorLength - sectorOffset);
+			System.arraycopy(sectors[(int) (p >>> this.sectorShift)], sectorOffset, buffer, from, r);
+			remaining -= r;
+			from += r;
+			p += r;
+		}
+
+		return length;
+	}
+
+	@Override
+	public void seek(final long offset)
+	{
+		ensureOpen();
+
+		if (offset < 0 || offset > this.length)
+			throw new IndexOutOfBoundsException("Offset out of bounds");
+
+		this.offset = offset;
+	}
+
+	private void ensureOpen()
+	{
+		if (this.closed)
+			throw new IllegalStateException("Array is closed");
+	}
+
+	@Override
+	public void close()
+	{
+		this.closed = true;
+		this.sectors = new byte[0][];
+		this.length = 0;
+		this.offset = 0;
+	}
+
+	/**
+	 * @return published length
+	 */
+	@Override
+	public long length()
+	{
+		return this.length;
+	}
+
+	@Override
+	public long offset()
+	{
+		return this.offset;
+	}
+
+	public int getSectorLength()
+	{
+		return this.sectorLength;
+	}
+
+	public InputStream asInputStream()
+	{
+		return new ByteArrayInputStreamAdapter(this);
+	}
+
+	public OutputStream asOutputStream()
+	{
+		return new ByteArrayOutputStreamAdapter(this);
+	}
+}
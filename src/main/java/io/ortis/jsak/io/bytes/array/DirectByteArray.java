@@ -0,0 +1,404 @@
+package io.ortis.jsak.io.bytes.array;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Off-heap implementation of {@link WritableByteArray}: data is stored in fixed length sectors of direct {@link ByteBuffer}, outside of the
+ * garbage collected heap. Max size 2^31 sectors.
+ * <p>
+ * {@link #close()} releases the sectors to the {@link Pool} of the array (if any), so they can be reused by other arrays without allocating
+ * new native memory. Unpooled sectors are freed by the JVM once unreachable.
+ * <p>
+ * Not thread safe
+ */
+public class DirectByteArray implements WritableByteArray, PositionalByteArray, Closeable
+{
+	public static final int DEFAULT_SECTOR_LENGTH = 64 * 1024;
+	private static final int MAX_GATHER_LENGTH = 1024;
+	private static final byte[] ZEROS = new byte[8192];
+
+	private final int sectorLength;
+	private final Pool pool;
+	private final List<ByteBuffer> sectors;
+
+	private long length;
+	private long offset;
+	private boolean closed = false;
+
+	/**
+	 * Pool of direct sectors shared by several {@link DirectByteArray}. Thread safe
+	 */
+	public static class Pool
+	{
+		private final int sectorLength;
+		private final int maxSize;
+		private final ArrayDeque<ByteBuffer> sectors;
+
+		/**
+		 * @param maxSize: max number of idle sectors retained by the pool
+		 */
+		public Pool(final int sectorLength, final int maxSize)
+		{
+			this.sectorLength = sectorLength;
+			if (this.sectorLength <= 0)
+				throw new IllegalArgumentException("Sector length must be positive");
+
+			this.maxSize = maxSize;
+			if (this.maxSize < 0)
+				throw new IllegalArgumentException("Max size must be greater or equal to 0");
+
+			this.sectors = new ArrayDeque<>();
+		}
+
+		/**
+		 * @return an idle sector or a newly allocated one. Content of reused sectors is undefined
+		 */
+		public ByteBuffer acquire()
+		{
+			final ByteBuffer sector;
+			synchronized (this.sectors)
+			{
+				sector = this.sectors.pollLast();
+			}
+
+			return sector == null ? ByteBuffer.allocateDirect(this.sectorLength) : sector;
+		}
+
+		public void release(final ByteBuffer sector)
+		{
+			if (sector.capacity() != this.sectorLength || !sector.isDirect())
+				throw new IllegalArgumentException("Sector does not belong to the pool");
+
+			sector.clear();
+			synchronized (this.sectors)
+			{
+				if (this.sectors.size() < this.maxSize)
+					this.sectors.addLast(sector);
+			}
+		}
+
+		/**
+		 * @return number of idle sectors
+		 */
+		public int size()
+		{
+			synchronized (this.sectors)
+			{
+				return this.sectors.size();
+			}
+		}
+
+		public int getSectorLength()
+		{
+			return this.sectorLength;
+		}
+
+		public int getMaxSize()
+		{
+			return this.maxSize;
+		}
+	}
+
+	public DirectByteArray()
+	{
+		this(DEFAULT_SECTOR_LENGTH);
+	}
+
+	public DirectByteArray(final int sectorLength)
+	{
+		this(sectorLength, null);
+	}
+
+	public DirectByteArray(final Pool pool)
+	{
+		this(pool.getSectorLength(), pool);
+	}
+
+	private DirectByteArray(final int sectorLength, final Pool pool)
+	{
+		this.sectorLength = sectorLength;
+		if (this.sectorLength <= 0)
+			throw new IllegalArgumentException("Sector length must be positive");
+
+		this.pool = pool;
+		this.sectors = new ArrayList<>();
+		this.length = 0;
+		this.offset = 0;
+	}
+
+	/**
+	 * Allocate the sectors required to store <code>length</code> bytes
+	 */
+	private void ensureCapacity(final long length)
+	{
+		final long sectorCount = (length + this.sectorLength - 1) / this.sectorLength;
+		if (sectorCount > Integer.MAX_VALUE)
+			throw new IndexOutOfBoundsException("Max size exceeded");
+
+		while (this.sectors.size() < sectorCount)
+			this.sectors.add(this.pool == null ? ByteBuffer.allocateDirect(this.sectorLength) : this.pool.acquire());
+	}
+
+	@Override
+	public void write(final byte b) throws IOException
+	{
+		ensureOpen();
+		ensureCapacity(this.offset + 1);
+
+		this.sectors.get((int) (this.offset / this.sectorLength)).put((int) (this.offset % this.sectorLength), b);
+
+		this.offset++;
+		if (this.offset > this.length)
+			this.length = this.offset;
+	}
+
+	public void write(final byte[] data) throws IOException
+	{
+		write(data, 0, data.length);
+	}
+
+	@Override
+	public void write(final byte[] data, int from, final int length) throws IOException
+	{
+		ensureOpen();
+		ensureCapacity(this.offset + length);
+
+		int remaining = length;
+		while (remaining > 0)
+		{
+			final ByteBuffer sector = this.sectors.get((int) (this.offset / this.sectorLength));
+			final int sectorOffset = (int) (this.offset % this.sectorLength);
+			final int w = Math.min(remaining, this.sectorLength - sectorOffset);
+			sector.put(sectorOffset, data, from, w);
+			remaining -= w;
+			from += w;
+
+			this.offset += w;
+		}
+
+		if (this.offset > this.length)
+			this.length = this.offset;
+	}
+
+	@Override
+	public int read()
+	{
+		ensureOpen();
+
+		if (this.offset >= this.length)
+			return -1;
+
+		final byte b = this.sectors.get((int) (this.offset / this.sectorLength)).get((int) (this.offset % this.sectorLength));
+		this.offset++;
+		return b & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] buffer, final int from, final int length)
+	{
+		final int read = read(this.offset, buffer, from, length);
+		if (read > 0)
+			this.offset += read;
+
+		return read;
+	}
+
+	/**
+	 * Read from <code>position</code> without moving the offset of the array
+	 *
+	 * @return number of bytes read or -1 if <code>position</code> is at the end of the array
+	 */
+	@Override
+	public int read(final long position, final byte[] buffer, int from, int length)
+	{
+		ensureOpen();
+
+		if (position < 0 || position > this.length)
+			throw new IndexOutOfBoundsException("Position out of bounds");
+
+		if (position == this.length)
+			return -1;
+
+		length = (int) Math.min(length, this.length - position);
+
+		long p = position;
+		int remaining = length;
+		while (remaining > 0)
+		{
+			final int sectorOffset = (int) (p % this.sectorLength);
+			final int r = Math.min(remaining, this.sectorLength - sectorOffset);
+			this.sectors.get((int) (p / this.sectorLength)).get(sectorOffset, buffer, from, r);
+			remaining -= r;
+			from += r;
+			p += r;
+		}
+
+		return length;
+	}
+
+	/**
+	 * Write the bytes from the offset to the end of the array in <code>channel</code> (with gathering writes if supported). Sectors are direct
+	 * buffers: they are handed to the OS without copy. The offset is moved to the end of the array. <code>channel</code> must be in blocking mode
+	 *
+	 * @return number of bytes transferred
+	 */
+	public long transferTo(final WritableByteChannel channel) throws IOException
+	{
+		ensureOpen();
+
+		final long start = this.offset;
+		if (start == this.length)
+			return 0;
+
+		final int first = (int) (start / this.sectorLength);
+		final int last = (int) ((this.length - 1) / this.sectorLength);
+		final ByteBuffer[] buffers = new ByteBuffer[last - first + 1];
+		for (int i = first; i <= last; i++)
+		{
+			final ByteBuffer buffer = this.sectors.get(i).duplicate();
+			buffer.limit((int) Math.min(this.sectorLength, this.length - (long) i * this.sectorLength));
+			buffer.position(i == first ? (int) (start % this.sectorLength) : 0);
+			buffers[i - first] = buffer;
+		}
+
+		if (channel instanceof GatheringByteChannel)
+		{
+			final GatheringByteChannel gatheringChannel = (GatheringByteChannel) channel;
+			for (int i = 0; i < buffers.length; )
+			{
+				gatheringChannel.write(buffers, i, Math.min(MAX_GATHER_LENGTH, buffers.length - i));
+				while (i < buffers.length && !buffers[i].hasRemaining())
+					i++;
+			}
+		} else
+			for (final ByteBuffer buffer : buffers)
+				while (buffer.hasRemaining())
+					channel.write(buffer);
+
+		this.offset = this.length;
+		return this.length - start;
+	}
+
+	@Override
+	public void seek(final long offset)
+	{
+		ensureOpen();
+
+		if (offset < 0 || offset > length())
+			throw new IndexOutOfBoundsException("Offset out of bounds");
+
+		this.offset = offset;
+	}
+
+	/**
+	 * Trim or expand (with zeros) the array. The offset is moved to the end of the array if it is out of bounds
+	 */
+	public void resize(final long length)
+	{
+		ensureOpen();
+
+		if (length < 0)
+			throw new IllegalArgumentException("Length must be greater or equal to 0");
+
+		if (length < this.length)
+		{// release unused sectors
+			final int sectorCount = (int) ((length + this.sectorLength - 1) / this.sectorLength);
+			while (this.sectors.size() > sectorCount)
+				release(this.sectors.remove(this.sectors.size() - 1));
+		} else if (length > this.length)
+		{// sectors may contain old data
+			ensureCapacity(length);
+			for (long position = this.length; position < length; )
+			{
+				final ByteBuffer sector = this.sectors.get((int) (position / this.sectorLength));
+				final int sectorOffset = (int) (position % this.sectorLength);
+				final int w = (int) Math.min(Math.min(length - position, this.sectorLength - sectorOffset), ZEROS.length);
+				sector.put(sectorOffset, ZEROS, 0, w);
+				position += w;
+			}
+		}
+
+		this.length = length;
+		if (this.offset > this.length)
+			this.offset = this.length;
+	}
+
+	/**
+	 * Release the sectors. The array cannot be used anymore
+	 */
+	@Override
+	public void close()
+	{
+		if (this.closed)
+			return;
+
+		for (final ByteBuffer sector : this.sectors)
+			release(sector);
+
+		this.sectors.clear();
+		this.offset = 0;
+		this.length = 0;
+		this.closed = true;
+	}
+
+	private void release(final ByteBuffer sector)
+	{
+		if (this.pool != null)
+			this.pool.release(sector);
+	}
+
+	private void ensureOpen()
+	{
+		if (this.closed)
+			throw new IllegalStateException("Array is closed");
+	}
+
+	@Override
+	public long length()
+	{
+		return this.length;
+	}
+
+	@Override
+	public long offset()
+	{
+		return this.offset;
+	}
+
+	/**
+	 * @return allocated native memory in bytes
+	 */
+	public long capacity()
+	{
+		return (long) this.sectors.size() * this.sectorLength;
+	}
+
+	public int getSectorLength()
+	{
+		return this.sectorLength;
+	}
+
+	public Pool getPool()
+	{
+		return this.pool;
+	}
+
+	public InputStream asInputStream()
+	{
+		return new ByteArrayInputStreamAdapter(this);
+	}
+
+	public OutputStream asOutputStream()
+	{
+		return new ByteArrayOutputStreamAdapter(this);
+	}
+}
@@ -4,17 +4,43 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 /**
  * RAM implementation of {@link WritableByteArray}. Max size 2^62 bytes.
+ * <p>
+ * By default, sectors have a variable length (at least <code>minSectorLength</code>) and are located with a binary search over the start
+ * offset of each sector. With fixed length sectors, the length of the sectors is a power of 2 and sectors are located in constant time.
  */
-public class LargeByteArray implements WritableByteArray, Closeable
+public class LargeByteArray implements WritableByteArray, PositionalByteArray, Closeable
 {
+	/**
+	 * Max number of buffers per gathering write
+	 */
+	private static final int MAX_GATHER_LENGTH = 1024;
+	/**
+	 * Max bytes per write of {@link #transferTo(WritableByteChannel)}: the JDK copies heap buffers into a temporary direct buffer of the same size
+	 */
+	static final int MAX_TRANSFER_BYTES = 256 * 1024;
+	private static final int TRANSFER_SECTOR_LENGTH = 64 * 1024;
+
 	private final int minSectorLength;
+	/**
+	 * log2 of the sector length for fixed length sectors, -1 otherwise
+	 */
+	private final int sectorShift;
 	private final List<byte[]> data;
+	/**
+	 * Start offset of each sector
+	 */
+	private long[] sectorStarts;
+	private long capacity;
 
 	private long length;
 	private long offset;
@@ -26,11 +52,34 @@ public class LargeByteArray implements WritableByteArray, Closeable
 
 	public LargeByteArray(final int minSectorLength)
 	{
-		this.minSectorLength = minSectorLength;
-		if (this.minSectorLength <= 0)
+		this(minSectorLength, false);
+	}
+
+	/**
+	 * @param minSectorLength:   min length of the sectors (rounded up to a power of 2 for fixed length sectors)
+	 * @param fixedSectorLength: if <code>true</code>, all sectors have the same power of 2 length
+	 */
+	public LargeByteArray(final int minSectorLength, final boolean fixedSectorLength)
+	{
+		if (minSectorLength <= 0)
 			throw new IllegalArgumentException("Min sector length must be positive");
 
+		if (fixedSectorLength)
+		{
+			if (minSectorLength > 1 << 30)
+				throw new IllegalArgumentException("Sector length must be lower or equal to 2^30");
+
+			this.minSectorLength = minSectorLength == 1 ? 1 : Integer.highestOneBit(minSectorLength - 1) << 1;
+			this.sectorShift = Integer.numberOfTrailingZeros(this.minSectorLength);
+		} else
+		{
+			this.minSectorLength = minSectorLength;
+			this.sectorShift = -1;
+		}
+
 		this.data = new ArrayList<>();
+		this.sectorStarts = new long[16];
+		this.capacity = 0;
 		this.sector = null;
 		this.sectorIndex = -1;
 		this.sectorOffset = -1;
@@ -43,22 +92,62 @@ public class LargeByteArray implements WritableByteArray, Closeable
 		if (this.sector != null && this.sectorOffset < this.sector.length)
 			return;
 
-		if (this.sector == null || this.sectorIndex >= this.data.size() - 1)
-		{//create a new block
-			if (create)
-			{
-				this.sector = new byte[Math.max(this.minSectorLength, targetLength)];
-				this.data.add(this.sector);
-				this.sectorIndex++;
-				this.sectorOffset = 0;
-			}
-		} else if (this.sectorIndex < this.data.size() - 1)
+		if (this.sectorIndex < this.data.size() - 1)
 		{//move to next block
 			this.sector = this.data.get(++this.sectorIndex);
 			this.sectorOffset = 0;
+		} else if (create)
+		{//create a new block
+			this.sector = newSector(targetLength);
+			this.sectorIndex++;
+			this.sectorOffset = 0;
 		}
 	}
 
+	/**
+	 * Append a new sector of at least <code>targetLength</code> bytes (exactly the sector length for fixed length sectors)
+	 */
+	private byte[] newSector(final long targetLength)
+	{
+		final byte[] sector = new byte[this.sectorShift >= 0 ? this.minSectorLength : toInt(Math.max(this.minSectorLength, targetLength))];
+		addSector(sector);
+		return sector;
+	}
+
+	private void addSector(final byte[] sector)
+	{
+		final int index = this.data.size();
+		if (index == this.sectorStarts.length)
+			this.sectorStarts = Arrays.copyOf(this.sectorStarts, index << 1);
+
+		this.sectorStarts[index] = this.capacity;
+		this.data.add(sector);
+		this.capacity += sector.length;
+	}
+
+	/**
+	 * @return index of the sector containing <code>position</code> (must be lower than the capacity)
+	 */
+	private int locate(final long position)
+	{
+		if (this.sectorShift >= 0)
+			return toInt(position >>> this.sectorShift);
+
+		// last sector starting at or before position
+		int low = 0;
+		int high = this.data.size() - 1;
+		while (low < high)
+		{
+			final int mid = (low + high + 1) >>> 1;
+			if (this.sectorStarts[mid] <= position)
+				low = mid;
+			else
+				high = mid - 1;
+		}
+
+		return low;
+	}
+
 	@Override
 	public void write(final byte b) throws IOException
 	{
@@ -107,6 +196,42 @@ public class LargeByteArray implements WritableByteArray, Closeable
 		}
 	}
 
+	/**
+	 * Write <code>data</code> at <code>position</code> without moving the offset of the array
+	 *
+	 * @param position: must be lower or equal to the length of the array
+	 */
+	public void write(final long position, final byte[] data, int from, final int length)
+	{
+		if (this.closed)
+			throw new IllegalStateException("Array is closed");
+
+		if (position < 0 || position > this.length)
+			throw new IndexOutOfBoundsException("Position out of bounds");
+
+		final long end = position + length;
+		while (end > this.capacity)
+			newSector(end - this.capacity);
+
+		long p = position;
+		int remaining = length;
+		while (remaining > 0)
+		{
+			final int index = locate(p);
+			final byte[] sector = this.data.get(index);
+			final int sectorOffset = toInt(p - this.sectorStarts[index]);
+			final int w = Math.min(remaining, sector.length - sectorOffset);
+			System.arraycopy(data, from, sector, sectorOffset, w);
+			remaining -= w;
+			from += w;
+			p += w;
+		}
+
+		if (end > this.length)
+			this.length = end;
+	}
+
+	@Override
 	public int read() throws IOException
 	{
 		if (this.closed)
@@ -120,13 +245,13 @@ public class LargeByteArray implements WritableByteArray, Closeable
 		if (this.sector.length - this.sectorOffset > 0)
 		{
 			this.offset++;
-			return this.sector[this.sectorOffset++];
+			return this.sector[this.sectorOffset++] & 0xFF;
 		} else
 			return -1;
 	}
 
 	@Override
-	public int read(final byte[] buffer, final int from, int length)
+	public int read(final byte[] buffer, int from, int length)
 	{
 		if (this.closed)
 			throw new IllegalStateException("Array is closed");
@@ -134,17 +259,18 @@ public class LargeByteArray implements WritableByteArray, Closeable
 		if (this.offset >= this.length)
 			return -1;
 
-		length = Math.min(length, toInt(this.length - this.offset));
+		length = Math.min(length, toInt(Math.min(Integer.MAX_VALUE, this.length - this.offset)));
 
 		int total = 0;
 		while (total < length)
 		{
 			ensureSector(false, null);
-			final int r = Math.min(length, this.sector.length - this.sectorOffset);
+			final int r = Math.min(length - total, this.sector.length - this.sectorOffset);
 			if (r <= 0)
 				break;
 			System.arraycopy(this.sector, this.sectorOffset, buffer, from, r);
 			total += r;
+			from += r;
 			this.sectorOffset += r;
 
 			this.offset += r;
@@ -153,6 +279,163 @@ public class LargeByteArray implements WritableByteArray, Closeable
 		return total;
 	}
 
+	/**
+	 * Read from <code>position</code> without moving the offset of the array
+	 *
+	 * @return number of bytes read or -1 if <code>position</code> is at the end of the array
+	 */
+	@Override
+	public int read(final long position, final byte[] buffer, int from, int length)
+	{
+		if (this.closed)
+			throw new IllegalStateException("Array is closed");
+
+		if (position < 0 || position > this.length)
+			throw new IndexOutOfBoundsException("Position out of bounds");
+
+		if (position == this.length)
+			return -1;
+
+		length = Math.min(length, toInt(Math.min(Integer.MAX_VALUE, this.length - position)));
+
+		long p = position;
+		int remaining = length;
+		while (remaining > 0)
+		{
+			final int index = locate(p);
+			final byte[] sector = this.data.get(index);
+			final int sectorOffset = toInt(p - this.sectorStarts[index]);
+			final int r = Math.min(remaining, sector.length - sectorOffset);
+			System.arraycopy(sector, sectorOffset, buffer, from, r);
+			remaining -= r;
+			from += r;
+			p += r;
+		}
+
+		return length;
+	}
+
+	/**
+	 * Zero-copy export of a range of the array: the buffers wrap the sectors of the array (they are invalidated by
+	 * {@link #resize(long)} and {@link #close()})
+	 *
+	 * @return read-only buffers of the <code>length</code> bytes from <code>from</code>, one per sector
+	 */
+	public ByteBuffer[] toByteBuffers(final long from, final long length)
+	{
+		if (this.closed)
+			throw new IllegalStateException("Array is closed");
+
+		if (from < 0 || length < 0 || from + length > this.length)
+			throw new IndexOutOfBoundsException("Range out of bounds");
+
+		if (length == 0)
+			return new ByteBuffer[0];
+
+		final int first = locate(from);
+		final int last = locate(from + length - 1);
+		final ByteBuffer[] buffers = new ByteBuffer[last - first + 1];
+		long p = from;
+		long remaining = length;
+		for (int i = first; i <= last; i++)
+		{
+			final byte[] sector = this.data.get(i);
+			final int sectorOffset = toInt(p - this.sectorStarts[i]);
+			final int l = (int) Math.min(remaining, sector.length - sectorOffset);
+			buffers[i - first] = ByteBuffer.wrap(sector, sectorOffset, l).slice().asReadOnlyBuffer();
+			p += l;
+			remaining -= l;
+		}
+
+		return buffers;
+	}
+
+	/**
+	 * Write the bytes from the offset to the end of the array in <code>channel</code> (with gathering writes if supported), without copy into an
+	 * intermediate array. The offset is moved to the end of the array. <code>channel</code> must be in blocking mode
+	 * <p>
+	 * Sectors are on the heap: channels of the OS (files, sockets) copy them into temporary direct buffers. Each write is limited to
+	 * {@link #MAX_TRANSFER_BYTES} to bound that native memory (see {@link DirectByteArray#transferTo(WritableByteChannel)} for a transfer without copy)
+	 *
+	 * @return number of bytes transferred
+	 */
+	public long transferTo(final WritableByteChannel channel) throws IOException
+	{
+		if (this.closed)
+			throw new IllegalStateException("Array is closed");
+
+		final long start = this.offset;
+		final ByteBuffer[] buffers = toByteBuffers(start, this.length - start);
+		if (channel instanceof GatheringByteChannel)
+		{
+			final GatheringByteChannel gatheringChannel = (GatheringByteChannel) channel;
+			for (int i = 0; i < buffers.length; )
+			{
+				int count = 0;
+				long bytes = 0;
+				while (i + count < buffers.length && count < MAX_GATHER_LENGTH && bytes < MAX_TRANSFER_BYTES)
+					bytes += buffers[i + count++].remaining();
+
+				// the last buffer of the batch is cut to the max transfer length
+				final ByteBuffer last = buffers[i + count - 1];
+				final int limit = last.limit();
+				if (bytes > MAX_TRANSFER_BYTES)
+					last.limit(toInt(limit - (bytes - MAX_TRANSFER_BYTES)));
+
+				gatheringChannel.write(buffers, i, count);
+				last.limit(limit);
+				while (i < buffers.length && !buffers[i].hasRemaining())
+					i++;
+			}
+		} else
+			for (final ByteBuffer buffer : buffers)
+			{
+				final int limit = buffer.limit();
+				while (buffer.hasRemaining())
+				{
+					buffer.limit(Math.min(limit, buffer.position() + MAX_TRANSFER_BYTES));
+					channel.write(buffer);
+					buffer.limit(limit);
+				}
+			}
+
+		seek(this.length);
+		return this.length - start;
+	}
+
+	/**
+	 * Read <code>channel</code> until its end (or until <code>maxLength</code> bytes have been read, or until no byte is available for a
+	 * non-blocking channel) directly into the sectors of the array, from the offset
+	 *
+	 * @return number of bytes transferred
+	 */
+	public long transferFrom(final ReadableByteChannel channel, final long maxLength) throws IOException
+	{
+		if (this.closed)
+			throw new IllegalStateException("Array is closed");
+
+		if (maxLength < 0)
+			throw new IllegalArgumentException("Max length must be greater or equal to 0");
+
+		long total = 0;
+		while (total < maxLength)
+		{
+			ensureSector(true, (int) Math.min(maxLength - total, TRANSFER_SECTOR_LENGTH));
+			final int l = (int) Math.min(maxLength - total, this.sector.length - this.sectorOffset);
+			final int r = channel.read(ByteBuffer.wrap(this.sector, this.sectorOffset, l));
+			if (r <= 0)
+				break;
+
+			total += r;
+			this.sectorOffset += r;
+			this.offset += r;
+			if (this.offset > this.length)
+				this.length = this.offset;
+		}
+
+		return total;
+	}
+
 	@Override
 	public void rewind() throws IOException
 	{
@@ -168,16 +451,21 @@ public class LargeByteArray implements WritableByteArray, Closeable
 		if (offset < 0 || offset > length())
 			throw new IndexOutOfBoundsException("Offset out of bounds");
 
-		long l = 0;
-		for (int i = 0; i < this.data.size(); i++)
+		if (this.data.isEmpty())
 		{
-			this.sector = this.data.get(i);
-			this.sectorIndex = i;
-			this.sectorOffset = toInt(offset - l);
-
-			l += this.sector.length;
-			if (offset < l)
-				break;
+			this.sector = null;
+			this.sectorIndex = -1;
+			this.sectorOffset = -1;
+		} else if (offset >= this.capacity)
+		{// end of the last sector
+			this.sectorIndex = this.data.size() - 1;
+			this.sector = this.data.get(this.sectorIndex);
+			this.sectorOffset = this.sector.length;
+		} else
+		{
+			this.sectorIndex = locate(offset);
+			this.sector = this.data.get(this.sectorIndex);
+			this.sectorOffset = toInt(offset - this.sectorStarts[this.sectorIndex]);
 		}
 
 		this.offset = offset;
@@ -193,44 +481,62 @@ public class LargeByteArray implements WritableByteArray, Closeable
 		if (length < currentLength)
 		{// trim data
 			final List<byte[]> newData = new ArrayList<>();
-			long l = 0;
-			for (final byte[] sector : this.data)
+			if (this.sectorShift >= 0)
+			{// keep the sector layout, clear the trimmed bytes of the last sector
+				final int sectorCount = toInt((length + this.minSectorLength - 1) >>> this.sectorShift);
+				newData.addAll(this.data.subList(0, sectorCount));
+				final int tail = (int) (length & (this.minSectorLength - 1));
+				if (tail > 0)
+					Arrays.fill(newData.get(sectorCount - 1), tail, this.minSectorLength, (byte) 0);
+			} else
 			{
-				if (l + sector.length >= length)
-				{
-					final byte[] newSector = new byte[toInt(length - l)];
-					System.arraycopy(sector, 0, newSector, 0, newSector.length);
-					newData.add(newSector);
-					l += newSector.length;
-					break;
-				} else
+				long l = 0;
+				for (final byte[] sector : this.data)
 				{
-					newData.add(sector);
-					l += sector.length;
+					if (l + sector.length >= length)
+					{
+						final byte[] newSector = new byte[toInt(length - l)];
+						System.arraycopy(sector, 0, newSector, 0, newSector.length);
+						newData.add(newSector);
+						break;
+					} else
+					{
+						newData.add(sector);
+						l += sector.length;
+					}
 				}
 			}
 
 			this.data.clear();
-			this.data.addAll(newData);
+			this.capacity = 0;
+			for (final byte[] sector : newData)
+				addSector(sector);
 
-			this.length = l;
+			this.length = length;
 			this.offset = this.length;
 
 			this.sectorIndex = this.data.isEmpty() ? -1 : this.data.size() - 1;
 			this.sector = this.sectorIndex < 0 ? null : this.data.get(this.sectorIndex);
-			this.sectorOffset = this.sector == null ? -1 : this.sector.length;
+			this.sectorOffset = this.sector == null ? -1 : toInt(this.length - this.sectorStarts[this.sectorIndex]);
 		} else if (length > currentLength)
 		{// expand data
-			final byte[] buffer = new byte[Math.max(this.minSectorLength, 8192)];
-
-			long remaining = length - this.length;
-			while (remaining >= buffer.length)
+			if (this.sectorShift >= 0)
 			{
-				this.data.add(Arrays.copyOf(buffer, buffer.length));
-				remaining -= buffer.length;
-			}
+				while (this.capacity < length)
+					addSector(new byte[this.minSectorLength]);
+			} else
+			{
+				final byte[] buffer = new byte[Math.max(this.minSectorLength, 8192)];
 
-			this.data.add(Arrays.copyOf(buffer, toInt(Math.max(this.minSectorLength, remaining))));
+				long remaining = length - this.length;
+				while (remaining >= buffer.length)
+				{
+					addSector(Arrays.copyOf(buffer, buffer.length));
+					remaining -= buffer.length;
+				}
+
+				addSector(Arrays.copyOf(buffer, toInt(Math.max(this.minSectorLength, remaining))));
+			}
 
 			this.length = length;
 		}
@@ -241,6 +547,7 @@ public class LargeByteArray implements WritableByteArray, Closeable
 	public void close()
 	{
 		this.data.clear();
+		this.capacity = 0;
 		this.offset = 0;
 		this.length = 0;
 
@@ -263,6 +570,14 @@ public class LargeByteArray implements WritableByteArray, Closeable
 		return this.offset;
 	}
 
+	/**
+	 * @return length of the sectors if they have a fixed length, -1 otherwise
+	 */
+	public int getSectorLength()
+	{
+		return this.sectorShift >= 0 ? this.minSectorLength : -1;
+	}
+
 	public InputStream asInputStream()
 	{
 		return new ByteArrayInputStreamAdapter(this);
@@ -0,0 +1,408 @@
+package io.ortis.jsak.io.bytes.array;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * File implementation of {@link WritableByteArray}: the file is mapped in memory by regions of <code>regionLength</code> bytes (1 GB by
+ * default), mapped on first access. Data larger than the RAM can be stored, the OS pages it in and out.
+ * <p>
+ * The file starts with a {@link #HEADER_LENGTH} bytes header holding the length of the array, updated after every write: the content of the
+ * array survives a crash of the process (and of the OS with {@link Sync#WRITE}) without relying on {@link #close()}. Reads only map the existing
+ * bytes of the file, the file grows by whole regions when written (sparse on most file systems) and is truncated to the length of the array on
+ * {@link #close()}. Opening an existing file exposes its content.
+ * <p>
+ * Not thread safe
+ */
+public class MappedByteArray implements WritableByteArray, PositionalByteArray, Closeable
+{
+	public static final int DEFAULT_REGION_LENGTH = 1 << 30;
+	/**
+	 * Magic number (8 bytes) followed by the length of the array (8 bytes)
+	 */
+	public static final int HEADER_LENGTH = 16;
+	private static final long MAGIC = 0x4A53414B4D424131L;// JSAKMBA1
+	private static final int LENGTH_OFFSET = 8;
+	private static final byte[] ZEROS = new byte[8192];
+
+	public enum Sync
+	{
+		/**
+		 * Modified pages are written back by the OS (or by {@link #force()})
+		 */
+		NONE,
+		/**
+		 * Modified pages are forced to the storage device on {@link #close()}
+		 */
+		CLOSE,
+		/**
+		 * Written bytes are forced to the storage device after every write
+		 */
+		WRITE
+	}
+
+	private final Path path;
+	private final int regionLength;
+	private final int regionShift;
+	private final int regionMask;
+	private final Sync sync;
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	/**
+	 * <code>null</code> until mapped
+	 */
+	private final List<MappedByteBuffer> regions;
+
+	private long length;
+	private long offset;
+	private boolean closed = false;
+
+	public MappedByteArray(final Path path) throws IOException
+	{
+		this(path, DEFAULT_REGION_LENGTH, Sync.CLOSE);
+	}
+
+	/**
+	 * @param regionLength: length of the mapped regions (rounded up to a power of 2, max 1 GB)
+	 */
+	public MappedByteArray(final Path path, final int regionLength, final Sync sync) throws IOException
+	{
+		if (regionLength <= 0 || regionLength > DEFAULT_REGION_LENGTH)
+			throw new IllegalArgumentException("Region length must be between 1 and " + DEFAULT_REGION_LENGTH);
+
+		this.path = path;
+		this.regionLength = regionLength == 1 ? 1 : Integer.highestOneBit(regionLength - 1) << 1;
+		this.regionShift = Integer.numberOfTrailingZeros(this.regionLength);
+		this.regionMask = this.regionLength - 1;
+
+		this.sync = sync;
+		if (this.sync == null)
+			throw new IllegalArgumentException("Sync is null");
+
+		this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try
+		{
+			final long size = this.channel.size();
+			if (size != 0 && size < HEADER_LENGTH)
+				throw new IOException("File '" + this.path + "' is not a mapped byte array (" + size + " bytes)");
+
+			this.header = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_LENGTH);
+			if (size == 0)
+			{// new file
+				this.header.putLong(LENGTH_OFFSET, 0);
+				this.header.putLong(0, MAGIC);
+				if (this.sync == Sync.WRITE)
+					this.header.force();
+			} else if (this.header.getLong(0) != MAGIC)
+				throw new IOException("File '" + this.path + "' is not a mapped byte array (invalid header)");
+
+			this.length = this.header.getLong(LENGTH_OFFSET);
+			if (this.length < 0 || this.length > this.channel.size() - HEADER_LENGTH)
+				throw new IOException("File '" + this.path + "' is corrupted (length=" + this.length + ", file size=" + this.channel.size() + ")");
+		} catch (final IOException | RuntimeException e)
+		{
+			this.channel.close();
+			throw e;
+		}
+
+		this.regions = new ArrayList<>();
+		this.offset = 0;
+	}
+
+	/**
+	 * @param end: end of the range accessed in the region
+	 * @return the region <code>index</code>, mapped (or mapped again) if it does not cover <code>end</code>. Only the existing bytes of the file
+	 * are mapped if they cover <code>end</code>, otherwise the whole region is mapped and the file extended
+	 */
+	private MappedByteBuffer region(final int index, final int end) throws IOException
+	{
+		while (this.regions.size() <= index)
+			this.regions.add(null);
+
+		MappedByteBuffer region = this.regions.get(index);
+		if (region == null || region.capacity() < end)
+		{// mapping beyond the end of the file extends it: reads must not grow the file
+			final long start = HEADER_LENGTH + ((long) index << this.regionShift);
+			final long available = this.channel.size() - start;
+			final int length = end <= available ? (int) Math.min(this.regionLength, available) : this.regionLength;
+			region = this.channel.map(FileChannel.MapMode.READ_WRITE, start, length);
+			this.regions.set(index, region);
+		}
+
+		return region;
+	}
+
+	/**
+	 * Publish the length of the array in the header, once the bytes are written
+	 */
+	private void setLength(final long length)
+	{
+		this.length = length;
+		this.header.putLong(LENGTH_OFFSET, length);
+		if (this.sync == Sync.WRITE)
+			this.header.force();
+	}
+
+	@Override
+	public void write(final byte b) throws IOException
+	{
+		ensureOpen();
+
+		final int regionOffset = (int) (this.offset & this.regionMask);
+		final MappedByteBuffer region = region(toIndex(this.offset), regionOffset + 1);
+		region.put(regionOffset, b);
+		if (this.sync == Sync.WRITE)
+			region.force(regionOffset, 1);
+
+		this.offset++;
+		if (this.offset > this.length)
+			setLength(this.offset);
+	}
+
+	public void write(final byte[] data) throws IOException
+	{
+		write(data, 0, data.length);
+	}
+
+	@Override
+	public void write(final byte[] data, final int from, final int length) throws IOException
+	{
+		write(this.offset, data, from, length);
+		this.offset += length;
+	}
+
+	/**
+	 * Write <code>data</code> at <code>position</code> without moving the offset of the array
+	 *
+	 * @param position: must be lower or equal to the length of the array
+	 */
+	public void write(final long position, final byte[] data, int from, final int length) throws IOException
+	{
+		ensureOpen();
+
+		if (position < 0 || position > this.length)
+			throw new IndexOutOfBoundsException("Position out of bounds");
+
+		long p = position;
+		int remaining = length;
+		while (remaining > 0)
+		{
+			final int regionOffset = (int) (p & this.regionMask);
+			final int w = Math.min(remaining, this.regionLength - regionOffset);
+			final MappedByteBuffer region = region(toIndex(p), regionOffset + w);
+			region.put(regionOffset, data, from, w);
+			if (this.sync == Sync.WRITE)
+				region.force(regionOffset, w);
+			remaining -= w;
+			from += w;
+			p += w;
+		}
+
+		if (p > this.length)
+			setLength(p);
+	}
+
+	@Override
+	public int read(final byte[] buffer, final int from, final int length) throws IOException
+	{
+		final int read = read(this.offset, buffer, from, length);
+		if (read > 0)
+			this.offset += read;
+
+		return read;
+	}
+
+	@Override
+	public int read(final long position, final byte[] buffer, int from, int length) throws IOException
+	{
+		ensureOpen();
+
+		if (position < 0 || position > this.length)
+			throw new IndexOutOfBoundsException("Position out of bounds");
+
+		if (position == this.length)
+			return -1;
+
+		length = (int) Math.min(length, this.length - position);
+
+		long p = position;
+		int remaining = length;
+		while (remaining > 0)
+		{
+			final int regionOffset = (int) (p & this.regionMask);
+			final int r = Math.min(remaining, this.regionLength - regionOffset);
+			region(toIndex(p), regionOffset + r).get(regionOffset, buffer, from, r);
+			remaining -= r;
+			from += r;
+			p += r;
+		}
+
+		return length;
+	}
+
+	/**
+	 * Zero-copy access to the mapped memory
+	 *
+	 * @return a read-only buffer of <code>length</code> bytes from <code>position</code>. The range must not cross a region boundary
+	 */
+	public ByteBuffer slice(final long position, final int length) throws IOException
+	{
+		ensureOpen();
+
+		if (position < 0 || length < 0 || position + length > this.length)
+			throw new IndexOutOfBoundsException("Slice out of bounds");
+
+		final int regionOffset = (int) (position & this.regionMask);
+		if (regionOffset + length > this.regionLength)
+			throw new IllegalArgumentException("Slice crosses a region boundary");
+
+		return region(toIndex(position), regionOffset + length).slice(regionOffset, length).asReadOnlyBuffer();
+	}
+
+	@Override
+	public void seek(final long offset)
+	{
+		ensureOpen();
+
+		if (offset < 0 || offset > this.length)
+			throw new IndexOutOfBoundsException("Offset out of bounds");
+
+		this.offset = offset;
+	}
+
+	/**
+	 * Trim or expand (with zeros) the array. The offset is moved to the end of the array if it is out of bounds
+	 */
+	public void resize(final long length) throws IOException
+	{
+		ensureOpen();
+
+		if (length < 0)
+			throw new IllegalArgumentException("Length must be greater or equal to 0");
+
+		if (length > this.length)
+		{// bytes past the length of the array (trimmed or written before a crash) must read as zeros. The file is extended with zeros
+			final long end = Math.min(length, this.channel.size() - HEADER_LENGTH);
+			for (long p = this.length; p < end; )
+			{
+				final int regionOffset = (int) (p & this.regionMask);
+				final int w = (int) Math.min(Math.min(end - p, this.regionLength - regionOffset), ZEROS.length);
+				region(toIndex(p), regionOffset + w).put(regionOffset, ZEROS, 0, w);
+				p += w;
+			}
+
+			if (length > end)
+			{// sparse extension
+				final long last = length - 1;
+				final int regionOffset = (int) (last & this.regionMask);
+				region(toIndex(last), regionOffset + 1);
+			}
+		}
+
+		setLength(length);
+		if (this.offset > this.length)
+			this.offset = this.length;
+	}
+
+	/**
+	 * Force the modified pages of the mapped regions to the storage device
+	 */
+	public void force()
+	{
+		ensureOpen();
+
+		for (final MappedByteBuffer region : this.regions)
+			if (region != null)
+				region.force();
+		this.header.force();
+	}
+
+	/**
+	 * Force the modified pages (depending on the {@link Sync} mode) and truncate the file to the length of the array
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		if (this.closed)
+			return;
+
+		try (this.channel)
+		{
+			if (this.sync != Sync.NONE)
+				force();
+
+			// mapped regions are released by the garbage collector
+			this.regions.clear();
+			try
+			{// drop the unused part of the last region
+				this.channel.truncate(HEADER_LENGTH + this.length);
+			} catch (final IOException ignored)
+			{// some platforms do not allow to truncate a mapped file: the length in the header is enough
+			}
+		} finally
+		{
+			this.closed = true;
+		}
+	}
+
+	private int toIndex(final long position)
+	{
+		final long index = position >>> this.regionShift;
+		if (index >= Integer.MAX_VALUE)
+			throw new IndexOutOfBoundsException("Max size exceeded");
+
+		return (int) index;
+	}
+
+	private void ensureOpen()
+	{
+		if (this.closed)
+			throw new IllegalStateException("Array is closed");
+	}
+
+	@Override
+	public long length()
+	{
+		return this.length;
+	}
+
+	@Override
+	public long offset()
+	{
+		return this.offset;
+	}
+
+	public Path getPath()
+	{
+		return this.path;
+	}
+
+	public int getRegionLength()
+	{
+		return this.regionLength;
+	}
+
+	public Sync getSync()
+	{
+		return this.sync;
+	}
+
+	public InputStream asInputStream()
+	{
+		return new ByteArrayInputStreamAdapter(this);
+	}
+
+	public OutputStream asOutputStream()
+	{
+		return new ByteArrayOutputStreamAdapter(this);
+	}
+}
@@ -0,0 +1,37 @@
+package io.ortis.jsak.io.bytes.array;
+
+import java.io.IOException;
+
+/**
+ * {@link ByteArray} readable at any position without moving its offset. Positional reads do not modify the array: they can be performed
+ * concurrently, by independent {@link ByteArrayView}, as long as the array is not modified (see {@link ConcurrentByteArray} for concurrent
+ * appends)
+ */
+public interface PositionalByteArray extends ByteArray
+{
+	/**
+	 * Read from <code>position</code> without moving the offset of the array
+	 *
+	 * @return number of bytes read or -1 if <code>position</code> is at the end of the array
+	 */
+	int read(final long position, final byte[] buffer, final int from, final int length) throws IOException;
+
+	/**
+	 * @return a view of the whole array (including bytes appended later)
+	 */
+	default ByteArrayView view()
+	{
+		return new ByteArrayView(this, 0, -1);
+	}
+
+	/**
+	 * @return a view of <code>length</code> bytes from <code>from</code>
+	 */
+	default ByteArrayView view(final long from, final long length) throws IOException
+	{
+		if (from < 0 || length < 0 || from + length > length())
+			throw new IndexOutOfBoundsException("View out of bounds");
+
+		return new ByteArrayView(this, from, length);
+	}
+}
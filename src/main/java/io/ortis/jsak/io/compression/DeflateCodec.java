@@ -0,0 +1,123 @@
+package io.ortis.jsak.io.compression;
+
+import io.ortis.jsak.io.Compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Deflate codec (zlib format as defined for the HTTP <code>deflate</code> content coding) with configurable compression level and
+ * {@link Deflater} strategy
+ */
+public class DeflateCodec implements Compression.Codec
+{
+	public static final String NAME = "deflate";
+
+	private final int level;
+	private final int strategy;
+	private final int bufferLength;
+
+	public DeflateCodec()
+	{
+		this(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+	}
+
+	public DeflateCodec(final int level, final int strategy)
+	{
+		this(level, strategy, GzipCodec.DEFAULT_BUFFER_LENGTH);
+	}
+
+	/**
+	 * @param level:        compression level (from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION})
+	 * @param strategy:     {@link Deflater} strategy
+	 * @param bufferLength: length of the internal compression buffer
+	 */
+	public DeflateCodec(final int level, final int strategy, final int bufferLength)
+	{
+		this.level = checkLevel(level);
+		this.strategy = checkStrategy(strategy);
+
+		this.bufferLength = bufferLength;
+		if (this.bufferLength <= 0)
+			throw new IllegalArgumentException("Buffer length must be greater than 0");
+	}
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public OutputStream deflater(final OutputStream destination)
+	{
+		final Deflater deflater = new Deflater(this.level);
+		deflater.setStrategy(this.strategy);
+
+		return new DeflaterOutputStream(destination, deflater, this.bufferLength)
+		{
+			@Override
+			public void close() throws IOException
+			{
+				try
+				{
+					super.close();
+				} finally
+				{// release native memory
+					deflater.end();
+				}
+			}
+		};
+	}
+
+	@Override
+	public InputStream inflater(final InputStream source)
+	{
+		final Inflater inflater = new Inflater();
+		return new InflaterInputStream(source, inflater, this.bufferLength)
+		{
+			@Override
+			public void close() throws IOException
+			{
+				try
+				{
+					super.close();
+				} finally
+				{// release native memory
+					inflater.end();
+				}
+			}
+		};
+	}
+
+	public int getLevel()
+	{
+		return this.level;
+	}
+
+	public int getStrategy()
+	{
+		return this.strategy;
+	}
+
+	static int checkLevel(final int level)
+	{
+		if (level != Deflater.DEFAULT_COMPRESSION && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION))
+			throw new IllegalArgumentException("Invalid compression level " + level);
+
+		return level;
+	}
+
+	static int checkStrategy(final int strategy)
+	{
+		if (strategy != Deflater.DEFAULT_STRATEGY && strategy != Deflater.FILTERED && strategy != Deflater.HUFFMAN_ONLY)
+			throw new IllegalArgumentException("Invalid compression strategy " + strategy);
+
+		return strategy;
+	}
+}
@@ -0,0 +1,82 @@
+package io.ortis.jsak.io.compression;
+
+import io.ortis.jsak.io.Compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip codec with configurable compression level and {@link Deflater} strategy
+ */
+public class GzipCodec implements Compression.Codec
+{
+	public static final String NAME = "gzip";
+	public static final int DEFAULT_BUFFER_LENGTH = 8192;
+
+	private final int level;
+	private final int strategy;
+	private final int bufferLength;
+
+	public GzipCodec()
+	{
+		this(Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_STRATEGY);
+	}
+
+	public GzipCodec(final int level, final int strategy)
+	{
+		this(level, strategy, DEFAULT_BUFFER_LENGTH);
+	}
+
+	/**
+	 * @param level:        compression level (from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION})
+	 * @param strategy:     {@link Deflater} strategy
+	 * @param bufferLength: length of the internal compression buffer
+	 */
+	public GzipCodec(final int level, final int strategy, final int bufferLength)
+	{
+		this.level = DeflateCodec.checkLevel(level);
+		this.strategy = DeflateCodec.checkStrategy(strategy);
+
+		this.bufferLength = bufferLength;
+		if (this.bufferLength <= 0)
+			throw new IllegalArgumentException("Buffer length must be greater than 0");
+	}
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public OutputStream deflater(final OutputStream destination) throws IOException
+	{
+		return new GZIPOutputStream(destination, this.bufferLength)
+		{
+			{
+				this.def.setLevel(GzipCodec.this.level);
+				this.def.setStrategy(GzipCodec.this.strategy);
+			}
+		};
+	}
+
+	@Override
+	public InputStream inflater(final InputStream source) throws IOException
+	{
+		return new GZIPInputStream(source, this.bufferLength);
+	}
+
+	public int getLevel()
+	{
+		return this.level;
+	}
+
+	public int getStrategy()
+	{
+		return this.strategy;
+	}
+}
@@ -0,0 +1,36 @@
+package io.ortis.jsak.io.compression;
+
+import io.ortis.jsak.io.Compression;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * No compression
+ */
+public class IdentityCodec implements Compression.Codec
+{
+	public static final IdentityCodec INSTANCE = new IdentityCodec();
+
+	private IdentityCodec()
+	{
+	}
+
+	@Override
+	public String getName()
+	{
+		return Compression.IDENTITY;
+	}
+
+	@Override
+	public OutputStream deflater(final OutputStream destination)
+	{
+		return destination;
+	}
+
+	@Override
+	public InputStream inflater(final InputStream source)
+	{
+		return source;
+	}
+}
@@ -0,0 +1,280 @@
+package io.ortis.jsak.io.compression;
+
+import io.ortis.jsak.io.Compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Fast pure Java codec using the LZ4 block format. Data is split in independent blocks framed by {@link LZ4OutputStream}.
+ * Trade compression ratio for speed: suitable for callers on a fast network.
+ */
+public class LZ4Codec implements Compression.Codec
+{
+	public static final String NAME = "x-lz4";
+	public static final int DEFAULT_BLOCK_LENGTH = 64 * 1024;
+
+	static final int MIN_MATCH = 4;
+	static final int MAX_OFFSET = 65535;
+	/**
+	 * Last literals of a block
+	 */
+	private static final int LAST_LITERALS = 5;
+	/**
+	 * A match cannot start within the last bytes of a block
+	 */
+	private static final int MF_LIMIT = 12;
+	private static final int HASH_LOG = 12;
+
+	private final int blockLength;
+
+	public LZ4Codec()
+	{
+		this(DEFAULT_BLOCK_LENGTH);
+	}
+
+	public LZ4Codec(final int blockLength)
+	{
+		this.blockLength = blockLength;
+		if (this.blockLength <= 0)
+			throw new IllegalArgumentException("Block length must be greater than 0");
+	}
+
+	@Override
+	public String getName()
+	{
+		return NAME;
+	}
+
+	@Override
+	public OutputStream deflater(final OutputStream destination) throws IOException
+	{
+		return new LZ4OutputStream(destination, this.blockLength);
+	}
+
+	@Override
+	public InputStream inflater(final InputStream source) throws IOException
+	{
+		return new LZ4InputStream(source);
+	}
+
+	public int getBlockLength()
+	{
+		return this.blockLength;
+	}
+
+	/**
+	 * @return the max length of <code>length</code> bytes once compressed
+	 */
+	public static int maxCompressedLength(final int length)
+	{
+		return length + length / 255 + 16;
+	}
+
+	public static int[] newHashTable()
+	{
+		return new int[1 << HASH_LOG];
+	}
+
+	/**
+	 * Compress a block
+	 *
+	 * @param hashTable: working table (see {@link #newHashTable()})
+	 * @return compressed length
+	 */
+	public static int compress(final byte[] source, final int sourceOffset, final int sourceLength, final byte[] destination,
+			final int destinationOffset, final int[] hashTable)
+	{
+		if (destination.length - destinationOffset < maxCompressedLength(sourceLength))
+			throw new IllegalArgumentException("Destination is too small");
+
+		final int sourceEnd = sourceOffset + sourceLength;
+		int dp = destinationOffset;
+		int anchor = sourceOffset;
+
+		if (sourceLength >= MF_LIMIT + 1)
+		{
+			Arrays.fill(hashTable, -1);
+
+			final int matchStartLimit = sourceEnd - MF_LIMIT;
+			final int matchEndLimit = sourceEnd - LAST_LITERALS;
+
+			int ip = sourceOffset;
+			int misses = 0;
+			while (ip < matchStartLimit)
+			{
+				final int sequence = readInt(source, ip);
+				final int h = hash(sequence);
+				int ref = hashTable[h];
+				hashTable[h] = ip;
+
+				if (ref < 0 || ip - ref > MAX_OFFSET || readInt(source, ref) != sequence)
+				{// skip faster on incompressible data
+					ip += 1 + (misses++ >>> 6);
+					continue;
+				}
+				misses = 0;
+
+				// extend backward
+				while (ip > anchor && ref > sourceOffset && source[ip - 1] == source[ref - 1])
+				{
+					ip--;
+					ref--;
+				}
+
+				// extend forward
+				int matchLength = MIN_MATCH;
+				while (ip + matchLength < matchEndLimit && source[ip + matchLength] == source[ref + matchLength])
+					matchLength++;
+
+				dp = writeSequence(source, anchor, ip - anchor, ip - ref, matchLength, destination, dp);
+
+				ip += matchLength;
+				anchor = ip;
+
+				if (ip < matchStartLimit)
+					hashTable[hash(readInt(source, ip - 2))] = ip - 2;
+			}
+		}
+
+		// last literals
+		final int literalLength = sourceEnd - anchor;
+		final int tokenPosition = dp++;
+		dp = writeLength(literalLength, destination, dp);
+		destination[tokenPosition] = (byte) (Math.min(literalLength, 15) << 4);
+		System.arraycopy(source, anchor, destination, dp, literalLength);
+		dp += literalLength;
+
+		return dp - destinationOffset;
+	}
+
+	/**
+	 * Uncompress a block
+	 *
+	 * @return uncompressed length
+	 * @throws IOException if the block is corrupted or <code>destination</code> is too small
+	 */
+	public static int decompress(final byte[] source, final int sourceOffset, final int sourceLength, final byte[] destination,
+			final int destinationOffset, final int destinationLength) throws IOException
+	{
+		final int sourceEnd = sourceOffset + sourceLength;
+		final int destinationEnd = destinationOffset + destinationLength;
+		int ip = sourceOffset;
+		int op = destinationOffset;
+
+		while (ip < sourceEnd)
+		{
+			final int token = source[ip++] & 0xFF;
+
+			// literals
+			int literalLength = token >>> 4;
+			if (literalLength == 15)
+			{
+				int b;
+				do
+				{
+					if (ip >= sourceEnd)
+						throw new IOException("Corrupted block (truncated literal length)");
+					b = source[ip++] & 0xFF;
+					literalLength += b;
+				} while (b == 255);
+			}
+
+			if (literalLength > sourceEnd - ip || literalLength > destinationEnd - op)
+				throw new IOException("Corrupted block (literals out of bounds)");
+
+			System.arraycopy(source, ip, destination, op, literalLength);
+			ip += literalLength;
+			op += literalLength;
+
+			if (ip >= sourceEnd)
+				break;// last sequence
+
+			// match
+			if (sourceEnd - ip < 2)
+				throw new IOException("Corrupted block (truncated offset)");
+
+			final int offset = (source[ip] & 0xFF) | ((source[ip + 1] & 0xFF) << 8);
+			ip += 2;
+			if (offset == 0 || offset > op - destinationOffset)
+				throw new IOException("Corrupted block (invalid offset " + offset + ")");
+
+			int matchLength = token & 0x0F;
+			if (matchLength == 15)
+			{
+				int b;
+				do
+				{
+					if (ip >= sourceEnd)
+						throw new IOException("Corrupted block (truncated match length)");
+					b = source[ip++] & 0xFF;
+					matchLength += b;
+				} while (b == 255);
+			}
+			matchLength += MIN_MATCH;
+
+			if (matchLength > destinationEnd - op)
+				throw new IOException("Corrupted block (match out of bounds)");
+
+			final int ref = op - offset;
+			if (offset >= matchLength)
+				System.arraycopy(destination, ref, destination, op, matchLength);
+			else
+				for (int i = 0; i < matchLength; i++)// overlapping copy
+					destination[op + i] = destination[ref + i];
+			op += matchLength;
+		}
+
+		return op - destinationOffset;
+	}
+
+	private static int writeSequence(final byte[] source, final int literalOffset, final int literalLength, final int offset,
+			final int matchLength, final byte[] destination, int dp)
+	{
+		final int tokenPosition = dp++;
+
+		dp = writeLength(literalLength, destination, dp);
+		System.arraycopy(source, literalOffset, destination, dp, literalLength);
+		dp += literalLength;
+
+		destination[dp++] = (byte) offset;
+		destination[dp++] = (byte) (offset >>> 8);
+
+		final int ml = matchLength - MIN_MATCH;
+		dp = writeLength(ml, destination, dp);
+
+		destination[tokenPosition] = (byte) ((Math.min(literalLength, 15) << 4) | Math.min(ml, 15));
+		return dp;
+	}
+
+	/**
+	 * Write the extra bytes of a length (the first 4 bits are stored in the token)
+	 */
+	private static int writeLength(final int length, final byte[] destination, int dp)
+	{
+		if (length >= 15)
+		{
+			int remaining = length - 15;
+			while (remaining >= 255)
+			{
+				destination[dp++] = (byte) 255;
+				remaining -= 255;
+			}
+			destination[dp++] = (byte) remaining;
+		}
+
+		return dp;
+	}
+
+	private static int hash(final int sequence)
+	{
+		return (sequence * -1640531535) >>> (32 - HASH_LOG);
+	}
+
+	private static int readInt(final byte[] data, final int offset)
+	{
+		return (data[offset] & 0xFF) | ((data[offset + 1] & 0xFF) << 8) | ((data[offset + 2] & 0xFF) << 16) | ((data[offset + 3] & 0xFF) << 24);
+	}
+}
@@ -0,0 +1,141 @@
+package io.ortis.jsak.io.compression;
+
+import io.ortis.jsak.io.IOUtils;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Uncompress data produced by {@link LZ4OutputStream}
+ */
+public class LZ4InputStream extends FilterInputStream
+{
+	private final byte[] header = new byte[8];
+	private byte[] block = new byte[0];
+	private byte[] compressed = new byte[0];
+	private int blockOffset;
+	private int blockLength;
+	private boolean finished = false;
+
+	public LZ4InputStream(final InputStream source) throws IOException
+	{
+		super(source);
+
+		readFully(this.header, 4);
+		if (readInt(this.header, 0) != LZ4OutputStream.MAGIC)
+			throw new IOException("Not in " + LZ4Codec.NAME + " format");
+	}
+
+	@Override
+	public int read() throws IOException
+	{
+		if (!ensureBlock())
+			return -1;
+
+		return this.block[this.blockOffset++] & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] destination, final int offset, final int length) throws IOException
+	{
+		if (length == 0)
+			return 0;
+
+		if (!ensureBlock())
+			return -1;
+
+		final int r = Math.min(length, this.blockLength - this.blockOffset);
+		System.arraycopy(this.block, this.blockOffset, destination, offset, r);
+		this.blockOffset += r;
+		return r;
+	}
+
+	@Override
+	public int available()
+	{
+		return this.blockLength - this.blockOffset;
+	}
+
+	@Override
+	public long skip(final long n) throws IOException
+	{
+		long remaining = n;
+		while (remaining > 0 && ensureBlock())
+		{
+			final int s = (int) Math.min(remaining, this.blockLength - this.blockOffset);
+			this.blockOffset += s;
+			remaining -= s;
+		}
+
+		return n - remaining;
+	}
+
+	@Override
+	public boolean markSupported()
+	{
+		return false;
+	}
+
+	private boolean ensureBlock() throws IOException
+	{
+		while (this.blockOffset >= this.blockLength)
+		{
+			if (this.finished)
+				return false;
+
+			readFully(this.header, 4);
+			final int rawLength = readInt(this.header, 0);
+			if (rawLength == 0)
+			{
+				this.finished = true;
+				return false;
+			}
+
+			if (rawLength < 0 || rawLength > LZ4OutputStream.MAX_BLOCK_LENGTH)
+				throw new IOException("Corrupted stream (invalid block length " + rawLength + ")");
+
+			if (this.block.length < rawLength)
+				this.block = new byte[rawLength];
+
+			readFully(this.header, 4);
+			final int stored = readInt(this.header, 0);
+
+			if ((stored & LZ4OutputStream.UNCOMPRESSED_FLAG) != 0)
+			{
+				if ((stored & ~LZ4OutputStream.UNCOMPRESSED_FLAG) != rawLength)
+					throw new IOException("Corrupted stream (stored length mismatch)");
+
+				readFully(this.block, rawLength);
+			} else
+			{
+				if (stored <= 0 || stored > LZ4Codec.maxCompressedLength(rawLength))
+					throw new IOException("Corrupted stream (invalid compressed length " + stored + ")");
+
+				if (this.compressed.length < stored)
+					this.compressed = new byte[LZ4Codec.maxCompressedLength(this.block.length)];
+
+				readFully(this.compressed, stored);
+				if (LZ4Codec.decompress(this.compressed, 0, stored, this.block, 0, rawLength) != rawLength)
+					throw new IOException("Corrupted stream (uncompressed length mismatch)");
+			}
+
+			this.blockOffset = 0;
+			this.blockLength = rawLength;
+		}
+
+		return true;
+	}
+
+	private void readFully(final byte[] destination, final int length) throws IOException
+	{
+		if (IOUtils.stream(this.in, destination, 0, length) != length)
+			throw new EOFException("Unexpected end of " + LZ4Codec.NAME + " stream");
+	}
+
+	private static int readInt(final byte[] data, final int offset)
+	{
+		return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16) | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+	}
+}
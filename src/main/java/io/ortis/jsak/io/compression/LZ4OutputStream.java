@@ -0,0 +1,139 @@
+package io.ortis.jsak.io.compression;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compress data using {@link LZ4Codec}. Stream format:
+ * <ul>
+ * <li>4 bytes magic number</li>
+ * <li>blocks: 4 bytes uncompressed length, 4 bytes stored length (highest bit set if the block is stored uncompressed), block data</li>
+ * <li>end mark: 4 bytes set to 0</li>
+ * </ul>
+ */
+public class LZ4OutputStream extends FilterOutputStream
+{
+	static final int MAGIC = 0x4A4C5A34;
+	static final int UNCOMPRESSED_FLAG = 0x80000000;
+	static final int MAX_BLOCK_LENGTH = 32 * 1024 * 1024;
+
+	private final byte[] block;
+	private final byte[] compressed;
+	private final int[] hashTable;
+	private int blockOffset;
+	private boolean closed = false;
+
+	public LZ4OutputStream(final OutputStream destination) throws IOException
+	{
+		this(destination, LZ4Codec.DEFAULT_BLOCK_LENGTH);
+	}
+
+	public LZ4OutputStream(final OutputStream destination, final int blockLength) throws IOException
+	{
+		super(destination);
+
+		if (blockLength <= 0 || blockLength > MAX_BLOCK_LENGTH)
+			throw new IllegalArgumentException("Block length must be between 1 and " + MAX_BLOCK_LENGTH);
+
+		this.block = new byte[blockLength];
+		this.compressed = new byte[8 + LZ4Codec.maxCompressedLength(blockLength)];
+		this.hashTable = LZ4Codec.newHashTable();
+		this.blockOffset = 0;
+
+		writeInt(MAGIC, this.compressed, 0);
+		this.out.write(this.compressed, 0, 4);
+	}
+
+	@Override
+	public void write(final int b) throws IOException
+	{
+		ensureOpen();
+
+		if (this.blockOffset == this.block.length)
+			writeBlock();
+
+		this.block[this.blockOffset++] = (byte) b;
+	}
+
+	@Override
+	public void write(final byte[] data, int offset, int length) throws IOException
+	{
+		ensureOpen();
+
+		while (length > 0)
+		{
+			if (this.blockOffset == this.block.length)
+				writeBlock();
+
+			final int w = Math.min(length, this.block.length - this.blockOffset);
+			System.arraycopy(data, offset, this.block, this.blockOffset, w);
+			this.blockOffset += w;
+			offset += w;
+			length -= w;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException
+	{
+		ensureOpen();
+		writeBlock();
+		this.out.flush();
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (this.closed)
+			return;
+
+		try
+		{
+			writeBlock();
+			writeInt(0, this.compressed, 0);
+			this.out.write(this.compressed, 0, 4);
+			this.out.flush();
+		} finally
+		{
+			this.closed = true;
+			this.out.close();
+		}
+	}
+
+	private void writeBlock() throws IOException
+	{
+		if (this.blockOffset == 0)
+			return;
+
+		final int length = LZ4Codec.compress(this.block, 0, this.blockOffset, this.compressed, 8, this.hashTable);
+		writeInt(this.blockOffset, this.compressed, 0);
+
+		if (length < this.blockOffset)
+		{
+			writeInt(length, this.compressed, 4);
+			this.out.write(this.compressed, 0, 8 + length);
+		} else
+		{// incompressible
+			writeInt(this.blockOffset | UNCOMPRESSED_FLAG, this.compressed, 4);
+			this.out.write(this.compressed, 0, 8);
+			this.out.write(this.block, 0, this.blockOffset);
+		}
+
+		this.blockOffset = 0;
+	}
+
+	private void ensureOpen() throws IOException
+	{
+		if (this.closed)
+			throw new IOException("Stream is closed");
+	}
+
+	static void writeInt(final int value, final byte[] destination, final int offset)
+	{
+		destination[offset] = (byte) (value >>> 24);
+		destination[offset + 1] = (byte) (value >>> 16);
+		destination[offset + 2] = (byte) (value >>> 8);
+		destination[offset + 3] = (byte) value;
+	}
+}
@@ -0,0 +1,35 @@
+package io.ortis.jsak.io.file;
+
+import io.ortis.jsak.io.bytes.Bytes;
+import io.ortis.jsak.io.bytes.XXHash64;
+
+import java.nio.file.Path;
+
+/**
+ * Listener of {@link DirectoryContentMonitor}. <code>content</code> is <code>null</code> for files larger than the max content size of the
+ * monitor (only their hash is kept). <code>hash</code> is the {@link XXHash64} hash of the content of the file, whatever its size
+ */
+public interface DirectoryContentListener
+{
+	default void onFileCreated(final Path path, final Bytes content)
+	{
+	}
+
+	default void onFileModified(final Path path, final Bytes content)
+	{
+	}
+
+	default void onFileCreated(final Path path, final Bytes content, final long hash)
+	{
+		onFileCreated(path, content);
+	}
+
+	default void onFileModified(final Path path, final Bytes content, final long hash)
+	{
+		onFileModified(path, content);
+	}
+
+	default void onFileDeleted(final Path path)
+	{
+	}
+}
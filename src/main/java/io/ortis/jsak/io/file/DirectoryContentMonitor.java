@@ -0,0 +1,538 @@
+package io.ortis.jsak.io.file;
+
+import io.ortis.jsak.FormatUtils;
+import io.ortis.jsak.io.bytes.Bytes;
+import io.ortis.jsak.io.bytes.XXHash64;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Monitor the files of a directory tree matching a glob pattern (relative to the root directory, e.g. <code>**.json</code>). Files can be
+ * created and deleted at runtime.
+ * <p>
+ * The content of files up to <code>maxContentSize</code> is kept in RAM, larger files are only tracked by their {@link XXHash64} hash (see
+ * {@link #getFileHash(Path)}). A file is only read when its metadata (last modified time and size) changes.
+ * <p>
+ * In {@link FileContentMonitor.Mode#WATCH} mode, every directory of the tree is registered to a {@link WatchService} and only the files targeted
+ * by events are checked, once no event has been received for <code>debounce</code>. The whole tree is still rescanned every <code>pulse</code>
+ * in case events are lost
+ */
+public class DirectoryContentMonitor implements Runnable
+{
+	public static final Duration COOLDOWN = Duration.ofSeconds(60);
+	public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(100);
+	public static final long DEFAULT_MAX_CONTENT_SIZE = 64 * 1024;
+	private static final long RACY_WINDOW_MILLIS = 2000;
+	private static final int HASH_BUFFER_LENGTH = 64 * 1024;
+
+	private final Path root;
+	private final String glob;
+	private final PathMatcher matcher;
+	private final long pulseMillis;
+	private final FileContentMonitor.Mode mode;
+	private final long debounceMillis;
+	private final long maxContentSize;
+	private final Logger logger;
+
+	private final List<DirectoryContentListener> listeners = new LinkedList<>();
+	private final Object lock = new Object();
+	private final Map<Path, FileEntry> entries = new HashMap<>();
+	private final ByteBuffer hashBuffer = ByteBuffer.allocateDirect(HASH_BUFFER_LENGTH);
+
+	private static final class FileEntry
+	{
+		private long lastModified;
+		private long size;
+		private long readTime;
+		/**
+		 * <code>null</code> if the file is larger than the max content size
+		 */
+		private Bytes content;
+		/**
+		 * {@link XXHash64} hash of the content
+		 */
+		private long hash;
+	}
+
+	public DirectoryContentMonitor(final Path root, final String glob, final Duration pulse) throws IOException
+	{
+		this(root, glob, pulse, FileContentMonitor.Mode.WATCH, DEFAULT_DEBOUNCE, DEFAULT_MAX_CONTENT_SIZE, null);
+	}
+
+	/**
+	 * @param root:           root directory
+	 * @param glob:           glob pattern of the monitored files, relative to <code>root</code> (<code>null</code> for all files)
+	 * @param pulse:          period of the full rescans
+	 * @param mode:           monitoring mode
+	 * @param debounce:       delay without event before checking a file (only used in {@link FileContentMonitor.Mode#WATCH} mode)
+	 * @param maxContentSize: max size of the files whose content is kept in RAM
+	 */
+	public DirectoryContentMonitor(final Path root, final String glob, final Duration pulse, final FileContentMonitor.Mode mode,
+			final Duration debounce, final long maxContentSize, final Logger logger) throws IOException
+	{
+		this.root = root.toAbsolutePath().normalize();
+		if (!Files.isDirectory(this.root))
+			throw new IllegalArgumentException(this.root + " is not a directory");
+
+		this.glob = glob;
+		this.matcher = this.glob == null ? null : this.root.getFileSystem().getPathMatcher("glob:" + this.glob);
+
+		this.pulseMillis = pulse.toMillis();
+		if (this.pulseMillis < 0)
+			throw new IllegalArgumentException("Invalid pulse duration");
+
+		this.mode = mode;
+		if (this.mode == null)
+			throw new IllegalArgumentException("Mode is null");
+
+		this.debounceMillis = debounce.toMillis();
+		if (this.debounceMillis < 0)
+			throw new IllegalArgumentException("Invalid debounce duration");
+
+		this.maxContentSize = maxContentSize;
+		if (this.maxContentSize < 0)
+			throw new IllegalArgumentException("Max content size must be greater or equal to 0");
+
+		this.logger = logger;
+
+		// initial state, without notification
+		for (final Path path : scan(this.root))
+		{
+			final FileEntry entry = new FileEntry();
+			read(path, entry);
+			this.entries.put(path, entry);
+		}
+	}
+
+	@Override
+	public void run()
+	{
+		try
+		{
+			if (this.mode == FileContentMonitor.Mode.WATCH)
+			{
+				final WatchService watchService = newWatchService();
+				if (watchService != null)
+					try (watchService)
+					{
+						watch(watchService);
+						return;
+					}
+			}
+
+			poll();
+		} catch (final InterruptedException | ClosedWatchServiceException e)
+		{
+			Thread.currentThread().interrupt();
+		} catch (final Exception e)
+		{
+			if (this.logger != null)
+				this.logger.severe("Critical error while monitoring directory\n" + FormatUtils.formatException(e));
+			else
+				e.printStackTrace();
+		}
+	}
+
+	private void poll() throws InterruptedException
+	{
+		while (!Thread.interrupted())
+		{
+			try
+			{
+				final long start = System.currentTimeMillis();
+
+				rescan();
+
+				final long sleep = this.pulseMillis - (System.currentTimeMillis() - start);
+				if (sleep < 0)
+				{
+					if (this.logger != null)
+						this.logger.warning("Monitoring loop is late by " + FormatUtils.formatDuration(Duration.ofMillis(sleep).negated()));
+				} else
+					Thread.sleep(sleep);
+
+			} catch (final InterruptedException e)
+			{
+				throw e;
+			} catch (final Exception e)
+			{
+				cooldown(e);
+			}
+		}
+	}
+
+	private void watch(final WatchService watchService) throws InterruptedException, IOException
+	{
+		register(this.root, watchService);
+		// changes that happened before registration
+		rescan();
+
+		// check deadline by path
+		final Map<Path, Long> pending = new HashMap<>();
+		long nextPulse = this.pulseMillis > 0 ? System.currentTimeMillis() + this.pulseMillis : Long.MAX_VALUE;
+
+		while (!Thread.interrupted())
+		{
+			try
+			{
+				long deadline = nextPulse;
+				for (final long checkDeadline : pending.values())
+					deadline = Math.min(deadline, checkDeadline);
+
+				final long timeout = deadline - System.currentTimeMillis();
+				final WatchKey key = timeout <= 0 ? watchService.poll() :
+									 deadline == Long.MAX_VALUE ? watchService.take() : watchService.poll(timeout, TimeUnit.MILLISECONDS);
+				boolean overflow = false;
+				if (key != null)
+				{
+					final long checkDeadline = System.currentTimeMillis() + this.debounceMillis;
+					final Path directory = (Path) key.watchable();
+					for (final WatchEvent<?> event : key.pollEvents())
+					{
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+						{
+							overflow = true;
+							continue;
+						}
+
+						final Path path = directory.resolve((Path) event.context());
+						if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS))
+						{// files may have been created before the registration
+							register(path, watchService);
+							for (final Path file : scan(path))
+								pending.put(file, checkDeadline);
+						} else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE)
+						{// file or whole directory
+							synchronized (this.lock)
+							{
+								for (final Path file : this.entries.keySet())
+									if (file.startsWith(path))
+										pending.put(file, checkDeadline);
+							}
+						} else if (matches(path))
+							pending.put(path, checkDeadline);
+					}
+
+					if (!key.reset())
+						key.cancel();// directory deleted
+				}
+
+				final long now = System.currentTimeMillis();
+				if (overflow || now >= nextPulse)
+				{
+					pending.clear();
+					if (overflow)
+						register(this.root, watchService);
+					rescan();
+					nextPulse = this.pulseMillis > 0 ? System.currentTimeMillis() + this.pulseMillis : Long.MAX_VALUE;
+					continue;
+				}
+
+				final Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+				while (iterator.hasNext())
+				{
+					final Map.Entry<Path, Long> entry = iterator.next();
+					if (entry.getValue() <= now)
+					{
+						iterator.remove();
+						check(entry.getKey());
+					}
+				}
+
+			} catch (final InterruptedException | ClosedWatchServiceException e)
+			{
+				throw e;
+			} catch (final Exception e)
+			{
+				cooldown(e);
+			}
+		}
+	}
+
+	/**
+	 * Check every file of the tree (only files whose metadata changed are read)
+	 */
+	private void rescan() throws IOException
+	{
+		final Set<Path> paths = new HashSet<>(scan(this.root));
+		final List<Path> known;
+		synchronized (this.lock)
+		{
+			known = new ArrayList<>(this.entries.keySet());
+		}
+
+		for (final Path path : known)
+			if (!paths.contains(path))
+				check(path);// deleted
+
+		for (final Path path : paths)
+			check(path);
+	}
+
+	/**
+	 * Compare <code>path</code> with its known state and notify the listeners of the change
+	 */
+	private void check(final Path path) throws IOException
+	{
+		final FileEntry entry;
+		synchronized (this.lock)
+		{
+			entry = this.entries.get(path);
+		}
+
+		final BasicFileAttributes attributes;
+		try
+		{
+			attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (final NoSuchFileException e)
+		{
+			if (entry != null)
+			{
+				synchronized (this.lock)
+				{
+					this.entries.remove(path);
+				}
+
+				if (this.logger != null)
+					this.logger.info("File '" + path + "' has been deleted");
+
+				for (final DirectoryContentListener listener : getListeners())
+					listener.onFileDeleted(path);
+			}
+			return;
+		}
+
+		if (!attributes.isRegularFile())
+			return;
+
+		if (entry == null)
+		{
+			final FileEntry newEntry = new FileEntry();
+			try
+			{
+				read(path, newEntry);
+			} catch (final NoSuchFileException e)
+			{
+				return;
+			}
+
+			synchronized (this.lock)
+			{
+				this.entries.put(path, newEntry);
+			}
+
+			if (this.logger != null)
+				this.logger.info("File '" + path + "' has been created");
+
+			for (final DirectoryContentListener listener : getListeners())
+				listener.onFileCreated(path, newEntry.content, newEntry.hash);
+			return;
+		}
+
+		final long lastModified = attributes.lastModifiedTime().toMillis();
+		if (lastModified == entry.lastModified && attributes.size() == entry.size && entry.readTime - lastModified >= RACY_WINDOW_MILLIS)
+			return;
+
+		final FileEntry newEntry = new FileEntry();
+		try
+		{
+			read(path, newEntry);
+		} catch (final NoSuchFileException e)
+		{
+			return;
+		}
+
+		final boolean modified = newEntry.content == null || entry.content == null ?
+								 newEntry.size != entry.size || newEntry.hash != entry.hash :
+								 !newEntry.content.equals(entry.content);
+		synchronized (this.lock)
+		{
+			this.entries.put(path, newEntry);
+		}
+
+		if (modified)
+		{
+			if (this.logger != null)
+				this.logger.info("File '" + path + "' has changed");
+
+			for (final DirectoryContentListener listener : getListeners())
+				listener.onFileModified(path, newEntry.content, newEntry.hash);
+		}
+	}
+
+	/**
+	 * Read the content (or the hash) of <code>path</code> and its metadata
+	 */
+	private void read(final Path path, final FileEntry entry) throws IOException
+	{
+		final long readTime = System.currentTimeMillis();
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+		// metadata read before the content: a concurrent change is detected on the next check
+		entry.lastModified = attributes.lastModifiedTime().toMillis();
+		entry.readTime = readTime;
+		if (attributes.size() <= this.maxContentSize)
+		{
+			final byte[] content = Files.readAllBytes(path);
+			entry.content = Bytes.wrap(content);
+			entry.size = attributes.size();
+			entry.hash = XXHash64.hash(content);
+		} else
+		{
+			entry.content = null;
+			entry.size = attributes.size();
+			entry.hash = XXHash64.hash(path, this.hashBuffer);
+		}
+	}
+
+	/**
+	 * @return matching regular files of the tree of <code>directory</code>
+	 */
+	private List<Path> scan(final Path directory) throws IOException
+	{
+		final List<Path> paths = new ArrayList<>();
+		Files.walkFileTree(directory, new SimpleFileVisitor<>()
+		{
+			@Override
+			public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs)
+			{
+				if (attrs.isRegularFile() && matches(file))
+					paths.add(file);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(final Path file, final IOException exc)
+			{// deleted while walking
+				return FileVisitResult.CONTINUE;
+			}
+		});
+
+		return paths;
+	}
+
+	/**
+	 * @return a {@link WatchService} or <code>null</code> if the file system does not support it
+	 */
+	private WatchService newWatchService()
+	{
+		try
+		{
+			return this.root.getFileSystem().newWatchService();
+		} catch (final UnsupportedOperationException | IOException e)
+		{
+			if (this.logger != null)
+				this.logger.warning("Watch service not available, falling back to polling - " + e);
+
+			return null;
+		}
+	}
+
+	private void register(final Path directory, final WatchService watchService) throws IOException
+	{
+		Files.walkFileTree(directory, new SimpleFileVisitor<>()
+		{
+			@Override
+			public FileVisitResult preVisitDirectory(final Path dir, final BasicFileAttributes attrs) throws IOException
+			{
+				dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+						StandardWatchEventKinds.ENTRY_DELETE);
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(final Path file, final IOException exc)
+			{
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	private boolean matches(final Path path)
+	{
+		return this.matcher == null || this.matcher.matches(this.root.relativize(path));
+	}
+
+	private void cooldown(final Exception e) throws InterruptedException
+	{
+		if (this.logger != null)
+		{
+			this.logger.severe("Error while monitoring directory\n" + FormatUtils.formatException(e));
+			this.logger.info(FormatUtils.formatDuration(COOLDOWN) + " before resuming directory monitoring");
+		} else
+			e.printStackTrace();
+
+		Thread.sleep(COOLDOWN.toMillis());
+	}
+
+	private List<DirectoryContentListener> getListeners()
+	{
+		synchronized (this.listeners)
+		{
+			return new ArrayList<>(this.listeners);
+		}
+	}
+
+	/**
+	 * @return content of <code>path</code> or <code>null</code> if the file is unknown or larger than the max content size
+	 */
+	public Bytes getFileContent(final Path path)
+	{
+		synchronized (this.lock)
+		{
+			final FileEntry entry = this.entries.get(path.toAbsolutePath().normalize());
+			return entry == null ? null : entry.content;
+		}
+	}
+
+	/**
+	 * @return {@link XXHash64} hash of the content of <code>path</code> (also kept for files larger than the max content size)
+	 */
+	public long getFileHash(final Path path)
+	{
+		synchronized (this.lock)
+		{
+			final FileEntry entry = this.entries.get(path.toAbsolutePath().normalize());
+			if (entry == null)
+				throw new IllegalArgumentException("File '" + path + "' is not monitored");
+
+			return entry.hash;
+		}
+	}
+
+	/**
+	 * @return monitored files
+	 */
+	public Set<Path> getFiles()
+	{
+		synchronized (this.lock)
+		{
+			return new TreeSet<>(this.entries.keySet());
+		}
+	}
+
+	public boolean addListener(final DirectoryContentListener listener)
+	{
+		synchronized (this.listeners)
+		{
+			return this.listeners.add(listener);
+		}
+	}
+
+	public Path getRoot()
+	{
+		return this.root;
+	}
+
+	public String getGlob()
+	{
+		return this.glob;
+	}
+}
@@ -3,31 +3,78 @@ package io.ortis.jsak.io.file;
 
 import io.ortis.jsak.FormatUtils;
 import io.ortis.jsak.io.bytes.Bytes;
+import io.ortis.jsak.io.bytes.XXHash64;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.WatchService;
+import java.nio.ByteBuffer;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 /**
- * Monitor the content of files. All files are read and loaded in RAM. Should only be use for small size files.
- * For large file, use {@link WatchService} from NIO package.
+ * Monitor the content of files. All files are read and loaded in RAM. Should only be use for small size files ({@link FileTailer} follows
+ * large growing files).
+ * <p>
+ * A file is only read when its metadata (last modified time and size) changes. The metadata is checked every <code>pulse</code>
+ * ({@link Mode#POLL}, the default). In {@link Mode#WATCH} mode, changes are notified by a
+ * {@link WatchService} and bursts of events are debounced: a file is read once no event has been received for <code>debounce</code>. The metadata
+ * of all files is still checked every <code>pulse</code> in case events are lost (or not supported by the file system).
+ * <p>
+ * In digest mode, the content of the files is not retained: files are streamed through {@link XXHash64} and only read in RAM to notify the
+ * listeners when their hash changes
  */
 public class FileContentMonitor implements Runnable
 {
 	public static final Duration COOLDOWN = Duration.ofSeconds(60);
+	public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(100);
+	/**
+	 * A file modified less than this before it was read may be modified again without changing its metadata (coarse timestamps): it is read
+	 * again on the next check
+	 */
+	private static final long RACY_WINDOW_MILLIS = 2000;
+	private static final int HASH_BUFFER_LENGTH = 64 * 1024;
+
+	public enum Mode
+	{
+		/**
+		 * Check the metadata of the files every pulse
+		 */
+		POLL,
+		/**
+		 * Wait for {@link WatchService} events, check the metadata of the files every pulse as fallback (disabled if the pulse is zero)
+		 */
+		WATCH
+	}
 
 	private final Duration pulse;
 	private final long pulseMillis;
+	private final Mode mode;
+	private final long debounceMillis;
+	private final boolean digest;
 	private final Logger logger;
 
 	private final List<FileContentListener> listeners = new LinkedList<>();
 	private final Object lock = new Object();
 	private final Map<Path, Bytes> files;
+	private final Map<Path, FileState> states;
+	/**
+	 * Only used in digest mode
+	 */
+	private final ByteBuffer hashBuffer;
+
+	private static final class FileState
+	{
+		private long lastModified;
+		private long size;
+		private long readTime;
+		/**
+		 * Only set in digest mode
+		 */
+		private volatile long hash;
+	}
 
 	public FileContentMonitor(final Path filePath, final Duration pulse) throws IOException
 	{
@@ -46,11 +93,41 @@ public class FileContentMonitor implements Runnable
 
 	public FileContentMonitor(final List<Path> filePaths, final Duration pulse, final Logger logger) throws IOException
 	{
+		this(filePaths, pulse, Mode.POLL, DEFAULT_DEBOUNCE, logger);
+	}
+
+	public FileContentMonitor(final List<Path> filePaths, final Duration pulse, final Mode mode, final Duration debounce, final Logger logger)
+			throws IOException
+	{
+		this(filePaths, pulse, mode, debounce, false, logger);
+	}
+
+	/**
+	 * @param pulse:    period of the metadata checks
+	 * @param mode:     monitoring mode
+	 * @param debounce: delay without event before reading a file (only used in {@link Mode#WATCH} mode)
+	 * @param digest:   if <code>true</code>, only the hash of the files is retained
+	 */
+	public FileContentMonitor(final List<Path> filePaths, final Duration pulse, final Mode mode, final Duration debounce, final boolean digest,
+			final Logger logger) throws IOException
+	{
+		this.digest = digest;
+		this.hashBuffer = this.digest ? ByteBuffer.allocateDirect(HASH_BUFFER_LENGTH) : null;
 		this.files = new LinkedHashMap<>();
+		this.states = new HashMap<>();
 		for (final Path path : filePaths)
 		{
-			if (!this.files.containsKey(path))
-				this.files.put(path, Bytes.wrap(Files.readAllBytes(path)));
+			if (!this.states.containsKey(path))
+			{
+				final FileState state = new FileState();
+				if (this.digest)
+				{
+					hash(path, state);
+					this.files.put(path, null);
+				} else
+					this.files.put(path, Bytes.wrap(read(path, state)));
+				this.states.put(path, state);
+			}
 		}
 
 		this.pulse = pulse;
@@ -58,6 +135,14 @@ public class FileContentMonitor implements Runnable
 		if (this.pulseMillis < 0)
 			throw new IllegalArgumentException("Invalid pulse duration");
 
+		this.mode = mode;
+		if (this.mode == null)
+			throw new IllegalArgumentException("Mode is null");
+
+		this.debounceMillis = debounce.toMillis();
+		if (this.debounceMillis < 0)
+			throw new IllegalArgumentException("Invalid debounce duration");
+
 		this.logger = logger;
 	}
 
@@ -66,73 +151,281 @@ public class FileContentMonitor implements Runnable
 	{
 		try
 		{
-			while (!Thread.interrupted())
+			if (this.mode == Mode.WATCH)
 			{
-				try
+				final WatchService watchService = newWatchService();
+				if (watchService != null)
+					try (watchService)
+					{
+						watch(watchService);
+						return;
+					}
+			}
+
+			poll();
+		} catch (final InterruptedException | ClosedWatchServiceException e)
+		{
+			Thread.currentThread().interrupt();
+		} catch (final Exception e)
+		{
+			if (this.logger != null)
+				this.logger.severe("Critical error while monitoring files\n" + FormatUtils.formatException(e));
+			else
+				e.printStackTrace();
+		}
+	}
+
+	private void poll() throws InterruptedException
+	{
+		while (!Thread.interrupted())
+		{
+			try
+			{
+				final long start = System.currentTimeMillis();
+
+				checkAll();
+
+				final long end = System.currentTimeMillis();
+				final long sleep = this.pulseMillis - (end - start);
+				if (sleep < 0)
 				{
-					final long start = System.currentTimeMillis();
+					if (this.logger != null)
+						this.logger.warning("Monitoring loop is late by " + FormatUtils.formatDuration(Duration.ofMillis(sleep).negated()));
+				} else
+					Thread.sleep(sleep);
 
-					final List<Path> paths = new LinkedList<>(this.files.keySet());
-					for (final Path path : paths)
+
+			} catch (final InterruptedException e)
+			{
+				throw e;
+			} catch (final Exception e)
+			{
+				cooldown(e);
+			}
+		}
+	}
+
+	private void watch(final WatchService watchService) throws InterruptedException
+	{
+		final Map<Path, Path> watched = new HashMap<>();
+		for (final Path path : this.files.keySet())
+			watched.put(path.toAbsolutePath().normalize(), path);
+
+		// read deadline by monitored path
+		final Map<Path, Long> pending = new HashMap<>();
+		long nextPulse = this.pulseMillis > 0 ? System.currentTimeMillis() + this.pulseMillis : Long.MAX_VALUE;
+
+		while (!Thread.interrupted())
+		{
+			try
+			{
+				long deadline = nextPulse;
+				for (final long readDeadline : pending.values())
+					deadline = Math.min(deadline, readDeadline);
+
+				final long timeout = deadline - System.currentTimeMillis();
+				final WatchKey key = timeout <= 0 ? watchService.poll() :
+									 deadline == Long.MAX_VALUE ? watchService.take() : watchService.poll(timeout, TimeUnit.MILLISECONDS);
+				if (key != null)
+				{
+					final long readDeadline = System.currentTimeMillis() + this.debounceMillis;
+					final Path directory = (Path) key.watchable();
+					for (final WatchEvent<?> event : key.pollEvents())
 					{
-						final Bytes previousFileSerial = this.files.get(path);
-						final Bytes newFileSerial = Bytes.wrap(Files.readAllBytes(path));
-						if (!newFileSerial.equals(previousFileSerial))
-						{
-							if (this.logger != null)
-								this.logger.info("File '" + path + "' has changed");
-
-							synchronized (this.lock)
-							{
-								this.files.put(path, newFileSerial);
-							}
-
-							synchronized (this.listeners)
-							{
-								for (final FileContentListener fl : this.listeners)
-									fl.onFileContentChange(path, newFileSerial);
-							}
+						if (event.kind() == StandardWatchEventKinds.OVERFLOW)
+						{// events lost
+							for (final Path path : this.files.keySet())
+								pending.put(path, readDeadline);
+							continue;
 						}
+
+						final Path path = watched.get(directory.resolve((Path) event.context()));
+						if (path != null)
+							pending.put(path, readDeadline);
 					}
+					key.reset();
+				}
 
-					final long end = System.currentTimeMillis();
-					final long sleep = this.pulseMillis - (end - start);
-					if (sleep < 0)
+				final long now = System.currentTimeMillis();
+				final Iterator<Map.Entry<Path, Long>> iterator = pending.entrySet().iterator();
+				while (iterator.hasNext())
+				{
+					final Map.Entry<Path, Long> entry = iterator.next();
+					if (entry.getValue() <= now)
 					{
-						if (this.logger != null)
-							this.logger.warning("Monitoring loop is late by " + FormatUtils.formatDuration(Duration.ofMillis(sleep).negated()));
-					} else
-						Thread.sleep(sleep);
+						iterator.remove();
+						check(entry.getKey());
+					}
+				}
+
+				if (now >= nextPulse)
+				{
+					checkAll();
+					nextPulse = System.currentTimeMillis() + this.pulseMillis;
+				}
 
+			} catch (final InterruptedException | ClosedWatchServiceException e)
+			{
+				throw e;
+			} catch (final Exception e)
+			{
+				cooldown(e);
+			}
+		}
+	}
 
-				} catch (final InterruptedException e)
+	/**
+	 * @return a {@link WatchService} watching the parent directories of the files or <code>null</code> if the file system does not support it
+	 */
+	private WatchService newWatchService()
+	{
+		WatchService watchService = null;
+		try
+		{
+			watchService = FileSystems.getDefault().newWatchService();
+
+			final Set<Path> directories = new HashSet<>();
+			for (final Path path : this.files.keySet())
+				directories.add(path.toAbsolutePath().normalize().getParent());
+
+			for (final Path directory : directories)
+				directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+						StandardWatchEventKinds.ENTRY_DELETE);
+
+			return watchService;
+		} catch (final UnsupportedOperationException | IOException e)
+		{
+			if (this.logger != null)
+				this.logger.warning("Watch service not available, falling back to polling - " + e);
+
+			if (watchService != null)
+				try
 				{
-					throw e;
-				} catch (final Exception e)
+					watchService.close();
+				} catch (final IOException ignored)
 				{
-					if (this.logger != null)
-					{
-						this.logger.severe("Error while monitoring files\n" + FormatUtils.formatException(e));
-						this.logger.info(FormatUtils.formatDuration(COOLDOWN) + " before resuming files monitoring");
-					} else
-						e.printStackTrace();
+				}
+
+			return null;
+		}
+	}
 
-					Thread.sleep(COOLDOWN.toMillis());
+	private void checkAll() throws IOException
+	{
+		for (final Path path : this.files.keySet())
+			check(path);
+	}
+
+	/**
+	 * Read <code>path</code> if its metadata changed and notify the listeners if its content changed
+	 */
+	private void check(final Path path) throws IOException
+	{
+		final FileState state = this.states.get(path);
+		final BasicFileAttributes attributes;
+		try
+		{
+			attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		} catch (final NoSuchFileException e)
+		{// being replaced (or deleted): keep the last content
+			return;
+		}
+
+		final long lastModified = attributes.lastModifiedTime().toMillis();
+		if (lastModified == state.lastModified && attributes.size() == state.size && state.readTime - lastModified >= RACY_WINDOW_MILLIS)
+			return;
+
+		final Bytes newFileSerial;
+		try
+		{
+			if (this.digest)
+			{
+				final long previousHash = state.hash;
+				if (hash(path, state) == previousHash)
+					return;
+
+				// hash the materialized content: the file may have changed since it was hashed
+				final byte[] content = read(path, state);
+				state.hash = XXHash64.hash(content);
+				if (state.hash == previousHash)
+					return;
+
+				newFileSerial = Bytes.wrap(content);
+			} else
+			{
+				newFileSerial = Bytes.wrap(read(path, state));
+				if (newFileSerial.equals(this.files.get(path)))
+					return;
+
+				synchronized (this.lock)
+				{
+					this.files.put(path, newFileSerial);
 				}
 			}
-
-		} catch (final InterruptedException e)
+		} catch (final NoSuchFileException e)
 		{
-			Thread.currentThread().interrupt();
-		} catch (final Exception e)
+			return;
+		}
+
+		if (this.logger != null)
+			this.logger.info("File '" + path + "' has changed");
+
+		synchronized (this.listeners)
 		{
-			if (this.logger != null)
-				this.logger.severe("Critical error while monitoring files\n" + FormatUtils.formatException(e));
-			else
-				e.printStackTrace();
+			for (final FileContentListener fl : this.listeners)
+				fl.onFileContentChange(path, newFileSerial);
 		}
 	}
 
+	/**
+	 * Read the content of <code>path</code> and update its metadata
+	 */
+	private static byte[] read(final Path path, final FileState state) throws IOException
+	{
+		final long readTime = System.currentTimeMillis();
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		final byte[] content = Files.readAllBytes(path);
+
+		// metadata read before the content: a concurrent change is detected on the next check
+		state.lastModified = attributes.lastModifiedTime().toMillis();
+		state.size = attributes.size();
+		state.readTime = readTime;
+		return content;
+	}
+
+	/**
+	 * Stream the content of <code>path</code> through the hash buffer and update its metadata and hash
+	 *
+	 * @return the hash of the content
+	 */
+	private long hash(final Path path, final FileState state) throws IOException
+	{
+		final long readTime = System.currentTimeMillis();
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		final long hash = XXHash64.hash(path, this.hashBuffer);
+
+		state.lastModified = attributes.lastModifiedTime().toMillis();
+		state.size = attributes.size();
+		state.readTime = readTime;
+		state.hash = hash;
+		return hash;
+	}
+
+	private void cooldown(final Exception e) throws InterruptedException
+	{
+		if (this.logger != null)
+		{
+			this.logger.severe("Error while monitoring files\n" + FormatUtils.formatException(e));
+			this.logger.info(FormatUtils.formatDuration(COOLDOWN) + " before resuming files monitoring");
+		} else
+			e.printStackTrace();
+
+		Thread.sleep(COOLDOWN.toMillis());
+	}
+
+	/**
+	 * @return the last content of <code>path</code> (<code>null</code> in digest mode)
+	 */
 	public Bytes getFileContent(final Path path)
 	{
 		synchronized (this.lock)
@@ -148,4 +441,26 @@ public class FileContentMonitor implements Runnable
 			return this.listeners.add(fileListener);
 		}
 	}
+
+	/**
+	 * @return the last hash of <code>path</code> (only set in digest mode)
+	 */
+	public long getFileHash(final Path path)
+	{
+		final FileState state = this.states.get(path);
+		if (state == null)
+			throw new IllegalArgumentException("File '" + path + "' is not monitored");
+
+		return state.hash;
+	}
+
+	public Mode getMode()
+	{
+		return this.mode;
+	}
+
+	public boolean isDigest()
+	{
+		return this.digest;
+	}
 }
@@ -0,0 +1,41 @@
+package io.ortis.jsak.io.file;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Listener of {@link FileTailer}. Only the methods of the mode of the tailer are called
+ */
+public interface FileTailListener
+{
+	/**
+	 * Called in {@link FileTailer.Mode#CHUNK} mode. <code>chunk</code> is a read-only view of the buffer of the tailer and is only valid during
+	 * the call
+	 *
+	 * @param position: position of the first byte of <code>chunk</code> in the file
+	 */
+	default void onChunk(final Path path, final long position, final ByteBuffer chunk)
+	{
+	}
+
+	/**
+	 * Called in {@link FileTailer.Mode#LINE} mode for every complete line (without its line terminator)
+	 */
+	default void onLine(final Path path, final String line)
+	{
+	}
+
+	/**
+	 * Called when the file has been truncated: it is read again from the start
+	 */
+	default void onTruncate(final Path path)
+	{
+	}
+
+	/**
+	 * Called when the file has been replaced by a new file (rotation): the new file is read from the start
+	 */
+	default void onRotate(final Path path)
+	{
+	}
+}
@@ -0,0 +1,372 @@
+package io.ortis.jsak.io.file;
+
+import io.ortis.jsak.FormatUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Follow growing files (like <code>tail -f</code>). Only the bytes appended since the last check are read, with positional reads into a
+ * buffer reused for every read: memory and CPU usage do not depend on the size of the files.
+ * <p>
+ * The metadata of the files is checked every <code>pulse</code>:
+ * <ul>
+ *     <li>if the size of a file is smaller than the current position, the file has been truncated and it is read again from the start</li>
+ *     <li>if the file key (inode) of a file changed, the file has been rotated: the remaining bytes of the old file are read then the new file is
+ *     read from the start</li>
+ * </ul>
+ * In {@link Mode#LINE} mode, lines longer than the buffer are split (before the last UTF-8 character if it is incomplete)
+ */
+public class FileTailer implements Runnable
+{
+	public static final Duration COOLDOWN = Duration.ofSeconds(60);
+	public static final int DEFAULT_BUFFER_LENGTH = 64 * 1024;
+
+	public enum Mode
+	{
+		/**
+		 * Notify appended bytes with {@link FileTailListener#onChunk(Path, long, ByteBuffer)}
+		 */
+		CHUNK,
+		/**
+		 * Notify appended UTF-8 lines with {@link FileTailListener#onLine(Path, String)}
+		 */
+		LINE
+	}
+
+	private final long pulseMillis;
+	private final Mode mode;
+	private final int bufferLength;
+	private final Logger logger;
+
+	private final List<FileTailListener> listeners = new LinkedList<>();
+	private final Map<Path, TailState> states;
+
+	private static final class TailState
+	{
+		private final Path path;
+		private FileChannel channel;
+		private Object fileKey;
+		private volatile long position;
+		/**
+		 * Allocated on first read
+		 */
+		private ByteBuffer buffer;
+
+		private TailState(final Path path)
+		{
+			this.path = path;
+		}
+	}
+
+	public FileTailer(final Path filePath, final Duration pulse, final Mode mode) throws IOException
+	{
+		this(Collections.singletonList(filePath), pulse, mode, DEFAULT_BUFFER_LENGTH, false, null);
+	}
+
+	/**
+	 * @param pulse:        period of the checks
+	 * @param mode:         notification mode
+	 * @param bufferLength: length of the read buffer of each file (max length of the lines in {@link Mode#LINE} mode)
+	 * @param fromStart:    if <code>true</code>, existing content is notified. Otherwise, files are followed from their current end
+	 */
+	public FileTailer(final List<Path> filePaths, final Duration pulse, final Mode mode, final int bufferLength, final boolean fromStart,
+			final Logger logger) throws IOException
+	{
+		this.pulseMillis = pulse.toMillis();
+		if (this.pulseMillis <= 0)
+			throw new IllegalArgumentException("Invalid pulse duration");
+
+		this.mode = mode;
+		if (this.mode == null)
+			throw new IllegalArgumentException("Mode is null");
+
+		this.bufferLength = bufferLength;
+		if (this.bufferLength <= 0)
+			throw new IllegalArgumentException("Buffer length must be greater than 0");
+
+		this.logger = logger;
+
+		this.states = new LinkedHashMap<>();
+		for (final Path path : filePaths)
+		{
+			if (this.states.containsKey(path))
+				continue;
+
+			final TailState state = new TailState(path);
+			if (!fromStart)
+				try
+				{
+					final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+					state.fileKey = attributes.fileKey();
+					state.position = attributes.size();
+				} catch (final NoSuchFileException e)
+				{// will be read from the start once created
+				}
+
+			this.states.put(path, state);
+		}
+	}
+
+	@Override
+	public void run()
+	{
+		try
+		{
+			while (!Thread.interrupted())
+			{
+				try
+				{
+					final long start = System.currentTimeMillis();
+
+					for (final TailState state : this.states.values())
+						check(state);
+
+					final long sleep = this.pulseMillis - (System.currentTimeMillis() - start);
+					if (sleep < 0)
+					{
+						if (this.logger != null)
+							this.logger.warning("Tailing loop is late by " + FormatUtils.formatDuration(Duration.ofMillis(sleep).negated()));
+					} else
+						Thread.sleep(sleep);
+
+				} catch (final InterruptedException e)
+				{
+					throw e;
+				} catch (final Exception e)
+				{
+					if (this.logger != null)
+					{
+						this.logger.severe("Error while tailing files\n" + FormatUtils.formatException(e));
+						this.logger.info(FormatUtils.formatDuration(COOLDOWN) + " before resuming files tailing");
+					} else
+						e.printStackTrace();
+
+					Thread.sleep(COOLDOWN.toMillis());
+				}
+			}
+		} catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		} finally
+		{
+			for (final TailState state : this.states.values())
+				closeChannel(state);
+		}
+	}
+
+	private void check(final TailState state) throws IOException
+	{
+		final BasicFileAttributes attributes;
+		try
+		{
+			attributes = Files.readAttributes(state.path, BasicFileAttributes.class);
+		} catch (final NoSuchFileException e)
+		{// being rotated: read what is left in the old file
+			if (state.channel != null)
+				read(state);
+			return;
+		}
+
+		final Object fileKey = attributes.fileKey();
+		if (state.fileKey != null && fileKey != null && !state.fileKey.equals(fileKey))
+		{
+			if (state.channel != null)
+			{
+				read(state);
+				flush(state);
+				closeChannel(state);
+			}
+
+			if (this.logger != null)
+				this.logger.info("File '" + state.path + "' has been rotated");
+
+			reset(state);
+			for (final FileTailListener listener : getListeners())
+				listener.onRotate(state.path);
+		} else if (attributes.size() < state.position)
+		{
+			if (this.logger != null)
+				this.logger.info("File '" + state.path + "' has been truncated");
+
+			reset(state);
+			for (final FileTailListener listener : getListeners())
+				listener.onTruncate(state.path);
+		} else if (attributes.size() == state.position)
+			return;
+
+		if (state.channel == null)
+		{
+			try
+			{
+				state.channel = FileChannel.open(state.path, StandardOpenOption.READ);
+			} catch (final NoSuchFileException e)
+			{
+				return;
+			}
+			state.fileKey = fileKey;
+		}
+
+		read(state);
+	}
+
+	/**
+	 * Read and notify the bytes appended since the last read
+	 */
+	private void read(final TailState state) throws IOException
+	{
+		if (state.buffer == null)
+			state.buffer = ByteBuffer.allocate(this.bufferLength);
+
+		int read;
+		while ((read = state.channel.read(state.buffer, state.position)) > 0)
+		{
+			state.position += read;
+			state.buffer.flip();
+			if (this.mode == Mode.CHUNK)
+				notifyChunk(state);
+			else
+				notifyLines(state);
+		}
+	}
+
+	private void notifyChunk(final TailState state)
+	{
+		final ByteBuffer buffer = state.buffer;
+		final long position = state.position - buffer.remaining();
+		for (final FileTailListener listener : getListeners())
+			listener.onChunk(state.path, position, buffer.asReadOnlyBuffer());
+
+		buffer.clear();
+	}
+
+	private void notifyLines(final TailState state)
+	{
+		final ByteBuffer buffer = state.buffer;
+		final byte[] array = buffer.array();
+		final int limit = buffer.limit();
+		List<FileTailListener> listeners = null;
+		int start = 0;
+		for (int i = 0; i < limit; i++)
+			if (array[i] == '\n')
+			{
+				if (listeners == null)
+					listeners = getListeners();
+
+				notifyLine(state.path, array, start, i, listeners);
+				start = i + 1;
+			}
+
+		if (start == 0 && limit == array.length)
+		{// line longer than the buffer: an incomplete character is kept for the next read
+			final int end = utf8Boundary(array, limit);
+			notifyLine(state.path, array, 0, end, getListeners());
+			start = end;
+		}
+
+		buffer.position(start);
+		buffer.compact();
+	}
+
+	/**
+	 * @return <code>limit</code> or the start of the last UTF-8 character of <code>array</code> if it is incomplete
+	 */
+	private static int utf8Boundary(final byte[] array, final int limit)
+	{
+		int lead = limit - 1;
+		while (lead > 0 && limit - lead < 4 && (array[lead] & 0xC0) == 0x80)
+			lead--;
+
+		final int b = array[lead] & 0xFF;
+		final int length = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+		// malformed input or buffer shorter than a character: split anyway
+		return lead > 0 && limit - lead < length ? lead : limit;
+	}
+
+	private static void notifyLine(final Path path, final byte[] array, final int start, int end, final List<FileTailListener> listeners)
+	{
+		if (end > start && array[end - 1] == '\r')
+			end--;
+
+		final String line = new String(array, start, end - start, StandardCharsets.UTF_8);
+		for (final FileTailListener listener : listeners)
+			listener.onLine(path, line);
+	}
+
+	/**
+	 * Notify the pending incomplete line, if any
+	 */
+	private void flush(final TailState state)
+	{
+		if (this.mode == Mode.LINE && state.buffer != null && state.buffer.position() > 0)
+		{
+			notifyLine(state.path, state.buffer.array(), 0, state.buffer.position(), getListeners());
+			state.buffer.clear();
+		}
+	}
+
+	private void reset(final TailState state)
+	{
+		closeChannel(state);
+		state.fileKey = null;
+		state.position = 0;
+		if (state.buffer != null)
+			state.buffer.clear();
+	}
+
+	private void closeChannel(final TailState state)
+	{
+		if (state.channel != null)
+		{
+			try
+			{
+				state.channel.close();
+			} catch (final IOException e)
+			{
+				if (this.logger != null)
+					this.logger.warning("Error while closing '" + state.path + "' - " + e);
+			}
+			state.channel = null;
+		}
+	}
+
+	private List<FileTailListener> getListeners()
+	{
+		synchronized (this.listeners)
+		{
+			return new ArrayList<>(this.listeners);
+		}
+	}
+
+	/**
+	 * @return position of the next byte to read in <code>path</code> or -1 if the file is not tailed
+	 */
+	public long getPosition(final Path path)
+	{
+		final TailState state = this.states.get(path);
+		return state == null ? -1 : state.position;
+	}
+
+	public boolean addListener(final FileTailListener listener)
+	{
+		synchronized (this.listeners)
+		{
+			return this.listeners.add(listener);
+		}
+	}
+
+	public Mode getMode()
+	{
+		return this.mode;
+	}
+}
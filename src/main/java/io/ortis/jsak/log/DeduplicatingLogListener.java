@@ -0,0 +1,409 @@
+package io.ortis.jsak.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.LogRecord;
+
+/**
+ * Forward events to a listener, except repeated ones. Events are fingerprinted by logger, source class and method, first line of the message and
+ * class of the thrown exception. Only the first <code>maxOccurrences</code> events of a fingerprint are forwarded per window, the others are
+ * counted and a <code>Suppressed X similar events</code> summary is forwarded when the window ends.
+ * <p>
+ * Fingerprints are kept in a bounded open-addressing table: forwarding an event only costs a hash lookup. When the table is full, the fingerprint
+ * with the oldest window is evicted (its summary is forwarded first). Windows use the time of the events.
+ * <p>
+ * Summaries of ended windows are forwarded on the next event, by a timer <code>window</code> after the first suppressed event (so a storm that
+ * stops is summarized anyway) or on {@link #flush()}. Summaries are forwarded outside of the lock of the fingerprint table.
+ * <p>
+ * The wrapped listener may be called from the thread publishing the events, the timer thread or the thread calling {@link #flush()}, but never
+ * concurrently: all its calls are serialized (as by the dispatch thread of {@link LogService})
+ */
+public class DeduplicatingLogListener implements LogService.Listener, Closeable
+{
+	public static final int DEFAULT_CAPACITY = 1024;
+	private static final int MAX_PROBES = 16;
+
+	private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+		final Thread thread = new Thread(r);
+		thread.setName(DeduplicatingLogListener.class.getSimpleName() + "-sweeper");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final LogService.Listener listener;
+	private final int maxOccurrences;
+	private final long window;
+	private final LogService.LogRecordFormatter formatter;
+	private transient final Object lock = new Object();
+	/**
+	 * Held while calling the wrapped listener. Never acquired while holding {@link #lock}
+	 */
+	private transient final Object forwardLock = new Object();
+
+	private transient final int mask;
+	private transient final long[] fingerprints;
+	private transient final LogService.Event[] samples;
+	private transient final long[] windowStarts;
+	private transient final int[] occurrences;
+	private transient long nextSweep = Long.MIN_VALUE;
+	private transient long suppressedEventCount = 0;
+	private transient boolean sweepScheduled = false;
+	private transient boolean closed = false;
+
+	public DeduplicatingLogListener(final LogService.Listener listener, final int maxOccurrences, final Duration window)
+	{
+		this(listener, maxOccurrences, window, DEFAULT_CAPACITY, LogService.LogRecordFormatter.ONE_LINE_FORMATTER);
+	}
+
+	/**
+	 * @param listener:       listener to forward events to
+	 * @param maxOccurrences: number of events forwarded per fingerprint and per window
+	 * @param window:         duration of a window
+	 * @param capacity:       max number of fingerprints tracked (rounded up to the next power of two)
+	 * @param formatter:      formatter of the summary events
+	 */
+	public DeduplicatingLogListener(final LogService.Listener listener, final int maxOccurrences, final Duration window, final int capacity,
+			final LogService.LogRecordFormatter formatter)
+	{
+		this.listener = Objects.requireNonNull(listener, "Listener is null");
+
+		this.maxOccurrences = maxOccurrences;
+		if (this.maxOccurrences <= 0)
+			throw new IllegalArgumentException("Max occurrences must be greater than 0");
+
+		this.window = window.toMillis();
+		if (this.window <= 0)
+			throw new IllegalArgumentException("Window must be greater than 0");
+
+		if (capacity <= 0 || capacity > 1 << 30)
+			throw new IllegalArgumentException("Capacity must be between 1 and " + (1 << 30));
+		final int length = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+		this.mask = length - 1;
+		this.fingerprints = new long[length];
+		this.samples = new LogService.Event[length];
+		this.windowStarts = new long[length];
+		this.occurrences = new int[length];
+
+		this.formatter = Objects.requireNonNull(formatter, "Formatter is null");
+	}
+
+	@Override
+	public void onEvent(final LogService.Event event)
+	{
+		final long now = time(event);
+		final List<LogService.Event> summaries = new ArrayList<>(0);
+		final boolean forward;
+		synchronized (this.lock)
+		{
+			if (now >= this.nextSweep)
+			{
+				this.nextSweep = now + this.window;
+				sweep(now, summaries);
+			}
+
+			forward = track(event, now, summaries);
+		}
+
+		forward(summaries, forward ? event : null);
+	}
+
+	/**
+	 * Forward the summaries of all fingerprints with suppressed events and reset their windows
+	 */
+	public void flush()
+	{
+		final long now = System.currentTimeMillis();
+		final List<LogService.Event> summaries = new ArrayList<>();
+		synchronized (this.lock)
+		{
+			for (int i = 0; i <= this.mask; i++)
+				if (this.samples[i] != null)
+					evict(i, now, summaries);
+		}
+
+		forward(summaries, null);
+	}
+
+	/**
+	 * Flush the summaries and close the listener (if {@link Closeable})
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (this.lock)
+		{
+			this.closed = true;
+		}
+
+		flush();
+		LogService.close(this.listener);
+	}
+
+	/**
+	 * @return number of events suppressed so far
+	 */
+	public long getSuppressedEventCount()
+	{
+		synchronized (this.lock)
+		{
+			return this.suppressedEventCount;
+		}
+	}
+
+	public LogService.Listener getListener()
+	{
+		return this.listener;
+	}
+
+	/**
+	 * @return <code>true</code> if the event must be forwarded
+	 */
+	private boolean track(final LogService.Event event, final long now, final List<LogService.Event> summaries)
+	{
+		final long fingerprint = fingerprint(event.getLogRecord());
+		int slot = -1;
+		int oldest = -1;
+		for (int probe = 0, i = (int) fingerprint & this.mask; probe < MAX_PROBES; probe++, i = (i + 1) & this.mask)
+		{
+			final LogService.Event sample = this.samples[i];
+			if (sample == null)
+			{
+				slot = i;
+				break;
+			}
+
+			if (this.fingerprints[i] == fingerprint && isSimilar(sample.getLogRecord(), event.getLogRecord()))
+			{
+				if (now - this.windowStarts[i] >= this.window)
+				{// window ended
+					summarize(sample, this.windowStarts[i], this.occurrences[i], now, summaries);
+					this.windowStarts[i] = now;
+					this.occurrences[i] = 0;
+				}
+
+				if (this.occurrences[i] < this.maxOccurrences)
+				{
+					this.occurrences[i]++;
+					return true;
+				}
+
+				this.occurrences[i]++;
+				this.suppressedEventCount++;
+				if (!this.sweepScheduled && !this.closed)
+				{
+					this.sweepScheduled = true;
+					SWEEPER.schedule(this::scheduledSweep, this.window, TimeUnit.MILLISECONDS);
+				}
+				return false;
+			}
+
+			if (oldest < 0 || this.windowStarts[i] < this.windowStarts[oldest])
+				oldest = i;
+		}
+
+		if (slot < 0)
+		{// table full around this fingerprint
+			evict(oldest, now, summaries);
+			slot = oldest;
+		}
+
+		this.fingerprints[slot] = fingerprint;
+		this.samples[slot] = event;
+		this.windowStarts[slot] = now;
+		this.occurrences[slot] = 1;
+		return true;
+	}
+
+	/**
+	 * Summarize the ended windows without waiting for the next event. Rescheduled while windows with suppressed events remain
+	 */
+	private void scheduledSweep()
+	{
+		final List<LogService.Event> summaries = new ArrayList<>();
+		synchronized (this.lock)
+		{
+			this.sweepScheduled = false;
+			if (this.closed)
+				return;
+
+			final long now = System.currentTimeMillis();
+			sweep(now, summaries);
+
+			for (int i = 0; i <= this.mask; i++)
+				if (this.samples[i] != null && this.occurrences[i] > this.maxOccurrences)
+				{// window not ended yet
+					this.sweepScheduled = true;
+					SWEEPER.schedule(this::scheduledSweep, Math.max(1, this.windowStarts[i] + this.window - now), TimeUnit.MILLISECONDS);
+					break;
+				}
+		}
+
+		forward(summaries, null);
+	}
+
+	/**
+	 * Forward the summaries then <code>event</code> (if not <code>null</code>) outside of the lock of the table: the downstream listener may be
+	 * slow or log itself
+	 */
+	private void forward(final List<LogService.Event> summaries, final LogService.Event event)
+	{
+		if (summaries.isEmpty() && event == null)
+			return;
+
+		synchronized (this.forwardLock)
+		{
+			for (int i = 0; i < summaries.size(); i++)
+				this.listener.onEvent(summaries.get(i));
+
+			if (event != null)
+				this.listener.onEvent(event);
+		}
+	}
+
+	/**
+	 * Summarize the ended windows and free their slots
+	 */
+	private void sweep(final long now, final List<LogService.Event> summaries)
+	{
+		boolean evicted = false;
+		for (int i = 0; i <= this.mask; i++)
+			if (this.samples[i] != null && now - this.windowStarts[i] >= this.window)
+			{
+				evict(i, now, summaries);
+				evicted = true;
+			}
+
+		if (!evicted)
+			return;
+
+		// freed slots break probe chains: re-insert the remaining fingerprints
+		final long[] fingerprints = this.fingerprints.clone();
+		final LogService.Event[] samples = this.samples.clone();
+		final long[] windowStarts = this.windowStarts.clone();
+		final int[] occurrences = this.occurrences.clone();
+		Arrays.fill(this.samples, null);
+		for (int i = 0; i <= this.mask; i++)
+		{
+			if (samples[i] == null)
+				continue;
+
+			int slot = -1;
+			for (int probe = 0, j = (int) fingerprints[i] & this.mask; probe < MAX_PROBES; probe++, j = (j + 1) & this.mask)
+				if (this.samples[j] == null)
+				{
+					slot = j;
+					break;
+				}
+
+			if (slot < 0)
+				summarize(samples[i], windowStarts[i], occurrences[i], now, summaries);
+			else
+			{
+				this.fingerprints[slot] = fingerprints[i];
+				this.samples[slot] = samples[i];
+				this.windowStarts[slot] = windowStarts[i];
+				this.occurrences[slot] = occurrences[i];
+			}
+		}
+	}
+
+	private void evict(final int slot, final long now, final List<LogService.Event> summaries)
+	{
+		summarize(this.samples[slot], this.windowStarts[slot], this.occurrences[slot], now, summaries);
+		this.samples[slot] = null;
+	}
+
+	private void summarize(final LogService.Event sample, final long windowStart, final int occurrences, final long now,
+			final List<LogService.Event> summaries)
+	{
+		final int suppressed = occurrences - this.maxOccurrences;
+		if (suppressed <= 0)
+			return;
+
+		final LogRecord sampleRecord = sample.getLogRecord();
+		final String message = sampleRecord.getMessage() == null ? "null" : sampleRecord.getMessage();
+
+		final StringBuilder sb = new StringBuilder("Suppressed ").append(suppressed).append(" similar event").append(suppressed > 1 ? "s" : "")
+				.append(" in the last ").append(Duration.ofMillis(Math.max(0, now - windowStart))).append(": ")
+				.append(message, 0, firstLineEnd(message));
+		if (sampleRecord.getThrown() != null)
+			sb.append(" (").append(sampleRecord.getThrown().getClass().getName()).append(")");
+
+		final LogRecord record = new LogRecord(sampleRecord.getLevel(), sb.toString());
+		record.setLoggerName(sampleRecord.getLoggerName());
+		record.setSourceClassName(sampleRecord.getSourceClassName());
+		record.setSourceMethodName(sampleRecord.getSourceMethodName());
+
+		final ZoneId zone = sample.getZone() == null ? ZoneId.systemDefault() : sample.getZone();
+		summaries.add(new LogService.Event(now, zone, sample.getThreadName(), record, this.formatter));
+	}
+
+	private static long time(final LogService.Event event)
+	{
+		if (event.getEpochMillis() != Long.MIN_VALUE)
+			return event.getEpochMillis();
+
+		return event.getTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+
+	private static long fingerprint(final LogRecord record)
+	{
+		long h = 0x9E3779B97F4A7C15L;
+		h = mix(h, Objects.hashCode(record.getLoggerName()));
+		h = mix(h, Objects.hashCode(record.getSourceClassName()));
+		h = mix(h, Objects.hashCode(record.getSourceMethodName()));
+		h = mix(h, record.getThrown() == null ? 0 : record.getThrown().getClass().hashCode());
+
+		final String message = record.getMessage();
+		if (message != null)
+		{
+			final int end = firstLineEnd(message);
+			int hash = 0;
+			for (int i = 0; i < end; i++)
+				hash = 31 * hash + message.charAt(i);
+			h = mix(h, hash);
+		}
+
+		return h;
+	}
+
+	private static long mix(final long h, final int value)
+	{
+		long x = (h ^ value) * 0xBF58476D1CE4E5B9L;
+		x ^= x >>> 31;
+		return x * 0x94D049BB133111EBL;
+	}
+
+	private static boolean isSimilar(final LogRecord a, final LogRecord b)
+	{
+		if (!Objects.equals(a.getLoggerName(), b.getLoggerName()) || !Objects.equals(a.getSourceClassName(), b.getSourceClassName()) ||
+			!Objects.equals(a.getSourceMethodName(), b.getSourceMethodName()))
+			return false;
+
+		if ((a.getThrown() == null ? null : a.getThrown().getClass()) != (b.getThrown() == null ? null : b.getThrown().getClass()))
+			return false;
+
+		final String messageA = a.getMessage();
+		final String messageB = b.getMessage();
+		if (messageA == null || messageB == null)
+			return messageA == messageB;
+
+		final int end = firstLineEnd(messageA);
+		return end == firstLineEnd(messageB) && messageA.regionMatches(0, messageB, 0, end);
+	}
+
+	private static int firstLineEnd(final String message)
+	{
+		final int end = message.indexOf('\n');
+		return end < 0 ? message.length() : (end > 0 && message.charAt(end - 1) == '\r' ? end - 1 : end);
+	}
+}
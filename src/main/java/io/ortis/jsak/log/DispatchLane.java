@@ -0,0 +1,142 @@
+package io.ortis.jsak.log;
+
+import io.ortis.jsak.collection.ConcurrentRingBuffer;
+
+import java.io.Closeable;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deliver events to a single {@link LogService.Listener} from a dedicated worker thread, through a bounded queue (oldest events are dropped when
+ * the queue is full). A slow listener only delays itself
+ */
+class DispatchLane implements LogService.Listener, Runnable
+{
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1000);
+
+	private final LogService.Listener listener;
+	private final ConcurrentRingBuffer<LogService.Event> queue;
+	private final AtomicLong deliveredEventCount = new AtomicLong(0);
+	private final AtomicLong droppedEventCount = new AtomicLong(0);
+	private volatile boolean running = true;
+	private volatile boolean closeOnStop = false;
+	private volatile boolean parked = false;
+	private volatile Thread worker = null;
+	private Thread thread = null;
+
+	DispatchLane(final LogService.Listener listener, final int capacity)
+	{
+		this.listener = listener;
+		this.queue = new ConcurrentRingBuffer<>(capacity);
+	}
+
+	DispatchLane start(final ThreadFactory threadFactory)
+	{
+		final Thread thread;
+		if (threadFactory == null)
+		{
+			thread = new Thread(this);
+			thread.setName(LogService.class.getSimpleName() + "-lane-" + this.listener.getClass().getSimpleName());
+			thread.setDaemon(true);
+		} else
+			thread = threadFactory.newThread(this);
+
+		this.thread = thread;
+		thread.start();
+		return this;
+	}
+
+	/**
+	 * Stop the worker once pending events are delivered
+	 *
+	 * @param close: close the listener (if {@link Closeable}) once stopped
+	 */
+	void stop(final boolean close)
+	{
+		this.closeOnStop = close;
+		this.running = false;
+		wakeUpWorker();
+	}
+
+	/**
+	 * Wait for the worker to deliver the pending events and stop. The lane must be stopped and must not receive new events. Returns immediately
+	 * if called by the worker itself (i.e. by the listener reconfiguring the service): the lane is drained once the listener returns
+	 */
+	void join() throws InterruptedException
+	{
+		final Thread thread = this.thread;
+		if (thread != null && thread != Thread.currentThread())
+			thread.join();
+	}
+
+	@Override
+	public void onEvent(final LogService.Event event)
+	{
+		while (!this.queue.offer(event))
+			if (this.queue.poll() != null)
+				this.droppedEventCount.incrementAndGet();
+
+		wakeUpWorker();
+	}
+
+	@Override
+	public void run()
+	{
+		this.worker = Thread.currentThread();
+		try
+		{
+			while (!Thread.currentThread().isInterrupted())
+			{
+				final LogService.Event event = this.queue.poll();
+				if (event == null)
+				{
+					if (!this.running)
+						break;
+
+					this.parked = true;
+					if (this.queue.isEmpty() && this.running)
+						LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+					this.parked = false;
+					continue;
+				}
+
+				try
+				{
+					this.listener.onEvent(event);
+					this.deliveredEventCount.incrementAndGet();
+				} catch (final Exception e)
+				{
+					System.out.println("Error while processing log events - " + e.getMessage());
+					e.printStackTrace();
+				}
+			}
+		} finally
+		{
+			this.worker = null;
+			if (this.closeOnStop)
+				LogService.close(this.listener);
+		}
+	}
+
+	private void wakeUpWorker()
+	{
+		if (this.parked || !this.running)
+		{
+			final Thread worker = this.worker;
+			if (worker != null)
+				LockSupport.unpark(worker);
+		}
+	}
+
+	LogService.Listener getListener()
+	{
+		return this.listener;
+	}
+
+	LogService.LaneMetrics getMetrics()
+	{
+		return new LogService.LaneMetrics(this.listener, this.queue.size(), this.deliveredEventCount.get(), this.droppedEventCount.get());
+	}
+}
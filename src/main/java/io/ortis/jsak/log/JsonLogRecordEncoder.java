@@ -0,0 +1,36 @@
+package io.ortis.jsak.log;
+
+import java.nio.ByteBuffer;
+import java.time.temporal.TemporalAccessor;
+
+/**
+ * UTF-8 encoder of the {@link JsonLogRecordFormatter} format. Records are escaped into a reused buffer then encoded straight into the destination
+ */
+class JsonLogRecordEncoder implements LogRecordEncoder
+{
+	private static final int MAX_BUFFER_LENGTH = 64 * 1024;
+
+	private StringBuilder buffer = new StringBuilder(512);
+
+	@Override
+	public boolean encode(final LogService.Event event, final ByteBuffer destination)
+	{
+		if (this.buffer.capacity() > MAX_BUFFER_LENGTH)
+			this.buffer = new StringBuilder(512);// do not retain buffers grown by huge records
+
+		final String threadName = event.getThreadName();
+		// an event built from a LocalDateTime has no zone: its time is written without offset
+		final TemporalAccessor time = event.getEpochMillis() == Long.MIN_VALUE ? event.getTime()
+				: JsonLogRecordFormatter.toTime(event.getEpochMillis(), event.getZone());
+		this.buffer.setLength(0);
+		JsonLogRecordFormatter.append(time, threadName == null ? Thread.currentThread().getName() : threadName, event.getLogRecord(),
+				this.buffer);
+
+		final int start = destination.position();
+		if (LineLogRecordEncoder.putUTF8(this.buffer, destination))
+			return true;
+
+		destination.position(start);
+		return false;
+	}
+}
@@ -0,0 +1,189 @@
+package io.ortis.jsak.log;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.logging.LogRecord;
+
+/**
+ * Format records as single line JSON objects:
+ * <pre>
+ * {"time":"2024-01-31T12:00:00.000+01:00","level":"SEVERE","logger":"...","thread":"...","class":"...","method":"...","message":"...",
+ * "parameters":["..."],"thrown":[{"class":"...","message":"...","stack":["..."]},{cause}...]}
+ * </pre>
+ * <code>parameters</code> and <code>thrown</code> are omitted when the record has none. The message is the raw (unformatted) message of the
+ * record. <code>time</code> is ISO-8601 with the offset of the zone of the event. A {@link LocalDateTime} carries no zone: it is written as a
+ * local time, without offset (events of {@link LogService} always carry their zone).
+ * <p>
+ * Records are written and escaped into a buffer reused by the calling thread: the only allocation of {@link #format(LocalDateTime, String, LogRecord)}
+ * is the returned string
+ */
+public class JsonLogRecordFormatter implements LogService.LogRecordFormatter
+{
+	public static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+	public static final DateTimeFormatter LOCAL_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS");
+	private static final int MAX_BUFFER_LENGTH = 64 * 1024;
+	private static final int MAX_CAUSES = 32;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(512));
+
+	@Override
+	public String format(final LocalDateTime now, final LogRecord logRecord)
+	{
+		return format(now, Thread.currentThread().getName(), logRecord);
+	}
+
+	@Override
+	public String format(final LocalDateTime now, final String threadName, final LogRecord logRecord)
+	{
+		return format((TemporalAccessor) now, threadName, logRecord);
+	}
+
+	@Override
+	public String format(final long epochMillis, final ZoneId zone, final String threadName, final LogRecord logRecord)
+	{
+		return format(toTime(epochMillis, zone), threadName, logRecord);
+	}
+
+	private String format(final TemporalAccessor time, final String threadName, final LogRecord logRecord)
+	{
+		StringBuilder sb = this.buffers.get();
+		if (sb.capacity() > MAX_BUFFER_LENGTH)
+		{// do not retain buffers grown by huge records
+			sb = new StringBuilder(512);
+			this.buffers.set(sb);
+		}
+
+		sb.setLength(0);
+		append(time, threadName, logRecord, sb);
+		return sb.toString();
+	}
+
+	static ZonedDateTime toTime(final long epochMillis, final ZoneId zone)
+	{
+		return Instant.ofEpochMilli(epochMillis).atZone(zone == null ? ZoneId.systemDefault() : zone);
+	}
+
+	/**
+	 * Append the JSON object of <code>logRecord</code> to <code>sb</code>. <code>time</code> is either a {@link ZonedDateTime} or a
+	 * {@link LocalDateTime} (written without offset)
+	 */
+	static void append(final TemporalAccessor time, final String threadName, final LogRecord logRecord, final StringBuilder sb)
+	{
+		sb.append("{\"time\":\"");
+		(time instanceof LocalDateTime ? LOCAL_TIME_FORMATTER : TIME_FORMATTER).formatTo(time, sb);
+		sb.append("\",\"level\":");
+		appendString(logRecord.getLevel().getName(), sb);
+		sb.append(",\"logger\":");
+		appendString(logRecord.getLoggerName(), sb);
+		sb.append(",\"thread\":");
+		appendString(threadName, sb);
+		sb.append(",\"class\":");
+		appendString(logRecord.getSourceClassName(), sb);
+		sb.append(",\"method\":");
+		appendString(logRecord.getSourceMethodName(), sb);
+		sb.append(",\"message\":");
+		appendString(logRecord.getMessage(), sb);
+
+		final Object[] parameters = logRecord.getParameters();
+		if (parameters != null && parameters.length > 0)
+		{
+			sb.append(",\"parameters\":[");
+			for (int i = 0; i < parameters.length; i++)
+			{
+				if (i > 0)
+					sb.append(',');
+				appendString(parameters[i] == null ? null : parameters[i].toString(), sb);
+			}
+			sb.append(']');
+		}
+
+		final Throwable thrown = logRecord.getThrown();
+		if (thrown != null)
+		{
+			sb.append(",\"thrown\":[");
+			final Set<Throwable> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+			for (Throwable t = thrown; t != null && visited.size() < MAX_CAUSES && visited.add(t); t = t.getCause())
+			{
+				if (t != thrown)
+					sb.append(',');
+
+				sb.append("{\"class\":");
+				appendString(t.getClass().getName(), sb);
+				sb.append(",\"message\":");
+				appendString(t.getMessage(), sb);
+				sb.append(",\"stack\":[");
+				final StackTraceElement[] stack = t.getStackTrace();
+				for (int i = 0; i < stack.length; i++)
+				{
+					if (i > 0)
+						sb.append(',');
+					appendString(stack[i].toString(), sb);
+				}
+				sb.append("]}");
+			}
+			sb.append(']');
+		}
+
+		sb.append('}');
+	}
+
+	/**
+	 * Append <code>s</code> as a JSON string (<code>null</code> is appended as <code>null</code>)
+	 */
+	static void appendString(final String s, final StringBuilder sb)
+	{
+		if (s == null)
+		{
+			sb.append("null");
+			return;
+		}
+
+		sb.append('"');
+		final int length = s.length();
+		int start = 0;
+		for (int i = 0; i < length; i++)
+		{
+			final char c = s.charAt(i);
+			if (c >= 0x20 && c != '"' && c != '\\')
+				continue;
+
+			sb.append(s, start, i);
+			start = i + 1;
+			switch (c)
+			{
+				case '"':
+					sb.append("\\\"");
+					break;
+				case '\\':
+					sb.append("\\\\");
+					break;
+				case '\n':
+					sb.append("\\n");
+					break;
+				case '\r':
+					sb.append("\\r");
+					break;
+				case '\t':
+					sb.append("\\t");
+					break;
+				case '\b':
+					sb.append("\\b");
+					break;
+				case '\f':
+					sb.append("\\f");
+					break;
+				default:
+					sb.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+			}
+		}
+		sb.append(s, start, length).append('"');
+	}
+}
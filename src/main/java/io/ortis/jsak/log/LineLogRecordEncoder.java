@@ -0,0 +1,234 @@
+package io.ortis.jsak.log;
+
+import io.ortis.jsak.FormatUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * UTF-8 encoder of the one/two lines format. The timestamp prefix is rebuilt once per second and the bytes of levels, logger names, thread names,
+ * simple class names and method names are cached: encoding an event does not allocate once the caches are warm
+ */
+class LineLogRecordEncoder implements LogRecordEncoder
+{
+	private static final int MAX_CACHE_SIZE = 4096;
+	private static final byte[] NULL = "null".getBytes(StandardCharsets.UTF_8);
+	private static final int MILLIS_OFFSET = 20;
+
+	private final byte[] separator;
+
+	private final byte[] timestamp = "0000-00-00 00:00:00.000".getBytes(StandardCharsets.US_ASCII);
+	private long cachedSecond = Long.MIN_VALUE;
+	private ZoneId cachedZone = null;
+
+	private final Map<Level, byte[]> levels = new HashMap<>();
+	private final Map<String, byte[]> names = new HashMap<>();
+	private final Map<String, byte[]> simpleClassNames = new HashMap<>();
+
+	LineLogRecordEncoder(final boolean twoLines)
+	{
+		this.separator = (twoLines ? ":\n" : ": ").getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Override
+	public boolean encode(final LogService.Event event, final ByteBuffer destination)
+	{
+		final int start = destination.position();
+		final LogRecord logRecord = event.getLogRecord();
+		final String threadName = event.getThreadName();
+
+		if (put(level(logRecord.getLevel()), destination) && put(timestamp(event), destination) && put((byte) '|', destination) &&
+			put(name(logRecord.getLoggerName()), destination) && put((byte) '|', destination) &&
+			put(name(threadName == null ? Thread.currentThread().getName() : threadName), destination) && put((byte) '|', destination) &&
+			put(simpleClassName(logRecord.getSourceClassName()), destination) && put((byte) '.', destination) &&
+			put(name(logRecord.getSourceMethodName()), destination) && put(this.separator, destination) &&
+			putUTF8(logRecord.getMessage(), destination))
+			return true;
+
+		destination.position(start);
+		return false;
+	}
+
+	private byte[] timestamp(final LogService.Event event)
+	{
+		final long epochMillis = event.getEpochMillis();
+		if (epochMillis == Long.MIN_VALUE)
+		{
+			final LocalDateTime time = event.getTime();
+			final long second = (((((long) time.getYear() * 13 + time.getMonthValue()) * 32 + time.getDayOfMonth()) * 24 + time.getHour()) * 60 +
+								 time.getMinute()) * 60 + time.getSecond();
+			if (second != this.cachedSecond || this.cachedZone != null)
+			{
+				cacheTimestamp(time);
+				this.cachedSecond = second;
+				this.cachedZone = null;
+			}
+			putDigits(time.getNano() / 1_000_000, MILLIS_OFFSET, 3);
+		} else
+		{
+			final long second = Math.floorDiv(epochMillis, 1000);
+			if (second != this.cachedSecond || this.cachedZone != event.getZone())
+			{
+				cacheTimestamp(LocalDateTime.ofInstant(Instant.ofEpochSecond(second), event.getZone()));
+				this.cachedSecond = second;
+				this.cachedZone = event.getZone();
+			}
+			putDigits(Math.floorMod(epochMillis, 1000), MILLIS_OFFSET, 3);
+		}
+
+		return this.timestamp;
+	}
+
+	private void cacheTimestamp(final LocalDateTime time)
+	{
+		if (time.getYear() < 0 || time.getYear() > 9999)
+		{// not worth optimizing
+			final byte[] formatted = LogService.LogRecordFormatter.DATETIME_FORMATTER.format(time.withNano(0)).getBytes(StandardCharsets.US_ASCII);
+			System.arraycopy(formatted, 0, this.timestamp, 0, Math.min(MILLIS_OFFSET, formatted.length));
+			return;
+		}
+
+		putDigits(time.getYear(), 0, 4);
+		putDigits(time.getMonthValue(), 5, 2);
+		putDigits(time.getDayOfMonth(), 8, 2);
+		putDigits(time.getHour(), 11, 2);
+		putDigits(time.getMinute(), 14, 2);
+		putDigits(time.getSecond(), 17, 2);
+	}
+
+	private void putDigits(int value, final int offset, final int length)
+	{
+		for (int i = offset + length - 1; i >= offset; i--)
+		{
+			this.timestamp[i] = (byte) ('0' + value % 10);
+			value /= 10;
+		}
+	}
+
+	private byte[] level(final Level level)
+	{
+		byte[] bytes = this.levels.get(level);
+		if (bytes == null)
+		{
+			bytes = ("[" + level.getName() + "] ").getBytes(StandardCharsets.UTF_8);
+			this.levels.put(level, bytes);
+		}
+
+		return bytes;
+	}
+
+	private byte[] name(final String name)
+	{
+		if (name == null)
+			return NULL;
+
+		byte[] bytes = this.names.get(name);
+		if (bytes == null)
+		{
+			if (this.names.size() >= MAX_CACHE_SIZE)
+				this.names.clear();
+
+			bytes = name.getBytes(StandardCharsets.UTF_8);
+			this.names.put(name, bytes);
+		}
+
+		return bytes;
+	}
+
+	private byte[] simpleClassName(final String className)
+	{
+		if (className == null)
+			return NULL;
+
+		byte[] bytes = this.simpleClassNames.get(className);
+		if (bytes == null)
+		{
+			if (this.simpleClassNames.size() >= MAX_CACHE_SIZE)
+				this.simpleClassNames.clear();
+
+			bytes = FormatUtils.extractSimpleClassName(className).getBytes(StandardCharsets.UTF_8);
+			this.simpleClassNames.put(className, bytes);
+		}
+
+		return bytes;
+	}
+
+	private static boolean put(final byte b, final ByteBuffer destination)
+	{
+		if (!destination.hasRemaining())
+			return false;
+
+		destination.put(b);
+		return true;
+	}
+
+	private static boolean put(final byte[] bytes, final ByteBuffer destination)
+	{
+		if (destination.remaining() < bytes.length)
+			return false;
+
+		destination.put(bytes);
+		return true;
+	}
+
+	/**
+	 * Encode <code>s</code> in UTF-8 without intermediate array. Malformed surrogates are replaced by <code>?</code> (same as
+	 * {@link String#getBytes(java.nio.charset.Charset)})
+	 */
+	static boolean putUTF8(final CharSequence s, final ByteBuffer destination)
+	{
+		if (s == null)
+			return put(NULL, destination);
+
+		final int length = s.length();
+		for (int i = 0; i < length; i++)
+		{
+			final char c = s.charAt(i);
+			if (c < 0x80)
+			{
+				if (!destination.hasRemaining())
+					return false;
+				destination.put((byte) c);
+			} else if (c < 0x800)
+			{
+				if (destination.remaining() < 2)
+					return false;
+				destination.put((byte) (0xC0 | (c >> 6)));
+				destination.put((byte) (0x80 | (c & 0x3F)));
+			} else if (Character.isSurrogate(c))
+			{
+				if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1)))
+				{
+					if (destination.remaining() < 4)
+						return false;
+					final int codePoint = Character.toCodePoint(c, s.charAt(++i));
+					destination.put((byte) (0xF0 | (codePoint >> 18)));
+					destination.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+					destination.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+					destination.put((byte) (0x80 | (codePoint & 0x3F)));
+				} else
+				{
+					if (!destination.hasRemaining())
+						return false;
+					destination.put((byte) '?');
+				}
+			} else
+			{
+				if (destination.remaining() < 3)
+					return false;
+				destination.put((byte) (0xE0 | (c >> 12)));
+				destination.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+				destination.put((byte) (0x80 | (c & 0x3F)));
+			}
+		}
+
+		return true;
+	}
+}
@@ -0,0 +1,52 @@
+package io.ortis.jsak.log;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Encode {@link LogService.Event} straight into bytes, without building the formatted message.
+ * Implementations may cache data between calls and are not required to be thread-safe
+ */
+public interface LogRecordEncoder
+{
+	/**
+	 * Encode <code>event</code> at the position of <code>destination</code>
+	 *
+	 * @return <code>false</code> if <code>destination</code> does not have enough room (its position is left unchanged)
+	 */
+	boolean encode(final LogService.Event event, final ByteBuffer destination);
+
+	/**
+	 * Encode <code>s</code> in UTF-8 at the position of <code>destination</code>, without intermediate array (<code>null</code> is encoded as
+	 * <code>"null"</code>)
+	 *
+	 * @return <code>false</code> if <code>destination</code> does not have enough room (its position is then undefined)
+	 */
+	static boolean putUTF8(final String s, final ByteBuffer destination)
+	{
+		return LineLogRecordEncoder.putUTF8(s, destination);
+	}
+
+	/**
+	 * @return a new encoder producing the same output as {@link LogService.LogRecordFormatter#ONE_LINE_FORMATTER} (UTF-8)
+	 */
+	static LogRecordEncoder oneLine()
+	{
+		return new LineLogRecordEncoder(false);
+	}
+
+	/**
+	 * @return a new encoder producing the same output as {@link LogService.LogRecordFormatter#TWO_LINE_FORMATTER} (UTF-8)
+	 */
+	static LogRecordEncoder twoLine()
+	{
+		return new LineLogRecordEncoder(true);
+	}
+
+	/**
+	 * @return a new encoder producing the same output as {@link LogService.LogRecordFormatter#JSON_FORMATTER} (UTF-8)
+	 */
+	static LogRecordEncoder json()
+	{
+		return new JsonLogRecordEncoder();
+	}
+}
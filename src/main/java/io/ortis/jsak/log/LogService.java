@@ -2,15 +2,23 @@ package io.ortis.jsak.log;
 
 
 import io.ortis.jsak.FormatUtils;
+import io.ortis.jsak.collection.ConcurrentRingBuffer;
 import io.ortis.jsak.log.config.LogServiceConfig;
 
+import java.io.Closeable;
 import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Filter;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
@@ -18,37 +26,119 @@ import java.util.logging.Logger;
 
 public class LogService extends Handler implements Runnable
 {
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
 	private static final Duration COOLDOWN = Duration.ofSeconds(60);
+	private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1000);
+	private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
 	private final Map<String, Logger> cache = new HashMap<>();
-	private final List<LogService.Listener> listeners = new LinkedList<>();
-	private transient LogRecordFormatter recordFormatter = LogRecordFormatter.ONE_LINE_FORMATTER;
-	private transient Clock clock = Clock.systemDefaultZone();
-	private transient final PriorityBlockingQueue<LogService.Event> eventQueue = new PriorityBlockingQueue<>();
-	private transient final Object lock = new Object();
+	/**
+	 * Level configured per logger name (applies to the logger and its children: <code>a.b</code> applies to <code>a.b.c</code>)
+	 */
+	private volatile Map<String, Level> loggerLevels = Map.of();
+	/**
+	 * Effective level by logger name, replaced whenever a level changes (after the levels are updated)
+	 */
+	private volatile Map<String, Level> levelIndex = new ConcurrentHashMap<>();
+	/**
+	 * Copy-on-write: replaced on every change so dispatch never locks
+	 */
+	private volatile List<LogService.Listener> listeners = List.of();
+	/**
+	 * Either the listener or its dispatch lane
+	 */
+	private volatile List<LogService.Listener> dispatchers = List.of();
+	private final Map<LogService.Listener, DispatchLane> lanes = new IdentityHashMap<>();
+	private int laneCapacity = 0;
+	private ThreadFactory laneThreadFactory = null;
+	private final Object listenersLock = new Object();
+	private transient volatile LogRecordFormatter recordFormatter = LogRecordFormatter.ONE_LINE_FORMATTER;
+	private transient volatile Clock clock = Clock.systemDefaultZone();
+	private transient volatile boolean deferredFormatting = false;
+	private transient final ConcurrentRingBuffer<LogService.Event> eventQueue;
+	private transient final OverflowPolicy overflowPolicy;
+	private transient volatile Level overflowLevel = Level.WARNING;
+	private transient volatile int sampleRate = 100;
+	private transient final AtomicLong overflowCount = new AtomicLong(0);
+	private transient final AtomicLong droppedEventCount = new AtomicLong(0);
+	private transient volatile Thread consumer = null;
+	private transient volatile boolean consumerParked = false;
+	/**
+	 * Set while listeners are moved between dispatch lanes: the dispatch thread stops dispatching and acknowledges the pause
+	 */
+	private transient volatile boolean dispatchPaused = false;
+	private transient volatile boolean dispatchPauseAcknowledged = false;
+
+	/**
+	 * Behavior of {@link #publish(LogRecord)} when the event queue is full
+	 */
+	public enum OverflowPolicy
+	{
+		/**
+		 * Wait for the queue to have room (events published from the dispatch thread or while the dispatch thread is not running drop the oldest
+		 * event instead)
+		 */
+		BLOCK,
+		/**
+		 * Drop the oldest event of the queue
+		 */
+		DROP_OLDEST,
+		/**
+		 * Drop the new event if its level is lower than the overflow level, drop the oldest event otherwise
+		 */
+		DROP_BELOW_LEVEL,
+		/**
+		 * Keep only one new event out of the sample rate (dropping the oldest event), drop the others
+		 */
+		SAMPLE
+	}
+
+	public LogService()
+	{
+		this(DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST);
+	}
+
+	/**
+	 * @param capacity:       max number of events waiting to be dispatched (rounded up to the next power of two)
+	 * @param overflowPolicy: behavior when the queue is full
+	 */
+	public LogService(final int capacity, final OverflowPolicy overflowPolicy)
+	{
+		this.eventQueue = new ConcurrentRingBuffer<>(capacity);
+		this.overflowPolicy = overflowPolicy;
+		if (this.overflowPolicy == null)
+			throw new IllegalArgumentException("Overflow policy is null");
+	}
 
 	@Override
 	public void run()
 	{
+		this.consumer = Thread.currentThread();
 		try
 		{
 			while (!Thread.interrupted())
 			{
 				try
 				{
-					final LogService.Event event = this.eventQueue.poll(1000, TimeUnit.MILLISECONDS);
+					if (this.dispatchPaused)
+					{
+						this.dispatchPauseAcknowledged = true;
+						LockSupport.parkNanos(this, FULL_PARK_NANOS);
+						continue;
+					}
 
-					if (event != null && event.getLogLevel().intValue() >= getLevel().intValue())
+					final LogService.Event event = this.eventQueue.poll();
+					if (event == null)
 					{
-						synchronized (this.listeners)
-						{
-							for (final LogService.Listener listener : this.listeners)
-								listener.onEvent(event);
-						}
+						this.consumerParked = true;
+						if (this.eventQueue.isEmpty())
+							LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+						this.consumerParked = false;
+					} else if (event.getLogLevel().intValue() >= getEffectiveLevel(event.getLoggerName()).intValue())
+					{
+						for (final LogService.Listener dispatcher : this.dispatchers)
+							dispatcher.onEvent(event);
 					}
 
-				} catch (final InterruptedException e)
-				{
-					throw e;
 				} catch (final Exception e)
 				{
 					System.out.println("Error while processing log events - " + e.getMessage());
@@ -64,6 +154,9 @@ public class LogService extends Handler implements Runnable
 		{
 			System.out.println("Fatal error in " + getClass().getSimpleName() + " - " + e.getMessage());
 			e.printStackTrace();
+		} finally
+		{
+			this.consumer = null;
 		}
 	}
 
@@ -79,6 +172,8 @@ public class LogService extends Handler implements Runnable
 		final Thread thread = new Thread(this);
 		thread.setName(getClass().getSimpleName());
 		thread.setDaemon(true);
+		// publishers can block on the dispatch thread as soon as it is started
+		this.consumer = thread;
 		thread.start();
 		return this;
 	}
@@ -86,14 +181,85 @@ public class LogService extends Handler implements Runnable
 	@Override
 	public void publish(final LogRecord record)
 	{
-		final LogService.Event event;
-		synchronized (this.lock)
+		if (!isLoggable(record))
+			return;
+
+		final Clock clock = this.clock;
+		final String threadName = Thread.currentThread().getName();
+		if (this.deferredFormatting)
+		{
+			// source is inferred from the stack of the calling thread
+			record.getSourceMethodName();
+			enqueue(new Event(clock.millis(), clock.getZone(), threadName, record, this.recordFormatter));
+		} else
+		{
+			final long epochMillis = clock.millis();
+			final ZoneId zone = clock.getZone();
+			final String formattedMessage = this.recordFormatter.format(epochMillis, zone, threadName, record);
+			enqueue(new Event(epochMillis, zone, threadName, record, null, formattedMessage));
+		}
+	}
+
+	private void enqueue(final LogService.Event event)
+	{
+		while (!this.eventQueue.offer(event))
+		{
+			switch (this.overflowPolicy)
+			{
+				case BLOCK:
+				{
+					final Thread consumer = this.consumer;
+					if (consumer == null || Thread.currentThread() == consumer || this.dispatchPaused)
+					{// the dispatch thread cannot wait for itself and nothing would empty the queue without (or while pausing) dispatch thread
+						dropOldest();
+						break;
+					}
+
+					wakeUpConsumer();
+					LockSupport.parkNanos(this, FULL_PARK_NANOS);
+				}
+				break;
+				case DROP_OLDEST:
+					dropOldest();
+					break;
+				case DROP_BELOW_LEVEL:
+					if (event.getLogLevel().intValue() < this.overflowLevel.intValue())
+					{
+						this.droppedEventCount.incrementAndGet();
+						return;
+					}
+					dropOldest();
+					break;
+				case SAMPLE:
+					if (this.overflowCount.getAndIncrement() % this.sampleRate != 0)
+					{
+						this.droppedEventCount.incrementAndGet();
+						return;
+					}
+					dropOldest();
+					break;
+				default:
+					throw new IllegalStateException("Unhandled overflow policy " + this.overflowPolicy);
+			}
+		}
+
+		wakeUpConsumer();
+	}
+
+	private void dropOldest()
+	{
+		if (this.eventQueue.poll() != null)
+			this.droppedEventCount.incrementAndGet();
+	}
+
+	private void wakeUpConsumer()
+	{
+		if (this.consumerParked)
 		{
-			final LocalDateTime now = LocalDateTime.now(this.clock);
-			final String formattedMessage = this.recordFormatter.format(now, record);
-			event = new Event(now, record, formattedMessage);
+			final Thread consumer = this.consumer;
+			if (consumer != null)
+				LockSupport.unpark(consumer);
 		}
-		this.eventQueue.add(event);
 	}
 
 	public LogService setLogLevel(final Level logLevel)
@@ -102,6 +268,122 @@ public class LogService extends Handler implements Runnable
 		return this;
 	}
 
+	/**
+	 * Set the default level (used by loggers without a configured level) and push the new effective levels into the cached loggers
+	 */
+	@Override
+	public synchronized void setLevel(final Level newLevel) throws SecurityException
+	{
+		super.setLevel(newLevel);
+		if (this.levelIndex != null)// null while constructing
+			refreshLoggerLevels();
+	}
+
+	/**
+	 * Set the level of a logger and of its children, overriding the default level
+	 *
+	 * @param level: level of the logger (<code>null</code> to use the default level)
+	 */
+	public LogService setLoggerLevel(final String name, final Level level)
+	{
+		synchronized (this.cache)
+		{
+			final Map<String, Level> loggerLevels = new HashMap<>(this.loggerLevels);
+			if (level == null)
+				loggerLevels.remove(name);
+			else
+				loggerLevels.put(name, level);
+
+			this.loggerLevels = Map.copyOf(loggerLevels);
+			refreshLoggerLevels();
+		}
+
+		return this;
+	}
+
+	/**
+	 * Replace the levels of all loggers
+	 */
+	public LogService setLoggerLevels(final Map<String, Level> loggerLevels)
+	{
+		synchronized (this.cache)
+		{
+			this.loggerLevels = Map.copyOf(loggerLevels);
+			refreshLoggerLevels();
+		}
+
+		return this;
+	}
+
+	public Map<String, Level> getLoggerLevels()
+	{
+		return this.loggerLevels;
+	}
+
+	/**
+	 * @return level of the closest configured ancestor of <code>loggerName</code> (itself included) or the default level
+	 */
+	public Level getEffectiveLevel(final String loggerName)
+	{
+		if (loggerName == null)
+			return getLevel();
+
+		// read the index before the levels: an index always matches levels at least as recent
+		final Map<String, Level> levelIndex = this.levelIndex;
+		final Level cached = levelIndex.get(loggerName);
+		if (cached != null)
+			return cached;
+
+		final Map<String, Level> loggerLevels = this.loggerLevels;
+		Level level = null;
+		String name = loggerName;
+		while (level == null)
+		{
+			level = loggerLevels.get(name);
+			final int dot = name.lastIndexOf('.');
+			if (dot < 0)
+				break;
+			name = name.substring(0, dot);
+		}
+
+		if (level == null)
+			level = getLevel();
+
+		levelIndex.put(loggerName, level);
+		return level;
+	}
+
+	/**
+	 * Filter records with the effective level of their logger
+	 */
+	@Override
+	public boolean isLoggable(final LogRecord record)
+	{
+		if (record == null)
+			return false;
+
+		final int levelValue = getEffectiveLevel(record.getLoggerName()).intValue();
+		if (record.getLevel().intValue() < levelValue || levelValue == Level.OFF.intValue())
+			return false;
+
+		final Filter filter = getFilter();
+		return filter == null || filter.isLoggable(record);
+	}
+
+	/**
+	 * Push the effective levels into the cached loggers, so that disabled records are discarded by {@link Logger#isLoggable(Level)} before being
+	 * created
+	 */
+	private void refreshLoggerLevels()
+	{
+		synchronized (this.cache)
+		{
+			this.levelIndex = new ConcurrentHashMap<>();
+			for (final Logger logger : this.cache.values())
+				logger.setLevel(getEffectiveLevel(logger.getName()));
+		}
+	}
+
 	@Override
 	public void flush()
 	{
@@ -133,7 +415,7 @@ public class LogService extends Handler implements Runnable
 			this.cache.put(name, logger);
 			logger.setUseParentHandlers(false);
 
-			logger.setLevel(Level.ALL);
+			logger.setLevel(getEffectiveLevel(name));
 
 			logger.addHandler(this);
 			return logger;
@@ -142,19 +424,25 @@ public class LogService extends Handler implements Runnable
 
 	public LogService setConfig(final LogServiceConfig config)
 	{
-		synchronized (this.listeners)
+		synchronized (this.listenersLock)
 		{
-			final List<LogService.Listener> oldListeners = new ArrayList<>(this.listeners);
-			removeAllListeners();
+			final List<LogService.Listener> oldListeners = this.listeners;
+			final List<LogService.Listener> newListeners = new ArrayList<>();
 
 			for (final LogService.Listener listener : config.getOutputs())
 			{
 				final int oldIndex = oldListeners.indexOf(listener);
 				if (oldIndex >= 0)
-					addListener(oldListeners.get(oldIndex));
+					newListeners.add(oldListeners.get(oldIndex));
 				else
-					addListener(listener);
+					newListeners.add(listener);
 			}
+
+			// release resources (open files...) of removed outputs
+			updateListeners(newListeners, true);
+			if (config.getFormatter() != null)
+				setLogRecordFormatter(config.getFormatter());
+			setLoggerLevels(config.getLoggerLevels());
 			setLevel(config.getLevel());
 		}
 
@@ -164,9 +452,11 @@ public class LogService extends Handler implements Runnable
 
 	public LogService addListener(final LogService.Listener listener)
 	{
-		synchronized (this.listeners)
+		synchronized (this.listenersLock)
 		{
-			this.listeners.add(listener);
+			final List<LogService.Listener> newListeners = new ArrayList<>(this.listeners);
+			newListeners.add(listener);
+			updateListeners(newListeners, false);
 		}
 
 		return this;
@@ -174,59 +464,402 @@ public class LogService extends Handler implements Runnable
 
 	public void removeAllListeners()
 	{
-		synchronized (this.listeners)
+		synchronized (this.listenersLock)
 		{
-			this.listeners.clear();
+			updateListeners(List.of(), false);
 		}
 	}
 
 	public boolean removeListener(final LogService.Listener listener)
 	{
-		synchronized (this.listeners)
+		synchronized (this.listenersLock)
 		{
-			return this.listeners.remove(listener);
+			final List<LogService.Listener> newListeners = new ArrayList<>(this.listeners);
+			if (!newListeners.remove(listener))
+				return false;
+
+			updateListeners(newListeners, false);
+			return true;
 		}
 	}
 
-	public LogService setLogRecordFormatter(final LogRecordFormatter logRecordFormatter)
+	public List<LogService.Listener> getListeners()
+	{
+		return this.listeners;
+	}
+
+	/**
+	 * Deliver events to each listener from its own thread, through a bounded queue. A slow listener does not delay the others (its oldest events
+	 * are dropped if it cannot keep up). Existing lanes are restarted with the new settings: dispatch is paused until their pending events are
+	 * delivered
+	 *
+	 * @param laneCapacity:  max number of events waiting to be delivered to a listener
+	 * @param threadFactory: factory of the lane threads (<code>null</code> for daemon threads)
+	 */
+	public LogService enableDispatchLanes(final int laneCapacity, final ThreadFactory threadFactory)
 	{
-		synchronized (this.lock)
+		if (laneCapacity <= 0)
+			throw new IllegalArgumentException("Lane capacity must be greater than 0");
+
+		synchronized (this.listenersLock)
 		{
-			this.recordFormatter = logRecordFormatter;
+			final List<LogService.Listener> listeners = this.listeners;
+			// restart existing lanes with new settings
+			final List<LogService.Listener> restarted = this.laneCapacity > 0 ? listeners : List.of();
+
+			this.laneCapacity = laneCapacity;
+			this.laneThreadFactory = threadFactory;
+			updateListeners(listeners, false, restarted);
 		}
 
 		return this;
 	}
 
-	public LogService setClock(final Clock clock)
+	public LogService enableDispatchLanes(final int laneCapacity)
 	{
-		synchronized (this.lock)
+		return enableDispatchLanes(laneCapacity, null);
+	}
+
+	/**
+	 * Deliver events to listeners sequentially from the dispatch thread (default). Dispatch is paused until the pending events of the lanes are
+	 * delivered
+	 */
+	public LogService disableDispatchLanes()
+	{
+		synchronized (this.listenersLock)
 		{
-			this.clock = clock;
+			this.laneCapacity = 0;
+			this.laneThreadFactory = null;
+			updateListeners(this.listeners, false);
+		}
 
+		return this;
+	}
+
+	/**
+	 * @return metrics of the dispatch lanes (empty if lanes are disabled)
+	 */
+	public List<LaneMetrics> getLaneMetrics()
+	{
+		final List<LaneMetrics> metrics = new ArrayList<>();
+		synchronized (this.listenersLock)
+		{
+			for (final LogService.Listener listener : this.listeners)
+			{
+				final DispatchLane lane = this.lanes.get(listener);
+				if (lane != null)
+					metrics.add(lane.getMetrics());
+			}
 		}
 
+		return metrics;
+	}
+
+	private void updateListeners(final List<LogService.Listener> newListeners, final boolean closeRemoved)
+	{
+		updateListeners(newListeners, closeRemoved, List.of());
+	}
+
+	/**
+	 * Must be called while holding {@link #listenersLock}
+	 *
+	 * @param closeRemoved: close removed {@link Closeable} listeners
+	 * @param restarted:    listeners whose lane must be restarted
+	 */
+	private void updateListeners(final List<LogService.Listener> newListeners, final boolean closeRemoved,
+			final List<LogService.Listener> restarted)
+	{
+		final List<LogService.Listener> listeners = List.copyOf(newListeners);
+		final Set<LogService.Listener> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+		kept.addAll(listeners);
+		kept.removeAll(restarted);
+
+		final List<LogService.Listener> dispatchers = new ArrayList<>(listeners.size());
+		final Map<LogService.Listener, DispatchLane> lanes = new IdentityHashMap<>();
+		for (final LogService.Listener listener : listeners)
+		{
+			if (this.laneCapacity > 0)
+			{
+				DispatchLane lane = lanes.get(listener);
+				if (lane == null && kept.contains(listener))
+					lane = this.lanes.remove(listener);
+				if (lane == null)
+					lane = new DispatchLane(listener, this.laneCapacity).start(this.laneThreadFactory);
+
+				lanes.put(listener, lane);
+				dispatchers.add(lane);
+			} else
+				dispatchers.add(listener);
+		}
+
+		final List<DispatchLane> stoppedLanes = new ArrayList<>(this.lanes.values());
+		this.lanes.clear();
+		this.lanes.putAll(lanes);
+
+		// a listener moved to a new lane (or delivered directly) must not be called by its new dispatcher before its old lane is drained
+		final Set<LogService.Listener> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+		registered.addAll(listeners);
+		final List<DispatchLane> movedLanes = new ArrayList<>();
+		for (final DispatchLane lane : stoppedLanes)
+			if (registered.contains(lane.getListener()))
+				movedLanes.add(lane);
+
+		final List<LogService.Listener> oldListeners = this.listeners;
+		final boolean paused = !movedLanes.isEmpty() && pauseDispatch();
+		try
+		{
+			this.listeners = listeners;
+			this.dispatchers = List.copyOf(dispatchers);
+
+			// pending events are delivered before the removed listeners are closed
+			for (final DispatchLane lane : stoppedLanes)
+				lane.stop(closeRemoved && !registered.contains(lane.getListener()));
+
+			// the old lanes do not receive events anymore: joining their worker delivers all their pending events
+			for (final DispatchLane lane : movedLanes)
+				lane.join();
+		} catch (final InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		} finally
+		{
+			if (paused)
+				resumeDispatch();
+		}
+
+		final Set<LogService.Listener> closed = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (final DispatchLane lane : stoppedLanes)
+			closed.add(lane.getListener());
+
+		if (closeRemoved)
+			for (final LogService.Listener listener : oldListeners)
+				if (!kept.contains(listener) && !closed.contains(listener))
+					close(listener);
+	}
+
+	/**
+	 * Wait for the dispatch thread to finish dispatching its current event and pause it
+	 *
+	 * @return <code>true</code> if the dispatch thread is paused, <code>false</code> if there is no dispatch thread to pause (not started or
+	 * current thread)
+	 */
+	private boolean pauseDispatch()
+	{
+		final Thread consumer = this.consumer;
+		if (consumer == null || consumer == Thread.currentThread())
+			return false;
+
+		this.dispatchPauseAcknowledged = false;
+		this.dispatchPaused = true;
+		LockSupport.unpark(consumer);
+		while (!this.dispatchPauseAcknowledged && this.consumer != null)
+			LockSupport.parkNanos(this, FULL_PARK_NANOS);
+
+		return true;
+	}
+
+	private void resumeDispatch()
+	{
+		this.dispatchPaused = false;
+		final Thread consumer = this.consumer;
+		if (consumer != null)
+			LockSupport.unpark(consumer);
+	}
+
+	static void close(final LogService.Listener listener)
+	{
+		if (listener instanceof Closeable)
+			try
+			{
+				((Closeable) listener).close();
+			} catch (final Exception e)
+			{
+				System.out.println("Error while closing log listener - " + e.getMessage());
+				e.printStackTrace();
+			}
+	}
+
+	public LogService setLogRecordFormatter(final LogRecordFormatter logRecordFormatter)
+	{
+		this.recordFormatter = logRecordFormatter;
 		return this;
 	}
 
+	public LogService setClock(final Clock clock)
+	{
+		this.clock = clock;
+		return this;
+	}
+
+	/**
+	 * When enabled, {@link #publish(LogRecord)} only captures the record, the time and the name of the calling thread. The message is formatted
+	 * on the dispatch thread, the first time {@link Event#getFormattedMessage()} is called
+	 */
+	public LogService setDeferredFormatting(final boolean deferredFormatting)
+	{
+		this.deferredFormatting = deferredFormatting;
+		return this;
+	}
+
+	public boolean isDeferredFormatting()
+	{
+		return this.deferredFormatting;
+	}
+
+	/**
+	 * Min level of the events kept when the queue is full (see {@link OverflowPolicy#DROP_BELOW_LEVEL})
+	 */
+	public LogService setOverflowLevel(final Level overflowLevel)
+	{
+		if (overflowLevel == null)
+			throw new IllegalArgumentException("Overflow level is null");
+
+		this.overflowLevel = overflowLevel;
+		return this;
+	}
+
+	/**
+	 * One event out of <code>sampleRate</code> is kept when the queue is full (see {@link OverflowPolicy#SAMPLE})
+	 */
+	public LogService setSampleRate(final int sampleRate)
+	{
+		if (sampleRate <= 0)
+			throw new IllegalArgumentException("Sample rate must be greater than 0");
+
+		this.sampleRate = sampleRate;
+		return this;
+	}
+
+	public OverflowPolicy getOverflowPolicy()
+	{
+		return this.overflowPolicy;
+	}
+
+	/**
+	 * @return number of events dropped because the queue was full
+	 */
+	public long getDroppedEventCount()
+	{
+		return this.droppedEventCount.get();
+	}
+
+	/**
+	 * @return approximate number of events waiting to be dispatched
+	 */
+	public int getPendingEventCount()
+	{
+		return this.eventQueue.size();
+	}
+
+	public int getCapacity()
+	{
+		return this.eventQueue.capacity();
+	}
+
 
 	public static interface Listener
 	{
 		void onEvent(final LogService.Event event);
 	}
 
+	/**
+	 * Snapshot of the metrics of a dispatch lane
+	 */
+	public static final class LaneMetrics
+	{
+		private final LogService.Listener listener;
+		private final int pendingEventCount;
+		private final long deliveredEventCount;
+		private final long droppedEventCount;
+
+		public LaneMetrics(final Listener listener, final int pendingEventCount, final long deliveredEventCount, final long droppedEventCount)
+		{
+			this.listener = listener;
+			this.pendingEventCount = pendingEventCount;
+			this.deliveredEventCount = deliveredEventCount;
+			this.droppedEventCount = droppedEventCount;
+		}
+
+		public Listener getListener()
+		{
+			return this.listener;
+		}
+
+		/**
+		 * @return number of events waiting to be delivered (i.e. lag of the listener)
+		 */
+		public int getPendingEventCount()
+		{
+			return this.pendingEventCount;
+		}
+
+		public long getDeliveredEventCount()
+		{
+			return this.deliveredEventCount;
+		}
+
+		/**
+		 * @return number of events dropped because the listener could not keep up
+		 */
+		public long getDroppedEventCount()
+		{
+			return this.droppedEventCount;
+		}
+
+		@Override
+		public String toString()
+		{
+			return this.listener.getClass().getSimpleName() + "{pending=" + this.pendingEventCount + ", delivered=" + this.deliveredEventCount +
+				   ", dropped=" + this.droppedEventCount + "}";
+		}
+	}
+
 	public static class Event implements Comparable<LogService.Event>
 	{
 		private static final Comparator<LogService.Event> TIME_COMPARATOR = Comparator.comparing(Event::getTime);
 
-		private final LocalDateTime time;
+		private final long epochMillis;
+		private final ZoneId zone;
+		private final String threadName;
 		private final LogRecord logRecord;
-		private final String formattedMessage;
+		private final LogRecordFormatter formatter;
+		private volatile LocalDateTime time;
+		private volatile String formattedMessage;
 
 		public Event(final LocalDateTime time, final LogRecord logRecord, final String formattedMessage)
 		{
+			this(time, null, logRecord, formattedMessage);
+		}
+
+		public Event(final LocalDateTime time, final String threadName, final LogRecord logRecord, final String formattedMessage)
+		{
+			this.epochMillis = Long.MIN_VALUE;
+			this.zone = null;
+			this.threadName = threadName;
 			this.time = time;
 			this.logRecord = logRecord;
+			this.formatter = null;
+			this.formattedMessage = formattedMessage;
+		}
+
+		/**
+		 * Event formatted lazily by <code>formatter</code>
+		 */
+		public Event(final long epochMillis, final ZoneId zone, final String threadName, final LogRecord logRecord,
+				final LogRecordFormatter formatter)
+		{
+			this(epochMillis, zone, threadName, logRecord, formatter, null);
+		}
+
+		private Event(final long epochMillis, final ZoneId zone, final String threadName, final LogRecord logRecord,
+				final LogRecordFormatter formatter, final String formattedMessage)
+		{
+			this.epochMillis = epochMillis;
+			this.zone = zone;
+			this.threadName = threadName;
+			this.time = null;
+			this.logRecord = logRecord;
+			this.formatter = formatter;
 			this.formattedMessage = formattedMessage;
 		}
 
@@ -238,7 +871,39 @@ public class LogService extends Handler implements Runnable
 
 		public LocalDateTime getTime()
 		{
-			return this.time;
+			LocalDateTime time = this.time;
+			if (time == null)
+			{// benign race: result is always the same
+				time = LocalDateTime.ofInstant(Instant.ofEpochMilli(this.epochMillis), this.zone);
+				this.time = time;
+			}
+
+			return time;
+		}
+
+		/**
+		 * @return time of the event in milliseconds since epoch or {@link Long#MIN_VALUE} if the event was created from a {@link LocalDateTime}
+		 * (see {@link #getTime()})
+		 */
+		public long getEpochMillis()
+		{
+			return this.epochMillis;
+		}
+
+		/**
+		 * @return zone of {@link #getEpochMillis()} or <code>null</code>
+		 */
+		public ZoneId getZone()
+		{
+			return this.zone;
+		}
+
+		/**
+		 * @return name of the thread that published the event or <code>null</code> if unknown
+		 */
+		public String getThreadName()
+		{
+			return this.threadName;
 		}
 
 		public LogRecord getLogRecord()
@@ -248,7 +913,15 @@ public class LogService extends Handler implements Runnable
 
 		public String getFormattedMessage()
 		{
-			return this.formattedMessage;
+			String formattedMessage = this.formattedMessage;
+			if (formattedMessage == null && this.formatter != null)
+			{// benign race: result is always the same
+				formattedMessage = this.epochMillis == Long.MIN_VALUE ? this.formatter.format(getTime(), this.threadName, this.logRecord)
+						: this.formatter.format(this.epochMillis, this.zone, this.threadName, this.logRecord);
+				this.formattedMessage = formattedMessage;
+			}
+
+			return formattedMessage;
 		}
 
 		public String getLoggerName()
@@ -268,12 +941,18 @@ public class LogService extends Handler implements Runnable
 		{
 			@Override
 			public String format(final LocalDateTime now, final LogRecord logRecord)
+			{
+				return format(now, Thread.currentThread().getName(), logRecord);
+			}
+
+			@Override
+			public String format(final LocalDateTime now, final String threadName, final LogRecord logRecord)
 			{
 				final StringBuilder sb = new StringBuilder();
 				sb.append("[").append(logRecord.getLevel().getName()).append("]");
 				sb.append(" ").append(DATETIME_FORMATTER.format(now));
 				sb.append("|").append(logRecord.getLoggerName());
-				sb.append("|").append(Thread.currentThread().getName());
+				sb.append("|").append(threadName);
 				sb.append("|").append(FormatUtils.extractSimpleClassName(logRecord.getSourceClassName())).append(".")
 				  .append(logRecord.getSourceMethodName());
 				sb.append(": ").append(logRecord.getMessage());
@@ -286,12 +965,18 @@ public class LogService extends Handler implements Runnable
 		{
 			@Override
 			public String format(final LocalDateTime now, final LogRecord logRecord)
+			{
+				return format(now, Thread.currentThread().getName(), logRecord);
+			}
+
+			@Override
+			public String format(final LocalDateTime now, final String threadName, final LogRecord logRecord)
 			{
 				final StringBuilder sb = new StringBuilder();
 				sb.append("[").append(logRecord.getLevel().getName()).append("]");
 				sb.append(" ").append(DATETIME_FORMATTER.format(now));
 				sb.append("|").append(logRecord.getLoggerName());
-				sb.append("|").append(Thread.currentThread().getName());
+				sb.append("|").append(threadName);
 				sb.append("|").append(FormatUtils.extractSimpleClassName(logRecord.getSourceClassName())).append(".")
 				  .append(logRecord.getSourceMethodName());
 				sb.append(":\n").append(logRecord.getMessage());
@@ -300,10 +985,34 @@ public class LogService extends Handler implements Runnable
 			}
 		};
 
+		/**
+		 * One JSON object per record (see {@link JsonLogRecordFormatter})
+		 */
+		public static final LogRecordFormatter JSON_FORMATTER = new JsonLogRecordFormatter();
+
 		public final static DateTimeFormatter DATETIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
 
 		String format(final LocalDateTime now, final LogRecord logRecord);
 
+		/**
+		 * Format a record published by thread <code>threadName</code> (the calling thread may be another thread). Default implementation ignores
+		 * <code>threadName</code>
+		 */
+		default String format(final LocalDateTime now, final String threadName, final LogRecord logRecord)
+		{
+			return format(now, logRecord);
+		}
+
+		/**
+		 * Format a record published at <code>epochMillis</code>, for formats that need the offset of the time. Default implementation formats the
+		 * local time in <code>zone</code> (system default zone if <code>null</code>)
+		 */
+		default String format(final long epochMillis, final ZoneId zone, final String threadName, final LogRecord logRecord)
+		{
+			return format(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone == null ? ZoneId.systemDefault() : zone), threadName,
+					logRecord);
+		}
+
 
 	}
 }
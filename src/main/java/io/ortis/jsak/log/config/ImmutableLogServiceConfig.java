@@ -1,18 +1,27 @@
 package io.ortis.jsak.log.config;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 import io.ortis.jsak.JsonUtils;
+import io.ortis.jsak.io.Compression;
+import io.ortis.jsak.log.LogRecordEncoder;
 import io.ortis.jsak.log.LogService;
+import io.ortis.jsak.log.output.BinaryLogFile;
+import io.ortis.jsak.log.output.BufferedLogFile;
 import io.ortis.jsak.log.output.Console;
+import io.ortis.jsak.log.output.LogArchiver;
 import io.ortis.jsak.log.output.LogFile;
 
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.logging.Level;
 
 public class ImmutableLogServiceConfig implements LogServiceConfig
@@ -20,11 +29,29 @@ public class ImmutableLogServiceConfig implements LogServiceConfig
 
 	private final Level level;
 	private final List<LogService.Listener> outputs;
+	private final Map<String, Level> loggerLevels;
+	private final LogService.LogRecordFormatter formatter;
 
 	public ImmutableLogServiceConfig(final Level level, final List<LogService.Listener> outputs)
+	{
+		this(level, outputs, Map.of());
+	}
+
+	public ImmutableLogServiceConfig(final Level level, final List<LogService.Listener> outputs, final Map<String, Level> loggerLevels)
+	{
+		this(level, outputs, loggerLevels, null);
+	}
+
+	/**
+	 * @param formatter: formatter of the log records (<code>null</code> to keep the current formatter)
+	 */
+	public ImmutableLogServiceConfig(final Level level, final List<LogService.Listener> outputs, final Map<String, Level> loggerLevels,
+			final LogService.LogRecordFormatter formatter)
 	{
 		this.level = level;
 		this.outputs = List.copyOf(outputs);
+		this.loggerLevels = Map.copyOf(loggerLevels);
+		this.formatter = formatter;
 	}
 
 	@Override
@@ -39,6 +66,18 @@ public class ImmutableLogServiceConfig implements LogServiceConfig
 		return this.outputs;
 	}
 
+	@Override
+	public Map<String, Level> getLoggerLevels()
+	{
+		return this.loggerLevels;
+	}
+
+	@Override
+	public LogService.LogRecordFormatter getFormatter()
+	{
+		return this.formatter;
+	}
+
 	public static ImmutableLogServiceConfig of(String json, final String key)
 	{
 		json = JsonUtils.sanitizeJson(json);
@@ -66,11 +105,91 @@ public class ImmutableLogServiceConfig implements LogServiceConfig
 				final Path path = Path.of(jo.get("path").getAsString());
 				final Long maxSize = jo.get("maxSize").isJsonNull() ? null : jo.get("maxSize").getAsLong();
 				final ChronoUnit fileRotation = jo.get("rotation").isJsonNull() ? null : ChronoUnit.valueOf(jo.get("rotation").getAsString());
-				outputs.add(new LogFile(path, maxSize, fileRotation));
+				outputs.add(new LogFile(path, maxSize, fileRotation, parseArchiver(jo)));
+			} else if (BufferedLogFile.class.getSimpleName().toUpperCase(Locale.ENGLISH).equals(type))
+			{
+				final Path path = Path.of(jo.get("path").getAsString());
+				final Long maxSize = jo.get("maxSize").isJsonNull() ? null : jo.get("maxSize").getAsLong();
+				final ChronoUnit fileRotation = jo.get("rotation").isJsonNull() ? null : ChronoUnit.valueOf(jo.get("rotation").getAsString());
+				final int bufferLength = jo.has("bufferLength") && !jo.get("bufferLength").isJsonNull() ? jo.get("bufferLength").getAsInt() :
+										 BufferedLogFile.DEFAULT_BUFFER_LENGTH;
+				final Duration flushInterval = jo.has("flushInterval") && !jo.get("flushInterval").isJsonNull() ?
+											   Duration.parse(jo.get("flushInterval").getAsString()) : BufferedLogFile.DEFAULT_FLUSH_INTERVAL;
+				final LogRecordEncoder encoder;
+				if (!jo.has("encoder") || jo.get("encoder").isJsonNull())
+					encoder = null;
+				else
+				{
+					final String encoderType = jo.get("encoder").getAsString().trim().toUpperCase(Locale.ENGLISH);
+					if (encoderType.equals("ONE_LINE"))
+						encoder = LogRecordEncoder.oneLine();
+					else if (encoderType.equals("TWO_LINE"))
+						encoder = LogRecordEncoder.twoLine();
+					else if (encoderType.equals("JSON"))
+						encoder = LogRecordEncoder.json();
+					else
+						throw new IllegalArgumentException("Unhandled log encoder " + jo.get("encoder").getAsString());
+				}
+				outputs.add(new BufferedLogFile(path, maxSize, fileRotation, bufferLength, flushInterval, encoder, parseArchiver(jo)));
+			} else if (BinaryLogFile.class.getSimpleName().toUpperCase(Locale.ENGLISH).equals(type))
+			{
+				final Path path = Path.of(jo.get("path").getAsString());
+				final int segmentSize = jo.has("segmentSize") && !jo.get("segmentSize").isJsonNull() ? jo.get("segmentSize").getAsInt() :
+										BinaryLogFile.DEFAULT_SEGMENT_SIZE;
+				outputs.add(new BinaryLogFile(path, segmentSize));
 			} else
 				throw new IllegalArgumentException("Unhandled log output type " + jo.get("class").getAsString());
 		}
 
-		return new ImmutableLogServiceConfig(level, outputs);
+		final Map<String, Level> loggerLevels = new HashMap<>();
+		if (bean.has("loggers") && !bean.get("loggers").isJsonNull())
+			for (final Map.Entry<String, JsonElement> entry : bean.getAsJsonObject("loggers").entrySet())
+				loggerLevels.put(entry.getKey(), Level.parse(entry.getValue().getAsString().trim().toUpperCase(Locale.ENGLISH)));
+
+		final LogService.LogRecordFormatter formatter;
+		if (!bean.has("format") || bean.get("format").isJsonNull())
+			formatter = null;
+		else
+		{
+			final String format = bean.get("format").getAsString().trim().toUpperCase(Locale.ENGLISH);
+			if (format.equals("ONE_LINE"))
+				formatter = LogService.LogRecordFormatter.ONE_LINE_FORMATTER;
+			else if (format.equals("TWO_LINE"))
+				formatter = LogService.LogRecordFormatter.TWO_LINE_FORMATTER;
+			else if (format.equals("JSON"))
+				formatter = LogService.LogRecordFormatter.JSON_FORMATTER;
+			else
+				throw new IllegalArgumentException("Unhandled log format " + bean.get("format").getAsString());
+		}
+
+		return new ImmutableLogServiceConfig(level, outputs, loggerLevels, formatter);
+	}
+
+	/**
+	 * Parse the optional <code>archive</code> object of a file output: <code>{"compression": "gzip", "maxCount": 10, "maxTotalSize": 1073741824,
+	 * "maxAge": "P30D"}</code> (all keys are optional)
+	 */
+	private static LogArchiver parseArchiver(final JsonObject output)
+	{
+		if (!output.has("archive") || output.get("archive").isJsonNull())
+			return null;
+
+		final JsonObject jo = output.getAsJsonObject("archive");
+
+		final Compression.Codec codec;
+		if (!jo.has("compression") || jo.get("compression").isJsonNull())
+			codec = null;
+		else
+		{
+			codec = Compression.getCodec(jo.get("compression").getAsString());
+			if (codec == null)
+				throw new IllegalArgumentException("Unhandled compression " + jo.get("compression").getAsString());
+		}
+
+		final Integer maxCount = jo.has("maxCount") && !jo.get("maxCount").isJsonNull() ? jo.get("maxCount").getAsInt() : null;
+		final Long maxTotalSize = jo.has("maxTotalSize") && !jo.get("maxTotalSize").isJsonNull() ? jo.get("maxTotalSize").getAsLong() : null;
+		final Duration maxAge = jo.has("maxAge") && !jo.get("maxAge").isJsonNull() ? Duration.parse(jo.get("maxAge").getAsString()) : null;
+
+		return new LogArchiver(codec, maxCount, maxTotalSize, maxAge);
 	}
 }
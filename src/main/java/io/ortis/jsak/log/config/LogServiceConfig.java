@@ -3,6 +3,7 @@ package io.ortis.jsak.log.config;
 import io.ortis.jsak.log.LogService;
 
 import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 
 public interface LogServiceConfig
@@ -10,4 +11,20 @@ public interface LogServiceConfig
 	Level getLevel();
 
 	List<LogService.Listener> getOutputs();
+
+	/**
+	 * @return level by logger name, overriding {@link #getLevel()} for the logger and its children
+	 */
+	default Map<String, Level> getLoggerLevels()
+	{
+		return Map.of();
+	}
+
+	/**
+	 * @return formatter of the log records (<code>null</code> to keep the current formatter)
+	 */
+	default LogService.LogRecordFormatter getFormatter()
+	{
+		return null;
+	}
 }
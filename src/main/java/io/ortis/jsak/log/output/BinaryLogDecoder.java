@@ -0,0 +1,172 @@
+package io.ortis.jsak.log.output;
+
+import io.ortis.jsak.log.LogService;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Decode segments written by {@link BinaryLogFile}. A record cut off by a crash (short or not fully written) is treated as the end of the
+ * segment.
+ * <p>
+ * Usage: <code>java io.ortis.jsak.log.output.BinaryLogDecoder segment...</code> prints the events in the
+ * {@link LogService.LogRecordFormatter#ONE_LINE_FORMATTER} format
+ */
+public class BinaryLogDecoder
+{
+	/**
+	 * Decode the events of a segment. Events are formatted lazily with <code>formatter</code>
+	 */
+	public static void decode(final Path segment, final LogService.LogRecordFormatter formatter, final Consumer<LogService.Event> consumer)
+			throws IOException
+	{
+		final ByteBuffer buffer;
+		try (final FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ))
+		{
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+
+		if (buffer.remaining() < 10 || buffer.getInt() != BinaryLogFile.MAGIC)
+			throw new IOException(segment + " is not a binary log segment");
+
+		final int version = buffer.getInt();
+		if (version != BinaryLogFile.VERSION)
+			throw new IOException("Unsupported binary log version " + version);
+
+		final ZoneId zone = ZoneId.of(readString(buffer, buffer.getShort()));
+		final Map<Integer, String> strings = new HashMap<>();
+		final Map<String, Level> levels = new HashMap<>();
+
+		while (buffer.hasRemaining())
+		{
+			final byte type = buffer.get();
+			if (type == BinaryLogFile.END)
+				break;
+			else if (type == BinaryLogFile.STRING)
+			{
+				if (buffer.remaining() < BinaryLogFile.STRING_HEADER_LENGTH - 1)
+					break;// truncated
+
+				final int id = buffer.getInt();
+				final int length = buffer.getInt();
+				if (length < 0 || length > buffer.remaining())
+					break;// truncated
+
+				strings.put(id, readString(buffer, length));
+			} else if (type == BinaryLogFile.EVENT)
+			{
+				if (buffer.remaining() < BinaryLogFile.EVENT_HEADER_LENGTH - 1)
+					break;// truncated
+
+				final long epochMillis = buffer.getLong();
+				final int levelValue = buffer.getInt();
+				final int levelId = buffer.getInt();
+				final int loggerId = buffer.getInt();
+				final int threadId = buffer.getInt();
+				final int classId = buffer.getInt();
+				final int methodId = buffer.getInt();
+				final int length = buffer.getInt();
+				if (length < 0 || length > buffer.remaining() || (epochMillis == 0 && levelValue == 0 && length == 0))
+					break;// truncated or not fully written (pre-allocated space is zero filled)
+
+				final String levelName = string(segment, strings, levelId);
+				final String loggerName = string(segment, strings, loggerId);
+				final String threadName = string(segment, strings, threadId);
+				final String sourceClassName = string(segment, strings, classId);
+				final String sourceMethodName = string(segment, strings, methodId);
+				final String message = readString(buffer, length);
+
+				final Level level = levels.computeIfAbsent(levelName + "|" + levelValue, k -> level(levelName, levelValue));
+				final LogRecord logRecord = new LogRecord(level, message);
+				logRecord.setInstant(Instant.ofEpochMilli(epochMillis));
+				logRecord.setLoggerName(loggerName);
+				logRecord.setSourceClassName(sourceClassName);
+				logRecord.setSourceMethodName(sourceMethodName);
+
+				consumer.accept(new LogService.Event(epochMillis, zone, threadName, logRecord, formatter));
+			} else
+				throw new IOException("Corrupted segment " + segment + " (unknown record type " + type + " at " + (buffer.position() - 1) + ")");
+		}
+	}
+
+	/**
+	 * Print the events of segments in the {@link LogService.LogRecordFormatter#ONE_LINE_FORMATTER} format
+	 */
+	public static void print(final Iterable<Path> segments, final PrintStream out) throws IOException
+	{
+		for (final Path segment : segments)
+			decode(segment, LogService.LogRecordFormatter.ONE_LINE_FORMATTER, event -> out.println(event.getFormattedMessage()));
+	}
+
+	private static String readString(final ByteBuffer buffer, final int length)
+	{
+		final byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String string(final Path segment, final Map<Integer, String> strings, final int id) throws IOException
+	{
+		if (id == BinaryLogFile.NULL_ID)
+			return null;
+
+		final String s = strings.get(id);
+		if (s == null)
+			throw new IOException("Corrupted segment " + segment + " (undefined string " + id + ")");
+
+		return s;
+	}
+
+	private static Level level(final String name, final int value)
+	{
+		try
+		{
+			final Level level = Level.parse(name);
+			if (level.intValue() == value)
+				return level;
+		} catch (final IllegalArgumentException ignored)
+		{
+		}
+
+		return new DecodedLevel(name, value);
+	}
+
+	private static final class DecodedLevel extends Level
+	{
+		private static final long serialVersionUID = 1L;
+
+		private DecodedLevel(final String name, final int value)
+		{
+			super(name, value);
+		}
+	}
+
+	public static void main(final String[] args) throws Exception
+	{
+		if (args.length == 0)
+		{
+			System.err.println("Usage: " + BinaryLogDecoder.class.getName() + " segment...");
+			System.exit(1);
+		}
+
+		final List<Path> segments = new ArrayList<>();
+		for (final String arg : args)
+			segments.add(Path.of(arg));
+
+		print(segments, System.out);
+	}
+}
@@ -0,0 +1,365 @@
+package io.ortis.jsak.log.output;
+
+import io.ortis.jsak.log.LogRecordEncoder;
+import io.ortis.jsak.log.LogService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.logging.LogRecord;
+import java.util.stream.Stream;
+
+/**
+ * Append-only binary log output. Events are written as compact records into pre-allocated memory-mapped segment files named
+ * <code>&lt;file name&gt;.&lt;index&gt;</code>. A new segment is started when the current one is full.
+ * <p>
+ * Segment layout (big endian): header (magic, version, zone id) followed by records. Strings (logger, thread, class and method names) are
+ * interned per segment: a string definition record precedes the first event referencing it. A zero byte marks the end of the segment.
+ * The type byte of a record is written last: a record interrupted by a crash reads as the end of the segment.
+ * Segments are decoded with {@link BinaryLogDecoder}
+ */
+public class BinaryLogFile implements LogService.Listener, Closeable
+{
+	public static final int MAGIC = 0x4A534B4C;
+	public static final int VERSION = 1;
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+	public static final int MIN_SEGMENT_SIZE = 1024;
+
+	static final byte END = 0;
+	static final byte STRING = 1;
+	static final byte EVENT = 2;
+	static final int NULL_ID = -1;
+
+	/**
+	 * type + time + level value + level name, logger, thread, class, method ids + message length
+	 */
+	static final int EVENT_HEADER_LENGTH = 1 + 8 + 4 + 5 * 4 + 4;
+	/**
+	 * type + id + length
+	 */
+	static final int STRING_HEADER_LENGTH = 1 + 4 + 4;
+
+	private final Path outputFilePath;
+	private final int segmentSize;
+	private final ZoneId zone;
+	private transient final Object lock = new Object();
+
+	private transient FileChannel channel = null;
+	private transient MappedByteBuffer buffer = null;
+	private transient long segmentIndex = -1;
+	private transient final Map<String, Integer> strings = new HashMap<>();
+
+	public BinaryLogFile(final Path outputFilePath)
+	{
+		this(outputFilePath, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param outputFilePath: base path of the segment files
+	 * @param segmentSize:    size of a segment file
+	 */
+	public BinaryLogFile(final Path outputFilePath, final int segmentSize)
+	{
+		this.outputFilePath = outputFilePath.toAbsolutePath();
+		if (Files.isDirectory(this.outputFilePath))
+			throw new IllegalArgumentException(this.outputFilePath + " is a directory");
+
+		if (!Files.isDirectory(this.outputFilePath.getParent()))
+			throw new IllegalArgumentException(this.outputFilePath + " parent path is not a directory");
+
+		this.segmentSize = segmentSize;
+		if (this.segmentSize < MIN_SEGMENT_SIZE)
+			throw new IllegalArgumentException("Segment size must be greater or equal to " + MIN_SEGMENT_SIZE);
+
+		this.zone = ZoneId.systemDefault();
+	}
+
+	@Override
+	public void onEvent(final LogService.Event event)
+	{
+		synchronized (this.lock)
+		{
+			try
+			{
+				if (this.buffer == null)
+					openNextSegment();
+
+				if (!write(event))
+				{
+					openNextSegment();
+					if (!write(event))
+						writeTruncated(event);
+				}
+			} catch (final Exception e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Force the content of the current segment to the storage device
+	 */
+	public void force()
+	{
+		synchronized (this.lock)
+		{
+			if (this.buffer != null)
+				this.buffer.force();
+		}
+	}
+
+	/**
+	 * Close the current segment. The next event starts a new segment
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (this.lock)
+		{
+			closeSegment();
+		}
+	}
+
+	/**
+	 * @return segment files of this output, by index
+	 */
+	public List<Path> getSegments() throws IOException
+	{
+		final String prefix = this.outputFilePath.getFileName() + ".";
+		final SortedMap<Long, Path> segments = new TreeMap<>();
+		try (final Stream<Path> stream = Files.list(this.outputFilePath.getParent()))
+		{
+			stream.forEach(path -> {
+				final long index = parseSegmentIndex(prefix, path.getFileName().toString());
+				if (index >= 0)
+					segments.put(index, path);
+			});
+		}
+
+		return new ArrayList<>(segments.values());
+	}
+
+	public Path getOutputFilePath()
+	{
+		return this.outputFilePath;
+	}
+
+	public int getSegmentSize()
+	{
+		return this.segmentSize;
+	}
+
+	private void openNextSegment() throws IOException
+	{
+		closeSegment();
+
+		if (this.segmentIndex < 0)
+		{// continue after existing segments
+			final List<Path> segments = getSegments();
+			this.segmentIndex = segments.isEmpty() ? 0 :
+								parseSegmentIndex(this.outputFilePath.getFileName() + ".", segments.get(segments.size() - 1).getFileName().toString()) +
+								1;
+		} else
+			this.segmentIndex++;
+
+		final Path path = this.outputFilePath.resolveSibling(this.outputFilePath.getFileName() + "." + String.format("%06d", this.segmentIndex));
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+
+		final byte[] zoneId = this.zone.getId().getBytes(StandardCharsets.UTF_8);
+		this.buffer.putInt(MAGIC);
+		this.buffer.putInt(VERSION);
+		this.buffer.putShort((short) zoneId.length);
+		this.buffer.put(zoneId);
+	}
+
+	private void closeSegment() throws IOException
+	{
+		if (this.channel == null)
+			return;
+
+		try
+		{
+			// a rolled back record may have left bytes after the position
+			this.buffer.put(this.buffer.position(), END);
+			this.buffer.force();
+			try
+			{// drop unused pre-allocated space
+				this.channel.truncate(this.buffer.position() + 1);
+			} catch (final IOException ignored)
+			{// some platforms do not allow to truncate a mapped file: the end marker is enough
+			}
+		} finally
+		{
+			this.channel.close();
+			this.channel = null;
+			this.buffer = null;// unmapped once collected
+			this.strings.clear();
+		}
+	}
+
+	/**
+	 * @return <code>false</code> if the segment is full (the position is left unchanged)
+	 */
+	private boolean write(final LogService.Event event)
+	{
+		final int start = this.buffer.position();
+		final int stringCount = this.strings.size();
+		final LogRecord logRecord = event.getLogRecord();
+
+		// keep one byte for the end marker
+		this.buffer.limit(this.buffer.capacity() - 1);
+		try
+		{
+			final int levelId = intern(logRecord.getLevel().getName());
+			final int loggerId = intern(logRecord.getLoggerName());
+			final int threadId = intern(event.getThreadName() == null ? Thread.currentThread().getName() : event.getThreadName());
+			final int classId = intern(logRecord.getSourceClassName());
+			final int methodId = intern(logRecord.getSourceMethodName());
+			if (levelId == Integer.MIN_VALUE || loggerId == Integer.MIN_VALUE || threadId == Integer.MIN_VALUE || classId == Integer.MIN_VALUE ||
+				methodId == Integer.MIN_VALUE || this.buffer.remaining() < EVENT_HEADER_LENGTH)
+			{
+				rollback(start, stringCount);
+				return false;
+			}
+
+			final int eventStart = this.buffer.position();
+			this.buffer.position(eventStart + 1);
+			this.buffer.putLong(event.getEpochMillis() == Long.MIN_VALUE ? event.getTime().atZone(this.zone).toInstant().toEpochMilli() :
+								event.getEpochMillis());
+			this.buffer.putInt(logRecord.getLevel().intValue());
+			this.buffer.putInt(levelId);
+			this.buffer.putInt(loggerId);
+			this.buffer.putInt(threadId);
+			this.buffer.putInt(classId);
+			this.buffer.putInt(methodId);
+
+			final int lengthPosition = this.buffer.position();
+			this.buffer.position(lengthPosition + 4);
+			if (!LogRecordEncoder.putUTF8(logRecord.getMessage(), this.buffer))
+			{
+				rollback(start, stringCount);
+				return false;
+			}
+			this.buffer.putInt(lengthPosition, this.buffer.position() - lengthPosition - 4);
+			// commit
+			this.buffer.put(eventStart, EVENT);
+
+			return true;
+		} finally
+		{
+			this.buffer.limit(this.buffer.capacity());
+		}
+	}
+
+	/**
+	 * Discard the records written after <code>position</code>, including the definitions of the strings interned after the first
+	 * <code>stringCount</code> ones
+	 */
+	private void rollback(final int position, final int stringCount)
+	{
+		this.buffer.position(position);
+		if (this.strings.size() > stringCount)
+			this.strings.values().removeIf(id -> id >= stringCount);
+	}
+
+	/**
+	 * Write an event too large for a segment, with its message truncated to fit
+	 */
+	private void writeTruncated(final LogService.Event event)
+	{
+		final String message = event.getLogRecord().getMessage();
+		// UTF-8 uses at most 3 bytes per char
+		int length = message == null ? 0 : Math.min(message.length(), this.buffer.remaining() / 3);
+		while (true)
+		{
+			final LogRecord truncated = new LogRecord(event.getLogLevel(), message == null ? null : message.substring(0, length));
+			truncated.setLoggerName(event.getLoggerName());
+			truncated.setSourceClassName(event.getLogRecord().getSourceClassName());
+			truncated.setSourceMethodName(event.getLogRecord().getSourceMethodName());
+
+			final LogService.Event truncatedEvent = event.getEpochMillis() == Long.MIN_VALUE ?
+													new LogService.Event(event.getTime(), event.getThreadName(), truncated, null) :
+													new LogService.Event(event.getEpochMillis(), event.getZone(), event.getThreadName(), truncated, null);
+			if (write(truncatedEvent))
+				return;
+
+			if (length == 0)
+				throw new IllegalStateException("Event does not fit in a segment");
+
+			length /= 2;
+		}
+	}
+
+	/**
+	 * @return id of <code>s</code>, {@link #NULL_ID} if <code>s</code> is <code>null</code> or {@link Integer#MIN_VALUE} if the segment is full
+	 */
+	private int intern(final String s)
+	{
+		if (s == null)
+			return NULL_ID;
+
+		final Integer id = this.strings.get(s);
+		if (id != null)
+			return id;
+
+		final int start = this.buffer.position();
+		final int newId = this.strings.size();
+		if (this.buffer.remaining() < STRING_HEADER_LENGTH)
+			return Integer.MIN_VALUE;
+
+		this.buffer.position(start + 1);
+		this.buffer.putInt(newId);
+		final int lengthPosition = this.buffer.position();
+		this.buffer.position(lengthPosition + 4);
+		if (!LogRecordEncoder.putUTF8(s, this.buffer))
+		{
+			this.buffer.position(start);
+			return Integer.MIN_VALUE;
+		}
+		this.buffer.putInt(lengthPosition, this.buffer.position() - lengthPosition - 4);
+		// commit
+		this.buffer.put(start, STRING);
+
+		this.strings.put(s, newId);
+		return newId;
+	}
+
+	private static long parseSegmentIndex(final String prefix, final String fileName)
+	{
+		if (!fileName.startsWith(prefix) || fileName.length() == prefix.length())
+			return -1;
+
+		for (int i = prefix.length(); i < fileName.length(); i++)
+			if (!Character.isDigit(fileName.charAt(i)))
+				return -1;
+
+		return Long.parseLong(fileName.substring(prefix.length()));
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return this.outputFilePath.hashCode();
+	}
+
+	@Override
+	public boolean equals(final Object o)
+	{
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		final BinaryLogFile other = (BinaryLogFile) o;
+		return Objects.equals(this.outputFilePath, other.outputFilePath);
+	}
+}
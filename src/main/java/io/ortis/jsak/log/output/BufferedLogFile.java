@@ -0,0 +1,319 @@
+package io.ortis.jsak.log.output;
+
+import io.ortis.jsak.log.LogRecordEncoder;
+import io.ortis.jsak.log.LogService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same output as {@link LogFile} but the file is kept open and events are appended into a buffer, written to the file when full or
+ * <code>flushInterval</code> after the first pending event. The size of the file is tracked in memory and the file is only reopened on rotation.
+ * <p>
+ * When a {@link LogRecordEncoder} is set, events are encoded straight into the buffer instead of writing {@link LogService.Event#getFormattedMessage()}
+ * (combined with {@link LogService#setDeferredFormatting(boolean)}, no message string is ever built)
+ * <p>
+ * Pending events are lost if the JVM crashes: call {@link #close()} (or {@link #flush()}) before exit
+ */
+public class BufferedLogFile implements LogService.Listener, Closeable
+{
+	public static final int DEFAULT_BUFFER_LENGTH = 64 * 1024;
+	public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofSeconds(1);
+
+	private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+		final Thread thread = new Thread(r);
+		thread.setName(BufferedLogFile.class.getSimpleName() + "-flusher");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Path outputFilePath;
+	private final Long maxFileSize;
+	private final ChronoUnit fileRotation;
+	private final long flushInterval;
+	private transient final LogRecordEncoder encoder;
+	private transient final LogArchiver archiver;
+	private transient final Object lock = new Object();
+
+	private transient final ByteBuffer buffer;
+	private transient FileChannel channel = null;
+	private transient long fileSize;
+	private transient long rotationTime;
+	private transient boolean flushScheduled = false;
+
+	public BufferedLogFile(final Path outputFilePath, final Long maxFileSize, final ChronoUnit fileRotation)
+	{
+		this(outputFilePath, maxFileSize, fileRotation, DEFAULT_BUFFER_LENGTH, DEFAULT_FLUSH_INTERVAL);
+	}
+
+	public BufferedLogFile(final Path outputFilePath, final Long maxFileSize, final ChronoUnit fileRotation, final int bufferLength,
+			final Duration flushInterval)
+	{
+		this(outputFilePath, maxFileSize, fileRotation, bufferLength, flushInterval, null);
+	}
+
+	public BufferedLogFile(final Path outputFilePath, final Long maxFileSize, final ChronoUnit fileRotation, final int bufferLength,
+			final Duration flushInterval, final LogRecordEncoder encoder)
+	{
+		this(outputFilePath, maxFileSize, fileRotation, bufferLength, flushInterval, encoder, null);
+	}
+
+	/**
+	 * @param encoder:  encoder owned by this output (<code>null</code> to write the formatted message)
+	 * @param archiver: archiver of the rotated files (<code>null</code> to only rename them)
+	 */
+	public BufferedLogFile(final Path outputFilePath, final Long maxFileSize, final ChronoUnit fileRotation, final int bufferLength,
+			final Duration flushInterval, final LogRecordEncoder encoder, final LogArchiver archiver)
+	{
+		this.outputFilePath = outputFilePath.toAbsolutePath();
+		if (Files.isDirectory(this.outputFilePath))
+			throw new IllegalArgumentException(this.outputFilePath + " is a directory");
+
+		if (!Files.isDirectory(this.outputFilePath.getParent()))
+			throw new IllegalArgumentException(this.outputFilePath + " parent path is not a directory");
+
+		this.maxFileSize = maxFileSize != null && maxFileSize <= 0 ? null : maxFileSize;
+		this.fileRotation = fileRotation;
+		if (this.fileRotation != null && this.fileRotation.compareTo(ChronoUnit.MINUTES) < 0)
+			throw new IllegalArgumentException("Invalid file rotation");
+
+		if (bufferLength <= 0)
+			throw new IllegalArgumentException("Buffer length must be greater than 0");
+		this.buffer = ByteBuffer.allocateDirect(bufferLength);
+
+		this.flushInterval = flushInterval.toMillis();
+		if (this.flushInterval <= 0)
+			throw new IllegalArgumentException("Flush interval must be greater than 0");
+
+		this.encoder = encoder;
+		this.archiver = archiver;
+	}
+
+	@Override
+	public void onEvent(final LogService.Event event)
+	{
+		final byte[] log = this.encoder == null ? (event.getFormattedMessage() + "\n").getBytes(StandardCharsets.UTF_8) : null;
+		synchronized (this.lock)
+		{
+			try
+			{
+				checkRotate();
+				if (this.channel == null)
+					open();
+
+				if (log == null)
+					encode(event);
+				else
+					write(log);
+
+				if (this.maxFileSize != null && this.fileSize >= this.maxFileSize)
+					rotate();
+				else if (this.buffer.position() > 0 && !this.flushScheduled)
+				{
+					this.flushScheduled = true;
+					FLUSHER.schedule(this::scheduledFlush, this.flushInterval, TimeUnit.MILLISECONDS);
+				}
+			} catch (final Exception e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+
+	/**
+	 * Write pending events to the file
+	 */
+	public void flush() throws IOException
+	{
+		synchronized (this.lock)
+		{
+			if (this.channel == null)
+				return;
+
+			this.buffer.flip();
+			while (this.buffer.hasRemaining())
+				this.channel.write(this.buffer);
+			this.buffer.clear();
+		}
+	}
+
+	/**
+	 * Flush pending events and close the file. The file is reopened on the next event
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		synchronized (this.lock)
+		{
+			if (this.channel == null)
+				return;
+
+			try
+			{
+				flush();
+			} finally
+			{
+				this.channel.close();
+				this.channel = null;
+				this.buffer.clear();
+			}
+		}
+	}
+
+	/**
+	 * @return size of the current file, including pending events
+	 */
+	public long getFileSize()
+	{
+		synchronized (this.lock)
+		{
+			return this.channel == null ? 0 : this.fileSize;
+		}
+	}
+
+	public Path getOutputFilePath()
+	{
+		return this.outputFilePath;
+	}
+
+	private void scheduledFlush()
+	{
+		synchronized (this.lock)
+		{
+			this.flushScheduled = false;
+			try
+			{
+				flush();
+			} catch (final Exception e)
+			{
+				e.printStackTrace();
+			}
+		}
+	}
+
+	private void open() throws IOException
+	{
+		final boolean exists = Files.exists(this.outputFilePath);
+		this.channel = FileChannel.open(this.outputFilePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		this.fileSize = this.channel.size();
+
+		if (this.fileRotation != null && !this.fileRotation.equals(ChronoUnit.FOREVER))
+		{
+			final LocalDateTime creationTime = exists ? LogFile.creationTime(this.outputFilePath) : LocalDateTime.now();
+			this.rotationTime = LogFile.rotationTime(creationTime, this.fileRotation).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+		} else
+			this.rotationTime = Long.MAX_VALUE;
+	}
+
+	private void checkRotate() throws IOException
+	{
+		if (this.channel == null)
+		{// file may have been written since last close
+			if (!Files.exists(this.outputFilePath))
+				return;
+
+			open();
+		}
+
+		if ((this.maxFileSize != null && this.fileSize >= this.maxFileSize) || System.currentTimeMillis() >= this.rotationTime)
+			rotate();
+	}
+
+	private void rotate() throws IOException
+	{
+		close();
+		LogFile.archive(this.outputFilePath, this.archiver);
+	}
+
+	private void encode(final LogService.Event event) throws IOException
+	{
+		final int start = this.buffer.position();
+		if (encodeLine(event, this.buffer))
+		{
+			this.fileSize += this.buffer.position() - start;
+			return;
+		}
+
+		flush();
+		if (encodeLine(event, this.buffer))
+		{
+			this.fileSize += this.buffer.position();
+			return;
+		}
+
+		// larger than the buffer
+		ByteBuffer bb = ByteBuffer.allocate(Math.multiplyExact(this.buffer.capacity(), 2));
+		while (!encodeLine(event, bb))
+			bb = ByteBuffer.allocate(Math.multiplyExact(bb.capacity(), 2));
+
+		write(Arrays.copyOf(bb.array(), bb.position()));
+	}
+
+	/**
+	 * @return <code>false</code> if <code>destination</code> is too small (its position is left unchanged)
+	 */
+	private boolean encodeLine(final LogService.Event event, final ByteBuffer destination)
+	{
+		final int start = destination.position();
+		if (!this.encoder.encode(event, destination))
+			return false;
+
+		if (!destination.hasRemaining())
+		{
+			destination.position(start);
+			return false;
+		}
+
+		destination.put((byte) '\n');
+		return true;
+	}
+
+	private void write(final byte[] log) throws IOException
+	{
+		if (log.length > this.buffer.remaining())
+			flush();
+
+		if (log.length > this.buffer.capacity())
+		{
+			final ByteBuffer bb = ByteBuffer.wrap(log);
+			while (bb.hasRemaining())
+				this.channel.write(bb);
+		} else
+			this.buffer.put(log);
+
+		this.fileSize += log.length;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return this.outputFilePath.hashCode();
+	}
+
+	@Override
+	public boolean equals(final Object o)
+	{
+		if (this == o)
+			return true;
+		if (o == null || getClass() != o.getClass())
+			return false;
+
+		final BufferedLogFile other = (BufferedLogFile) o;
+		return Objects.equals(this.outputFilePath, other.outputFilePath);
+	}
+}
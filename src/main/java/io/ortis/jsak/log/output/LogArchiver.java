@@ -0,0 +1,225 @@
+package io.ortis.jsak.log.output;
+
+import io.ortis.jsak.io.Compression;
+import io.ortis.jsak.io.compression.DeflateCodec;
+import io.ortis.jsak.io.compression.GzipCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Archive rotated log files. The active file is renamed on the caller thread, then compressed and the archives pruned on a background thread,
+ * so that rotation never blocks the {@link io.ortis.jsak.log.LogService} consumer thread.
+ * <p>
+ * Archives are named <code>&lt;file name&gt;.&lt;yyyy-MM-dd_HHmmssSSS&gt;[.&lt;counter&gt;][.&lt;extension&gt;]</code>. Retention is applied from
+ * the newest archive to the oldest: an archive is deleted as soon as one of the limits is reached (count, total size or age, computed from the
+ * time in its name)
+ */
+public class LogArchiver
+{
+	private static final String TEMPORARY_EXTENSION = ".tmp";
+	private static final int TIME_LENGTH = 20;
+
+	private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(r -> {
+		final Thread thread = new Thread(r);
+		thread.setName(LogArchiver.class.getSimpleName());
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final Compression.Codec codec;
+	private final Integer maxArchiveCount;
+	private final Long maxTotalSize;
+	private final Duration maxAge;
+
+	/**
+	 * @param codec:           codec used to compress archives (<code>null</code> or identity to keep them uncompressed)
+	 * @param maxArchiveCount: maximum number of archives to keep (<code>null</code> for unlimited)
+	 * @param maxTotalSize:    maximum size of all archives in bytes (<code>null</code> for unlimited)
+	 * @param maxAge:          maximum age of an archive (<code>null</code> for unlimited)
+	 */
+	public LogArchiver(final Compression.Codec codec, final Integer maxArchiveCount, final Long maxTotalSize, final Duration maxAge)
+	{
+		this.codec = codec == null || codec.isIdentity() ? null : codec;
+
+		this.maxArchiveCount = maxArchiveCount;
+		if (this.maxArchiveCount != null && this.maxArchiveCount < 0)
+			throw new IllegalArgumentException("Max archive count must be greater or equal to 0");
+
+		this.maxTotalSize = maxTotalSize;
+		if (this.maxTotalSize != null && this.maxTotalSize < 0)
+			throw new IllegalArgumentException("Max total size must be greater or equal to 0");
+
+		this.maxAge = maxAge;
+		if (this.maxAge != null && this.maxAge.isNegative())
+			throw new IllegalArgumentException("Max age must be positive");
+	}
+
+	/**
+	 * Rename <code>outputFilePath</code> to a new archive and schedule its compression and the pruning of old archives
+	 *
+	 * @return completion of the background work
+	 */
+	public Future<?> archive(final Path outputFilePath) throws IOException
+	{
+		final Path archive = LogFile.nextArchivePath(outputFilePath, getExtension());
+		Files.move(outputFilePath, archive, StandardCopyOption.REPLACE_EXISTING);
+
+		return EXECUTOR.submit(() -> {
+			try
+			{
+				if (this.codec != null)
+					compress(archive);
+
+				prune(outputFilePath);
+			} catch (final Exception e)
+			{
+				e.printStackTrace();
+			}
+		});
+	}
+
+	/**
+	 * Delete the archives of <code>outputFilePath</code> exceeding the retention limits
+	 */
+	public void prune(final Path outputFilePath) throws IOException
+	{
+		if (this.maxArchiveCount == null && this.maxTotalSize == null && this.maxAge == null)
+			return;
+
+		final List<Path> archives = getArchives(outputFilePath);
+		final LocalDateTime oldest = this.maxAge == null ? null : LocalDateTime.now().minus(this.maxAge);
+		long totalSize = 0;
+		for (int i = archives.size() - 1, count = 1; i >= 0; i--, count++)
+		{
+			final Path archive = archives.get(i);
+			try
+			{
+				totalSize += Files.size(archive);
+				if ((this.maxArchiveCount != null && count > this.maxArchiveCount) || (this.maxTotalSize != null && totalSize > this.maxTotalSize) ||
+					(oldest != null && archiveTime(outputFilePath, archive).isBefore(oldest)))
+					Files.deleteIfExists(archive);
+			} catch (final NoSuchFileException ignored)
+			{// deleted concurrently
+			}
+		}
+	}
+
+	/**
+	 * @return archives of <code>outputFilePath</code>, from the oldest to the newest
+	 */
+	public static List<Path> getArchives(final Path outputFilePath) throws IOException
+	{
+		final Path absolutePath = outputFilePath.toAbsolutePath();
+		final List<Path> archives = new ArrayList<>();
+		try (final Stream<Path> stream = Files.list(absolutePath.getParent()))
+		{
+			stream.forEach(path -> {
+				if (archiveTime(absolutePath, path) != null)
+					archives.add(path);
+			});
+		}
+
+		// time then counter ordering
+		archives.sort(Comparator.comparing(path -> path.getFileName().toString()));
+		return archives;
+	}
+
+	/**
+	 * @return extension of compressed archives (<code>null</code> if archives are not compressed)
+	 */
+	public String getExtension()
+	{
+		if (this.codec == null)
+			return null;
+
+		switch (this.codec.getName())
+		{
+			case GzipCodec.NAME:
+				return "gz";
+			case DeflateCodec.NAME:
+				return "zz";
+			default:
+				return this.codec.getName();
+		}
+	}
+
+	public Compression.Codec getCodec()
+	{
+		return this.codec;
+	}
+
+	public Integer getMaxArchiveCount()
+	{
+		return this.maxArchiveCount;
+	}
+
+	public Long getMaxTotalSize()
+	{
+		return this.maxTotalSize;
+	}
+
+	public Duration getMaxAge()
+	{
+		return this.maxAge;
+	}
+
+	private void compress(final Path archive) throws IOException
+	{
+		if (!Files.exists(archive))
+			return;// pruned before compression
+
+		final Path compressed = archive.resolveSibling(archive.getFileName() + "." + getExtension());
+		final Path temporary = compressed.resolveSibling(compressed.getFileName() + TEMPORARY_EXTENSION);
+		try
+		{
+			try (final InputStream is = Files.newInputStream(archive); final OutputStream os = Files.newOutputStream(temporary))
+			{
+				Compression.deflate(this.codec, is, os, new byte[8192]);
+			}
+
+			Files.move(temporary, compressed, StandardCopyOption.REPLACE_EXISTING);
+			Files.delete(archive);
+		} finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * @return time in the name of <code>path</code> or <code>null</code> if <code>path</code> is not an archive of <code>outputFilePath</code>
+	 */
+	private static LocalDateTime archiveTime(final Path outputFilePath, final Path path)
+	{
+		final String prefix = outputFilePath.getFileName() + ".";
+		final String fileName = path.getFileName().toString();
+		if (!fileName.startsWith(prefix) || fileName.length() < prefix.length() + TIME_LENGTH || fileName.endsWith(TEMPORARY_EXTENSION))
+			return null;
+
+		if (fileName.length() > prefix.length() + TIME_LENGTH && fileName.charAt(prefix.length() + TIME_LENGTH) != '.')
+			return null;
+
+		try
+		{
+			return LocalDateTime.parse(fileName.substring(prefix.length(), prefix.length() + TIME_LENGTH), LogFile.DATE_TIME_FORMATTER);
+		} catch (final DateTimeParseException e)
+		{
+			return null;
+		}
+	}
+}
@@ -12,20 +12,30 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.HashSet;
 import java.util.Objects;
-import java.util.UUID;
+import java.util.Set;
 
 public class LogFile implements LogService.Listener
 {
-	private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd_HHmmssSSS");
+	static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd_HHmmssSSS");
 	private static final DecimalFormat _4_LEADING_ZEROS_FORMATTER = new DecimalFormat("0000");
 
 	private final Path outputFilePath;
 	private final Long maxFileSize;
 	private final ChronoUnit fileRotation;
+	private transient final LogArchiver archiver;
 	private transient final Object lock = new Object();
 
 	public LogFile(final Path outputFilePath, final Long maxFileSize, final ChronoUnit fileRotation)
+	{
+		this(outputFilePath, maxFileSize, fileRotation, null);
+	}
+
+	/**
+	 * @param archiver: archiver of the rotated files (<code>null</code> to only rename them)
+	 */
+	public LogFile(final Path outputFilePath, final Long maxFileSize, final ChronoUnit fileRotation, final LogArchiver archiver)
 	{
 		this.outputFilePath = outputFilePath.toAbsolutePath();
 		if (Files.isDirectory(this.outputFilePath))
@@ -38,6 +48,8 @@ public class LogFile implements LogService.Listener
 		this.fileRotation = fileRotation;
 		if (this.fileRotation != null && this.fileRotation.compareTo(ChronoUnit.MINUTES) < 0)
 			throw new IllegalArgumentException("Invalid file rotation");
+
+		this.archiver = archiver;
 	}
 
 	private void checkRotate() throws IOException
@@ -50,21 +62,13 @@ public class LogFile implements LogService.Listener
 					return;
 
 				if (this.maxFileSize != null && Files.size(this.outputFilePath) >= this.maxFileSize)
+					archive(this.outputFilePath, this.archiver);
+				else if (this.fileRotation != null && !this.fileRotation.equals(ChronoUnit.FOREVER))
 				{
-					final Path archive = this.outputFilePath.getParent().resolve(nextArchiveFileName());
-					Files.move(this.outputFilePath, archive, StandardCopyOption.REPLACE_EXISTING);
-				} else if (this.fileRotation != null && !this.fileRotation.equals(ChronoUnit.FOREVER))
-				{
-					final BasicFileAttributes attr = Files.readAttributes(this.outputFilePath, BasicFileAttributes.class);
-					final FileTime fileTime = attr.creationTime();
-					final LocalDateTime creationTime = fileTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
-					final LocalDateTime rotationTime = creationTime.truncatedTo(this.fileRotation).plus(this.fileRotation.getDuration());
+					final LocalDateTime rotationTime = rotationTime(creationTime(this.outputFilePath), this.fileRotation);
 
 					if (!LocalDateTime.now().isBefore(rotationTime))
-					{
-						final Path archive = this.outputFilePath.getParent().resolve(nextArchiveFileName());
-						Files.move(this.outputFilePath, archive, StandardCopyOption.REPLACE_EXISTING);
-					}
+						archive(this.outputFilePath, this.archiver);
 				}
 			}
 		} catch (final Exception e)
@@ -73,31 +77,65 @@ public class LogFile implements LogService.Listener
 		}
 	}
 
-	private String nextArchiveFileName()
+	/**
+	 * Move <code>outputFilePath</code> to a new archive
+	 *
+	 * @param archiver: archiver to use (<code>null</code> to only rename the file)
+	 */
+	static void archive(final Path outputFilePath, final LogArchiver archiver) throws IOException
 	{
-		final StringBuilder sb = new StringBuilder(this.outputFilePath.getFileName().toString());
-		sb.append(".").append(DATE_TIME_FORMATTER.format(LocalDateTime.now()));
+		if (archiver == null)
+			Files.move(outputFilePath, nextArchivePath(outputFilePath), StandardCopyOption.REPLACE_EXISTING);
+		else
+			archiver.archive(outputFilePath);
+	}
 
-		if (Files.exists(Path.of(sb.toString())))
-		{
-			String suffix = null;
-			for (int i = 0; i < 1000; i++)
-			{
-				final String _suffix = "." + _4_LEADING_ZEROS_FORMATTER.format(i);
-				if (!Files.exists(Paths.get(sb + _suffix)))
-				{
-					suffix = _suffix;
-					break;
-				}
-			}
+	static LocalDateTime creationTime(final Path path) throws IOException
+	{
+		final BasicFileAttributes attr = Files.readAttributes(path, BasicFileAttributes.class);
+		final FileTime fileTime = attr.creationTime();
+		return fileTime.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime();
+	}
+
+	/**
+	 * @return time at which a file created at <code>creationTime</code> must be archived
+	 */
+	static LocalDateTime rotationTime(final LocalDateTime creationTime, final ChronoUnit fileRotation)
+	{
+		return creationTime.truncatedTo(fileRotation).plus(fileRotation.getDuration());
+	}
 
-			if (suffix == null)
-				sb.append(".").append(UUID.randomUUID());
-			else
-				sb.append(suffix);
+	/**
+	 * @return path to archive <code>outputFilePath</code> to
+	 */
+	static Path nextArchivePath(final Path outputFilePath) throws IOException
+	{
+		return nextArchivePath(outputFilePath, null);
+	}
+
+	/**
+	 * The names in use are read with a single listing of the directory
+	 *
+	 * @param compressedExtension: extension of the compressed archives (<code>null</code> if archives are not compressed)
+	 * @return path to archive <code>outputFilePath</code> to, not used by an archive nor by its compressed version
+	 */
+	static Path nextArchivePath(final Path outputFilePath, final String compressedExtension) throws IOException
+	{
+		final Path parent = outputFilePath.toAbsolutePath().getParent();
+		final String fileName = outputFilePath.getFileName() + "." + DATE_TIME_FORMATTER.format(LocalDateTime.now());
+
+		final Set<String> used = new HashSet<>();
+		try (final DirectoryStream<Path> stream = Files.newDirectoryStream(parent, path -> path.getFileName().toString().startsWith(fileName)))
+		{
+			for (final Path path : stream)
+				used.add(path.getFileName().toString());
 		}
 
-		return sb.toString();
+		String archive = fileName;
+		for (int i = 0; used.contains(archive) || (compressedExtension != null && used.contains(archive + "." + compressedExtension)); i++)
+			archive = fileName + "." + _4_LEADING_ZEROS_FORMATTER.format(i);
+
+		return parent.resolve(archive);
 	}
 
 
@@ -0,0 +1,101 @@
+package io.ortis.jsak.collection;
+
+import org.junit.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentRingBufferTest
+{
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testFIFO()
+	{
+		final ConcurrentRingBuffer<Integer> buffer = new ConcurrentRingBuffer<>(5);
+		Assert.assertEquals(8, buffer.capacity());
+		Assert.assertEquals(1, new ConcurrentRingBuffer<>(1).capacity());
+		Assert.assertTrue(buffer.isEmpty());
+		Assert.assertNull(buffer.poll());
+
+		for (int run = 0; run < 3; run++)
+		{
+			for (int i = 0; i < 8; i++)
+				Assert.assertTrue(buffer.offer(i));
+			Assert.assertFalse(buffer.offer(8));
+			Assert.assertEquals(8, buffer.size());
+
+			for (int i = 0; i < 8; i++)
+				Assert.assertEquals(i, (int) buffer.poll());
+			Assert.assertNull(buffer.poll());
+			Assert.assertEquals(0, buffer.size());
+		}
+	}
+
+	@Test
+	public void testConcurrency() throws Exception
+	{
+		final ConcurrentRingBuffer<Long> buffer = new ConcurrentRingBuffer<>(64);
+		final int producers = 4;
+		final long count = 20_000;
+
+		final AtomicLong sum = new AtomicLong(0);
+		final List<Thread> threads = new ArrayList<>();
+		for (int p = 0; p < producers; p++)
+			threads.add(new Thread(() -> {
+				for (long i = 1; i <= count; i++)
+					while (!buffer.offer(i))
+						Thread.yield();
+			}));
+
+		final Thread consumer = new Thread(() -> {
+			long received = 0;
+			while (received < producers * count)
+			{
+				final Long value = buffer.poll();
+				if (value == null)
+					Thread.yield();
+				else
+				{
+					sum.addAndGet(value);
+					received++;
+				}
+			}
+		});
+
+		for (final Thread thread : threads)
+			thread.start();
+		consumer.start();
+
+		for (final Thread thread : threads)
+			thread.join();
+		consumer.join();
+
+		Assert.assertEquals(producers * count * (count + 1) / 2, sum.get());
+		Assert.assertTrue(buffer.isEmpty());
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass()
+	{
+
+	}
+}
@@ -1,16 +1,26 @@
 package io.ortis.jsak.http;
 
+import io.ortis.jsak.TestUtils;
 import io.ortis.jsak.collection.CachedIterator;
+import io.ortis.jsak.http.server.HTTPEndpoint;
 import io.ortis.jsak.http.server.HTTPRequestHttpHandler;
 import io.ortis.jsak.http.server.HTTPServer;
+import io.ortis.jsak.http.server.cache.HTTPResponseCache;
 import io.ortis.jsak.http.server.config.HTTPServerConfig;
 import io.ortis.jsak.http.server.limiter.HTTPLimiterWrapper;
 import io.ortis.jsak.http.server.limiter.NoLimitHTTPLimiter;
 import io.ortis.jsak.http.server.limiter.config.HTTPLimiterConfig;
+import io.ortis.jsak.http.server.router.HTTPRoute;
 import io.ortis.jsak.io.Compression;
+import io.ortis.jsak.io.IOUtils;
 import org.junit.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -20,6 +30,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
 
 public class HTTPServerTest
 {
@@ -125,6 +136,192 @@ public class HTTPServerTest
 		httpServer.start();
 	}
 
+	@Test
+	public void testCompression() throws Exception
+	{
+		final byte[] payload = new byte[8 * 1024 * 1024];
+		for (int i = 0; i < payload.length; i++)
+			payload[i] = (byte) TestUtils.getDeterministicRandom().nextInt(16);
+
+		final HTTPEndpoint endpoint = new HTTPEndpoint()
+		{
+			@Override
+			public boolean isMatch(final String requestMethod, final Map<String, List<String>> requestHeaders, final String path)
+			{
+				return true;
+			}
+
+			@Override
+			public Response respond(final InetSocketAddress remoteHost, final String requestMethod, final Map<String, List<String>> requestHeaders,
+					final String path, final String query, final InputStream requestBody)
+			{
+				return new Response(null, 200, payload, true);
+			}
+		};
+
+		final HTTPServer httpServer = new HTTPServer(new InetSocketAddress("127.0.0.1", CONFIG.getPort() + 1), Executors.newFixedThreadPool(2),
+				CONFIG.getBacklog());
+		httpServer.addContext("/", new HTTPRequestHttpHandler(CONFIG, List.of(endpoint), Compression.Algorithm.Gzip, new NoLimitHTTPLimiter(), 4096,
+				Logger.getAnonymousLogger()));
+		httpServer.start();
+
+		try
+		{
+			final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + (CONFIG.getPort() + 1) + "/").openConnection();
+			connection.setRequestProperty("Accept-Encoding", "gzip");
+
+			Assert.assertEquals(200, connection.getResponseCode());
+			Assert.assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+			Assert.assertEquals("chunked", connection.getHeaderField("Transfer-Encoding"));
+
+			try (final InputStream is = new GZIPInputStream(connection.getInputStream()); final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+			{
+				IOUtils.stream(is, baos, new byte[4096]);
+				Assert.assertArrayEquals(payload, baos.toByteArray());
+			}
+		} finally
+		{
+			httpServer.stop();
+		}
+	}
+
+
+	@Test
+	public void testCache() throws Exception
+	{
+		final byte[] payload = "cached payload cached payload cached payload".getBytes(StandardCharsets.UTF_8);
+		final AtomicInteger calls = new AtomicInteger(0);
+
+		final HTTPEndpoint endpoint = new HTTPEndpoint()
+		{
+			@Override
+			public boolean isMatch(final String requestMethod, final Map<String, List<String>> requestHeaders, final String path)
+			{
+				return true;
+			}
+
+			@Override
+			public Duration getCacheTimeToLive(final String requestMethod, final Map<String, List<String>> requestHeaders, final String path,
+					final String query)
+			{
+				return Duration.ofMinutes(1);
+			}
+
+			@Override
+			public Response respond(final InetSocketAddress remoteHost, final String requestMethod, final Map<String, List<String>> requestHeaders,
+					final String path, final String query, final InputStream requestBody)
+			{
+				calls.incrementAndGet();
+				return new Response(Map.of("Content-Type", "text/plain"), 200, payload, true);
+			}
+		};
+
+		final int port = CONFIG.getPort() + 2;
+		final HTTPServer httpServer = new HTTPServer(new InetSocketAddress("127.0.0.1", port), Executors.newFixedThreadPool(2), CONFIG.getBacklog());
+		httpServer.addContext("/", new HTTPRequestHttpHandler("/", CONFIG, List.of(endpoint), List.of(Compression.Algorithm.Gzip.getCodec()),
+				new NoLimitHTTPLimiter(), new HTTPResponseCache(1024 * 1024, 1024), 4096, Logger.getAnonymousLogger()));
+		httpServer.start();
+
+		try
+		{
+			String etag = null;
+			for (int i = 0; i < 3; i++)
+			{
+				final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/data?x=1").openConnection();
+				connection.setRequestProperty("Accept-Encoding", "gzip");
+
+				Assert.assertEquals(200, connection.getResponseCode());
+				Assert.assertEquals("gzip", connection.getHeaderField("Content-Encoding"));
+				Assert.assertEquals("text/plain", connection.getHeaderField("Content-Type"));
+				Assert.assertNotNull(connection.getHeaderField("ETag"));
+				if (etag != null)
+					Assert.assertEquals(etag, connection.getHeaderField("ETag"));
+				etag = connection.getHeaderField("ETag");
+
+				try (final InputStream is = new GZIPInputStream(connection.getInputStream()); final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+				{
+					IOUtils.stream(is, baos, new byte[4096]);
+					Assert.assertArrayEquals(payload, baos.toByteArray());
+				}
+			}
+			Assert.assertEquals(1, calls.get());
+
+			final HttpURLConnection notModified = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/data?x=1").openConnection();
+			notModified.setRequestProperty("Accept-Encoding", "gzip");
+			notModified.setRequestProperty("If-None-Match", etag);
+			Assert.assertEquals(304, notModified.getResponseCode());
+
+			// identity is a different cache entry
+			final HttpURLConnection identity = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/data?x=1").openConnection();
+			identity.setRequestProperty("Accept-Encoding", "identity");
+			Assert.assertEquals(200, identity.getResponseCode());
+			Assert.assertNull(identity.getHeaderField("Content-Encoding"));
+			try (final InputStream is = identity.getInputStream())
+			{
+				Assert.assertArrayEquals(payload, is.readAllBytes());
+			}
+			Assert.assertEquals(2, calls.get());
+		} finally
+		{
+			httpServer.stop();
+		}
+	}
+
+	@Test
+	public void testRoutes() throws Exception
+	{
+		final HTTPEndpoint endpoint = new HTTPEndpoint()
+		{
+			@Override
+			public List<HTTPRoute> getRoutes()
+			{
+				return List.of(HTTPRoute.of("GET", "/files/{name}"));
+			}
+
+			@Override
+			public boolean isMatch(final String requestMethod, final Map<String, List<String>> requestHeaders, final String path)
+			{
+				return false;
+			}
+
+			@Override
+			public Response respond(final InetSocketAddress remoteHost, final String requestMethod, final Map<String, List<String>> requestHeaders,
+					final String path, final String query, final InputStream requestBody)
+			{
+				throw new IllegalStateException("Path parameters expected");
+			}
+
+			@Override
+			public Response respond(final InetSocketAddress remoteHost, final String requestMethod, final Map<String, List<String>> requestHeaders,
+					final String path, final Map<String, String> pathParameters, final String query, final InputStream requestBody)
+			{
+				return new Response(null, 200, pathParameters.get("name").getBytes(StandardCharsets.UTF_8), false);
+			}
+		};
+
+		final int port = CONFIG.getPort() + 3;
+		final HTTPServer httpServer = new HTTPServer(new InetSocketAddress("127.0.0.1", port), Executors.newFixedThreadPool(2), CONFIG.getBacklog());
+		httpServer.addContext("/", new HTTPRequestHttpHandler(CONFIG, List.of(endpoint), Compression.Algorithm.Raw, new NoLimitHTTPLimiter(), 4096,
+				Logger.getAnonymousLogger()));
+		httpServer.start();
+
+		try
+		{
+			// an encoded '/' stays inside the parameter segment
+			final HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/files/a%2Fb%20c").openConnection();
+			Assert.assertEquals(200, connection.getResponseCode());
+			try (final InputStream is = connection.getInputStream())
+			{
+				Assert.assertEquals("a/b c", new String(is.readAllBytes(), StandardCharsets.UTF_8));
+			}
+
+			final HttpURLConnection notFound = (HttpURLConnection) new URL("http://127.0.0.1:" + port + "/files/a/b").openConnection();
+			Assert.assertEquals(404, notFound.getResponseCode());
+		} finally
+		{
+			httpServer.stop();
+		}
+	}
 
 	@BeforeClass
 	public static void setUpBeforeClass()
@@ -0,0 +1,84 @@
+package io.ortis.jsak.http.server.cache;
+
+import org.junit.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+public class HTTPResponseCacheTest
+{
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testEviction()
+	{
+		final HTTPResponseCache cache = new HTTPResponseCache(100, 60);
+		final HTTPResponseCache.Key a = new HTTPResponseCache.Key(null, "/a", null, "gzip");
+		final HTTPResponseCache.Key b = new HTTPResponseCache.Key(null, "/b", null, "gzip");
+		final HTTPResponseCache.Key c = new HTTPResponseCache.Key(null, "/c", "x=1", "gzip");
+
+		cache.put(a, 200, null, new byte[40], "gzip", Duration.ofMinutes(1), 0);
+		cache.put(b, 200, Map.of("k", "v"), new byte[40], "gzip", Duration.ofMinutes(1), 0);
+		Assert.assertEquals(80, cache.size());
+
+		// a becomes the most recently used
+		Assert.assertNotNull(cache.get(new HTTPResponseCache.Key(null, "/a", null, "gzip"), 0));
+		Assert.assertNull(cache.get(new HTTPResponseCache.Key(null, "/a", null, "identity"), 0));
+
+		cache.put(c, 200, null, new byte[40], "gzip", Duration.ofMinutes(1), 0);
+		Assert.assertEquals(80, cache.size());
+		Assert.assertNull(cache.get(b, 0));
+		Assert.assertNotNull(cache.get(a, 0));
+		Assert.assertNotNull(cache.get(c, 0));
+
+		// too large
+		Assert.assertNotNull(cache.put(b, 200, null, new byte[61], "gzip", Duration.ofMinutes(1), 0));
+		Assert.assertNull(cache.get(b, 0));
+		Assert.assertEquals(2, cache.count());
+
+		// expiration
+		Assert.assertNull(cache.get(a, Duration.ofMinutes(1).toMillis()));
+		Assert.assertEquals(40, cache.size());
+		cache.clean(Duration.ofMinutes(1).toMillis());
+		Assert.assertEquals(0, cache.size());
+		Assert.assertEquals(0, cache.count());
+	}
+
+	@Test
+	public void testETag()
+	{
+		final String etag = HTTPResponseCache.computeETag(new byte[]{1, 2, 3});
+		Assert.assertEquals(etag, HTTPResponseCache.computeETag(new byte[]{1, 2, 3}));
+		Assert.assertNotEquals(etag, HTTPResponseCache.computeETag(new byte[]{1, 2, 4}));
+
+		Assert.assertTrue(HTTPResponseCache.isNoneMatch(List.of("\"x\", " + etag), etag));
+		Assert.assertTrue(HTTPResponseCache.isNoneMatch(List.of("W/" + etag), etag));
+		Assert.assertTrue(HTTPResponseCache.isNoneMatch(List.of("*"), etag));
+		Assert.assertFalse(HTTPResponseCache.isNoneMatch(List.of("\"x\""), etag));
+		Assert.assertFalse(HTTPResponseCache.isNoneMatch(null, etag));
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass()
+	{
+
+	}
+}
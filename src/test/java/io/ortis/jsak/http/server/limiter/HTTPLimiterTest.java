@@ -0,0 +1,189 @@
+package io.ortis.jsak.http.server.limiter;
+
+import io.ortis.jsak.TestUtils;
+import org.junit.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class HTTPLimiterTest
+{
+	private static final int BASE_TEST_RUNS = 200;
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testSlidingWindow()
+	{
+		final HTTPLimiter limiter = HTTPLimiter.of(
+				"{\"type\": \"SlidingWindowHTTPLimiter\", \"params\": {\"strikes\": 3, \"timeFrame\": \"PT10S\"}}");
+		Assert.assertTrue(limiter instanceof SlidingWindowHTTPLimiter);
+
+		Assert.assertNull(limiter.onRequest("a", 0));
+		Assert.assertNull(limiter.onRequest("a", 1000));
+		Assert.assertNull(limiter.onRequest("a", 2000));
+		Assert.assertEquals("Too many requests (wait 5 seconds)", limiter.onRequest("a", 5000));
+		Assert.assertNull(limiter.onRequest("b", 5000));
+
+		// oldest request leaves the window
+		Assert.assertNull(limiter.onRequest("a", 10_001));
+		Assert.assertNotNull(limiter.onRequest("a", 10_002));
+		Assert.assertNull(limiter.onRequest("a", 11_001));
+
+		limiter.clean(14_000);
+		Assert.assertNull(limiter.onRequest("b", 14_000));
+		limiter.clean(30_000);
+		for (int i = 0; i < 3; i++)
+			Assert.assertNull(limiter.onRequest("a", 30_000));
+		Assert.assertNotNull(limiter.onRequest("a", 30_000));
+	}
+
+	@Test
+	public void testSlidingWindowMatchesTimeLimiter()
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final int runs = TestUtils.computeTestRuns(BASE_TEST_RUNS);
+		for (int run = 0; run < runs; run++)
+		{
+			final int strikes = 1 + random.nextInt(10);
+			final Duration timeFrame = Duration.ofMillis(1 + random.nextInt(5000));
+			final HTTPLimiter expected = new TimeHTTPLimiter(strikes, timeFrame);
+			final HTTPLimiter actual = new SlidingWindowHTTPLimiter(strikes, timeFrame);
+
+			long now = 0;
+			for (int i = 0; i < 200; i++)
+			{
+				now += random.nextInt(1000);
+				final String host = "h" + random.nextInt(3);
+				Assert.assertEquals(expected.onRequest(host, now) == null, actual.onRequest(host, now) == null);
+				if (random.nextInt(50) == 0)
+				{
+					expected.clean(now);
+					actual.clean(now);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testTokenBucket()
+	{
+		final HTTPLimiter limiter = HTTPLimiter.of(
+				"{\"type\": \"TokenBucketHTTPLimiter\", \"params\": {\"capacity\": 3, \"refillTokens\": 2, \"refillPeriod\": \"PT10S\"}}");
+		Assert.assertTrue(limiter instanceof TokenBucketHTTPLimiter);
+
+		// burst
+		for (int i = 0; i < 3; i++)
+			Assert.assertNull(limiter.onRequest("a", 1000));
+		Assert.assertEquals("Too many requests (wait 9 seconds)", limiter.onRequest("a", 1000));
+		Assert.assertNull(limiter.onRequest("b", 1000));
+
+		final Map<String, String> headers = limiter.getRejectionHeaders("a", 1000);
+		Assert.assertEquals("9", headers.get("Retry-After"));
+		Assert.assertEquals("3", headers.get("RateLimit-Limit"));
+		Assert.assertEquals("0", headers.get("RateLimit-Remaining"));
+		Assert.assertEquals("19", headers.get("RateLimit-Reset"));
+
+		// refill
+		Assert.assertNull(limiter.onRequest("a", 10_000));
+		Assert.assertNull(limiter.onRequest("a", 10_000));
+		Assert.assertNotNull(limiter.onRequest("a", 10_000));
+		Assert.assertNull(limiter.onRequest("a", 20_000));
+		Assert.assertEquals("1", limiter.getRejectionHeaders("a", 20_000).get("RateLimit-Remaining"));
+
+		// cannot exceed capacity after long inactivity
+		for (int i = 0; i < 3; i++)
+			Assert.assertNull(limiter.onRequest("a", 1_000_000_000));
+		Assert.assertNotNull(limiter.onRequest("a", 1_000_000_000));
+
+		limiter.clean(40_000);
+		Assert.assertEquals("3", limiter.getRejectionHeaders("b", 40_000).get("RateLimit-Remaining"));
+	}
+
+	@Test
+	public void testGCRA()
+	{
+		final HTTPLimiter limiter = HTTPLimiter.of("{\"type\": \"GCRAHTTPLimiter\", \"params\": {\"capacity\": 3, \"refillPeriod\": \"PT10S\"}}");
+		Assert.assertTrue(limiter instanceof GCRAHTTPLimiter);
+
+		for (int i = 0; i < 3; i++)
+			Assert.assertNull(limiter.onRequest("a", 1000));
+		Assert.assertEquals("Too many requests (wait 10 seconds)", limiter.onRequest("a", 1000));
+		Assert.assertNull(limiter.onRequest("b", 1000));
+
+		final Map<String, String> headers = limiter.getRejectionHeaders("a", 1000);
+		Assert.assertEquals("10", headers.get("Retry-After"));
+		Assert.assertEquals("3", headers.get("RateLimit-Limit"));
+		Assert.assertEquals("0", headers.get("RateLimit-Remaining"));
+		Assert.assertEquals("30", headers.get("RateLimit-Reset"));
+
+		// one request every refill period
+		Assert.assertNotNull(limiter.onRequest("a", 10_999));
+		Assert.assertNull(limiter.onRequest("a", 11_000));
+		Assert.assertNotNull(limiter.onRequest("a", 11_000));
+		Assert.assertNull(limiter.onRequest("a", 21_000));
+
+		limiter.clean(51_000);
+		for (int i = 0; i < 3; i++)
+			Assert.assertNull(limiter.onRequest("a", 51_000));
+		Assert.assertNotNull(limiter.onRequest("a", 51_000));
+	}
+
+	@Test
+	public void testConcurrency() throws Exception
+	{
+		final int capacity = 1000;
+		for (final HTTPLimiter limiter : List.of(new SlidingWindowHTTPLimiter(capacity, Duration.ofHours(1)),
+				new TokenBucketHTTPLimiter(capacity, 1, Duration.ofHours(1)), new GCRAHTTPLimiter(capacity, Duration.ofHours(1))))
+		{
+			final AtomicInteger accepted = new AtomicInteger(0);
+
+			final List<Thread> threads = new ArrayList<>();
+			for (int t = 0; t < 8; t++)
+			{
+				final Thread thread = new Thread(() -> {
+					for (int i = 0; i < capacity; i++)
+					{
+						if (limiter.onRequest("host", 0) == null)
+							accepted.incrementAndGet();
+						if (i % 100 == 0)
+							limiter.clean(0);
+					}
+				});
+				threads.add(thread);
+				thread.start();
+			}
+
+			for (final Thread thread : threads)
+				thread.join();
+
+			Assert.assertEquals(limiter.getClass().getSimpleName(), capacity, accepted.get());
+		}
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass()
+	{
+
+	}
+}
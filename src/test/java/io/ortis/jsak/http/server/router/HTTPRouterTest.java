@@ -0,0 +1,176 @@
+package io.ortis.jsak.http.server.router;
+
+import io.ortis.jsak.http.server.HTTPEndpoint;
+import org.junit.*;
+
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Map;
+
+public class HTTPRouterTest
+{
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testRoute()
+	{
+		final HTTPEndpoint users = endpoint(HTTPRoute.of("GET", "/users"), HTTPRoute.of("GET", "/users/me"));
+		final HTTPEndpoint user = endpoint(HTTPRoute.of("GET", "/users/{id}"));
+		final HTTPEndpoint userFiles = endpoint(HTTPRoute.of("GET", "/users/:id/files/*"));
+		final HTTPEndpoint createUser = endpoint(HTTPRoute.of("POST", "/users"));
+		final HTTPEndpoint health = endpoint(HTTPRoute.of("/health"));
+		final HTTPEndpoint fallback = endpoint(HTTPRoute.of("/*"));
+		final HTTPEndpoint unrouted = endpoint();
+
+		final HTTPRouter router = new HTTPRouter(List.of(users, user, userFiles, createUser, health, fallback, unrouted));
+
+		Assert.assertSame(users, router.route("GET", "/users"));
+		Assert.assertSame(users, router.route("GET", "/USERS/"));
+		Assert.assertSame(users, router.route("GET", "/users/me"));
+		Assert.assertSame(user, router.route("GET", "/users/42"));
+		Assert.assertSame(userFiles, router.route("GET", "/users/42/files"));
+		Assert.assertSame(userFiles, router.route("GET", "/users/42/files/a/b/c.txt"));
+		Assert.assertSame(createUser, router.route("POST", "/users"));
+		Assert.assertSame(health, router.route("GET", "/health"));
+		Assert.assertSame(health, router.route("DELETE", "/health"));
+		Assert.assertSame(fallback, router.route("GET", "/users/42/unknown"));
+		Assert.assertSame(fallback, router.route("PUT", "/users"));
+		Assert.assertSame(fallback, router.route("GET", "/"));
+
+		// context path offset
+		Assert.assertSame(user, router.route("GET", "/api/users/42", "/api".length()));
+	}
+
+	@Test
+	public void testMatch()
+	{
+		final HTTPEndpoint users = endpoint(HTTPRoute.of("GET", "/users"));
+		final HTTPEndpoint user = endpoint(HTTPRoute.of("GET", "/users/{id}"));
+		final HTTPEndpoint userFiles = endpoint(HTTPRoute.of("GET", "/users/:id/files/*"));
+		final HTTPEndpoint group = endpoint(HTTPRoute.of("GET", "/groups/{group}/users/{user}"));
+
+		final HTTPRouter router = new HTTPRouter(List.of(users, user, userFiles, group));
+
+		HTTPRouter.Match match = router.match("GET", "/users");
+		Assert.assertSame(users, match.getEndpoint());
+		Assert.assertEquals(Map.of(), match.getParameters());
+
+		match = router.match("GET", "/users/42/");
+		Assert.assertSame(user, match.getEndpoint());
+		Assert.assertEquals(HTTPRoute.of("GET", "/users/{id}"), match.getRoute());
+		Assert.assertEquals(Map.of("id", "42"), match.getParameters());
+
+		match = router.match("GET", "/api/users/42/files/a/b/c.txt", "/api".length());
+		Assert.assertSame(userFiles, match.getEndpoint());
+		Assert.assertEquals(Map.of("id", "42", HTTPRoute.WILDCARD, "a/b/c.txt"), match.getParameters());
+
+		match = router.match("GET", "/users/42/files");
+		Assert.assertEquals(Map.of("id", "42", HTTPRoute.WILDCARD, ""), match.getParameters());
+
+		// backtracking from a parameter branch must not leak its captures
+		match = router.match("GET", "/groups/g1/users/u%202");
+		Assert.assertSame(group, match.getEndpoint());
+		Assert.assertEquals(List.of("group", "user"), List.copyOf(match.getParameters().keySet()));
+		Assert.assertEquals(Map.of("group", "g1", "user", "u 2"), match.getParameters());
+
+		Assert.assertNull(router.match("GET", "/groups/g1"));
+
+		// raw path: an encoded '/' stays inside its segment, values are decoded
+		match = router.match("GET", "/groups/a%2Fb/users/caf%C3%A9+%zz%");
+		Assert.assertSame(group, match.getEndpoint());
+		Assert.assertEquals(Map.of("group", "a/b", "user", "caf\u00e9+%zz%"), match.getParameters());
+		Assert.assertEquals(Map.of("id", "42", HTTPRoute.WILDCARD, "a%/b"), router.match("GET", "/users/42/files/a%25/b").getParameters());
+
+		// routes capturing nothing share their match
+		Assert.assertSame(router.match("GET", "/users"), router.match("GET", "/USERS/"));
+	}
+
+	@Test
+	public void testNoMatch()
+	{
+		final HTTPRouter router = new HTTPRouter(List.of(endpoint(HTTPRoute.of("GET", "/a/{b}/c")), endpoint()));
+
+		Assert.assertNull(router.route("GET", "/a/b"));
+		Assert.assertNull(router.route("GET", "/a/b/d"));
+		Assert.assertNull(router.route("POST", "/a/b/c"));
+		Assert.assertNull(new HTTPRouter(List.of(endpoint())).route("GET", "/"));
+		Assert.assertTrue(new HTTPRouter(List.of(endpoint())).isEmpty());
+	}
+
+	@Test
+	public void testConflict()
+	{
+		try
+		{
+			new HTTPRouter(List.of(endpoint(HTTPRoute.of("GET", "/a/{b}")), endpoint(HTTPRoute.of("GET", "/A/:c"))));
+			Assert.fail("Should not allow conflicting routes");
+		} catch (final IllegalArgumentException ignored)
+		{
+		}
+
+		try
+		{
+			HTTPRoute.of("/a/{b}/{b}");
+			Assert.fail("Should not allow duplicate parameters");
+		} catch (final IllegalArgumentException ignored)
+		{
+		}
+
+		try
+		{
+			HTTPRoute.of("/a/*/b");
+			Assert.fail("Should not allow wildcard before last segment");
+		} catch (final IllegalArgumentException ignored)
+		{
+		}
+	}
+
+	private static HTTPEndpoint endpoint(final HTTPRoute... routes)
+	{
+		return new HTTPEndpoint()
+		{
+			@Override
+			public boolean isMatch(final String requestMethod, final Map<String, List<String>> requestHeaders, final String path)
+			{
+				return false;
+			}
+
+			@Override
+			public List<HTTPRoute> getRoutes()
+			{
+				return routes.length == 0 ? null : List.of(routes);
+			}
+
+			@Override
+			public Response respond(final InetSocketAddress remoteHost, final String requestMethod, final Map<String, List<String>> requestHeaders,
+					final String path, final String query, final InputStream requestBody)
+			{
+				return Response.http204NoContent();
+			}
+		};
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass()
+	{
+
+	}
+}
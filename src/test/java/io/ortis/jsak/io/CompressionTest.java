@@ -0,0 +1,160 @@
+package io.ortis.jsak.io;
+
+import io.ortis.jsak.TestUtils;
+import io.ortis.jsak.io.compression.DeflateCodec;
+import io.ortis.jsak.io.compression.GzipCodec;
+import io.ortis.jsak.io.compression.IdentityCodec;
+import io.ortis.jsak.io.compression.LZ4Codec;
+import org.junit.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+
+public class CompressionTest
+{
+	private static final int BASE_TEST_RUNS = 500;
+	private static final int MAX_BYTES_LENGTH = 256 * 1024;
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testCodecs() throws Exception
+	{
+		final List<Compression.Codec> codecs = List.of(IdentityCodec.INSTANCE, new GzipCodec(), new GzipCodec(Deflater.BEST_SPEED, Deflater.FILTERED),
+				new DeflateCodec(), new DeflateCodec(Deflater.BEST_COMPRESSION, Deflater.HUFFMAN_ONLY), new LZ4Codec(), new LZ4Codec(1024));
+
+		final Random random = TestUtils.getDeterministicRandom();
+		final int runs = TestUtils.computeTestRuns(BASE_TEST_RUNS);
+		for (int run = 0; run < runs; run++)
+		{
+			final byte[] data = new byte[run % 20 == 0 ? 0 : random.nextInt(run % 3 == 0 ? MAX_BYTES_LENGTH : 64)];
+			if (run % 2 == 0)
+				random.nextBytes(data);
+			else
+			{// compressible data
+				final int alphabet = 1 + random.nextInt(8);
+				for (int i = 0; i < data.length; i++)
+					data[i] = (byte) (i % 7 == 0 ? random.nextInt(alphabet) : data[Math.max(0, i - 1 - random.nextInt(Math.min(i + 1, 64)))]);
+			}
+
+			final byte[] buffer = new byte[1 + random.nextInt(8192)];
+			for (final Compression.Codec codec : codecs)
+			{
+				final byte[] compressed;
+				try (final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+				{
+					Compression.deflate(codec, new ByteArrayInputStream(data), baos, buffer);
+					compressed = baos.toByteArray();
+				}
+
+				try (final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+				{
+					Compression.inflate(codec, new ByteArrayInputStream(compressed), buffer, baos);
+					Assert.assertArrayEquals(codec.getName(), data, baos.toByteArray());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testLZ4Block() throws Exception
+	{
+		final byte[] data = new byte[100_000];
+		for (int i = 0; i < data.length; i++)
+			data[i] = (byte) (i % 251 < 200 ? 'a' : i);
+
+		final byte[] compressed = new byte[LZ4Codec.maxCompressedLength(data.length)];
+		final int length = LZ4Codec.compress(data, 0, data.length, compressed, 0, LZ4Codec.newHashTable());
+		Assert.assertTrue(length < data.length / 10);
+
+		final byte[] uncompressed = new byte[data.length];
+		Assert.assertEquals(data.length, LZ4Codec.decompress(compressed, 0, length, uncompressed, 0, uncompressed.length));
+		Assert.assertArrayEquals(data, uncompressed);
+
+		try
+		{
+			LZ4Codec.decompress(compressed, 0, length, new byte[data.length - 1], 0, data.length - 1);
+			Assert.fail("Should not allow destination overflow");
+		} catch (final Exception ignored)
+		{
+		}
+	}
+
+	@Test
+	public void testNegotiate()
+	{
+		final Compression.Codec gzip = Compression.getCodec("gzip");
+		final Compression.Codec deflate = Compression.getCodec("deflate");
+		final Compression.Codec lz4 = Compression.getCodec(LZ4Codec.NAME);
+		final List<Compression.Codec> codecs = List.of(lz4, gzip, deflate);
+
+		Assert.assertSame(gzip, Compression.Algorithm.Gzip.getCodec());
+		Assert.assertSame(IdentityCodec.INSTANCE, Compression.negotiate(null, codecs));
+		Assert.assertSame(gzip, Compression.negotiate(List.of("gzip, deflate, br"), codecs));
+		Assert.assertSame(lz4, Compression.negotiate(List.of("gzip, x-lz4"), codecs));
+		Assert.assertSame(deflate, Compression.negotiate(List.of("gzip;q=0.5, deflate;q=0.8"), codecs));
+		Assert.assertSame(deflate, Compression.negotiate(List.of("gzip;q=0", "deflate"), codecs));
+		Assert.assertSame(lz4, Compression.negotiate(List.of("*"), codecs));
+		Assert.assertSame(gzip, Compression.negotiate(List.of("*;q=0.1, GZIP;q=0.9"), codecs));
+		Assert.assertSame(IdentityCodec.INSTANCE, Compression.negotiate(List.of("br"), codecs));
+		Assert.assertSame(IdentityCodec.INSTANCE, Compression.negotiate(List.of("gzip"), List.of()));
+		Assert.assertNull(Compression.negotiate(List.of("br, identity;q=0"), codecs));
+		Assert.assertNull(Compression.negotiate(List.of("*;q=0"), codecs));
+
+		// identity competes with its own q-value
+		Assert.assertSame(IdentityCodec.INSTANCE, Compression.negotiate(List.of("identity;q=1, gzip;q=0.1"), codecs));
+		Assert.assertSame(IdentityCodec.INSTANCE, Compression.negotiate(List.of("*;q=0.5, gzip;q=0.1"), List.of(gzip)));
+		Assert.assertSame(gzip, Compression.negotiate(List.of("identity;q=0.5, gzip"), codecs));
+		Assert.assertSame(IdentityCodec.INSTANCE, Compression.negotiate(List.of("gzip, identity"), List.of(IdentityCodec.INSTANCE, gzip)));
+	}
+
+	@Test
+	public void testIdentityLeavesStreamsOpen() throws Exception
+	{
+		final byte[] data = "identity".getBytes(StandardCharsets.UTF_8);
+		final AtomicBoolean closed = new AtomicBoolean(false);
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream()
+		{
+			@Override
+			public void close()
+			{
+				closed.set(true);
+			}
+		};
+
+		Compression.deflate(Compression.Algorithm.Raw, new ByteArrayInputStream(data), baos, new byte[4]);
+		Compression.inflate(Compression.Algorithm.Raw, new ByteArrayInputStream(data), new byte[4], baos);
+		Assert.assertFalse(closed.get());
+		Assert.assertEquals("identityidentity", baos.toString(StandardCharsets.UTF_8));
+
+		Compression.deflate(Compression.Algorithm.Gzip, new ByteArrayInputStream(data), baos, new byte[4]);
+		Assert.assertTrue(closed.get());
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass()
+	{
+
+	}
+}
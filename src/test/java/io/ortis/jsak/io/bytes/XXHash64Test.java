@@ -0,0 +1,112 @@
+package io.ortis.jsak.io.bytes;
+
+
+import io.ortis.jsak.TestUtils;
+import org.junit.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+public class XXHash64Test
+{
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testVectors()
+	{
+		vectorTest("", 0xEF46DB3751D8E999L);
+		vectorTest("a", 0xD24EC4F1A98C6E5BL);
+		vectorTest("abc", 0x44BC2CF5AD770999L);
+		vectorTest("Nobody inspects the spammish repetition", 0xFBCEA83C8A378BF1L);
+	}
+
+	private static void vectorTest(final String s, final long expected)
+	{
+		final byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+		Assert.assertEquals(expected, XXHash64.hash(bytes));
+
+		final XXHash64 hash = new XXHash64();
+		for (final byte b : bytes)
+			hash.update(b);
+		Assert.assertEquals(expected, hash.getValue());
+	}
+
+	@Test
+	public void testStreaming() throws Exception
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final XXHash64 hash = new XXHash64(42);
+		for (int i = 0; i < 1000; i++)
+		{
+			final byte[] bytes = new byte[random.nextInt(1000)];
+			random.nextBytes(bytes);
+			final long expected = XXHash64.hash(bytes, 0, bytes.length, 42);
+
+			// random splits through every update method
+			hash.reset();
+			int offset = 0;
+			while (offset < bytes.length)
+			{
+				final int length = Math.min(bytes.length - offset, random.nextInt(80));
+				switch (random.nextInt(4))
+				{
+					case 0:
+						hash.update(bytes, offset, length);
+						break;
+					case 1:
+						hash.update(ByteBuffer.wrap(bytes, offset, length));
+						break;
+					case 2:
+						final ByteBuffer direct = ByteBuffer.allocateDirect(length);
+						direct.put(bytes, offset, length).flip();
+						hash.update(direct);
+						Assert.assertFalse(direct.hasRemaining());
+						break;
+					default:
+						for (int j = 0; j < length; j++)
+							hash.update(bytes[offset + j]);
+				}
+				offset += length;
+			}
+
+			Assert.assertEquals(expected, hash.getValue());
+		}
+
+		final Path workspace = TestUtils.mkdir();
+		try
+		{
+			final byte[] bytes = new byte[100_000];
+			random.nextBytes(bytes);
+			final Path path = Files.write(workspace.resolve("file"), bytes);
+			Assert.assertEquals(XXHash64.hash(bytes), XXHash64.hash(path, ByteBuffer.allocateDirect(4096)));
+		} finally
+		{
+			TestUtils.delete(workspace);
+		}
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+
+	}
+}
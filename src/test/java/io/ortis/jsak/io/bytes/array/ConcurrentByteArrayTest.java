@@ -0,0 +1,240 @@
+package io.ortis.jsak.io.bytes.array;
+
+import io.ortis.jsak.TestUtils;
+import io.ortis.jsak.io.IOUtils;
+import org.junit.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ConcurrentByteArrayTest
+{
+	private static final int LENGTH = 4 * 1024 * 1024;
+	private static final int READERS = 4;
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testConcurrentReads() throws Exception
+	{
+		final ConcurrentByteArray array = new ConcurrentByteArray(1000);
+		Assert.assertEquals(1024, array.getSectorLength());
+
+		final AtomicReference<Throwable> error = new AtomicReference<>();
+		final List<Thread> readers = new ArrayList<>();
+		for (int r = 0; r < READERS; r++)
+		{
+			final ByteArrayView view = array.view();
+			final Thread reader = new Thread(() -> {
+				try
+				{// every published byte must be visible
+					final byte[] buffer = new byte[3000];
+					long position = 0;
+					while (position < LENGTH)
+					{
+						final int read = view.read(buffer, 0, buffer.length);
+						if (read <= 0)
+						{
+							Thread.yield();
+							continue;
+						}
+
+						for (int i = 0; i < read; i++)
+							Assert.assertEquals(valueAt(position + i), buffer[i]);
+						position += read;
+						Assert.assertEquals(position, view.offset());
+					}
+				} catch (final Throwable t)
+				{
+					error.compareAndSet(null, t);
+				}
+			});
+			reader.setDaemon(true);
+			reader.start();
+			readers.add(reader);
+		}
+
+		final Random random = TestUtils.getDeterministicRandom();
+		long position = 0;
+		while (position < LENGTH)
+		{
+			final byte[] data = new byte[(int) Math.min(LENGTH - position, random.nextInt(5000))];
+			for (int i = 0; i < data.length; i++)
+				data[i] = valueAt(position + i);
+
+			if (data.length == 1)
+				array.write(data[0]);
+			else
+				array.write(data);
+			position += data.length;
+		}
+
+		for (final Thread reader : readers)
+		{
+			reader.join(60_000);
+			Assert.assertFalse(reader.isAlive());
+		}
+
+		if (error.get() != null)
+			throw new AssertionError(error.get());
+
+		// writes are only allowed at the end
+		array.seek(0);
+		try
+		{
+			array.write((byte) 0);
+			Assert.fail("Should only allow appends");
+		} catch (final IllegalStateException ignored)
+		{
+
+		}
+	}
+
+	@Test
+	public void testConcurrentClose() throws Exception
+	{
+		final int runs = TestUtils.computeTestRuns(20);
+		for (int run = 0; run < runs; run++)
+		{
+			final ConcurrentByteArray array = new ConcurrentByteArray(16);
+			final byte[] data = new byte[64 * 1024];
+			for (int i = 0; i < data.length; i++)
+				data[i] = valueAt(i);
+			array.write(data);
+
+			final AtomicReference<Throwable> error = new AtomicReference<>();
+			final List<Thread> readers = new ArrayList<>();
+			for (int r = 0; r < READERS; r++)
+			{
+				final Thread reader = new Thread(() -> {
+					try
+					{// a reader racing with close either reads the bytes or sees the array closed
+						final byte[] buffer = new byte[8];
+						for (int position = 0; ; position = (position + 8) % data.length)
+						{
+							Assert.assertEquals(buffer.length, array.read(position, buffer, 0, buffer.length));
+							for (int i = 0; i < buffer.length; i++)
+								Assert.assertEquals(data[position + i], buffer[i]);
+						}
+					} catch (final IllegalStateException e)
+					{
+						if (!"Array is closed".equals(e.getMessage()))
+							error.compareAndSet(null, e);
+					} catch (final Throwable t)
+					{
+						error.compareAndSet(null, t);
+					}
+				});
+				reader.setDaemon(true);
+				reader.start();
+				readers.add(reader);
+			}
+
+			Thread.sleep(5);
+			array.close();
+
+			for (final Thread reader : readers)
+			{
+				reader.join(60_000);
+				Assert.assertFalse(reader.isAlive());
+			}
+
+			if (error.get() != null)
+				throw new AssertionError(error.get());
+		}
+	}
+
+	@Test
+	public void testViews() throws IOException
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final byte[] data = new byte[10_000];
+		random.nextBytes(data);
+
+		final List<PositionalByteArray> arrays = new ArrayList<>();
+		final LargeByteArray largeByteArray = new LargeByteArray(100);
+		largeByteArray.write(data);
+		arrays.add(largeByteArray);
+		final DirectByteArray directByteArray = new DirectByteArray(100);
+		directByteArray.write(data);
+		arrays.add(directByteArray);
+		final ConcurrentByteArray concurrentByteArray = new ConcurrentByteArray(100);
+		concurrentByteArray.write(data);
+		arrays.add(concurrentByteArray);
+
+		for (final PositionalByteArray array : arrays)
+		{
+			final ByteArrayView view = array.view(1000, 5000);
+			Assert.assertEquals(5000, view.length());
+
+			final ByteArrayView slice = view.slice(100, 200);
+			Assert.assertEquals(200, slice.length());
+			try (final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+			{
+				IOUtils.stream(slice.asInputStream(), baos, new byte[64]);
+				Assert.assertArrayEquals(Arrays.copyOfRange(data, 1100, 1300), baos.toByteArray());
+			}
+
+			// independent offsets
+			final byte[] buffer = new byte[10];
+			Assert.assertEquals(10, view.read(buffer, 0, buffer.length));
+			Assert.assertArrayEquals(Arrays.copyOfRange(data, 1000, 1010), buffer);
+			Assert.assertEquals(10, view.offset());
+			Assert.assertEquals(200, slice.offset());
+			Assert.assertEquals(data.length, array.offset());
+
+			Assert.assertEquals(10, view.read(4990, buffer, 0, buffer.length));
+			Assert.assertArrayEquals(Arrays.copyOfRange(data, 5990, 6000), buffer);
+			Assert.assertEquals(-1, view.read(5000, buffer, 0, buffer.length));
+			Assert.assertEquals(10, view.offset());
+
+			try
+			{
+				view.slice(4000, 1001);
+				Assert.fail("Should not allow slicing out of bounds");
+			} catch (final IndexOutOfBoundsException ignored)
+			{
+
+			}
+		}
+
+		// unbounded views follow appends
+		final ByteArrayView view = concurrentByteArray.view();
+		view.seek(data.length);
+		Assert.assertEquals(-1, view.read(new byte[1], 0, 1));
+		concurrentByteArray.write((byte) 42);
+		Assert.assertEquals(42, view.read());
+	}
+
+	private static byte valueAt(final long position)
+	{
+		return (byte) (position * 31 + (position >>> 8));
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass()
+	{
+
+	}
+}
@@ -0,0 +1,219 @@
+package io.ortis.jsak.io.bytes.array;
+
+import io.ortis.jsak.TestUtils;
+import io.ortis.jsak.io.IOUtils;
+import org.junit.*;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+public class DirectByteArrayTest
+{
+	private static final int BASE_RUNS = 2_000;
+	private static final int MAX_BYTE_LENGTH = 256;
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testIO() throws IOException
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final int runs = TestUtils.computeTestRuns(BASE_RUNS);
+		final DirectByteArray.Pool pool = new DirectByteArray.Pool(1 + random.nextInt(MAX_BYTE_LENGTH), 64);
+		for (int run = 0; run < runs; run++)
+		{
+			try (final DirectByteArray array = run % 2 == 0 ? new DirectByteArray(pool) : new DirectByteArray(1 + random.nextInt(MAX_BYTE_LENGTH)))
+			{
+				testRandomOperations(array, random);
+			}
+		}
+
+		Assert.assertTrue(pool.size() > 0);
+		Assert.assertTrue(pool.size() <= pool.getMaxSize());
+	}
+
+	private static void testRandomOperations(final DirectByteArray array, final Random random) throws IOException
+	{
+		// reference model
+		byte[] expected = new byte[0];
+		int offset = 0;
+		for (int i = 0; i < 100; i++)
+		{
+			switch (random.nextInt(5))
+			{
+				case 0:
+				{
+					final byte[] data = new byte[random.nextInt(MAX_BYTE_LENGTH)];
+					random.nextBytes(data);
+					array.write(data);
+					if (offset + data.length > expected.length)
+						expected = Arrays.copyOf(expected, offset + data.length);
+					System.arraycopy(data, 0, expected, offset, data.length);
+					offset += data.length;
+					break;
+				}
+				case 1:
+				{
+					final byte b = (byte) random.nextInt();
+					array.asOutputStream().write(b);
+					if (offset == expected.length)
+						expected = Arrays.copyOf(expected, offset + 1);
+					expected[offset++] = b;
+					break;
+				}
+				case 2:
+					offset = random.nextInt(expected.length + 1);
+					array.seek(offset);
+					break;
+				case 3:
+				{
+					final byte[] buffer = new byte[1 + random.nextInt(MAX_BYTE_LENGTH)];
+					final int read = array.read(buffer, 0, buffer.length);
+					final int expectedRead = Math.min(buffer.length, expected.length - offset);
+					if (expectedRead == 0)
+						Assert.assertEquals(-1, read);
+					else
+					{
+						Assert.assertEquals(expectedRead, read);
+						Assert.assertArrayEquals(Arrays.copyOfRange(expected, offset, offset + read), Arrays.copyOf(buffer, read));
+						offset += read;
+					}
+					break;
+				}
+				default:
+				{
+					final int length = random.nextInt(expected.length + MAX_BYTE_LENGTH);
+					array.resize(length);
+					expected = Arrays.copyOf(expected, length);
+					offset = Math.min(offset, length);
+				}
+			}
+
+			Assert.assertEquals(expected.length, array.length());
+			Assert.assertEquals(offset, array.offset());
+			Assert.assertTrue(array.capacity() >= array.length());
+		}
+
+		array.rewind();
+		try (final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+		{
+			IOUtils.stream(array.asInputStream(), baos, new byte[1 + random.nextInt(MAX_BYTE_LENGTH)]);
+			Assert.assertArrayEquals(expected, baos.toByteArray());
+		}
+
+		array.seek(array.length());
+		Assert.assertEquals(-1, array.read());
+	}
+
+	@Test
+	public void testUnsignedRead() throws IOException
+	{
+		final byte[] data = {0, 0x7F, (byte) 0x80, (byte) 0xFF};
+		try (final DirectByteArray array = new DirectByteArray(3))
+		{
+			array.write(data);
+			array.rewind();
+			for (final byte b : data)
+				Assert.assertEquals(b & 0xFF, array.read());
+			Assert.assertEquals(-1, array.read());
+
+			// default read() of the views
+			final InputStream inputStream = array.view().asInputStream();
+			for (final byte b : data)
+				Assert.assertEquals(b & 0xFF, inputStream.read());
+			Assert.assertEquals(-1, inputStream.read());
+		}
+	}
+
+	@Test
+	public void testTransfer() throws Exception
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final Path workspace = TestUtils.mkdir();
+		try
+		{
+			for (int run = 0; run < 50; run++)
+			{
+				final byte[] data = new byte[random.nextInt(10 * MAX_BYTE_LENGTH)];
+				random.nextBytes(data);
+				try (final DirectByteArray array = new DirectByteArray(1 + random.nextInt(MAX_BYTE_LENGTH)))
+				{
+					array.write(data);
+					final int from = random.nextInt(data.length + 1);
+					array.seek(from);
+
+					// gathering write
+					final Path path = workspace.resolve(TestUtils.randomString(16));
+					try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+					{
+						Assert.assertEquals(data.length - from, array.transferTo(channel));
+					}
+					Assert.assertArrayEquals(Arrays.copyOfRange(data, from, data.length), Files.readAllBytes(path));
+					Assert.assertEquals(data.length, array.offset());
+
+					// non gathering write
+					array.rewind();
+					try (final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+					{
+						Assert.assertEquals(data.length, array.transferTo(Channels.newChannel(baos)));
+						Assert.assertArrayEquals(data, baos.toByteArray());
+					}
+				}
+			}
+		} finally
+		{
+			TestUtils.delete(workspace);
+		}
+	}
+
+	@Test
+	public void testClose() throws IOException
+	{
+		final DirectByteArray.Pool pool = new DirectByteArray.Pool(16, 2);
+		final DirectByteArray array = new DirectByteArray(pool);
+		array.write(new byte[100]);
+		Assert.assertEquals(112, array.capacity());
+		Assert.assertEquals(0, pool.size());
+
+		array.close();
+		Assert.assertEquals(2, pool.size());
+		Assert.assertEquals(0, array.capacity());
+		try
+		{
+			array.write((byte) 0);
+			Assert.fail("Should not allow writing in a closed array");
+		} catch (final IllegalStateException ignored)
+		{
+
+		}
+	}
+
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass()
+	{
+
+	}
+}
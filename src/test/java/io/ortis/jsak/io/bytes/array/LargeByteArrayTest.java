@@ -5,6 +5,14 @@ import io.ortis.jsak.io.IOUtils;
 import org.junit.*;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Random;
 
 public class LargeByteArrayTest
@@ -45,6 +53,265 @@ public class LargeByteArrayTest
 		}
 	}
 
+	@Test
+	public void testFixedSectors() throws IOException
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final int runs = TestUtils.computeTestRuns(BASE_RUNS / 10);
+		for (int run = 0; run < runs; run++)
+		{
+			final byte[] data1 = new byte[run == 0 ? 0 : random.nextInt(MAX_BYTE_LENGTH)];
+			random.nextBytes(data1);
+			final byte[] data2 = new byte[run == 0 || run == 1 ? 0 : random.nextInt(MAX_BYTE_LENGTH)];
+			random.nextBytes(data2);
+			final byte[] singleData = new byte[run == 0 | run == 10 ? 0 : random.nextInt(MAX_BYTE_LENGTH)];
+			random.nextBytes(singleData);
+
+			final byte[] buffer = new byte[1 + random.nextInt(MAX_BYTE_LENGTH - 1)];
+			final LargeByteArray largeByteArray = new LargeByteArray(1 + random.nextInt(MAX_BYTE_LENGTH), true);
+			Assert.assertEquals(1, Integer.bitCount(largeByteArray.getSectorLength()));
+
+			testLargeByteArray(largeByteArray, data1, data2, singleData, buffer);
+		}
+	}
+
+	@Test
+	public void testPositional() throws IOException
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final int runs = TestUtils.computeTestRuns(BASE_RUNS / 100);
+		for (int run = 0; run < runs; run++)
+		{
+			final LargeByteArray lba = new LargeByteArray(1 + random.nextInt(MAX_BYTE_LENGTH), random.nextBoolean());
+			byte[] expected = new byte[0];
+			for (int i = 0; i < 50; i++)
+			{
+				final int offset = random.nextInt(expected.length + 1);
+				lba.seek(offset);
+				if (random.nextBoolean())
+				{
+					final byte[] data = new byte[random.nextInt(MAX_BYTE_LENGTH)];
+					random.nextBytes(data);
+					final int position = random.nextInt(expected.length + 1);
+					lba.write(position, data, 0, data.length);
+					if (position + data.length > expected.length)
+						expected = Arrays.copyOf(expected, position + data.length);
+					System.arraycopy(data, 0, expected, position, data.length);
+				} else if (random.nextInt(4) == 0)
+				{
+					final int length = random.nextInt(expected.length + MAX_BYTE_LENGTH);
+					lba.resize(length);
+					expected = Arrays.copyOf(expected, length);
+					continue;
+				}
+
+				// positional reads do not move the offset
+				final int position = random.nextInt(expected.length + 1);
+				final byte[] buffer = new byte[1 + random.nextInt(MAX_BYTE_LENGTH)];
+				final int read = lba.read(position, buffer, 0, buffer.length);
+				if (position == expected.length)
+					Assert.assertEquals(-1, read);
+				else
+				{
+					Assert.assertEquals(Math.min(buffer.length, expected.length - position), read);
+					Assert.assertArrayEquals(Arrays.copyOfRange(expected, position, position + read), Arrays.copyOf(buffer, read));
+				}
+
+				Assert.assertEquals(expected.length, lba.length());
+				Assert.assertEquals(offset, lba.offset());
+
+				// cursor read spanning sectors
+				final byte[] all = new byte[expected.length];
+				lba.rewind();
+				Assert.assertEquals(expected.length == 0 ? -1 : expected.length, lba.read(all, 0, all.length));
+				Assert.assertArrayEquals(expected, all);
+			}
+		}
+	}
+
+	@Test
+	public void testUnsignedRead() throws IOException
+	{
+		final byte[] data = {0, 0x7F, (byte) 0x80, (byte) 0xFF};
+		final LargeByteArray lba = new LargeByteArray(3);
+		lba.write(data);
+		lba.rewind();
+
+		// 0xFF must not be mistaken for the end of the stream
+		final InputStream inputStream = lba.asInputStream();
+		for (final byte b : data)
+			Assert.assertEquals(b & 0xFF, inputStream.read());
+		Assert.assertEquals(-1, inputStream.read());
+
+		final InputStream viewInputStream = lba.view().asInputStream();
+		for (final byte b : data)
+			Assert.assertEquals(b & 0xFF, viewInputStream.read());
+		Assert.assertEquals(-1, viewInputStream.read());
+	}
+
+	@Test
+	public void testTransfer() throws Exception
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final Path workspace = TestUtils.mkdir();
+		try
+		{
+			final int runs = TestUtils.computeTestRuns(BASE_RUNS / 10_000);
+			for (int run = 0; run < runs; run++)
+			{
+				final byte[] data = new byte[random.nextInt(100_000)];
+				random.nextBytes(data);
+				final LargeByteArray lba = new LargeByteArray(1 + random.nextInt(MAX_BYTE_LENGTH), random.nextBoolean());
+				lba.write(data);
+
+				// sector export
+				final int from = random.nextInt(data.length + 1);
+				final int length = random.nextInt(data.length - from + 1);
+				try (final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+				{
+					for (final ByteBuffer buffer : lba.toByteBuffers(from, length))
+					{
+						Assert.assertTrue(buffer.isReadOnly());
+						final byte[] bytes = new byte[buffer.remaining()];
+						buffer.get(bytes);
+						baos.write(bytes);
+					}
+					Assert.assertArrayEquals(Arrays.copyOfRange(data, from, from + length), baos.toByteArray());
+				}
+
+				// gathering write
+				final Path path = workspace.resolve("transfer" + run);
+				lba.seek(from);
+				try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE))
+				{
+					Assert.assertEquals(data.length - from, lba.transferTo(channel));
+				}
+				Assert.assertArrayEquals(Arrays.copyOfRange(data, from, data.length), Files.readAllBytes(path));
+				Assert.assertEquals(data.length, lba.offset());
+
+				// non gathering write
+				lba.rewind();
+				try (final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+				{
+					Assert.assertEquals(data.length, lba.transferTo(Channels.newChannel(baos)));
+					Assert.assertArrayEquals(data, baos.toByteArray());
+				}
+
+				// scattering read
+				final LargeByteArray copy = new LargeByteArray(1 + random.nextInt(MAX_BYTE_LENGTH), random.nextBoolean());
+				copy.write(new byte[]{1, 2, 3});
+				try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+				{
+					Assert.assertEquals(Math.min(10, data.length - from), copy.transferFrom(channel, 10));
+					Assert.assertEquals(data.length - from - Math.min(10, data.length - from), copy.transferFrom(channel, Long.MAX_VALUE));
+				}
+				Assert.assertEquals(3 + data.length - from, copy.length());
+				Assert.assertEquals(copy.length(), copy.offset());
+				final byte[] bytes = new byte[data.length - from];
+				Assert.assertEquals(bytes.length == 0 ? -1 : bytes.length, copy.read(3, bytes, 0, bytes.length));
+				Assert.assertArrayEquals(Arrays.copyOfRange(data, from, data.length), bytes);
+			}
+		} finally
+		{
+			TestUtils.delete(workspace);
+		}
+	}
+
+	@Test
+	public void testBoundedTransfer() throws IOException
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final byte[] data = new byte[4 * LargeByteArray.MAX_TRANSFER_BYTES + 123];
+		random.nextBytes(data);
+
+		// many small sectors and a single sector larger than the max transfer length
+		for (final LargeByteArray lba : new LargeByteArray[]{new LargeByteArray(1000, true), new LargeByteArray(data.length, true)})
+		{
+			lba.write(data);
+			lba.seek(7);
+
+			final ByteArrayOutputStream received = new ByteArrayOutputStream();
+			final GatheringByteChannel channel = new GatheringByteChannel()
+			{
+				@Override
+				public long write(final ByteBuffer[] srcs, final int offset, final int length)
+				{
+					long bytes = 0;
+					for (int i = offset; i < offset + length; i++)
+						bytes += srcs[i].remaining();
+					Assert.assertTrue(bytes <= LargeByteArray.MAX_TRANSFER_BYTES);
+
+					long written = 0;
+					for (int i = offset; i < offset + length; i++)
+						written += write(srcs[i]);
+					return written;
+				}
+
+				@Override
+				public long write(final ByteBuffer[] srcs)
+				{
+					return write(srcs, 0, srcs.length);
+				}
+
+				@Override
+				public int write(final ByteBuffer src)
+				{
+					final byte[] bytes = new byte[src.remaining()];
+					src.get(bytes);
+					received.writeBytes(bytes);
+					return bytes.length;
+				}
+
+				@Override
+				public boolean isOpen()
+				{
+					return true;
+				}
+
+				@Override
+				public void close()
+				{
+				}
+			};
+
+			Assert.assertEquals(data.length - 7, lba.transferTo(channel));
+			Assert.assertArrayEquals(Arrays.copyOfRange(data, 7, data.length), received.toByteArray());
+			Assert.assertEquals(data.length, lba.offset());
+		}
+	}
+
+	@Test
+	public void testAvailable() throws IOException
+	{
+		final ByteArray byteArray = new ByteArray()
+		{
+			@Override
+			public long length()
+			{
+				return 3L * Integer.MAX_VALUE;
+			}
+
+			@Override
+			public long offset()
+			{
+				return 10;
+			}
+
+			@Override
+			public int read(final byte[] buffer, final int from, final int length)
+			{
+				return -1;
+			}
+
+			@Override
+			public void seek(final long offset)
+			{
+			}
+		};
+
+		Assert.assertEquals(Integer.MAX_VALUE, new ByteArrayInputStreamAdapter(byteArray).available());
+	}
+
 	private static void testLargeByteArray(final LargeByteArray lba, final byte[] data1, final byte[] data2, final byte[] singleData,
 			final byte[] buffer) throws IOException
 	{
@@ -101,7 +368,7 @@ public class LargeByteArrayTest
 		Assert.assertEquals(maxDataLength, inputStream.available());
 
 		for (final byte b : data2)
-			Assert.assertEquals(b, lba.read());
+			Assert.assertEquals(b & 0xFF, lba.read());
 
 		Assert.assertEquals(maxDataLength, lba.length());
 		Assert.assertEquals(data2.length, lba.offset());
@@ -130,7 +397,7 @@ public class LargeByteArrayTest
 		Assert.assertEquals(data2.length, inputStream.available());
 
 		for (final byte b : data2)
-			Assert.assertEquals(b, lba.read());
+			Assert.assertEquals(b & 0xFF, lba.read());
 
 		Assert.assertEquals(totalDataLength, lba.length());
 		Assert.assertEquals(totalDataLength, lba.offset());
@@ -174,7 +441,7 @@ public class LargeByteArrayTest
 			Assert.assertEquals(totalDataLength+i, lba.offset());
 			Assert.assertEquals(1, inputStream.available());
 
-			Assert.assertEquals(b, lba.read());
+			Assert.assertEquals(b & 0xFF, lba.read());
 
 			Assert.assertEquals(totalDataLength + i + 1, lba.length());
 			Assert.assertEquals(totalDataLength+i+1, lba.offset());
@@ -201,10 +468,10 @@ public class LargeByteArrayTest
 		Assert.assertEquals(totalDataLength, inputStream.available());
 
 		for (final byte b : data1)
-			Assert.assertEquals(b, lba.read());
+			Assert.assertEquals(b & 0xFF, lba.read());
 
 		for (final byte b : data2)
-			Assert.assertEquals(b, inputStream.read());
+			Assert.assertEquals(b & 0xFF, inputStream.read());
 
 		Assert.assertEquals(totalDataLength, lba.length());
 		Assert.assertEquals(totalDataLength, lba.offset());
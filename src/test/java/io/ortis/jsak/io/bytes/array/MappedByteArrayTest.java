@@ -0,0 +1,219 @@
+package io.ortis.jsak.io.bytes.array;
+
+import io.ortis.jsak.TestUtils;
+import io.ortis.jsak.io.IOUtils;
+import org.junit.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+public class MappedByteArrayTest
+{
+	private static final int BASE_RUNS = 100;
+	private static final int MAX_BYTE_LENGTH = 10_000;
+	private static Path workspace;
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testIO() throws IOException
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final int runs = TestUtils.computeTestRuns(BASE_RUNS);
+		for (int run = 0; run < runs; run++)
+		{
+			final Path path = workspace.resolve(TestUtils.randomString(16));
+			final MappedByteArray.Sync sync = MappedByteArray.Sync.values()[run % MappedByteArray.Sync.values().length];
+
+			// reference model
+			byte[] expected = new byte[0];
+			int offset = 0;
+			try (final MappedByteArray array = new MappedByteArray(path, 1 + random.nextInt(16 * 1024), sync))
+			{
+				for (int i = 0; i < 50; i++)
+				{
+					switch (random.nextInt(5))
+					{
+						case 0:
+						{
+							final byte[] data = new byte[random.nextInt(MAX_BYTE_LENGTH)];
+							random.nextBytes(data);
+							array.write(data);
+							if (offset + data.length > expected.length)
+								expected = Arrays.copyOf(expected, offset + data.length);
+							System.arraycopy(data, 0, expected, offset, data.length);
+							offset += data.length;
+							break;
+						}
+						case 1:
+						{
+							final byte b = (byte) random.nextInt();
+							array.write(b);
+							if (offset == expected.length)
+								expected = Arrays.copyOf(expected, offset + 1);
+							expected[offset++] = b;
+							break;
+						}
+						case 2:
+							offset = random.nextInt(expected.length + 1);
+							array.seek(offset);
+							break;
+						case 3:
+						{
+							final int position = random.nextInt(expected.length + 1);
+							final byte[] buffer = new byte[1 + random.nextInt(MAX_BYTE_LENGTH)];
+							final int read = array.read(position, buffer, 0, buffer.length);
+							if (position == expected.length)
+								Assert.assertEquals(-1, read);
+							else
+							{
+								Assert.assertEquals(Math.min(buffer.length, expected.length - position), read);
+								Assert.assertArrayEquals(Arrays.copyOfRange(expected, position, position + read), Arrays.copyOf(buffer, read));
+							}
+							break;
+						}
+						default:
+						{
+							final int length = random.nextInt(expected.length + MAX_BYTE_LENGTH);
+							array.resize(length);
+							expected = Arrays.copyOf(expected, length);
+							offset = Math.min(offset, length);
+						}
+					}
+
+					Assert.assertEquals(expected.length, array.length());
+					Assert.assertEquals(offset, array.offset());
+				}
+
+				array.rewind();
+				try (final ByteArrayOutputStream baos = new ByteArrayOutputStream())
+				{
+					IOUtils.stream(array.asInputStream(), baos, new byte[1 + random.nextInt(MAX_BYTE_LENGTH)]);
+					Assert.assertArrayEquals(expected, baos.toByteArray());
+				}
+			}
+
+			// file is truncated to the length of the array
+			final byte[] file = Files.readAllBytes(path);
+			Assert.assertEquals(MappedByteArray.HEADER_LENGTH + expected.length, file.length);
+			Assert.assertArrayEquals(expected, Arrays.copyOfRange(file, MappedByteArray.HEADER_LENGTH, file.length));
+
+			try (final MappedByteArray array = new MappedByteArray(path, 4096, MappedByteArray.Sync.NONE))
+			{
+				Assert.assertEquals(expected.length, array.length());
+				Assert.assertEquals(0, array.offset());
+				final byte[] buffer = new byte[expected.length];
+				Assert.assertEquals(expected.length == 0 ? -1 : expected.length, array.read(buffer, 0, buffer.length));
+				Assert.assertArrayEquals(expected, buffer);
+			}
+
+			Files.delete(path);
+		}
+	}
+
+	@Test
+	public void testRecovery() throws IOException
+	{
+		final Path path = workspace.resolve(TestUtils.randomString(16));
+		final int regionLength = 1 << 20;
+		final MappedByteArray crashed = new MappedByteArray(path, regionLength, MappedByteArray.Sync.NONE);
+		crashed.write(new byte[]{1, 2, 3});
+
+		// not closed: the file holds a whole region but the header holds the length of the array
+		Assert.assertEquals(MappedByteArray.HEADER_LENGTH + regionLength, Files.size(path));
+		try (final MappedByteArray array = new MappedByteArray(path, regionLength, MappedByteArray.Sync.NONE))
+		{
+			Assert.assertEquals(3, array.length());
+			final byte[] buffer = new byte[10];
+			Assert.assertEquals(3, array.read(buffer, 0, buffer.length));
+			Assert.assertArrayEquals(new byte[]{1, 2, 3}, Arrays.copyOf(buffer, 3));
+
+			// bytes past the length read as zeros once the array is expanded
+			array.resize(5);
+			Assert.assertEquals(2, array.read(buffer, 0, buffer.length));
+			Assert.assertArrayEquals(new byte[]{0, 0}, Arrays.copyOf(buffer, 2));
+			array.resize(3);
+		}
+		crashed.close();
+		Assert.assertEquals(MappedByteArray.HEADER_LENGTH + 3, Files.size(path));
+
+		// reads do not extend the file
+		try (final MappedByteArray array = new MappedByteArray(path, regionLength, MappedByteArray.Sync.NONE))
+		{
+			Assert.assertEquals(1, array.read());
+			Assert.assertEquals(2, array.read(1, new byte[10], 0, 10));
+			Assert.assertEquals(3, array.slice(1, 2).get(1));
+			Assert.assertEquals(MappedByteArray.HEADER_LENGTH + 3, Files.size(path));
+		}
+		Assert.assertEquals(MappedByteArray.HEADER_LENGTH + 3, Files.size(path));
+
+		// not a mapped byte array
+		final Path other = workspace.resolve(TestUtils.randomString(16));
+		Files.write(other, new byte[]{1, 2, 3});
+		try
+		{
+			new MappedByteArray(other).close();
+			Assert.fail("Should not open a file without header");
+		} catch (final IOException ignored)
+		{
+
+		}
+		Assert.assertEquals(3, Files.size(other));
+	}
+
+	@Test
+	public void testSlice() throws IOException
+	{
+		final Path path = workspace.resolve(TestUtils.randomString(16));
+		try (final MappedByteArray array = new MappedByteArray(path, 1000, MappedByteArray.Sync.NONE))
+		{
+			Assert.assertEquals(1024, array.getRegionLength());
+			final byte[] data = new byte[3000];
+			TestUtils.getDeterministicRandom().nextBytes(data);
+			array.write(data);
+			array.force();
+
+			final ByteBuffer slice = array.slice(1024, 1024);
+			Assert.assertTrue(slice.isReadOnly());
+			final byte[] bytes = new byte[slice.remaining()];
+			slice.get(bytes);
+			Assert.assertArrayEquals(Arrays.copyOfRange(data, 1024, 2048), bytes);
+
+			try
+			{
+				array.slice(1000, 100);
+				Assert.fail("Should not allow slices crossing regions");
+			} catch (final IllegalArgumentException ignored)
+			{
+
+			}
+		}
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+		workspace = TestUtils.mkdir();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+		TestUtils.delete(workspace);
+	}
+}
@@ -0,0 +1,188 @@
+package io.ortis.jsak.io.file;
+
+import io.ortis.jsak.TestUtils;
+import io.ortis.jsak.io.bytes.Bytes;
+import io.ortis.jsak.io.bytes.XXHash64;
+import org.junit.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class DirectoryContentMonitorTest
+{
+	private static Path workspace;
+	private Path root = null;
+
+
+	@Before
+	public void setUp() throws Exception
+	{
+		this.root = Files.createDirectory(workspace.resolve(TestUtils.randomString(16))).toAbsolutePath();
+		Files.writeString(this.root.resolve("a.json"), "a");
+		Files.createDirectories(this.root.resolve("sub"));
+		Files.writeString(this.root.resolve("sub").resolve("b.json"), "b");
+		Files.writeString(this.root.resolve("sub").resolve("ignored.txt"), "ignored");
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testWatch() throws Exception
+	{
+		// no fallback rescan: changes can only come from the watch service
+		final DirectoryContentMonitor monitor = new DirectoryContentMonitor(this.root, "**.json", Duration.ofHours(1),
+				FileContentMonitor.Mode.WATCH, Duration.ofMillis(50), 16, null);
+		testMonitor(monitor);
+	}
+
+	@Test
+	public void testPoll() throws Exception
+	{
+		final DirectoryContentMonitor monitor = new DirectoryContentMonitor(this.root, "**.json", Duration.ofMillis(100),
+				FileContentMonitor.Mode.POLL, Duration.ZERO, 16, null);
+		testMonitor(monitor);
+	}
+
+	private void testMonitor(final DirectoryContentMonitor monitor) throws Exception
+	{
+		final Path a = this.root.resolve("a.json");
+		final Path b = this.root.resolve("sub").resolve("b.json");
+		Assert.assertEquals(List.of(a, b), List.copyOf(monitor.getFiles()));
+		Assert.assertEquals(Bytes.wrap("a".getBytes(StandardCharsets.UTF_8)), monitor.getFileContent(a));
+		Assert.assertEquals(XXHash64.hash("a".getBytes(StandardCharsets.UTF_8)), monitor.getFileHash(a));
+
+		final List<String> events = new CopyOnWriteArrayList<>();
+		final Map<Path, Long> hashes = new ConcurrentHashMap<>();
+		monitor.addListener(new DirectoryContentListener()
+		{
+			@Override
+			public void onFileModified(final Path path, final Bytes content, final long hash)
+			{
+				hashes.put(path, hash);
+				onFileModified(path, content);
+			}
+
+			@Override
+			public void onFileCreated(final Path path, final Bytes content)
+			{
+				events.add("create " + root.relativize(path) + " " + toString(content));
+			}
+
+			@Override
+			public void onFileModified(final Path path, final Bytes content)
+			{
+				events.add("modify " + root.relativize(path) + " " + toString(content));
+			}
+
+			@Override
+			public void onFileDeleted(final Path path)
+			{
+				events.add("delete " + root.relativize(path));
+			}
+
+			private String toString(final Bytes content)
+			{
+				return content == null ? null : new String(content.toByteArray(), StandardCharsets.UTF_8);
+			}
+		});
+
+		final Thread thread = new Thread(monitor);
+		thread.setDaemon(true);
+		thread.start();
+		try
+		{
+			Thread.sleep(200);
+
+			Files.writeString(a, "a2");
+			waitFor(events, "modify a.json a2");
+
+			// new directory at runtime
+			final Path c = Files.createDirectories(this.root.resolve("sub").resolve("new")).resolve("c.json");
+			Files.writeString(c, "c");
+			waitFor(events, "create " + this.root.relativize(c) + " c");
+
+			// larger than the max content size: only the hash is kept
+			replace(c, "0123456789abcdefghijklmnopqrstuvwxyz");
+			waitFor(events, "modify " + this.root.relativize(c) + " null");
+			Assert.assertNull(monitor.getFileContent(c));
+			final long hash = XXHash64.hash("0123456789abcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.UTF_8));
+			Assert.assertEquals(hash, monitor.getFileHash(c));
+			Assert.assertEquals(hash, (long) hashes.get(c));
+			Assert.assertTrue(monitor.getFiles().contains(c));
+
+			// same size, different hash
+			final int count = events.size();
+			replace(c, "0123456789abcdefghijklmnopqrstuvwxyZ");
+			waitFor(events, count + 1);
+			Assert.assertEquals("modify " + this.root.relativize(c) + " null", events.get(count));
+			Assert.assertEquals(XXHash64.hash("0123456789abcdefghijklmnopqrstuvwxyZ".getBytes(StandardCharsets.UTF_8)), monitor.getFileHash(c));
+
+			Files.delete(b);
+			waitFor(events, "delete " + this.root.relativize(b));
+			Assert.assertEquals(count + 2, events.size());
+
+			Files.writeString(this.root.resolve("sub").resolve("ignored.txt"), "still ignored");
+			Files.writeString(this.root.resolve("d.json"), "d");
+			waitFor(events, "create d.json d");
+			Assert.assertFalse(monitor.getFiles().contains(this.root.resolve("sub").resolve("ignored.txt")));
+		} finally
+		{
+			thread.interrupt();
+			thread.join(10_000);
+		}
+
+		Assert.assertFalse(thread.isAlive());
+	}
+
+	/**
+	 * Atomically replace the content of <code>path</code> (a truncated file may be observed by the monitor otherwise)
+	 */
+	private void replace(final Path path, final String content) throws Exception
+	{
+		final Path temporary = workspace.resolve(TestUtils.randomString(16) + ".tmp");
+		Files.writeString(temporary, content);
+		Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void waitFor(final List<String> events, final String event) throws InterruptedException
+	{
+		final long timeout = System.currentTimeMillis() + 10_000;
+		while ((events.isEmpty() || !events.get(events.size() - 1).equals(event)) && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+
+		Assert.assertFalse(events.isEmpty());
+		Assert.assertEquals(event, events.get(events.size() - 1));
+	}
+
+	private static void waitFor(final List<String> events, final int count) throws InterruptedException
+	{
+		final long timeout = System.currentTimeMillis() + 10_000;
+		while (events.size() < count && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+
+		Assert.assertEquals(count, events.size());
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+		workspace = TestUtils.mkdir();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+		TestUtils.delete(workspace);
+	}
+}
@@ -0,0 +1,152 @@
+package io.ortis.jsak.io.file;
+
+import io.ortis.jsak.TestUtils;
+import io.ortis.jsak.io.bytes.Bytes;
+import io.ortis.jsak.io.bytes.XXHash64;
+import org.junit.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class FileContentMonitorTest
+{
+	private static Path workspace;
+	private Path filePath = null;
+
+
+	@Before
+	public void setUp() throws Exception
+	{
+		filePath = workspace.resolve(TestUtils.randomString(16) + ".json");
+		Files.writeString(filePath, "initial");
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testWatch() throws Exception
+	{
+		// no fallback polling: changes can only come from the watch service
+		final FileContentMonitor monitor = new FileContentMonitor(List.of(this.filePath), Duration.ofHours(1), FileContentMonitor.Mode.WATCH,
+				Duration.ofMillis(50), null);
+		testMonitor(monitor);
+	}
+
+	@Test
+	public void testPoll() throws Exception
+	{
+		final FileContentMonitor monitor = new FileContentMonitor(List.of(this.filePath), Duration.ofMillis(100), FileContentMonitor.Mode.POLL,
+				Duration.ZERO, null);
+		testMonitor(monitor);
+	}
+
+	@Test
+	public void testDigest() throws Exception
+	{
+		final FileContentMonitor monitor = new FileContentMonitor(List.of(this.filePath), Duration.ofMillis(100), FileContentMonitor.Mode.POLL,
+				Duration.ZERO, true, null);
+		Assert.assertNull(monitor.getFileContent(this.filePath));
+		Assert.assertEquals(XXHash64.hash("initial".getBytes(StandardCharsets.UTF_8)), monitor.getFileHash(this.filePath));
+
+		final List<String> changes = new CopyOnWriteArrayList<>();
+		monitor.addListener((path, content) -> changes.add(new String(content.toByteArray(), StandardCharsets.UTF_8)));
+
+		final Thread thread = new Thread(monitor);
+		thread.setDaemon(true);
+		thread.start();
+		try
+		{
+			replace("updated");
+			waitFor(changes, "updated");
+			Assert.assertNull(monitor.getFileContent(this.filePath));
+			Assert.assertEquals(XXHash64.hash("updated".getBytes(StandardCharsets.UTF_8)), monitor.getFileHash(this.filePath));
+
+			// same content: metadata changes but not the hash
+			Thread.sleep(50);
+			replace("updated");
+			Thread.sleep(500);
+			Assert.assertEquals(1, changes.size());
+		} finally
+		{
+			thread.interrupt();
+			thread.join(10_000);
+		}
+
+		Assert.assertFalse(thread.isAlive());
+	}
+
+	private void testMonitor(final FileContentMonitor monitor) throws Exception
+	{
+		Assert.assertEquals("initial", new String(monitor.getFileContent(this.filePath).toByteArray(), StandardCharsets.UTF_8));
+
+		final List<String> changes = new CopyOnWriteArrayList<>();
+		monitor.addListener((path, content) -> changes.add(new String(content.toByteArray(), StandardCharsets.UTF_8)));
+
+		final Thread thread = new Thread(monitor);
+		thread.setDaemon(true);
+		thread.start();
+		try
+		{
+			Thread.sleep(200);
+			// burst of writes
+			for (int i = 0; i < 5; i++)
+				Files.writeString(this.filePath, "updated " + i);
+
+			waitFor(changes, "updated 4");
+			Assert.assertEquals(Bytes.wrap("updated 4".getBytes(StandardCharsets.UTF_8)), monitor.getFileContent(this.filePath));
+
+			// replaced by rename
+			final Path temporary = workspace.resolve(TestUtils.randomString(16) + ".tmp");
+			Files.writeString(temporary, "replaced");
+			Files.move(temporary, this.filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			waitFor(changes, "replaced");
+		} finally
+		{
+			thread.interrupt();
+			thread.join(10_000);
+		}
+
+		Assert.assertFalse(thread.isAlive());
+	}
+
+	/**
+	 * Atomically replace the content of the file (a truncated file may be observed by the monitor otherwise)
+	 */
+	private void replace(final String content) throws Exception
+	{
+		final Path temporary = workspace.resolve(TestUtils.randomString(16) + ".tmp");
+		Files.writeString(temporary, content);
+		Files.move(temporary, this.filePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static void waitFor(final List<String> changes, final String content) throws InterruptedException
+	{
+		final long timeout = System.currentTimeMillis() + 10_000;
+		while ((changes.isEmpty() || !changes.get(changes.size() - 1).equals(content)) && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+
+		Assert.assertFalse(changes.isEmpty());
+		Assert.assertEquals(content, changes.get(changes.size() - 1));
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+		workspace = TestUtils.mkdir();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+		TestUtils.delete(workspace);
+	}
+}
@@ -0,0 +1,185 @@
+package io.ortis.jsak.io.file;
+
+import io.ortis.jsak.TestUtils;
+import org.junit.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BooleanSupplier;
+
+public class FileTailerTest
+{
+	private static Path workspace;
+	private Path filePath = null;
+
+
+	@Before
+	public void setUp() throws Exception
+	{
+		filePath = workspace.resolve(TestUtils.randomString(16) + ".log");
+		Files.writeString(filePath, "existing line\n");
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testLines() throws Exception
+	{
+		final FileTailer tailer = new FileTailer(List.of(this.filePath), Duration.ofMillis(20), FileTailer.Mode.LINE, 16, false, null);
+		final List<String> events = new CopyOnWriteArrayList<>();
+		tailer.addListener(new FileTailListener()
+		{
+			@Override
+			public void onLine(final Path path, final String line)
+			{
+				events.add(line);
+			}
+
+			@Override
+			public void onTruncate(final Path path)
+			{
+				events.add("#truncate");
+			}
+
+			@Override
+			public void onRotate(final Path path)
+			{
+				events.add("#rotate");
+			}
+		});
+
+		final Thread thread = new Thread(tailer);
+		thread.setDaemon(true);
+		thread.start();
+		try
+		{
+			append("line 1\r\nline ");
+			waitFor(() -> events.size() == 1);
+			append("2\n0123456789abcdefghij\n");
+			waitFor(() -> events.size() == 4);
+			Assert.assertEquals(List.of("line 1", "line 2", "0123456789abcdef", "ghij"), events);
+
+			// long lines are not split inside a multi-byte character
+			events.clear();
+			append("0123456789abcde\u00e9fgh\n0123456789abcd\uD83D\uDE00xy\n");
+			waitFor(() -> events.size() == 4);
+			Assert.assertEquals(List.of("0123456789abcde", "\u00e9fgh", "0123456789abcd", "\uD83D\uDE00xy"), events);
+
+			// truncation
+			events.clear();
+			Files.writeString(this.filePath, "new\n");
+			waitFor(() -> events.size() == 2);
+			Assert.assertEquals(List.of("#truncate", "new"), events);
+
+			// rotation: the unterminated line of the old file is still notified
+			events.clear();
+			append("last");
+			Files.move(this.filePath, workspace.resolve(TestUtils.randomString(16) + ".log"));
+			Files.writeString(this.filePath, "rotated\n");
+			waitFor(() -> events.size() == 3);
+			Assert.assertEquals(List.of("last", "#rotate", "rotated"), events);
+			Assert.assertEquals("rotated\n".length(), tailer.getPosition(this.filePath));
+		} finally
+		{
+			thread.interrupt();
+			thread.join(10_000);
+		}
+
+		Assert.assertFalse(thread.isAlive());
+	}
+
+	@Test
+	public void testChunks() throws Exception
+	{
+		final FileTailer tailer = new FileTailer(List.of(this.filePath), Duration.ofMillis(20), FileTailer.Mode.CHUNK, 1000, true, null);
+		final ByteArrayOutputStream received = new ByteArrayOutputStream();
+		tailer.addListener(new FileTailListener()
+		{
+			@Override
+			public void onChunk(final Path path, final long position, final ByteBuffer chunk)
+			{
+				synchronized (received)
+				{
+					Assert.assertEquals(received.size(), position);
+					final byte[] bytes = new byte[chunk.remaining()];
+					chunk.get(bytes);
+					received.writeBytes(bytes);
+				}
+			}
+		});
+
+		final Random random = TestUtils.getDeterministicRandom();
+		final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		expected.writeBytes(Files.readAllBytes(this.filePath));
+
+		final Thread thread = new Thread(tailer);
+		thread.setDaemon(true);
+		thread.start();
+		try
+		{
+			for (int i = 0; i < 20; i++)
+			{
+				final byte[] bytes = new byte[random.nextInt(5000)];
+				random.nextBytes(bytes);
+				Files.write(this.filePath, bytes, StandardOpenOption.APPEND);
+				expected.writeBytes(bytes);
+			}
+
+			waitFor(() -> {
+				synchronized (received)
+				{
+					return received.size() >= expected.size();
+				}
+			});
+
+			synchronized (received)
+			{
+				Assert.assertArrayEquals(expected.toByteArray(), received.toByteArray());
+			}
+		} finally
+		{
+			thread.interrupt();
+			thread.join(10_000);
+		}
+
+		Assert.assertFalse(thread.isAlive());
+	}
+
+	private void append(final String s) throws Exception
+	{
+		Files.write(this.filePath, s.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+	}
+
+	private static void waitFor(final BooleanSupplier condition) throws InterruptedException
+	{
+		final long timeout = System.currentTimeMillis() + 10_000;
+		while (!condition.getAsBoolean() && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+
+		Assert.assertTrue(condition.getAsBoolean());
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+		workspace = TestUtils.mkdir();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+		TestUtils.delete(workspace);
+	}
+}
@@ -0,0 +1,207 @@
+package io.ortis.jsak.log;
+
+import org.junit.*;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class DeduplicatingLogListenerTest
+{
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testDeduplicate() throws Exception
+	{
+		final List<LogService.Event> events = new ArrayList<>();
+		final DeduplicatingLogListener listener = new DeduplicatingLogListener(events::add, 3, Duration.ofSeconds(10));
+
+		final long start = 1_000_000_000L;
+		for (int i = 0; i < 100; i++)
+		{// same first line, different stack traces
+			listener.onEvent(event(start + i, "handler", "handle", "Connection refused\n\tat line " + i, new IllegalStateException()));
+			listener.onEvent(event(start + i, "handler", "handle", "Timeout", null));
+		}
+
+		// other exception type
+		listener.onEvent(event(start + 100, "handler", "handle", "Connection refused", new IllegalArgumentException()));
+		// other method
+		listener.onEvent(event(start + 100, "handler", "close", "Connection refused", new IllegalStateException()));
+
+		Assert.assertEquals(3 + 3 + 1 + 1, events.size());
+		Assert.assertEquals(97 * 2, listener.getSuppressedEventCount());
+
+		// next window: summary then forwarded event
+		events.clear();
+		listener.onEvent(event(start + 20_000, "handler", "handle", "Timeout", null));
+		Assert.assertEquals(3, events.size());
+		final List<String> messages = new ArrayList<>();
+		for (final LogService.Event event : events)
+			messages.add(event.getLogRecord().getMessage());
+		Assert.assertTrue(messages.toString(), messages.contains("Suppressed 97 similar events in the last PT20S: Timeout"));
+		Assert.assertTrue(messages.toString(),
+				messages.contains("Suppressed 97 similar events in the last PT20S: Connection refused (java.lang.IllegalStateException)"));
+		Assert.assertEquals("Timeout", messages.get(2));
+		Assert.assertEquals(Level.SEVERE, events.get(0).getLogLevel());
+		Assert.assertEquals("handler", events.get(0).getLoggerName());
+
+		// flush
+		events.clear();
+		for (int i = 0; i < 5; i++)
+			listener.onEvent(event(start + 20_001 + i, "handler", "handle", "Timeout", null));
+		Assert.assertEquals(2, events.size());
+		listener.close();
+		Assert.assertEquals(3, events.size());
+		Assert.assertTrue(events.get(2).getLogRecord().getMessage().startsWith("Suppressed 3 similar events in the last "));
+		Assert.assertTrue(events.get(2).getLogRecord().getMessage().endsWith(": Timeout"));
+	}
+
+	@Test
+	public void testCapacity() throws Exception
+	{
+		final List<LogService.Event> events = new ArrayList<>();
+		final DeduplicatingLogListener listener = new DeduplicatingLogListener(events::add, 1, Duration.ofSeconds(10), 4,
+				LogService.LogRecordFormatter.ONE_LINE_FORMATTER);
+
+		final long start = 1_000_000_000L;
+		for (int i = 0; i < 1000; i++)
+		{
+			listener.onEvent(event(start + i, "logger", "method", "repeated " + (i % 2), null));
+			listener.onEvent(event(start + i, "logger", "method", "unique " + i, null));
+		}
+		listener.close();
+
+		// evicted fingerprints are summarized: no event is lost
+		long forwarded = 0;
+		long summarized = 0;
+		for (final LogService.Event event : events)
+			if (event.getLogRecord().getMessage().startsWith("Suppressed "))
+				summarized += Long.parseLong(event.getLogRecord().getMessage().split(" ")[1]);
+			else
+				forwarded++;
+
+		Assert.assertEquals(listener.getSuppressedEventCount(), summarized);
+		Assert.assertEquals(2000, forwarded + summarized);
+		Assert.assertTrue(forwarded >= 1000);
+	}
+
+	@Test
+	public void testScheduledSummary() throws Exception
+	{
+		final List<LogService.Event> events = new CopyOnWriteArrayList<>();
+		final AtomicReference<DeduplicatingLogListener> reference = new AtomicReference<>();
+		final AtomicBoolean locked = new AtomicBoolean(false);
+		final DeduplicatingLogListener listener = new DeduplicatingLogListener(event -> {
+			if (event.getLogRecord().getMessage().startsWith("Suppressed "))
+			{// the lock of the listener must not be held while forwarding
+				final Thread thread = new Thread(() -> reference.get().getSuppressedEventCount());
+				thread.start();
+				try
+				{
+					thread.join(5_000);
+				} catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				locked.set(thread.isAlive());
+			}
+			events.add(event);
+		}, 1, Duration.ofMillis(100));
+		reference.set(listener);
+
+		// storm that stops: no further event nor flush
+		for (int i = 0; i < 10; i++)
+			listener.onEvent(event(System.currentTimeMillis(), "handler", "handle", "Timeout", null));
+		Assert.assertEquals(1, events.size());
+
+		final long timeout = System.currentTimeMillis() + 10_000;
+		while (events.size() < 2 && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+
+		Assert.assertEquals(2, events.size());
+		Assert.assertTrue(events.get(1).getLogRecord().getMessage(), events.get(1).getLogRecord().getMessage().startsWith("Suppressed 9 similar events"));
+		Assert.assertFalse(locked.get());
+
+		// already summarized
+		listener.close();
+		Assert.assertEquals(2, events.size());
+	}
+
+	@Test
+	public void testScheduledSummaryConcurrency() throws Exception
+	{
+		final AtomicInteger inFlight = new AtomicInteger(0);
+		final AtomicInteger concurrent = new AtomicInteger(0);
+		final AtomicLong forwarded = new AtomicLong(0);
+		final AtomicLong summarized = new AtomicLong(0);
+		final DeduplicatingLogListener listener = new DeduplicatingLogListener(event -> {
+			if (inFlight.incrementAndGet() > 1)
+				concurrent.incrementAndGet();
+			final String message = event.getLogRecord().getMessage();
+			if (message.startsWith("Suppressed "))
+				summarized.addAndGet(Long.parseLong(message.split(" ")[1]));
+			else
+				forwarded.incrementAndGet();
+			Thread.yield();
+			inFlight.decrementAndGet();
+		}, 1, Duration.ofMillis(5));
+
+		// the timer summarizes windows while events keep arriving
+		long published = 0;
+		final long end = System.currentTimeMillis() + 500;
+		while (System.currentTimeMillis() < end)
+		{
+			listener.onEvent(event(System.currentTimeMillis(), "handler", "handle", "Timeout " + (published % 3), null));
+			published++;
+			if (published % 100 == 0)
+				Thread.sleep(1);
+		}
+		listener.close();
+
+		Assert.assertEquals(0, concurrent.get());
+		Assert.assertEquals(published, forwarded.get() + summarized.get());
+		Assert.assertEquals(listener.getSuppressedEventCount(), summarized.get());
+	}
+
+	private static LogService.Event event(final long epochMillis, final String loggerName, final String method, final String message,
+			final Throwable thrown)
+	{
+		final LogRecord record = new LogRecord(Level.SEVERE, message);
+		record.setLoggerName(loggerName);
+		record.setSourceClassName(DeduplicatingLogListenerTest.class.getName());
+		record.setSourceMethodName(method);
+		record.setThrown(thrown);
+		return new LogService.Event(epochMillis, ZoneId.systemDefault(), "main", record, LogService.LogRecordFormatter.ONE_LINE_FORMATTER);
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+
+	}
+}
@@ -0,0 +1,105 @@
+package io.ortis.jsak.log;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.junit.*;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class JsonLogRecordFormatterTest
+{
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testFormat() throws Exception
+	{
+		final String message = "quote \" backslash \\ new\nline tab\t control \u0001 unicode é 😀";
+		final LogRecord record = new LogRecord(Level.SEVERE, message);
+		record.setLoggerName("json");
+		record.setSourceClassName(getClass().getName());
+		record.setSourceMethodName("testFormat");
+		record.setParameters(new Object[]{42, null, "p\"3"});
+		record.setThrown(new IllegalStateException("outer", new IOException("inner \"cause\"")));
+
+		final long epochMillis = OffsetDateTime.of(2024, 1, 31, 12, 30, 45, 123_000_000, ZoneOffset.UTC).toInstant().toEpochMilli();
+		final String json = LogService.LogRecordFormatter.JSON_FORMATTER.format(epochMillis, ZoneId.of("Europe/Paris"), "main", record);
+		Assert.assertFalse(json.contains("\n"));
+
+		final JsonObject jo = JsonParser.parseString(json).getAsJsonObject();
+		Assert.assertEquals("2024-01-31T13:30:45.123+01:00", jo.get("time").getAsString());
+		Assert.assertEquals(epochMillis, OffsetDateTime.parse(jo.get("time").getAsString()).toInstant().toEpochMilli());
+		Assert.assertEquals("2024-01-31T12:30:45.123Z", JsonParser.parseString(
+				LogService.LogRecordFormatter.JSON_FORMATTER.format(epochMillis, ZoneOffset.UTC, "main", record)).getAsJsonObject().get("time")
+				.getAsString());
+
+		// events carry their zone
+		final LogService.Event event = new LogService.Event(epochMillis, ZoneId.of("America/New_York"), "main", record,
+				LogService.LogRecordFormatter.JSON_FORMATTER);
+		Assert.assertEquals("2024-01-31T07:30:45.123-05:00",
+				JsonParser.parseString(event.getFormattedMessage()).getAsJsonObject().get("time").getAsString());
+
+		// local time without zone: no offset
+		final LocalDateTime local = LocalDateTime.of(2024, 1, 31, 12, 30, 45, 123_000_000);
+		Assert.assertEquals("2024-01-31T12:30:45.123", JsonParser.parseString(LogService.LogRecordFormatter.JSON_FORMATTER.format(local, "main",
+				record)).getAsJsonObject().get("time").getAsString());
+		Assert.assertEquals("SEVERE", jo.get("level").getAsString());
+		Assert.assertEquals("json", jo.get("logger").getAsString());
+		Assert.assertEquals("main", jo.get("thread").getAsString());
+		Assert.assertEquals(getClass().getName(), jo.get("class").getAsString());
+		Assert.assertEquals("testFormat", jo.get("method").getAsString());
+		Assert.assertEquals(message, jo.get("message").getAsString());
+
+		final JsonArray parameters = jo.getAsJsonArray("parameters");
+		Assert.assertEquals(3, parameters.size());
+		Assert.assertEquals("42", parameters.get(0).getAsString());
+		Assert.assertTrue(parameters.get(1).isJsonNull());
+		Assert.assertEquals("p\"3", parameters.get(2).getAsString());
+
+		final JsonArray thrown = jo.getAsJsonArray("thrown");
+		Assert.assertEquals(2, thrown.size());
+		Assert.assertEquals(IllegalStateException.class.getName(), thrown.get(0).getAsJsonObject().get("class").getAsString());
+		Assert.assertEquals("outer", thrown.get(0).getAsJsonObject().get("message").getAsString());
+		Assert.assertTrue(thrown.get(0).getAsJsonObject().getAsJsonArray("stack").size() > 0);
+		Assert.assertEquals(IOException.class.getName(), thrown.get(1).getAsJsonObject().get("class").getAsString());
+		Assert.assertEquals("inner \"cause\"", thrown.get(1).getAsJsonObject().get("message").getAsString());
+
+		// optional fields
+		final LogRecord minimal = new LogRecord(Level.INFO, null);
+		final JsonObject jo2 = JsonParser.parseString(LogService.LogRecordFormatter.JSON_FORMATTER.format(LocalDateTime.now(), null, minimal))
+				.getAsJsonObject();
+		Assert.assertTrue(jo2.get("message").isJsonNull());
+		Assert.assertTrue(jo2.get("logger").isJsonNull());
+		Assert.assertFalse(jo2.has("parameters"));
+		Assert.assertFalse(jo2.has("thrown"));
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+
+	}
+}
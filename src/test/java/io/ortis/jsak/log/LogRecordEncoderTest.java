@@ -0,0 +1,115 @@
+package io.ortis.jsak.log;
+
+import io.ortis.jsak.TestUtils;
+import org.junit.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class LogRecordEncoderTest
+{
+	private static final int BASE_TEST_RUNS = 10_000;
+	private static final List<Level> LEVELS = List.of(Level.SEVERE, Level.WARNING, Level.INFO, Level.FINE, Level.FINEST);
+	private static final List<String> MESSAGES = List.of("Hello world !", "", "multi\nline", "accents éèà", "日本語", "emoji 😀",
+			"lone \uD800 surrogate", "end surrogate \uD83D");
+
+	@Before
+	public void setUp() throws Exception
+	{
+
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testEncode()
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final ZoneId zone = ZoneId.of("Europe/Paris");
+		final LogService.LogRecordFormatter[] formatters = {LogService.LogRecordFormatter.ONE_LINE_FORMATTER,
+				LogService.LogRecordFormatter.TWO_LINE_FORMATTER, LogService.LogRecordFormatter.JSON_FORMATTER};
+		final LogRecordEncoder[] encoders = {LogRecordEncoder.oneLine(), LogRecordEncoder.twoLine(), LogRecordEncoder.json()};
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+
+		final int runs = TestUtils.computeTestRuns(BASE_TEST_RUNS);
+		long millis = 1_600_000_000_000L;
+		for (int run = 0; run < runs; run++)
+		{
+			millis += random.nextInt(run % 100 == 0 ? 100_000_000 : 700);
+
+			final LogRecord record = new LogRecord(LEVELS.get(random.nextInt(LEVELS.size())), MESSAGES.get(random.nextInt(MESSAGES.size())));
+			record.setLoggerName(random.nextInt(10) == 0 ? null : "logger" + random.nextInt(3));
+			record.setSourceClassName("io.ortis.jsak.Class" + random.nextInt(3));
+			record.setSourceMethodName("method" + random.nextInt(3));
+			final String threadName = "thread-" + random.nextInt(3);
+
+			for (int f = 0; f < formatters.length; f++)
+			{
+				final LogService.Event deferred = new LogService.Event(millis, zone, threadName, record, formatters[f]);
+				final LocalDateTime time = LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+				final LogService.Event formatted = new LogService.Event(time, threadName, record, formatters[f].format(time, threadName, record));
+
+				// the JSON time of a LocalDateTime has no offset: each event is compared with its own formatted message
+				for (final LogService.Event event : new LogService.Event[]{deferred, formatted})
+				{
+					buffer.clear();
+					Assert.assertTrue(encoders[f].encode(event, buffer));
+					buffer.flip();
+					final byte[] bytes = new byte[buffer.remaining()];
+					buffer.get(bytes);
+
+					Assert.assertArrayEquals(event.getFormattedMessage().getBytes(StandardCharsets.UTF_8), bytes);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOverflow()
+	{
+		final LogRecord record = new LogRecord(Level.INFO, "Hello world ! 😀");
+		record.setLoggerName("logger");
+		record.setSourceClassName("io.ortis.jsak.Class");
+		record.setSourceMethodName("method");
+		final LogService.Event event = new LogService.Event(0, ZoneId.of("UTC"), "thread", record,
+				LogService.LogRecordFormatter.ONE_LINE_FORMATTER);
+		final byte[] expected = event.getFormattedMessage().getBytes(StandardCharsets.UTF_8);
+
+		final LogRecordEncoder encoder = LogRecordEncoder.oneLine();
+		for (int length = 0; length < expected.length; length++)
+		{
+			final ByteBuffer buffer = ByteBuffer.allocate(length + 3);
+			buffer.position(3);
+			Assert.assertFalse(encoder.encode(event, buffer));
+			Assert.assertEquals(3, buffer.position());
+		}
+
+		final ByteBuffer buffer = ByteBuffer.allocate(expected.length);
+		Assert.assertTrue(encoder.encode(event, buffer));
+		Assert.assertArrayEquals(expected, Arrays.copyOf(buffer.array(), buffer.position()));
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass()
+	{
+
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass()
+	{
+
+	}
+}
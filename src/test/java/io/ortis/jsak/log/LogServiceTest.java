@@ -1,7 +1,23 @@
 package io.ortis.jsak.log;
 
+import io.ortis.jsak.log.config.ImmutableLogServiceConfig;
 import org.junit.*;
 
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class LogServiceTest
@@ -47,6 +63,341 @@ public class LogServiceTest
 		Assert.assertSame(logger, logger2);
 	}
 
+	@Test
+	public void testOverflow() throws Exception
+	{
+		// not started: events stay in the queue
+		final LogService dropOldest = new LogService(4, LogService.OverflowPolicy.DROP_OLDEST);
+		final Logger logger = dropOldest.getLogger("overflow-drop-oldest");
+		for (int i = 0; i < 10; i++)
+			logger.info("info");
+		Assert.assertEquals(4, dropOldest.getPendingEventCount());
+		Assert.assertEquals(6, dropOldest.getDroppedEventCount());
+
+		final LogService dropBelowLevel = new LogService(4, LogService.OverflowPolicy.DROP_BELOW_LEVEL).setOverflowLevel(Level.WARNING);
+		final Logger logger2 = dropBelowLevel.getLogger("overflow-drop-below-level");
+		for (int i = 0; i < 10; i++)
+			logger2.info("info");
+		Assert.assertEquals(6, dropBelowLevel.getDroppedEventCount());
+		logger2.severe("severe");
+		Assert.assertEquals(7, dropBelowLevel.getDroppedEventCount());
+		Assert.assertEquals(4, dropBelowLevel.getPendingEventCount());
+
+		final LogService sample = new LogService(4, LogService.OverflowPolicy.SAMPLE).setSampleRate(3);
+		final Logger logger3 = sample.getLogger("overflow-sample");
+		for (int i = 0; i < 10; i++)
+			logger3.info("info");
+		// 6 overflowing events: 2 sampled (each dropping an old one) + 4 dropped
+		Assert.assertEquals(6, sample.getDroppedEventCount());
+		Assert.assertEquals(4, sample.getPendingEventCount());
+	}
+
+	@Test
+	public void testBlock() throws Exception
+	{
+		final LogService logService = new LogService(2, LogService.OverflowPolicy.BLOCK);
+		final AtomicInteger received = new AtomicInteger(0);
+		logService.addListener(event -> {
+			try
+			{
+				Thread.sleep(1);
+			} catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			received.incrementAndGet();
+		});
+		logService.start();
+
+		final Logger logger = logService.getLogger("overflow-block");
+		for (int i = 0; i < 200; i++)
+			logger.info("info");
+
+		final long timeout = System.currentTimeMillis() + 10_000;
+		while (received.get() < 200 && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+
+		Assert.assertEquals(200, received.get());
+		Assert.assertEquals(0, logService.getDroppedEventCount());
+
+		// no dispatch thread to wait for
+		final LogService notStarted = new LogService(2, LogService.OverflowPolicy.BLOCK);
+		final Logger logger2 = notStarted.getLogger("overflow-block-not-started");
+		for (int i = 0; i < 5; i++)
+			logger2.info("info");
+		Assert.assertEquals(2, notStarted.getPendingEventCount());
+		Assert.assertEquals(3, notStarted.getDroppedEventCount());
+	}
+
+	@Test
+	public void testDeferredFormatting() throws Exception
+	{
+		final LogService logService = new LogService().setDeferredFormatting(true).setLogLevel(Level.INFO);
+		final List<LogService.Event> events = new CopyOnWriteArrayList<>();
+		logService.addListener(events::add);
+
+		final Logger logger = logService.getLogger("deferred");
+		logger.fine("fine");
+		Assert.assertEquals(0, logService.getPendingEventCount());
+
+		final Thread thread = new Thread(() -> logger.info("Hello world !"));
+		thread.setName("deferred-publisher");
+		thread.start();
+		thread.join();
+		Assert.assertEquals(1, logService.getPendingEventCount());
+
+		logService.start();
+		final long timeout = System.currentTimeMillis() + 10_000;
+		while (events.isEmpty() && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+
+		Assert.assertEquals(1, events.size());
+		final LogService.Event event = events.get(0);
+		Assert.assertEquals("deferred-publisher", event.getThreadName());
+		Assert.assertTrue(event.getFormattedMessage(), event.getFormattedMessage().startsWith("[INFO] "));
+		Assert.assertTrue(event.getFormattedMessage(), event.getFormattedMessage().contains("|deferred|deferred-publisher|LogServiceTest.lambda$"));
+		Assert.assertTrue(event.getFormattedMessage(), event.getFormattedMessage().endsWith(": Hello world !"));
+		Assert.assertSame(event.getFormattedMessage(), event.getFormattedMessage());
+	}
+
+	@Test
+	public void testClockZone() throws Exception
+	{
+		// a zone that is not the system zone, so that re-zoning with the system zone would be visible
+		final Instant instant = Instant.parse("2024-01-31T12:30:45.123Z");
+		final ZoneId zone = ZoneId.of(ZoneId.systemDefault().getRules().getOffset(instant).equals(ZoneOffset.ofHours(9)) ? "America/New_York"
+				: "Asia/Tokyo");
+		final Clock clock = Clock.fixed(instant, zone);
+		final String expected = OffsetDateTime.ofInstant(instant, zone).format(JsonLogRecordFormatter.TIME_FORMATTER);
+
+		for (final boolean deferred : new boolean[]{false, true})
+		{
+			final LogService logService = new LogService().setClock(clock).setDeferredFormatting(deferred)
+					.setLogRecordFormatter(LogService.LogRecordFormatter.JSON_FORMATTER).setLogLevel(Level.INFO);
+			final List<LogService.Event> events = new CopyOnWriteArrayList<>();
+			logService.addListener(events::add);
+			logService.start();
+			try
+			{
+				logService.getLogger("clock").info("Hello world !");
+				final long timeout = System.currentTimeMillis() + 10_000;
+				while (events.isEmpty() && System.currentTimeMillis() < timeout)
+					Thread.sleep(10);
+
+				Assert.assertEquals(1, events.size());
+				final LogService.Event event = events.get(0);
+				Assert.assertEquals(instant.toEpochMilli(), event.getEpochMillis());
+				Assert.assertEquals(zone, event.getZone());
+				Assert.assertEquals(LocalDateTime.ofInstant(instant, zone), event.getTime());
+				Assert.assertTrue(event.getFormattedMessage(), event.getFormattedMessage().startsWith("{\"time\":\"" + expected + "\","));
+				Assert.assertEquals(instant, OffsetDateTime.parse(expected).toInstant());
+
+				final ByteBuffer buffer = ByteBuffer.allocate(1024);
+				Assert.assertTrue(LogRecordEncoder.json().encode(event, buffer));
+				Assert.assertEquals(event.getFormattedMessage(), new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8));
+			} finally
+			{
+				logService.close();
+			}
+		}
+	}
+
+	@Test
+	public void testLoggerLevels() throws Exception
+	{
+		// not started: events stay in the queue
+		final LogService logService = new LogService().setLogLevel(Level.INFO);
+		final ImmutableLogServiceConfig config = ImmutableLogServiceConfig.of(
+				"{\"level\": \"INFO\", \"outputs\": [], \"loggers\": {\"levels.db\": \"FINE\", \"levels.db.pool\": \"WARNING\"}}", null);
+		Assert.assertEquals(Level.FINE, config.getLoggerLevels().get("levels.db"));
+
+		final Logger query = logService.getLogger("levels.db.query");
+		final Logger pool = logService.getLogger("levels.db.pool");
+		final Logger web = logService.getLogger("levels.web");
+		Assert.assertEquals(Level.INFO, query.getLevel());
+
+		logService.setConfig(config);
+		Assert.assertEquals(Level.FINE, query.getLevel());
+		Assert.assertEquals(Level.WARNING, pool.getLevel());
+		Assert.assertEquals(Level.INFO, web.getLevel());
+		Assert.assertEquals(Level.FINE, logService.getEffectiveLevel("levels.db"));
+		Assert.assertEquals(Level.INFO, logService.getEffectiveLevel("levels"));
+		Assert.assertEquals(Level.INFO, logService.getEffectiveLevel(null));
+
+		query.fine("fine");
+		query.finer("finer");
+		pool.info("info");
+		web.fine("fine");
+		web.info("info");
+		Assert.assertEquals(2, logService.getPendingEventCount());
+
+		// hot reload
+		logService.setLoggerLevel("levels.db", null).setLevel(Level.SEVERE);
+		Assert.assertEquals(Level.SEVERE, query.getLevel());
+		Assert.assertEquals(Level.SEVERE, web.getLevel());
+		Assert.assertEquals(Level.WARNING, pool.getLevel());
+		Assert.assertFalse(query.isLoggable(Level.WARNING));
+		Assert.assertTrue(pool.isLoggable(Level.WARNING));
+
+		// new loggers get their effective level
+		Assert.assertEquals(Level.WARNING, logService.getLogger("levels.db.pool.connection").getLevel());
+	}
+
+	@Test
+	public void testDispatchLanes() throws Exception
+	{
+		final LogService logService = new LogService().enableDispatchLanes(16);
+		final AtomicInteger fast = new AtomicInteger(0);
+		final AtomicInteger slow = new AtomicInteger(0);
+		final AtomicInteger closed = new AtomicInteger(0);
+
+		final LogService.Listener fastListener = event -> fast.incrementAndGet();
+		final CloseableListener slowListener = new CloseableListener()
+		{
+			@Override
+			public void onEvent(final LogService.Event event)
+			{
+				try
+				{
+					Thread.sleep(50);
+				} catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				slow.incrementAndGet();
+			}
+
+			@Override
+			public void close()
+			{
+				closed.incrementAndGet();
+			}
+		};
+		logService.addListener(slowListener).addListener(fastListener).start();
+
+		final Logger logger = logService.getLogger("lanes");
+		for (int i = 0; i < 100; i++)
+		{
+			logger.info("info");
+			Thread.sleep(2);
+		}
+
+		final long timeout = System.currentTimeMillis() + 10_000;
+		while (fast.get() < 100 && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+		Assert.assertEquals(100, fast.get());
+		Assert.assertTrue(slow.get() < 100);
+
+		final List<LogService.LaneMetrics> metrics = logService.getLaneMetrics();
+		Assert.assertEquals(2, metrics.size());
+		Assert.assertSame(slowListener, metrics.get(0).getListener());
+		Assert.assertTrue(metrics.get(0).getDroppedEventCount() > 0);
+		Assert.assertEquals(100, metrics.get(1).getDeliveredEventCount());
+		Assert.assertEquals(0, metrics.get(1).getDroppedEventCount());
+
+		// slow lane drains
+		LogService.LaneMetrics slowMetrics = logService.getLaneMetrics().get(0);
+		while (slowMetrics.getDeliveredEventCount() + slowMetrics.getDroppedEventCount() < 100 && System.currentTimeMillis() < timeout)
+		{
+			Thread.sleep(10);
+			slowMetrics = logService.getLaneMetrics().get(0);
+		}
+		Assert.assertEquals(100, slowMetrics.getDeliveredEventCount() + slowMetrics.getDroppedEventCount());
+		Assert.assertEquals(slow.get(), slowMetrics.getDeliveredEventCount());
+
+		// removed listener is closed once stopped
+		logService.setConfig(new ImmutableLogServiceConfig(Level.ALL, List.of(fastListener)));
+		Assert.assertEquals(1, logService.getLaneMetrics().size());
+		while (closed.get() == 0 && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+		Assert.assertEquals(1, closed.get());
+
+		logService.disableDispatchLanes();
+		Assert.assertTrue(logService.getLaneMetrics().isEmpty());
+		logger.info("info");
+		while (fast.get() < 101 && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+		Assert.assertEquals(101, fast.get());
+	}
+
+	@Test
+	public void testRestartDispatchLanes() throws Exception
+	{
+		final int count = 2000;
+		final AtomicInteger received = new AtomicInteger(0);
+		final AtomicInteger concurrent = new AtomicInteger(0);
+		final AtomicInteger inFlight = new AtomicInteger(0);
+		final LogService.Listener listener = event -> {
+			if (inFlight.incrementAndGet() > 1)
+				concurrent.incrementAndGet();
+			Thread.yield();
+			received.incrementAndGet();
+			inFlight.decrementAndGet();
+		};
+
+		final LogService logService = new LogService().enableDispatchLanes(count).addListener(listener).start();
+		final Logger logger = logService.getLogger("lanes-restart");
+		final Thread publisher = new Thread(() -> {
+			for (int i = 0; i < count; i++)
+				logger.info("info");
+		});
+		publisher.start();
+
+		// move the listener between lanes and direct delivery while events are dispatched
+		for (int i = 0; publisher.isAlive() || i < 10; i++)
+		{
+			if (i % 3 == 2)
+				logService.disableDispatchLanes();
+			else
+				logService.enableDispatchLanes(count);
+		}
+		publisher.join();
+
+		final long timeout = System.currentTimeMillis() + 10_000;
+		while (received.get() < count && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+
+		Assert.assertEquals(count, received.get());
+		Assert.assertEquals(0, concurrent.get());
+		Assert.assertEquals(0, logService.getDroppedEventCount());
+	}
+
+	@Test
+	public void testReconfigureFromLane() throws Exception
+	{
+		final AtomicReference<LogService> reference = new AtomicReference<>();
+		final AtomicInteger received = new AtomicInteger(0);
+		final AtomicBoolean reconfigured = new AtomicBoolean(false);
+		final LogService.Listener listener = event -> {
+			if (received.incrementAndGet() == 1)
+			{// moves the lane of the listener: its own worker must not wait for itself
+				reference.get().disableDispatchLanes();
+				reconfigured.set(true);
+			}
+		};
+
+		final LogService logService = new LogService().enableDispatchLanes(16).addListener(listener).start();
+		reference.set(logService);
+		final Logger logger = logService.getLogger("lanes-reconfigure");
+		logger.info("first");
+
+		long timeout = System.currentTimeMillis() + 10_000;
+		while (!reconfigured.get() && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+		Assert.assertTrue(reconfigured.get());
+		Assert.assertTrue(logService.getLaneMetrics().isEmpty());
+
+		logger.info("second");
+		timeout = System.currentTimeMillis() + 10_000;
+		while (received.get() < 2 && System.currentTimeMillis() < timeout)
+			Thread.sleep(10);
+		Assert.assertEquals(2, received.get());
+	}
+
+	private interface CloseableListener extends LogService.Listener, Closeable
+	{
+	}
+
 	@BeforeClass
 	public static void setUpBeforeClass()
 	{
@@ -0,0 +1,166 @@
+package io.ortis.jsak.log.output;
+
+import io.ortis.jsak.TestUtils;
+import io.ortis.jsak.log.LogService;
+import org.junit.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class BinaryLogFileTest
+{
+	private static Path workspace;
+	private Path logFilePath = null;
+
+
+	@Before
+	public void setUp() throws Exception
+	{
+		logFilePath = workspace.resolve(TestUtils.randomString(16) + ".blog");
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testWriteAndDecode() throws Exception
+	{
+		final Random random = TestUtils.getDeterministicRandom();
+		final BinaryLogFile logFile = new BinaryLogFile(this.logFilePath, BinaryLogFile.MIN_SEGMENT_SIZE);
+		final Level[] levels = {Level.FINE, Level.INFO, Level.WARNING, Level.SEVERE};
+
+		final List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 200; i++)
+		{
+			final LogRecord record = new LogRecord(levels[random.nextInt(levels.length)],
+					i % 7 == 0 ? null : TestUtils.randomString(1 + random.nextInt(i % 10 == 0 ? 300 : 30)) + " é ✓ 😀");
+			record.setLoggerName(i % 3 == 0 ? null : "logger-" + (i % 4));
+			record.setSourceClassName(getClass().getName());
+			record.setSourceMethodName("testWriteAndDecode");
+			final LogService.Event event = new LogService.Event(System.currentTimeMillis() + i, ZoneId.systemDefault(), "thread-" + (i % 2), record,
+					LogService.LogRecordFormatter.ONE_LINE_FORMATTER);
+
+			logFile.onEvent(event);
+			expected.add(event.getFormattedMessage());
+		}
+		logFile.close();
+
+		final List<Path> segments = logFile.getSegments();
+		Assert.assertTrue(segments.size() > 1);
+		for (final Path segment : segments)
+			Assert.assertTrue(Files.size(segment) <= BinaryLogFile.MIN_SEGMENT_SIZE);
+
+		final List<String> actual = new ArrayList<>();
+		for (final Path segment : segments)
+			BinaryLogDecoder.decode(segment, LogService.LogRecordFormatter.ONE_LINE_FORMATTER, event -> actual.add(event.getFormattedMessage()));
+
+		Assert.assertEquals(expected, actual);
+	}
+
+	@Test
+	public void testLargeEvent() throws Exception
+	{
+		final BinaryLogFile logFile = new BinaryLogFile(this.logFilePath, BinaryLogFile.MIN_SEGMENT_SIZE);
+		final String message = TestUtils.randomString(BinaryLogFile.MIN_SEGMENT_SIZE * 2);
+
+		logFile.onEvent(new LogService.Event(System.currentTimeMillis(), ZoneId.systemDefault(), "main", new LogRecord(Level.INFO, "small"), null));
+		logFile.onEvent(new LogService.Event(System.currentTimeMillis(), ZoneId.systemDefault(), "main", new LogRecord(Level.INFO, message), null));
+		logFile.onEvent(new LogService.Event(System.currentTimeMillis(), ZoneId.systemDefault(), "main", new LogRecord(Level.INFO, "small"), null));
+		logFile.close();
+
+		final List<String> messages = new ArrayList<>();
+		for (final Path segment : logFile.getSegments())
+			BinaryLogDecoder.decode(segment, null, event -> messages.add(event.getLogRecord().getMessage()));
+
+		Assert.assertEquals(3, messages.size());
+		Assert.assertEquals("small", messages.get(0));
+		Assert.assertTrue(message.startsWith(messages.get(1)));
+		Assert.assertFalse(messages.get(1).isEmpty());
+		Assert.assertEquals("small", messages.get(2));
+	}
+
+	@Test
+	public void testReopen() throws Exception
+	{
+		final LogRecord record = new LogRecord(Level.INFO, "Hello world !");
+		BinaryLogFile logFile = new BinaryLogFile(this.logFilePath);
+		logFile.onEvent(new LogService.Event(System.currentTimeMillis(), ZoneId.systemDefault(), "main", record, null));
+		logFile.close();
+
+		// new instance continues after existing segments
+		logFile = new BinaryLogFile(this.logFilePath);
+		logFile.onEvent(new LogService.Event(System.currentTimeMillis(), ZoneId.systemDefault(), "main", record, null));
+		logFile.close();
+
+		Assert.assertEquals(2, logFile.getSegments().size());
+		for (final Path segment : logFile.getSegments())
+		{
+			final List<LogService.Event> events = new ArrayList<>();
+			BinaryLogDecoder.decode(segment, null, events::add);
+			Assert.assertEquals(1, events.size());
+			Assert.assertEquals("Hello world !", events.get(0).getLogRecord().getMessage());
+			Assert.assertEquals(Level.INFO, events.get(0).getLogLevel());
+			Assert.assertEquals("main", events.get(0).getThreadName());
+		}
+	}
+
+	@Test
+	public void testTruncated() throws Exception
+	{
+		final BinaryLogFile logFile = new BinaryLogFile(this.logFilePath);
+		for (int i = 0; i < 3; i++)
+			logFile.onEvent(new LogService.Event(System.currentTimeMillis(), ZoneId.systemDefault(), "main", new LogRecord(Level.INFO, "message " + i),
+					null));
+
+		// crash: the segment is neither terminated nor truncated
+		final Path crashed = workspace.resolve(TestUtils.randomString(16) + ".blog.000000");
+		Files.copy(logFile.getSegments().get(0), crashed);
+		logFile.close();
+		Assert.assertEquals(List.of("message 0", "message 1", "message 2"), decode(crashed));
+
+		// event record interrupted after its type byte
+		final byte[] bytes = Files.readAllBytes(crashed);
+		int end = bytes.length;
+		while (bytes[end - 1] == 0)
+			end--;
+		bytes[end] = BinaryLogFile.EVENT;
+		Files.write(crashed, bytes);
+		Assert.assertEquals(List.of("message 0", "message 1", "message 2"), decode(crashed));
+
+		// last record cut short
+		Files.write(crashed, Arrays.copyOf(bytes, end - 3));
+		Assert.assertEquals(List.of("message 0", "message 1"), decode(crashed));
+
+		Files.write(crashed, Arrays.copyOf(bytes, end + 5));
+		Assert.assertEquals(List.of("message 0", "message 1", "message 2"), decode(crashed));
+	}
+
+	private static List<String> decode(final Path segment) throws Exception
+	{
+		final List<String> messages = new ArrayList<>();
+		BinaryLogDecoder.decode(segment, null, event -> messages.add(event.getLogRecord().getMessage()));
+		return messages;
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+		workspace = TestUtils.mkdir();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+		TestUtils.delete(workspace);
+	}
+}
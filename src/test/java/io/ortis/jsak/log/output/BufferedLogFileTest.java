@@ -0,0 +1,134 @@
+package io.ortis.jsak.log.output;
+
+import io.ortis.jsak.TestUtils;
+import io.ortis.jsak.log.LogRecordEncoder;
+import io.ortis.jsak.log.LogService;
+import org.junit.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class BufferedLogFileTest
+{
+	private static Path workspace;
+	private Path logFilePath = null;
+
+
+	@Before
+	public void setUp() throws Exception
+	{
+		logFilePath = workspace.resolve(TestUtils.randomString(16) + ".log");
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testWrite() throws Exception
+	{
+		final BufferedLogFile logFile = new BufferedLogFile(this.logFilePath, 1000L, null, 1024, Duration.ofMillis(200));
+
+		Assert.assertFalse(Files.exists(this.logFilePath));
+
+		logFile.onEvent(new LogService.Event(LocalDateTime.now(), new LogRecord(Level.INFO, "Hello world !"), "Hello world !"));
+
+		Assert.assertTrue(Files.exists(this.logFilePath));
+		Assert.assertEquals(14, logFile.getFileSize());
+
+		// flushed after interval
+		Thread.sleep(1000);
+		Assert.assertEquals("Hello world !\n", Files.readString(this.logFilePath));
+
+		logFile.onEvent(new LogService.Event(LocalDateTime.now(), new LogRecord(Level.INFO, "Hello world !"), "Hello world !"));
+		logFile.close();
+		Assert.assertEquals("Hello world !\nHello world !\n", Files.readString(this.logFilePath));
+
+		// reopen
+		logFile.onEvent(new LogService.Event(LocalDateTime.now(), new LogRecord(Level.INFO, "Hello world !"), "Hello world !"));
+		Assert.assertEquals(42, logFile.getFileSize());
+		logFile.flush();
+		Assert.assertEquals(42, Files.size(this.logFilePath));
+		logFile.close();
+	}
+
+	@Test
+	public void testLargeEvent() throws Exception
+	{
+		final BufferedLogFile logFile = new BufferedLogFile(this.logFilePath, null, null, 16, Duration.ofMinutes(1));
+		final String message = TestUtils.randomString(100);
+
+		logFile.onEvent(new LogService.Event(LocalDateTime.now(), new LogRecord(Level.INFO, "small"), "small"));
+		logFile.onEvent(new LogService.Event(LocalDateTime.now(), new LogRecord(Level.INFO, message), message));
+		logFile.onEvent(new LogService.Event(LocalDateTime.now(), new LogRecord(Level.INFO, "small"), "small"));
+		logFile.close();
+
+		Assert.assertEquals("small\n" + message + "\nsmall\n", Files.readString(this.logFilePath));
+	}
+
+	@Test
+	public void testEncoder() throws Exception
+	{
+		final BufferedLogFile logFile = new BufferedLogFile(this.logFilePath, null, null, 128, Duration.ofMinutes(1), LogRecordEncoder.oneLine());
+
+		final StringBuilder expected = new StringBuilder();
+		for (int i = 0; i < 20; i++)
+		{
+			final String message = TestUtils.randomString(i % 5 == 0 ? 300 : 10) + " é";
+			final LogRecord record = new LogRecord(Level.INFO, message);
+			record.setLoggerName("logger");
+			record.setSourceClassName(getClass().getName());
+			record.setSourceMethodName("testEncoder");
+			final LogService.Event event = new LogService.Event(System.currentTimeMillis(), ZoneId.systemDefault(), "main", record,
+					LogService.LogRecordFormatter.ONE_LINE_FORMATTER);
+
+			logFile.onEvent(event);
+			expected.append(event.getFormattedMessage()).append("\n");
+		}
+
+		Assert.assertEquals(expected.toString().getBytes(StandardCharsets.UTF_8).length, logFile.getFileSize());
+		logFile.close();
+		Assert.assertEquals(expected.toString(), Files.readString(this.logFilePath));
+	}
+
+	@Test
+	public void testMaxSize() throws Exception
+	{
+		final long maxSize = 50;
+		final BufferedLogFile logFile = new BufferedLogFile(this.logFilePath, maxSize, null);
+
+		final long fileCount = Files.walk(workspace).count();
+
+		for (int i = 0; i < 4; i++)
+			logFile.onEvent(new LogService.Event(LocalDateTime.now(), new LogRecord(Level.INFO, "Hello world !"), "Hello world !"));
+
+		// 4 * 14 bytes >= max size
+		Assert.assertEquals(0, logFile.getFileSize());
+		Assert.assertEquals(fileCount + 1, Files.walk(workspace).count());
+
+		logFile.onEvent(new LogService.Event(LocalDateTime.now(), new LogRecord(Level.INFO, "Hello world !"), "Hello world !"));
+		logFile.close();
+		Assert.assertEquals(fileCount + 2, Files.walk(workspace).count());
+		Assert.assertEquals("Hello world !\n", Files.readString(this.logFilePath));
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+		workspace = TestUtils.mkdir();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+		TestUtils.delete(workspace);
+	}
+}
@@ -0,0 +1,128 @@
+package io.ortis.jsak.log.output;
+
+import io.ortis.jsak.TestUtils;
+import io.ortis.jsak.io.Compression;
+import io.ortis.jsak.log.LogService;
+import org.junit.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class LogArchiverTest
+{
+	private static Path workspace;
+	private Path logFilePath = null;
+
+
+	@Before
+	public void setUp() throws Exception
+	{
+		logFilePath = workspace.resolve(TestUtils.randomString(16) + ".log");
+	}
+
+	@After
+	public void tearDown() throws Exception
+	{
+
+	}
+
+	@Test
+	public void testCompression() throws Exception
+	{
+		final LogArchiver archiver = new LogArchiver(Compression.getCodec("gzip"), null, null, null);
+		final String content = "Hello world !\n".repeat(100);
+
+		for (int i = 0; i < 3; i++)
+		{// same millisecond archives get a counter
+			Files.writeString(this.logFilePath, content);
+			archiver.archive(this.logFilePath).get(10, TimeUnit.SECONDS);
+		}
+
+		Assert.assertFalse(Files.exists(this.logFilePath));
+		final List<Path> archives = LogArchiver.getArchives(this.logFilePath);
+		Assert.assertEquals(3, archives.size());
+		for (final Path archive : archives)
+		{
+			Assert.assertTrue(archive.getFileName().toString().endsWith(".gz"));
+
+			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			Compression.inflate(archiver.getCodec(), Files.newInputStream(archive), new byte[1024], baos);
+			Assert.assertEquals(content, baos.toString());
+		}
+	}
+
+	@Test
+	public void testRetention() throws Exception
+	{
+		// old archive
+		final Path old = workspace.resolve(
+				this.logFilePath.getFileName() + "." + LogFile.DATE_TIME_FORMATTER.format(LocalDateTime.now().minusDays(10)) + ".gz");
+		Files.writeString(old, "old");
+		final Path other = Files.writeString(workspace.resolve(this.logFilePath.getFileName() + ".other"), "other");
+
+		final LogArchiver ageArchiver = new LogArchiver(null, null, null, Duration.ofDays(1));
+		Files.writeString(this.logFilePath, "Hello world !\n");
+		ageArchiver.archive(this.logFilePath).get(10, TimeUnit.SECONDS);
+		Assert.assertFalse(Files.exists(old));
+		Assert.assertEquals(1, LogArchiver.getArchives(this.logFilePath).size());
+
+		final LogArchiver countArchiver = new LogArchiver(null, 2, null, null);
+		for (int i = 0; i < 4; i++)
+		{
+			Files.writeString(this.logFilePath, "Hello world !\n");
+			countArchiver.archive(this.logFilePath).get(10, TimeUnit.SECONDS);
+		}
+		final List<Path> archives = LogArchiver.getArchives(this.logFilePath);
+		Assert.assertEquals(2, archives.size());
+
+		final LogArchiver sizeArchiver = new LogArchiver(null, null, 14 * 3L, null);
+		for (int i = 0; i < 4; i++)
+		{
+			Files.writeString(this.logFilePath, "Hello world !\n");
+			sizeArchiver.archive(this.logFilePath).get(10, TimeUnit.SECONDS);
+		}
+		Assert.assertEquals(3, LogArchiver.getArchives(this.logFilePath).size());
+		// newest archives are kept
+		Assert.assertTrue(LogArchiver.getArchives(this.logFilePath).stream().noneMatch(archives::contains));
+
+		// other files are ignored
+		Assert.assertTrue(Files.exists(other));
+	}
+
+	@Test
+	public void testLogFile() throws Exception
+	{
+		final long maxSize = 50;
+		final LogFile logFile = new LogFile(this.logFilePath, maxSize, null, new LogArchiver(Compression.getCodec("gzip"), 2, null, null));
+
+		for (int i = 0; i < 20; i++)
+			logFile.onEvent(new LogService.Event(LocalDateTime.now(), new LogRecord(Level.INFO, "Hello world !"), "Hello world !"));
+
+		// wait for the background work
+		new LogArchiver(null, null, null, null).archive(Files.writeString(workspace.resolve("sync.log"), "")).get(10, TimeUnit.SECONDS);
+
+		final List<Path> archives = LogArchiver.getArchives(this.logFilePath);
+		Assert.assertEquals(2, archives.size());
+		for (final Path archive : archives)
+			Assert.assertTrue(archive.getFileName().toString().endsWith(".gz"));
+	}
+
+	@BeforeClass
+	public static void setUpBeforeClass() throws Exception
+	{
+		workspace = TestUtils.mkdir();
+	}
+
+	@AfterClass
+	public static void tearDownAfterClass() throws Exception
+	{
+		TestUtils.delete(workspace);
+	}
+}